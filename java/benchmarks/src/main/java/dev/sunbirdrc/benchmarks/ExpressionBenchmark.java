@@ -0,0 +1,101 @@
+package dev.sunbirdrc.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.DocumentContext;
+import dev.sunbirdrc.registry.middleware.service.ConditionResolverService;
+import dev.sunbirdrc.views.FieldFunction;
+import dev.sunbirdrc.views.FunctionEvaluator;
+import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.MapContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The view template functions evaluated on every read and the attestation conditions checked on
+ * every claim. The *Uncached benchmarks parse the expression on every call, as was done before
+ * the expressions were cached; conditions are cached before the values of the attestor are bound. Run with -prof gc to compare the allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+    private static final String FUNCTION = "arg1 + \", \" + arg2";
+    private static final List<Object> FUNCTION_ARGS = Arrays.asList("Doe", "John");
+    private static final String[] CONDITIONS = {
+            "ATTESTOR#$.experience.[*].institute#.contains('Mary school')",
+            "ATTESTOR#$.experience[?(@.institute == 'Mary school')]['role'][*]#.contains('hod')"
+    };
+    private static final String ATTESTOR = "{\"experience\": ["
+            + "{\"institute\": \"Mary school\", \"role\": [\"hod\", \"admin\"]}, "
+            + "{\"institute\": \"ABC institute of school\", \"role\": [\"teacher\"]}]}";
+
+    private final JexlEngine jexl = new JexlEngine();
+    private ConditionResolverService conditionResolverService;
+    private JsonNode attestor;
+    private DocumentContext attestorContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        // the resolver logs every condition at info, which would be measured too
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConditionResolverService.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        conditionResolverService = new ConditionResolverService();
+        attestor = Payloads.objectMapper().readTree(ATTESTOR);
+        attestorContext = conditionResolverService.parse(attestor);
+    }
+
+    @Benchmark
+    public Object evaluateFunction() {
+        FieldFunction function = new FieldFunction(FUNCTION);
+        function.setArgValues(FUNCTION_ARGS);
+        return new FunctionEvaluator(function).evaluate();
+    }
+
+    @Benchmark
+    public Object evaluateFunctionUncached() {
+        MapContext context = new MapContext();
+        context.set("arg1", FUNCTION_ARGS.get(0));
+        context.set("arg2", FUNCTION_ARGS.get(1));
+        return jexl.createExpression(FUNCTION).evaluate(context);
+    }
+
+    // the condition is parsed once, the values of the attestor are bound to it
+    @Benchmark
+    public boolean evaluateCondition() {
+        return conditionResolverService.evaluate(attestorContext, "ATTESTOR", CONDITIONS[1]);
+    }
+
+    @Benchmark
+    public Boolean evaluateConditionUncached() {
+        String resolvedCondition = conditionResolverService.resolve(attestorContext, "ATTESTOR", CONDITIONS[1],
+                Collections.emptyList());
+        return new SpelExpressionParser().parseExpression(resolvedCondition).getValue(Boolean.class);
+    }
+
+    // the attestor is parsed once for all the conditions
+    @Benchmark
+    public void resolveConditions(Blackhole blackhole) {
+        DocumentContext attestorContext = conditionResolverService.parse(attestor);
+        for (String condition : CONDITIONS) {
+            blackhole.consume(conditionResolverService.resolve(attestorContext, "ATTESTOR", condition, Collections.emptyList()));
+        }
+    }
+
+    // the attestor is parsed again for every condition
+    @Benchmark
+    public void resolveConditionsReparsed(Blackhole blackhole) {
+        for (String condition : CONDITIONS) {
+            blackhole.consume(conditionResolverService.resolve(attestor, "ATTESTOR", condition, Collections.emptyList()));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.sunbirdrc.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.registry.dao.VertexReader;
+import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.TinkerGraphProvider;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads a Schema record on an in-memory TinkerGraph
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphBenchmark {
+    private static final String UUID_PROPERTY_NAME = "osid";
+
+    private DatabaseProvider databaseProvider;
+    private Graph graph;
+    private DefinitionsManager definitionsManager;
+    private ObjectNode record;
+    private String osid;
+
+    // a fresh graph per iteration so that writes do not slow down as the graph grows
+    @Setup(Level.Iteration)
+    public void setUp() {
+        databaseProvider = new TinkerGraphProvider(new StandardEnvironment());
+        graph = databaseProvider.getOSGraph().getGraphStore();
+        definitionsManager = new DefinitionsManager();
+        record = Payloads.schemaRecord();
+        osid = new VertexWriter(graph, databaseProvider, UUID_PROPERTY_NAME).writeNodeEntity(record.deepCopy());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        graph.close();
+    }
+
+    @Benchmark
+    public String writeNodeEntity() {
+        return new VertexWriter(graph, databaseProvider, UUID_PROPERTY_NAME).writeNodeEntity(record.deepCopy());
+    }
+
+    @Benchmark
+    public JsonNode read() throws Exception {
+        return new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getDefault(), UUID_PROPERTY_NAME,
+                definitionsManager).read(Payloads.ENTITY_TYPE, osid);
+    }
+}
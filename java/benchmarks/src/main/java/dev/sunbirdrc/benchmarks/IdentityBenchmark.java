@@ -0,0 +1,41 @@
+package dev.sunbirdrc.benchmarks;
+
+import dev.sunbirdrc.registry.util.RecordIdentifier;
+import dev.healthflow.registry.validators.ArabicNameNormalizer;
+import dev.healthflow.registry.validators.EgyptNationalIdValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name matching, national id validation and record id parsing, done for every record
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IdentityBenchmark {
+
+    @Benchmark
+    public void calculateNameSimilarity(Blackhole blackhole) {
+        for (String[] pair : Payloads.NAME_PAIRS) {
+            blackhole.consume(ArabicNameNormalizer.calculateNameSimilarity(pair[0], pair[1]));
+        }
+    }
+
+    @Benchmark
+    public void validateNationalId(Blackhole blackhole) {
+        for (String nationalId : Payloads.NATIONAL_IDS) {
+            blackhole.consume(EgyptNationalIdValidator.validate(nationalId));
+        }
+    }
+
+    @Benchmark
+    public void parseRecordIdentifier(Blackhole blackhole) {
+        blackhole.consume(RecordIdentifier.parse(Payloads.RECORD_ID));
+        blackhole.consume(RecordIdentifier.parse(Payloads.UUID));
+    }
+}
@@ -0,0 +1,71 @@
+package dev.sunbirdrc.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.registry.middleware.util.JSONUtil;
+import dev.sunbirdrc.validators.json.jsonschema.JsonValidationServiceImpl;
+import dev.sunbirdrc.views.ViewTemplate;
+import dev.sunbirdrc.views.ViewTransformer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JSON processing done on every add, update and read of a Schema record
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    private static final List<String> IGNORE_FIELDS = Arrays.asList("osid", "osCreatedAt", "osCreatedBy");
+
+    private ObjectNode existing;
+    private ObjectNode updated;
+    private String recordString;
+    private JsonValidationServiceImpl validationService;
+    private ViewTransformer viewTransformer;
+    private ViewTemplate viewTemplate;
+
+    @Setup
+    public void setUp() throws Exception {
+        existing = Payloads.schemaRecord();
+        updated = Payloads.updatedSchemaRecord();
+        recordString = existing.toString();
+
+        validationService = new JsonValidationServiceImpl("http://localhost:8081/_schemas/");
+        validationService.addDefinitions(Payloads.ENTITY_TYPE, Payloads.schemaDefinition());
+        // loads and caches the schema, as happens on the first request
+        validationService.validate(Payloads.ENTITY_TYPE, recordString, false);
+
+        viewTransformer = new ViewTransformer();
+        viewTemplate = Payloads.objectMapper().treeToValue(Payloads.readJson("schema_vt.json"), ViewTemplate.class);
+    }
+
+    @Benchmark
+    public ObjectNode merge() {
+        ObjectNode result = existing.deepCopy();
+        JSONUtil.merge("/" + Payloads.ENTITY_TYPE, result, (ObjectNode) updated.get(Payloads.ENTITY_TYPE), IGNORE_FIELDS);
+        return result;
+    }
+
+    @Benchmark
+    public JsonNode diffJsonNode() {
+        return JSONUtil.diffJsonNode(existing, updated);
+    }
+
+    @Benchmark
+    public String validate() throws Exception {
+        validationService.validate(Payloads.ENTITY_TYPE, recordString, false);
+        return recordString;
+    }
+
+    @Benchmark
+    public JsonNode transform() throws Exception {
+        return viewTransformer.transform(viewTemplate, existing);
+    }
+}
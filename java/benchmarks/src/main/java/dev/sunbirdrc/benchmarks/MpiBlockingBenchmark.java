@@ -0,0 +1,132 @@
+package dev.sunbirdrc.benchmarks;
+
+import dev.healthflow.registry.validators.ArabicNameNormalizer;
+import dev.sunbirdrc.registry.util.MpiBlockingIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking for the duplicates of a patient in a synthetic corpus of Arabic names with national
+ * ids, scoring only the patients of the MPI blocking index candidate set against scoring every
+ * patient. The mean candidate set size is printed once the index is built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MpiBlockingBenchmark {
+    private static final String[] MALE_NAMES = {
+            "محمد", "أحمد", "محمود", "مصطفى", "علي", "حسن", "حسين", "إبراهيم", "يوسف", "عمر",
+            "خالد", "طارق", "كريم", "عمرو", "سامح", "هشام", "وليد", "ياسر", "شريف", "عادل",
+            "أيمن", "أشرف", "جمال", "حازم", "رامي", "سعيد", "صلاح", "عصام", "فتحي", "ماجد",
+            "مجدي", "نبيل", "هاني", "وائل", "إسلام", "أنور", "بهاء", "ثروت", "زياد", "مراد"
+    };
+    private static final String[] FEMALE_NAMES = {
+            "فاطمة", "مريم", "نور", "سارة", "هدى", "منى", "أسماء", "زينب", "إيمان", "ياسمين",
+            "رانيا", "دينا", "هبة", "نادية", "سلمى", "آية", "شيماء", "ريم", "أمل", "سمر",
+            "بسمة", "جميلة", "حنان", "خديجة", "دعاء", "رحاب", "سعاد", "عبير", "ليلى", "نهى"
+    };
+    private static final String[] FAMILY_NAMES = {
+            "عبد الرحمن", "عبد الله", "السيد", "الشريف", "المصري", "النجار", "الحداد", "عثمان",
+            "سليمان", "منصور", "رمضان", "شعبان", "عبد العزيز", "الجمال", "فؤاد", "زكي", "صالح",
+            "بكر", "عوض", "حمدي", "فهمي", "رشاد", "جاد", "سالم", "غنيم", "قاسم", "درويش", "مرسي",
+            "الشافعي", "البنا", "عبد الحميد", "الطوخي", "الفقي", "الخولي", "حجازي", "شاهين"
+    };
+    private static final String[] GOVERNORATE_CODES = {
+            "01", "02", "03", "04", "11", "12", "13", "14", "15", "16", "17", "18", "19", "21", "22",
+            "23", "24", "25", "26", "27", "28", "29", "31", "32", "33", "34", "35", "88"
+    };
+    private static final int QUERIES = 256;
+
+    @Param({"1000000"})
+    private int corpusSize;
+
+    private String[] names;
+    private MpiBlockingIndex index;
+    private String[] queryNames;
+    private String[] queryNationalIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        names = new String[corpusSize];
+        String[] nationalIds = new String[corpusSize];
+        index = new MpiBlockingIndex(0.85, 20);
+        for (int i = 0; i < corpusSize; i++) {
+            String[] givenNames = random.nextBoolean() ? MALE_NAMES : FEMALE_NAMES;
+            // given, father, grandfather and family name
+            names[i] = givenNames[random.nextInt(givenNames.length)] + " "
+                    + MALE_NAMES[random.nextInt(MALE_NAMES.length)] + " "
+                    + MALE_NAMES[random.nextInt(MALE_NAMES.length)] + " "
+                    + FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)];
+            nationalIds[i] = nationalId(random);
+            index.put(Integer.toString(i), names[i], nationalIds[i]);
+        }
+
+        // the same patients registered again with another spelling
+        queryNames = new String[QUERIES];
+        queryNationalIds = new String[QUERIES];
+        long blocked = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            int patient = random.nextInt(corpusSize);
+            queryNames[i] = respell(names[patient]);
+            queryNationalIds[i] = nationalIds[patient];
+            blocked += index.getBlockedIds(queryNames[i], queryNationalIds[i]).size();
+        }
+        System.out.printf("%nMPI blocking: %d patients in %d blocks, mean candidate set %.1f (%.4f%% of the corpus)%n",
+                index.size(), index.getBlockCount(), (double) blocked / QUERIES, 100.0 * blocked / QUERIES / corpusSize);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<MpiBlockingIndex.Candidate> findCandidates() {
+        int query = next++ % QUERIES;
+        return index.findCandidates(queryNames[query], queryNationalIds[query]);
+    }
+
+    // what finding duplicates costs without blocking
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1, time = 10)
+    @Measurement(iterations = 3, time = 10)
+    public void fullScan(Blackhole blackhole) {
+        String queryName = queryNames[next++ % QUERIES];
+        for (String name : names) {
+            blackhole.consume(ArabicNameNormalizer.calculateNameSimilarity(queryName, name));
+        }
+    }
+
+    /**
+     * A national id of a random birth date and governorate, with a valid Luhn check digit
+     */
+    private static String nationalId(Random random) {
+        int year = 1940 + random.nextInt(80);
+        StringBuilder nationalId = new StringBuilder()
+                .append(year < 2000 ? '2' : '3')
+                .append(String.format("%02d%02d%02d", year % 100, 1 + random.nextInt(12), 1 + random.nextInt(28)))
+                .append(GOVERNORATE_CODES[random.nextInt(GOVERNORATE_CODES.length)])
+                .append(String.format("%04d", random.nextInt(10000)));
+        int sum = 0;
+        for (int i = nationalId.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = nationalId.charAt(i) - '0';
+            if (position % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return nationalId.append((10 - sum % 10) % 10).toString();
+    }
+
+    private static String respell(String name) {
+        return name.replace('ة', 'ه').replace('أ', 'ا').replace("عبد ال", "عبدال");
+    }
+}
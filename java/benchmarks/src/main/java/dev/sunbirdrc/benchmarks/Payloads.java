@@ -0,0 +1,93 @@
+package dev.sunbirdrc.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed payloads shared by the benchmarks. The records are Schema entities as stored by the
+ * registry, holding the internal Schema definition (internal/_schemas/Schema.json) itself.
+ */
+final class Payloads {
+    static final String ENTITY_TYPE = "Schema";
+    static final String SCHEMA_RESOURCE = "internal/_schemas/Schema.json";
+
+    static final String RECORD_ID = "1-cf1d4cde-0bd6-4b2c-9f4d-4a9e2d6f5c11";
+    static final String UUID = "cf1d4cde-0bd6-4b2c-9f4d-4a9e2d6f5c11";
+
+    static final String[][] NAME_PAIRS = {
+            {"محمد أحمد عبد الرحمن", "محمد احمد عبدالرحمن"},
+            {"Mohamed Ahmed Abdel Rahman", "Mohammed Ahmad Abdelrahman"},
+            {"فاطمة الزهراء محمود", "فاطمه الزهراء محمود"},
+            {"Fatma El Zahraa Mahmoud", "Fatima Al Zahra Mahmoud"}
+    };
+    static final String[] NATIONAL_IDS = {"29001010112345", "30506152118725"};
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String schemaDefinition = readResource(SCHEMA_RESOURCE);
+
+    private Payloads() {
+    }
+
+    static ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * The Schema definition as found in internal/_schemas
+     */
+    static String schemaDefinition() {
+        return schemaDefinition;
+    }
+
+    /**
+     * A Schema record as created through the registry
+     */
+    static ObjectNode schemaRecord() {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.putObject(ENTITY_TYPE)
+                .put("name", "Schema")
+                .put("description", "Schema of the registry schemas")
+                .put("schema", schemaDefinition)
+                .put("osCreatedAt", "2022-06-01T10:15:30.000Z")
+                .put("osCreatedBy", "admin");
+        return record;
+    }
+
+    /**
+     * The Schema record after an update of its description and an added role
+     */
+    static ObjectNode updatedSchemaRecord() {
+        ObjectNode record = schemaRecord();
+        ((ObjectNode) record.get(ENTITY_TYPE))
+                .put("description", "Internal schema of the registry schemas")
+                .put("osUpdatedAt", "2022-06-02T08:00:00.000Z")
+                .put("osUpdatedBy", "admin");
+        return record;
+    }
+
+    static JsonNode readJson(String resource) {
+        try {
+            return objectMapper.readTree(readResource(resource));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String readResource(String resource) {
+        try (InputStream inputStream = Payloads.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalStateException(resource + " not found on the classpath");
+            }
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -9,4 +9,8 @@ public class AttributeNames {
     public static final String ENTITY = "ENTITY";
     public static final String LOWERCASE_ENTITY = "entity";;
     public static final String ATTESTOR_INFO = "attestorInfo";
+    public static final String STATUS = "status";
+    public static final String PROPERTY = "property";
+    public static final String CURSOR = "cursor";
+    public static final String LIMIT = "limit";
 }
@@ -6,5 +6,6 @@ public class ErrorMessages {
     public static final String CLAIM_NOT_FOUND = "Claim not found";
     public static final String CLAIM_IS_ALREADY_PROCESSED = "Claim is already processed";
     public static final String ACCESS_TOKEN_IS_MISSING = "Access token is missing";
+    public static final String INVALID_CLAIMS_CURSOR = "Invalid claims cursor";
 
 }
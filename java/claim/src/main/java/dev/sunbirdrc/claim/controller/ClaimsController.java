@@ -1,6 +1,8 @@
 package dev.sunbirdrc.claim.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.dto.ClaimPageDTO;
 import dev.sunbirdrc.claim.dto.ClaimWithNotesDTO;
 import dev.sunbirdrc.claim.entity.Claim;
 import dev.sunbirdrc.claim.service.ClaimService;
@@ -18,8 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Optional;
 
-import static dev.sunbirdrc.claim.contants.AttributeNames.ATTESTOR_INFO;
-import static dev.sunbirdrc.claim.contants.AttributeNames.LOWERCASE_ENTITY;
+import static dev.sunbirdrc.claim.contants.AttributeNames.*;
 
 @Controller
 public class ClaimsController {
@@ -43,6 +44,18 @@ public class ClaimsController {
         return new ResponseEntity<>(claims, HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/api/v1/claims/search", method = RequestMethod.POST)
+    public ResponseEntity<ClaimPageDTO> searchClaims(@RequestHeader HttpHeaders headers,
+                                                     @RequestBody JsonNode requestBody) {
+        String entity = requestBody.get(LOWERCASE_ENTITY).asText();
+        JsonNode attestorNode = requestBody.get(ATTESTOR_INFO);
+        ClaimFilterDTO filter = new ClaimFilterDTO(textOrNull(requestBody, STATUS), textOrNull(requestBody, PROPERTY));
+        Integer limit = requestBody.hasNonNull(LIMIT) ? requestBody.get(LIMIT).asInt() : null;
+        ClaimPageDTO page = claimService.findClaimsForAttestor(entity, attestorNode, filter,
+                textOrNull(requestBody, CURSOR), limit);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/api/v1/getClaims/{claimId}", method = RequestMethod.POST)
     public ResponseEntity<ClaimWithNotesDTO> getClaimById(@RequestHeader HttpHeaders headers, @PathVariable String claimId,
                                               @RequestBody JsonNode requestBody) {
@@ -75,4 +88,7 @@ public class ClaimsController {
         return new ResponseEntity<>(updatedClaim, HttpStatus.OK);
     }
 
+    private static String textOrNull(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
 }
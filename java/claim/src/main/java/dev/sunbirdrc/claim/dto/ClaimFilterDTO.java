@@ -0,0 +1,19 @@
+package dev.sunbirdrc.claim.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional restrictions of a claim listing, a null field does not restrict it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimFilterDTO {
+    String status;
+    /**
+     * Name of the claimed property, matched against the first part of the property uri
+     */
+    String property;
+}
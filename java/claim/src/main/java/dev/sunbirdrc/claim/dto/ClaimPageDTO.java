@@ -0,0 +1,19 @@
+package dev.sunbirdrc.claim.dto;
+
+import dev.sunbirdrc.claim.entity.Claim;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimPageDTO {
+    List<Claim> claims;
+    /**
+     * Token of the next page, null after the last page
+     */
+    String nextCursor;
+}
@@ -9,7 +9,11 @@ import javax.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = Claim.TABLE_NAME)
+@Table(name = Claim.TABLE_NAME, indexes = {
+        @Index(name = "claims_attestor_status_created_at_idx", columnList = "attestorEntity, status, " + Claim.CREATED_AT + ", id"),
+        // the pages of all the claims of an attestor, without a status filter
+        @Index(name = "claims_attestor_created_at_idx", columnList = "attestorEntity, " + Claim.CREATED_AT + ", id")
+})
 public class Claim {
     public static final String TABLE_NAME= "claims";
     public static final String CREATED_AT = "created_at";
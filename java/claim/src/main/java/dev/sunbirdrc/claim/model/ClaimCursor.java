@@ -0,0 +1,63 @@
+package dev.sunbirdrc.claim.model;
+
+import dev.sunbirdrc.claim.entity.Claim;
+import dev.sunbirdrc.claim.exception.InvalidInputException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static dev.sunbirdrc.claim.contants.ErrorMessages.INVALID_CLAIMS_CURSOR;
+
+/**
+ * Position of a keyset paged claim listing. The claims are ordered by their creation time and id,
+ * the cursor keeps both of the last claim read and the next page starts after it.
+ * The token handed out to the clients is the url safe base64 of the position, opaque to them.
+ */
+public class ClaimCursor {
+    private static final String SEPARATOR = ":";
+
+    private final Date createdAt;
+    private final String id;
+
+    public ClaimCursor(Date createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static ClaimCursor after(Claim claim) {
+        return new ClaimCursor(claim.getCreatedAt(), claim.getId());
+    }
+
+    /**
+     * @param token the token of a previous page, or empty for the first page
+     * @return the position to start after, null for the first page
+     * @throws InvalidInputException when the token is not one handed out
+     */
+    public static ClaimCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf(SEPARATOR);
+            return new ClaimCursor(new Date(Long.parseLong(position.substring(0, separator))),
+                    position.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new InvalidInputException(INVALID_CLAIMS_CURSOR);
+        }
+    }
+
+    public String encode() {
+        String position = createdAt.getTime() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
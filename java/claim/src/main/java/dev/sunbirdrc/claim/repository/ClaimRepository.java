@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ClaimRepository extends JpaRepository<Claim, String> {
+public interface ClaimRepository extends JpaRepository<Claim, String>, ClaimRepositoryCustom {
     List<Claim> findByConditionsIn(List<String> conditions);
     List<Claim> findByAttestorEntityIn(List<String> entities);
     List<Claim> findByAttestorEntity(String entity);
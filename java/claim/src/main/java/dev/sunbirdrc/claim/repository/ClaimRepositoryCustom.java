@@ -0,0 +1,20 @@
+package dev.sunbirdrc.claim.repository;
+
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.entity.Claim;
+import dev.sunbirdrc.claim.model.ClaimCursor;
+
+import java.util.List;
+
+public interface ClaimRepositoryCustom {
+    /**
+     * Reads the claims of an attestor entity ordered by creation time and id, the order of the
+     * (attestorEntity, status, created_at, id) index
+     *
+     * @param attestorEntity - the entity type attesting the claims
+     * @param filter         - restrictions of the claims
+     * @param after          - the position to start after, null to start from the first claim
+     * @param limit          - maximum number of claims
+     */
+    List<Claim> findByAttestorEntityAfter(String attestorEntity, ClaimFilterDTO filter, ClaimCursor after, int limit);
+}
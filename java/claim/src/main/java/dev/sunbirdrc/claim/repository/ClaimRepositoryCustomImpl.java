@@ -0,0 +1,55 @@
+package dev.sunbirdrc.claim.repository;
+
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.entity.Claim;
+import dev.sunbirdrc.claim.model.ClaimCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class ClaimRepositoryCustomImpl implements ClaimRepositoryCustom {
+    private static final String PROPERTY_SEPARATOR = "/";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Claim> findByAttestorEntityAfter(String attestorEntity, ClaimFilterDTO filter, ClaimCursor after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Claim> query = builder.createQuery(Claim.class);
+        Root<Claim> claim = query.from(Claim.class);
+        Path<Date> createdAt = claim.get("createdAt");
+        Path<String> id = claim.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.equal(claim.get("attestorEntity"), attestorEntity));
+        if (filter.getStatus() != null) {
+            predicates.add(builder.equal(claim.get("status"), filter.getStatus()));
+        }
+        if (filter.getProperty() != null) {
+            Path<String> propertyURI = claim.get("propertyURI");
+            predicates.add(builder.or(builder.equal(propertyURI, filter.getProperty()),
+                    builder.like(propertyURI, escapeLike(filter.getProperty()) + PROPERTY_SEPARATOR + "%", '\\')));
+        }
+        if (after != null) {
+            predicates.add(builder.or(builder.greaterThan(createdAt, after.getCreatedAt()),
+                    builder.and(builder.equal(createdAt, after.getCreatedAt()), builder.greaterThan(id, after.getId()))));
+        }
+        query.select(claim)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.asc(createdAt), builder.asc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,12 +1,15 @@
 package dev.sunbirdrc.claim.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.dto.ClaimPageDTO;
 import dev.sunbirdrc.claim.dto.ClaimWithNotesDTO;
 import dev.sunbirdrc.claim.entity.Claim;
 import dev.sunbirdrc.claim.entity.ClaimNote;
 import dev.sunbirdrc.claim.exception.ClaimAlreadyProcessedException;
 import dev.sunbirdrc.claim.exception.ResourceNotFoundException;
 import dev.sunbirdrc.claim.exception.UnAuthorizedException;
+import dev.sunbirdrc.claim.model.ClaimCursor;
 import dev.sunbirdrc.claim.model.ClaimStatus;
 import dev.sunbirdrc.claim.repository.ClaimNoteRepository;
 import dev.sunbirdrc.claim.repository.ClaimRepository;
@@ -14,11 +17,14 @@ import dev.sunbirdrc.registry.middleware.util.EntityUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static dev.sunbirdrc.claim.contants.AttributeNames.ATTESTOR_INFO;
@@ -34,6 +40,15 @@ public class ClaimService {
     private final ClaimsAuthorizer claimsAuthorizer;
     private static final Logger logger = LoggerFactory.getLogger(ClaimService.class);
 
+    @Value("${claims.page.defaultSize:20}")
+    private int defaultPageSize;
+    @Value("${claims.page.maxSize:100}")
+    private int maxPageSize;
+    @Value("${claims.page.fetchSize:100}")
+    private int fetchSize;
+    @Value("${claims.page.maxScan:1000}")
+    private int maxScan;
+
     @Autowired
     public ClaimService(ClaimRepository claimRepository, ClaimNoteRepository claimNoteRepository, SunbirdRCClient sunbirdRCClient, ClaimsAuthorizer claimsAuthorizer) {
         this.claimRepository = claimRepository;
@@ -58,10 +73,46 @@ public class ClaimService {
         List<Claim> claims = claimRepository.findByAttestorEntity(entity);
         logger.info("Found {} claims to process", claims.size());
         return claims.stream()
-                .filter(claim -> claimsAuthorizer.isAuthorizedAttestor(claim, attestorNode))
+                .filter(claimsAuthorizer.authorizedAttestorFilter(attestorNode))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns a page of the claims the attestor is authorized for. The claims are read through the
+     * attestor entity index in batches, and the authorization is checked on each until the page is
+     * full. At most maxScan claims are read for a page, so a page may hold fewer claims than asked
+     * while there are more: the listing is over only once the next cursor is null.
+     *
+     * @param cursor - the token of the previous page, empty for the first page
+     * @param limit  - the number of claims of the page, the default size when null
+     */
+    public ClaimPageDTO findClaimsForAttestor(String entity, JsonNode attestorNode, ClaimFilterDTO filter,
+                                              String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        ClaimCursor after = ClaimCursor.decode(cursor);
+        Predicate<Claim> authorized = claimsAuthorizer.authorizedAttestorFilter(attestorNode);
+        List<Claim> claims = new ArrayList<>(pageSize);
+        int scanned = 0;
+        boolean exhausted = false;
+        while (!exhausted && claims.size() < pageSize && scanned < maxScan) {
+            int batchSize = Math.min(Math.max(pageSize, fetchSize), maxScan - scanned);
+            List<Claim> batch = claimRepository.findByAttestorEntityAfter(entity, filter, after, batchSize);
+            int read = 0;
+            while (read < batch.size() && claims.size() < pageSize) {
+                Claim claim = batch.get(read++);
+                after = ClaimCursor.after(claim);
+                if (authorized.test(claim)) {
+                    claims.add(claim);
+                }
+            }
+            scanned += read;
+            exhausted = batch.size() < batchSize && read == batch.size();
+        }
+        logger.info("Returning {} of {} claims read for {}", claims.size(), scanned, entity);
+        String nextCursor = exhausted || after == null ? null : after.encode();
+        return new ClaimPageDTO(claims, nextCursor);
+    }
+
     public Claim attestClaim(String claimId, JsonNode requestBody) {
         Claim claim = findById(claimId).orElseThrow(() -> new ResourceNotFoundException(CLAIM_NOT_FOUND));
         logger.info("Processing claim {}", claim.toString());
@@ -1,13 +1,16 @@
 package dev.sunbirdrc.claim.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.jayway.jsonpath.DocumentContext;
 import dev.sunbirdrc.claim.entity.Claim;
 import dev.sunbirdrc.registry.middleware.service.ConditionResolverService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
 
 @Service
 public class ClaimsAuthorizer {
@@ -23,17 +26,37 @@ public class ClaimsAuthorizer {
     }
 
     public boolean isAuthorizedAttestor(Claim claim, JsonNode attestorNode) {
+        return authorizedAttestorFilter(attestorNode).test(claim);
+    }
+
+    /**
+     * Returns a filter of the claims the attestor is authorized for, the attestor is parsed once
+     * for all the claims and each distinct condition is resolved and evaluated once. The filter
+     * is meant for a single request and is not thread safe.
+     */
+    public Predicate<Claim> authorizedAttestorFilter(JsonNode attestorNode) {
         if(attestorNode.isNull()) {
-            return false;
+            return claim -> false;
         }
+        DocumentContext attestorContext;
+        try {
+            attestorContext = conditionResolverService.parse(attestorNode);
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return claim -> false;
+        }
+        Map<String, Boolean> decisions = new HashMap<>();
+        return claim -> decisions.computeIfAbsent(claim.getConditions(),
+                conditions -> isAuthorizedAttestor(conditions, attestorContext));
+    }
+
+    private boolean isAuthorizedAttestor(String conditions, DocumentContext attestorContext) {
         try {
-            String resolvedCondition = conditionResolverService.resolve(
-                    attestorNode,
-                    ATTESTOR,
-                    claim.getConditions(),
-                    Collections.emptyList()
-            );
-            return conditionResolverService.evaluate(resolvedCondition);
+            if (conditions == null || conditions.isEmpty()) {
+                return false;
+            }
+            // the values of the attestor are bound to the parsed condition, not substituted in its text
+            return conditionResolverService.evaluate(attestorContext, ATTESTOR, conditions);
         } catch (Exception e) {
             logger.error(e.getMessage());
             return false;
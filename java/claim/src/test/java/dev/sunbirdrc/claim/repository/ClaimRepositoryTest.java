@@ -0,0 +1,147 @@
+package dev.sunbirdrc.claim.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.dto.ClaimPageDTO;
+import dev.sunbirdrc.claim.entity.Claim;
+import dev.sunbirdrc.claim.service.ClaimService;
+import dev.sunbirdrc.claim.service.ClaimsAuthorizer;
+import dev.sunbirdrc.registry.middleware.service.ConditionResolverService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static dev.sunbirdrc.claim.model.ClaimStatus.CLOSED;
+import static dev.sunbirdrc.claim.model.ClaimStatus.OPEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=1000"
+})
+public class ClaimRepositoryTest {
+    private static final int CLAIMS = 100_000;
+    private static final String TEACHER = "Teacher";
+    private static final String AUTHORIZED = "ATTESTOR#$.district#.contains('north')";
+    private static final String UNAUTHORIZED = "ATTESTOR#$.district#.contains('south')";
+
+    @Configuration
+    @EntityScan(basePackageClasses = Claim.class)
+    @EnableJpaRepositories(basePackageClasses = ClaimRepository.class)
+    static class Config {
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ClaimRepository claimRepository;
+    @Autowired
+    private ClaimNoteRepository claimNoteRepository;
+
+    @Test
+    public void shouldPageThroughTheAuthorizedOpenClaimsOf100kClaims() throws Exception {
+        int expected = 0;
+        for (int i = 0; i < CLAIMS; i++) {
+            Claim claim = new Claim();
+            claim.setEntity("Student");
+            claim.setEntityId("student" + i);
+            claim.setAttestorEntity(i % 4 == 0 ? "Principal" : TEACHER);
+            claim.setStatus(i % 3 == 0 ? CLOSED.name() : OPEN.name());
+            claim.setPropertyURI((i % 2 == 0 ? "educationDetails/" : "experience/") + i);
+            claim.setConditions(i % 5 == 0 ? UNAUTHORIZED : AUTHORIZED);
+            entityManager.persist(claim);
+            if (i % 4 != 0 && i % 3 != 0 && i % 2 == 0 && i % 5 != 0) {
+                expected++;
+            }
+            if (i % 1000 == 999) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ClaimService claimService = new ClaimService(claimRepository, claimNoteRepository, null,
+                new ClaimsAuthorizer(new ConditionResolverService()));
+        ReflectionTestUtils.setField(claimService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(claimService, "maxPageSize", 500);
+        ReflectionTestUtils.setField(claimService, "fetchSize", 500);
+        ReflectionTestUtils.setField(claimService, "maxScan", 5000);
+        JsonNode attestor = new ObjectMapper().readTree("{\"district\": \"north\"}");
+        ClaimFilterDTO filter = new ClaimFilterDTO(OPEN.name(), "educationDetails");
+
+        Set<String> ids = new HashSet<>();
+        Claim last = null;
+        String cursor = null;
+        do {
+            ClaimPageDTO page = claimService.findClaimsForAttestor(TEACHER, attestor, filter, cursor, 500);
+            for (Claim claim : page.getClaims()) {
+                assertEquals(TEACHER, claim.getAttestorEntity());
+                assertEquals(OPEN.name(), claim.getStatus());
+                assertTrue(claim.getPropertyURI().startsWith("educationDetails/"));
+                assertEquals(AUTHORIZED, claim.getConditions());
+                assertTrue(ids.add(claim.getId()));
+                if (last != null) {
+                    int order = last.getCreatedAt().compareTo(claim.getCreatedAt());
+                    assertTrue(order < 0 || order == 0 && last.getId().compareTo(claim.getId()) < 0);
+                }
+                last = claim;
+            }
+            entityManager.clear();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, ids.size());
+    }
+
+    @Test
+    public void shouldReadTheClaimsOfAnAttestorThroughTheIndex() {
+        Object plan = entityManager.getEntityManager().createNativeQuery("EXPLAIN SELECT id FROM " + Claim.TABLE_NAME +
+                " WHERE attestor_entity = 'Teacher' AND status = 'OPEN' ORDER BY " + Claim.CREATED_AT + ", id")
+                .getSingleResult();
+        assertTrue(plan.toString().toLowerCase().contains("claims_attestor_status_created_at_idx"));
+    }
+
+    @Test
+    public void shouldReadAllTheClaimsOfAnAttestorThroughTheIndex() {
+        Object plan = entityManager.getEntityManager().createNativeQuery("EXPLAIN SELECT id FROM " + Claim.TABLE_NAME +
+                " WHERE attestor_entity = 'Teacher' ORDER BY " + Claim.CREATED_AT + ", id")
+                .getSingleResult();
+        assertTrue(plan.toString().toLowerCase().contains("claims_attestor_created_at_idx"));
+    }
+
+    @Test
+    public void shouldReturnTheLastPageWithoutACursor() throws Exception {
+        Claim claim = new Claim();
+        claim.setAttestorEntity(TEACHER);
+        claim.setStatus(OPEN.name());
+        claim.setPropertyURI("educationDetails/1");
+        claim.setConditions(AUTHORIZED);
+        entityManager.persistAndFlush(claim);
+
+        ClaimService claimService = new ClaimService(claimRepository, claimNoteRepository, null,
+                new ClaimsAuthorizer(new ConditionResolverService()));
+        ReflectionTestUtils.setField(claimService, "maxPageSize", 10);
+        ReflectionTestUtils.setField(claimService, "fetchSize", 10);
+        ReflectionTestUtils.setField(claimService, "maxScan", 100);
+        ClaimPageDTO page = claimService.findClaimsForAttestor(TEACHER, new ObjectMapper().readTree("{\"district\": \"north\"}"),
+                new ClaimFilterDTO(null, "educationDetails"), null, 10);
+
+        assertEquals(1, page.getClaims().size());
+        assertNull(page.getNextCursor());
+    }
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.claim.dto.ClaimFilterDTO;
+import dev.sunbirdrc.claim.dto.ClaimPageDTO;
 import dev.sunbirdrc.claim.entity.Claim;
 import dev.sunbirdrc.claim.entity.ClaimNote;
 import dev.sunbirdrc.claim.exception.ClaimAlreadyProcessedException;
 import dev.sunbirdrc.claim.exception.ResourceNotFoundException;
 import dev.sunbirdrc.claim.exception.UnAuthorizedException;
+import dev.sunbirdrc.claim.model.ClaimCursor;
 import dev.sunbirdrc.claim.repository.ClaimNoteRepository;
 import dev.sunbirdrc.claim.repository.ClaimRepository;
 import org.junit.Before;
@@ -16,8 +19,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,7 +32,10 @@ import static dev.sunbirdrc.claim.contants.AttributeNames.NOTES;
 import static dev.sunbirdrc.claim.model.ClaimStatus.CLOSED;
 import static dev.sunbirdrc.claim.model.ClaimStatus.OPEN;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -44,6 +53,10 @@ public class ClaimServiceTest {
     @Before
     public void setUp() {
         claimService = new ClaimService(claimRepository, claimNoteRepository, sunbirdRCClient, claimsAuthorizer);
+        ReflectionTestUtils.setField(claimService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(claimService, "maxPageSize", 10);
+        ReflectionTestUtils.setField(claimService, "fetchSize", 3);
+        ReflectionTestUtils.setField(claimService, "maxScan", 100);
     }
 
     @Test
@@ -55,14 +68,36 @@ public class ClaimServiceTest {
         String entity = "Teacher";
         JsonNode dummyNode = new ObjectMapper().nullNode();
         when(claimRepository.findByAttestorEntity(entity)).thenReturn(allClaimsForEntity);
-        when(claimsAuthorizer.isAuthorizedAttestor(claim1, dummyNode)).thenReturn(true);
-        when(claimsAuthorizer.isAuthorizedAttestor(claim2, dummyNode)).thenReturn(false);
-        when(claimsAuthorizer.isAuthorizedAttestor(claim3, dummyNode)).thenReturn(true);
+        when(claimsAuthorizer.authorizedAttestorFilter(dummyNode)).thenReturn(claim -> claim != claim2);
 
         List<Claim> actualClaims = Arrays.asList(claim1, claim3);
         assertEquals(claimService.findClaimsForAttestor(entity, dummyNode), actualClaims);
     }
 
+    @Test
+    public void shouldReturnAPageOfAuthorizedClaimsAndTheCursorOfTheLastClaimRead() {
+        Claim claim1 = getClaim("1");
+        Claim claim2 = getClaim("2");
+        Claim claim3 = getClaim("3");
+        Claim claim4 = getClaim("4");
+        String entity = "Teacher";
+        JsonNode dummyNode = new ObjectMapper().nullNode();
+        ClaimFilterDTO filter = new ClaimFilterDTO(OPEN.name(), null);
+        when(claimRepository.findByAttestorEntityAfter(eq(entity), eq(filter), isNull(), eq(3)))
+                .thenReturn(Arrays.asList(claim1, claim2, claim3));
+        when(claimsAuthorizer.authorizedAttestorFilter(dummyNode)).thenReturn(claim -> claim != claim1);
+
+        ClaimPageDTO page = claimService.findClaimsForAttestor(entity, dummyNode, filter, null, null);
+        assertEquals(Arrays.asList(claim2, claim3), page.getClaims());
+        assertEquals(ClaimCursor.after(claim3).encode(), page.getNextCursor());
+
+        when(claimRepository.findByAttestorEntityAfter(eq(entity), eq(filter), any(ClaimCursor.class), eq(3)))
+                .thenReturn(Collections.singletonList(claim4));
+        page = claimService.findClaimsForAttestor(entity, dummyNode, filter, page.getNextCursor(), null);
+        assertEquals(Collections.singletonList(claim4), page.getClaims());
+        assertNull(page.getNextCursor());
+    }
+
     @Test(expected = ResourceNotFoundException.class)
     public void attestClaimShouldThrowExceptionIfTheClaimIsNotFound() {
         String id = "1";
@@ -124,6 +159,7 @@ public class ClaimServiceTest {
     private Claim getClaim(String id) {
         Claim claim = new Claim();
         claim.setId(id);
+        claim.setCreatedAt(new Date(Long.parseLong(id)));
         return claim;
     }
 
@@ -0,0 +1,203 @@
+package dev.sunbirdrc.elastic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.sunbirdrc.registry.middleware.util.BatchingQueue;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the add, update and delete requests of elastic-search into bulk requests.
+ * A batch is sent once it holds batchSize requests or flushInterval ms after its first request,
+ * whichever comes first. Requests rejected by elastic-search as overloaded are retried with an
+ * exponential backoff, in the order they were made for each document. The queue is bounded, callers block while it is full. Requests are only
+ * accepted while the service is running, every accepted request is sent before close returns.
+ */
+public class BulkIndexingService implements AutoCloseable {
+    private static Logger logger = LoggerFactory.getLogger(BulkIndexingService.class);
+
+    /**
+     * Sends a bulk request to elastic-search
+     */
+    public interface BulkClient {
+        BulkResponse bulk(BulkRequest bulkRequest) throws IOException;
+    }
+
+    private final BulkClient bulkClient;
+    private final int batchSize;
+    private final long flushInterval;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private final BatchingQueue<DocWriteRequest<?>> queue;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    /**
+     * @param bulkClient    - sends the bulk requests
+     * @param batchSize     - maximum number of requests in a bulk request
+     * @param flushInterval - maximum time in ms a request waits for its batch to fill up
+     * @param queueCapacity - number of requests which can wait to be sent
+     * @param maxRetries    - number of times a rejected request is sent again
+     * @param retryBackoff  - wait in ms before the first retry, doubled on every retry
+     */
+    public BulkIndexingService(BulkClient bulkClient, int batchSize, long flushInterval, int queueCapacity,
+                               int maxRetries, long retryBackoff) {
+        this.bulkClient = bulkClient;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.queue = new BatchingQueue<>("ESBulkIndexer", this::send, batchSize, flushInterval, queueCapacity);
+    }
+
+    public void start() {
+        if (!queue.isRunning()) {
+            queue.start();
+            logger.info("Bulk indexing started with batch size {} and flush interval {}ms", batchSize, flushInterval);
+        }
+    }
+
+    public boolean isRunning() {
+        return queue.isRunning();
+    }
+
+    /**
+     * Queues the request, waiting while the queue is full.
+     *
+     * @param request - index, update or delete request
+     * @return false if the service is not started or already closed, the request was not queued
+     * and is to be sent by the caller
+     * @throws InterruptedException
+     */
+    public boolean add(DocWriteRequest<?> request) throws InterruptedException {
+        return queue.put(request);
+    }
+
+    /**
+     * Stops accepting requests and sends the queued ones before returning
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (queue.isRunning()) {
+            queue.close();
+            logger.info("Bulk indexing stopped after {} batches, {} indexed, {} failed", batches.get(), indexed.get(),
+                    getFailedCount());
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getIndexedCount() {
+        return indexed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get() + queue.getDroppedCount();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Sends the batch, retrying the requests which failed because elastic-search was overloaded
+     * or could not be reached.
+     */
+    private void send(List<DocWriteRequest<?>> batch) throws InterruptedException {
+        List<DocWriteRequest<?>> pending = batch;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                if (attempt > maxRetries) {
+                    failed.addAndGet(pending.size());
+                    logger.error("Bulk indexing gave up on {} requests after {} retries", pending.size(), maxRetries);
+                    return;
+                }
+                retried.addAndGet(pending.size());
+                Thread.sleep(retryBackoff << (attempt - 1));
+            }
+            BulkRequest bulkRequest = new BulkRequest();
+            pending.forEach(bulkRequest::add);
+            batches.incrementAndGet();
+            BulkResponse bulkResponse;
+            try {
+                bulkResponse = bulkClient.bulk(bulkRequest);
+            } catch (IOException e) {
+                logger.error("Bulk request of {} requests failed", pending.size(), e);
+                continue;
+            }
+            pending = getRetryable(pending, bulkResponse);
+        }
+    }
+
+    /**
+     * @return the requests to send again, in the order they were sent. Once a request of a document
+     * is retried, the later requests of the document in the batch are sent again after it, so that
+     * they are applied in the order they were made. A retried request is dropped when a later
+     * request of the batch replaces the whole document.
+     */
+    private List<DocWriteRequest<?>> getRetryable(List<DocWriteRequest<?>> requests, BulkResponse bulkResponse) {
+        BulkItemResponse[] items = bulkResponse.getItems();
+        boolean[] superseded = new boolean[items.length];
+        Set<String> replacedDocuments = new HashSet<>();
+        for (int i = items.length - 1; i >= 0; i--) {
+            DocWriteRequest<?> request = requests.get(items[i].getItemId());
+            superseded[i] = replacedDocuments.contains(document(request));
+            if (replacesDocument(request) && (!items[i].isFailed() || isRetryable(items[i].getFailure().getStatus()))) {
+                replacedDocuments.add(document(request));
+            }
+        }
+
+        Set<String> retriedDocuments = new HashSet<>();
+        List<DocWriteRequest<?>> retryable = new ArrayList<>();
+        for (int i = 0; i < items.length; i++) {
+            BulkItemResponse item = items[i];
+            DocWriteRequest<?> request = requests.get(item.getItemId());
+            boolean retry = item.isFailed() && isRetryable(item.getFailure().getStatus());
+            if (retry && superseded[i]) {
+                indexed.incrementAndGet();
+                logger.debug("Bulk indexing of {} not retried, replaced by a later request", document(request));
+            } else if (retry || !item.isFailed() && retriedDocuments.contains(document(request))) {
+                retryable.add(request);
+                retriedDocuments.add(document(request));
+            } else if (!item.isFailed()) {
+                indexed.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                logger.error("Bulk indexing of {}/{} failed: {}", item.getIndex(), item.getId(), item.getFailureMessage());
+            }
+        }
+        return retryable;
+    }
+
+    private static String document(DocWriteRequest<?> request) {
+        return request.index() + "/" + request.id();
+    }
+
+    private static boolean replacesDocument(DocWriteRequest<?> request) {
+        return request.opType() == DocWriteRequest.OpType.INDEX || request.opType() == DocWriteRequest.OpType.DELETE;
+    }
+
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.BAD_GATEWAY || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+}
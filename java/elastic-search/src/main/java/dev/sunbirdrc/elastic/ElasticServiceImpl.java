@@ -2,12 +2,13 @@ package dev.sunbirdrc.elastic;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
-import dev.sunbirdrc.pojos.Filter;
-import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.SearchQuery;
 import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.middleware.util.JSONUtil;
@@ -18,13 +19,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.http.HttpHost;
+import org.apache.http.util.EntityUtils;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.update.UpdateRequest;
@@ -33,24 +41,43 @@ import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.index.query.BoolQueryBuilder;
-import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 
 public class ElasticServiceImpl implements IElasticService {
-    private static Map<String, Set<String>> indexWiseExcludeFields = new HashMap<>();
+    private static Map<String, Set<String>> indexWiseExcludeFields = new ConcurrentHashMap<>();
+    // the templates the indices are mapped with, indices still mapped otherwise have none
+    private static Map<String, Set<String>> indexWiseIncludeFields = new ConcurrentHashMap<>();
+    private static Map<String, IndexTemplate> indexWiseTemplates = new ConcurrentHashMap<>();
     private static Map<String, RestHighLevelClient> esClient = new HashMap<String, RestHighLevelClient>();
     private static Logger logger = LoggerFactory.getLogger(ElasticServiceImpl.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectReader jsonNodeReader = objectMapper.readerFor(JsonNode.class);
+    private static final long TASK_POLL_INTERVAL = 1000;
 
     private static String connectionInfo;
     private static String searchType;
+    private static boolean reindexOnMappingChange;
+
+    /**
+     * Sends a multi search request to elastic-search
+     */
+    public interface MultiSearchClient {
+        MultiSearchResponse msearch(MultiSearchRequest multiSearchRequest) throws IOException;
+    }
+
+    private MultiSearchClient multiSearchClient = multiSearchRequest ->
+            getClient(multiSearchRequest.requests().get(0).indices()[0]).msearch(multiSearchRequest, RequestOptions.DEFAULT);
 
     public void setConnectionInfo(String connection) {
         connectionInfo = connection;
@@ -60,23 +87,92 @@ public class ElasticServiceImpl implements IElasticService {
         searchType = type;
     }
 
+    public void setReindexOnMappingChange(boolean reindex) {
+        reindexOnMappingChange = reindex;
+    }
+
+    public void setMultiSearchClient(MultiSearchClient multiSearchClient) {
+        this.multiSearchClient = multiSearchClient;
+    }
+
     /**
      * This method runs when the application is started in order to add all the indcies to the elastic search
      *
-     * @param indices
+     * @param indexTemplates - the template of each index
+     * @param indexWiseIncludeFields - the fields returned by the public searches of each index, all when empty
+     * @param indexWiseExcludeFields - the fields left out of the documents of each index
      * @throws RuntimeException
      */
-    public void init(Set<String> indices, Map<String, Set<String>> indexWiseExcludeFields) throws RuntimeException {
-        this.indexWiseExcludeFields = indexWiseExcludeFields;
-        indices.iterator().forEachRemaining(index -> {
+    public void init(Map<String, IndexTemplate> indexTemplates, Map<String, Set<String>> indexWiseIncludeFields,
+                     Map<String, Set<String>> indexWiseExcludeFields) throws RuntimeException {
+        this.indexWiseIncludeFields.putAll(indexWiseIncludeFields);
+        this.indexWiseExcludeFields.putAll(indexWiseExcludeFields);
+        indexTemplates.forEach((index, template) -> {
             try {
-                addIndex(index.toLowerCase(), searchType);
+                applyTemplate(index.toLowerCase(), template, reindexOnMappingChange);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         });
     }
 
+    /**
+     * Adds the index of an entity type defined after the start. Requests are being served by then,
+     * so an existing index whose mapping cannot be updated in place is not reindexed and keeps its
+     * current mapping.
+     *
+     * @param index         - ElasticSearch Index
+     * @param template      - the settings and mapping of the index
+     * @param includeFields - the fields returned by the public searches, all when empty
+     * @param excludeFields - the fields left out of the documents
+     */
+    public void addIndex(String index, IndexTemplate template, Set<String> includeFields, Set<String> excludeFields) {
+        indexWiseIncludeFields.put(index, includeFields);
+        indexWiseExcludeFields.put(index, excludeFields);
+        try {
+            applyTemplate(index, template, false);
+        } catch (IOException e) {
+            logger.error("Applying the template of index {} failed", index, e);
+        }
+    }
+
+    /**
+     * Maps the index with the template. A missing index is created with it. An existing index
+     * mapped with another template gets the new mapping in place when the analysis settings are
+     * unchanged and the mapping only adds fields, and its documents are then updated in the
+     * background to fill the new fields. Otherwise the index is reindexed when allowed, and keeps
+     * being searched with its old mapping until then.
+     *
+     * @param indexName - ElasticSearch Index
+     * @param template  - the settings and mapping of the index
+     * @param reindex   - whether the index may be reindexed, only on start before any request is served
+     * @throws IOException
+     */
+    private static void applyTemplate(String indexName, IndexTemplate template, boolean reindex) throws IOException {
+        if (addIndex(indexName, searchType, template)) {
+            indexWiseTemplates.put(indexName, template);
+            return;
+        }
+        JsonNode meta = getMappingMeta(indexName);
+        if (template.getMappingHash().equals(meta.path(IndexTemplate.MAPPING_HASH).asText())) {
+            indexWiseTemplates.put(indexName, template);
+            return;
+        }
+        if (template.getSettingsHash().equals(meta.path(IndexTemplate.SETTINGS_HASH).asText())
+                && putMapping(indexName, template)) {
+            updateByQuery(indexName);
+            indexWiseTemplates.put(indexName, template);
+            logger.info("Updated the mapping of index {}", indexName);
+            return;
+        }
+        if (reindex) {
+            reindex(indexName, template);
+            indexWiseTemplates.put(indexName, template);
+        } else {
+            logger.warn("The mapping of index {} has changed, it is searched with its current mapping", indexName);
+        }
+    }
+
     /**
      * This method creates the high-level-client w.r.to index, if client is not created. for every index one client object is created
      *
@@ -120,31 +216,138 @@ public class ElasticServiceImpl implements IElasticService {
      *
      * @param indexName    of ElasticSearch
      * @param documentType of ElasticSearch
+     * @param template     settings and mapping of the index
      * @return
      * @throws IOException
      */
     @Retryable(value = {IOException.class, ConnectException.class}, maxAttemptsExpression = "#{${service.retry.maxAttempts}}",
             backoff = @Backoff(delayExpression = "#{${service.retry.backoff.delay}}"))
-    public static boolean addIndex(String indexName, String documentType) throws IOException {
+    public static boolean addIndex(String indexName, String documentType, IndexTemplate template) throws IOException {
         boolean response = false;
-        //To do need to analysis regarding settings and analysis and modify this code later
-        /*String settings = "{\"analysis\": {       \"analyzer\": {         \"doc_index_analyzer\": {           \"type\": \"custom\",           \"tokenizer\": \"standard\",           \"filter\": [             \"lowercase\",             \"mynGram\"           ]         },         \"doc_search_analyzer\": {           \"type\": \"custom\",           \"tokenizer\": \"standard\",           \"filter\": [             \"standard\",             \"lowercase\"           ]         },         \"keylower\": {           \"tokenizer\": \"keyword\",           \"filter\": \"lowercase\"         }       },       \"filter\": {         \"mynGram\": {           \"type\": \"nGram\",           \"min_gram\": 1,           \"max_gram\": 20,           \"token_chars\": [             \"letter\",             \"digit\",             \"whitespace\",             \"punctuation\",             \"symbol\"           ]         }       }     }   }";
-        String mappings = "{\"dynamic_templates\":[{\"longs\":{\"match_mapping_type\":\"long\",\"mapping\":{\"type\":\"long\",\"fields\":{\"raw\":{\"type\":\"long\"}}}}},{\"booleans\":{\"match_mapping_type\":\"boolean\",\"mapping\":{\"type\":\"boolean\",\"fields\":{\"raw\":{\"type\":\"boolean\"}}}}},{\"doubles\":{\"match_mapping_type\":\"double\",\"mapping\":{\"type\":\"double\",\"fields\":{\"raw\":{\"type\":\"double\"}}}}},{\"dates\":{\"match_mapping_type\":\"date\",\"mapping\":{\"type\":\"date\",\"fields\":{\"raw\":{\"type\":\"date\"}}}}},{\"strings\":{\"match_mapping_type\":\"string\",\"mapping\":{\"type\":\"text\",\"copy_to\":\"all_fields\",\"analyzer\":\"doc_index_analyzer\",\"search_analyzer\":\"doc_search_analyzer\",\"fields\":{\"raw\":{\"type\":\"text\",\"analyzer\":\"keylower\"}}}}}],\"properties\":{\"all_fields\":{\"type\":\"text\",\"analyzer\":\"doc_index_analyzer\",\"search_analyzer\":\"doc_search_analyzer\",\"fields\":{\"raw\":{\"type\":\"text\",\"analyzer\":\"keylower\"}}}}}";*/
         RestHighLevelClient client = getClient(indexName);
         if (!isIndexExists(indexName)) {
-            CreateIndexRequest createRequest = new CreateIndexRequest(indexName);
-
-            /*if (StringUtils.isNotBlank(settings))
-               createRequest.settings(Settings.builder().loadFromSource(settings, XContentType.JSON));
-            if (StringUtils.isNotBlank(documentType) && StringUtils.isNotBlank(mappings))
-                createRequest.mapping(documentType, mappings, XContentType.JSON);*/
-            CreateIndexResponse createIndexResponse = client.indices().create(createRequest, RequestOptions.DEFAULT);
-
+            CreateIndexResponse createIndexResponse = client.indices().create(getCreateIndexRequest(indexName, documentType, template),
+                    RequestOptions.DEFAULT);
             response = createIndexResponse.isAcknowledged();
         }
         return response;
     }
 
+    private static CreateIndexRequest getCreateIndexRequest(String indexName, String documentType, IndexTemplate template) {
+        return new CreateIndexRequest(indexName)
+                .settings(template.getSettings().toString(), XContentType.JSON)
+                .mapping(documentType, template.getMapping().toString(), XContentType.JSON);
+    }
+
+    /**
+     * Reads the _meta of the mapping of the index, empty when it has none
+     */
+    private static JsonNode getMappingMeta(String indexName) throws IOException {
+        Response response = getClient(indexName).getLowLevelClient()
+                .performRequest(new Request("GET", "/" + indexName + "/_mapping/" + searchType));
+        JsonNode mappings = objectMapper.readTree(EntityUtils.toString(response.getEntity()));
+        if (mappings.size() == 0) {
+            return objectMapper.createObjectNode();
+        }
+        return mappings.elements().next().path("mappings").path(searchType).path(IndexTemplate.META);
+    }
+
+    /**
+     * @return whether elastic-search accepted the mapping, which it does not when it changes an existing field
+     */
+    private static boolean putMapping(String indexName, IndexTemplate template) throws IOException {
+        Request request = new Request("PUT", "/" + indexName + "/_mapping/" + searchType);
+        request.setJsonEntity(template.getMapping().toString());
+        try {
+            getClient(indexName).getLowLevelClient().performRequest(request);
+            return true;
+        } catch (ResponseException e) {
+            logger.info("The mapping of index {} cannot be updated in place: {}", indexName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Indexes the documents of the index again in the background, so that they fill the fields added to the mapping
+     */
+    private static void updateByQuery(String indexName) throws IOException {
+        Request request = new Request("POST", "/" + indexName + "/_update_by_query");
+        request.addParameter("conflicts", "proceed");
+        request.addParameter("wait_for_completion", "false");
+        getClient(indexName).getLowLevelClient().performRequest(request);
+    }
+
+    /**
+     * Copies the documents of the index into a new index created with the template, then replaces
+     * the index with an alias of the new index. Documents written to the index while they are copied
+     * are lost and the caller waits for the copy, so this only runs from init, on start before any
+     * request is served.
+     *
+     * @param indexName - ElasticSearch Index, or the alias of an index reindexed before
+     * @param template  - the settings and mapping of the new index
+     * @throws IOException
+     */
+    private static void reindex(String indexName, IndexTemplate template) throws IOException {
+        RestHighLevelClient client = getClient(indexName);
+        String source = getConcreteIndex(indexName);
+        String target = indexName + "_" + System.currentTimeMillis();
+        client.indices().create(getCreateIndexRequest(target, searchType, template), RequestOptions.DEFAULT);
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("source").put("index", source);
+        body.putObject("dest").put("index", target);
+        Request reindexRequest = new Request("POST", "/_reindex");
+        reindexRequest.addParameter("wait_for_completion", "false");
+        reindexRequest.setJsonEntity(body.toString());
+        Response response = client.getLowLevelClient().performRequest(reindexRequest);
+        String task = objectMapper.readTree(EntityUtils.toString(response.getEntity())).get("task").asText();
+        waitForTask(client.getLowLevelClient(), task);
+
+        ObjectNode aliases = objectMapper.createObjectNode();
+        ArrayNode actions = aliases.putArray("actions");
+        actions.addObject().putObject("add").put("index", target).put("alias", indexName);
+        actions.addObject().putObject("remove_index").put("index", source);
+        Request aliasRequest = new Request("POST", "/_aliases");
+        aliasRequest.setJsonEntity(aliases.toString());
+        client.getLowLevelClient().performRequest(aliasRequest);
+        logger.info("Reindexed {} from {} into {}", indexName, source, target);
+    }
+
+    /**
+     * @return the index behind the alias, or the index itself when it is not an alias
+     */
+    private static String getConcreteIndex(String indexName) throws IOException {
+        try {
+            Response response = getClient(indexName).getLowLevelClient().performRequest(new Request("GET", "/_alias/" + indexName));
+            return objectMapper.readTree(EntityUtils.toString(response.getEntity())).fieldNames().next();
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return indexName;
+            }
+            throw e;
+        }
+    }
+
+    private static void waitForTask(RestClient client, String task) throws IOException {
+        while (true) {
+            Response response = client.performRequest(new Request("GET", "/_tasks/" + task));
+            JsonNode status = objectMapper.readTree(EntityUtils.toString(response.getEntity()));
+            if (status.path("completed").asBoolean()) {
+                JsonNode failures = status.path("response").path("failures");
+                if (status.has("error") || failures.size() > 0) {
+                    throw new IOException("Task " + task + " failed: " + status.path("error") + failures);
+                }
+                return;
+            }
+            try {
+                Thread.sleep(TASK_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for task " + task, e);
+            }
+        }
+    }
+
     /**
      * checks whether input index exists in the elastic-search
      *
@@ -175,10 +378,7 @@ public class ElasticServiceImpl implements IElasticService {
         logger.debug("addEntity starts with index {} and entityId {}", index, entityId);
         IndexResponse response = null;
         try {
-            DocumentContext doc = getDocumentContextAfterRemovingExcludedFields(index, inputEntity);
-            JsonNode filteredNode = JSONUtil.convertStringJsonNode(doc.jsonString());
-            Map<String, Object> inputMap = JSONUtil.convertJsonNodeToMap(filteredNode);
-            response = getClient(index).index(new IndexRequest(index, searchType, entityId).source(inputMap), RequestOptions.DEFAULT);
+            response = getClient(index).index(getIndexRequest(index, entityId, inputEntity), RequestOptions.DEFAULT);
         } catch (IOException e) {
             logger.error("Exception in adding record to ElasticSearch", e);
         }
@@ -217,18 +417,76 @@ public class ElasticServiceImpl implements IElasticService {
         logger.debug("updateEntity starts with index {} and entityId {}", index, osid);
         UpdateResponse response = null;
         try {
-            DocumentContext doc = getDocumentContextAfterRemovingExcludedFields(index, inputEntity);
-            JsonNode filteredNode = JSONUtil.convertStringJsonNode(doc.jsonString());
-            Map<String, Object> inputMap = JSONUtil.convertJsonNodeToMap(filteredNode);
-            logger.debug("updateEntity inputMap {}", inputMap);
             logger.debug("updateEntity inputEntity {}", inputEntity);
-            response = getClient(index.toLowerCase()).update(new UpdateRequest(index.toLowerCase(), searchType, osid).doc(inputMap), RequestOptions.DEFAULT);
+            response = getClient(index.toLowerCase()).update(getUpdateRequest(index, osid, inputEntity), RequestOptions.DEFAULT);
         } catch (IOException e) {
             logger.error("Exception in updating a record to ElasticSearch", e);
         }
         return response.status();
     }
 
+    /**
+     * Builds the request which adds input as document into elastic-search
+     *
+     * @param index       - ElasticSearch Index
+     * @param entityId    - entity id as document id
+     * @param inputEntity - input document for adding
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public IndexRequest getIndexRequest(String index, String entityId, JsonNode inputEntity) throws IOException {
+        return new IndexRequest(index, searchType, entityId).source(getSourceMap(index, inputEntity));
+    }
+
+    /**
+     * Builds the request which updates the document with updated inputEntity
+     *
+     * @param index       - ElasticSearch Index
+     * @param osid        - which maps to document
+     * @param inputEntity - input json document for updating
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public UpdateRequest getUpdateRequest(String index, String osid, JsonNode inputEntity) throws IOException {
+        return new UpdateRequest(index.toLowerCase(), searchType, osid).doc(getSourceMap(index, inputEntity));
+    }
+
+    /**
+     * Builds the request which marks the document inactive. Only the status is sent, so unlike
+     * deleteEntity the document is not read first.
+     *
+     * @param index - ElasticSearch Index
+     * @param osid  - which maps to document
+     * @return
+     */
+    @Override
+    public UpdateRequest getDeleteRequest(String index, String osid) {
+        Map<String, Object> statusMap = new HashMap<>();
+        statusMap.put(Constants.STATUS_KEYWORD, Constants.STATUS_INACTIVE);
+        return new UpdateRequest(index.toLowerCase(), searchType, osid).doc(statusMap);
+    }
+
+    /**
+     * Sends the given requests to elastic-search in a single bulk call
+     *
+     * @param bulkRequest
+     * @return
+     * @throws IOException
+     */
+    public BulkResponse bulk(BulkRequest bulkRequest) throws IOException {
+        return getClient(bulkRequest.requests().get(0).index()).bulk(bulkRequest, RequestOptions.DEFAULT);
+    }
+
+    private Map<String, Object> getSourceMap(String index, JsonNode inputEntity) throws IOException {
+        DocumentContext doc = getDocumentContextAfterRemovingExcludedFields(index, inputEntity);
+        JsonNode filteredNode = JSONUtil.convertStringJsonNode(doc.jsonString());
+        Map<String, Object> inputMap = JSONUtil.convertJsonNodeToMap(filteredNode);
+        logger.debug("source map of {}: {}", index, inputMap);
+        return inputMap;
+    }
+
     private DocumentContext getDocumentContextAfterRemovingExcludedFields(String index, JsonNode inputEntity) throws com.fasterxml.jackson.core.JsonProcessingException {
         DocumentContext doc = JsonPath.parse(JSONUtil.convertObjectJsonString(inputEntity));
         for (String jsonPath : indexWiseExcludeFields.get(index)) {
@@ -268,105 +526,92 @@ public class ElasticServiceImpl implements IElasticService {
     @Retryable(value = {IOException.class, ConnectException.class}, maxAttemptsExpression = "#{${service.retry.maxAttempts}}",
             backoff = @Backoff(delayExpression = "#{${service.retry.backoff.delay}}"))
     public JsonNode search(String index, SearchQuery searchQuery) throws IOException {
-        BoolQueryBuilder query = buildQuery(searchQuery);
+        SearchResponse searchResponse = getClient(index).search(getSearchRequest(index, searchQuery), RequestOptions.DEFAULT);
+        return readHits(searchResponse);
+    }
+
+    /**
+     * Searches all the indices in a single multi search request. The search of an index which
+     * fails is logged and leaves the index out of the results, without failing the others.
+     *
+     * @param indices     - ElasticSearch Indices
+     * @param searchQuery - which contains details for search
+     * @return the hits of each index searched successfully
+     * @throws IOException
+     */
+    @Override
+    @Retryable(value = {IOException.class, ConnectException.class}, maxAttemptsExpression = "#{${service.retry.maxAttempts}}",
+            backoff = @Backoff(delayExpression = "#{${service.retry.backoff.delay}}"))
+    public Map<String, JsonNode> search(List<String> indices, SearchQuery searchQuery) throws IOException {
+        Map<String, JsonNode> results = new HashMap<>();
+        if (indices.isEmpty()) {
+            return results;
+        }
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        for (String index : indices) {
+            multiSearchRequest.add(getSearchRequest(index, searchQuery));
+        }
+        MultiSearchResponse.Item[] responses = multiSearchClient.msearch(multiSearchRequest).getResponses();
+        for (int i = 0; i < responses.length; i++) {
+            String index = indices.get(i);
+            if (responses[i].isFailure()) {
+                logger.error("Elastic search operation on index {} failed: {}", index, responses[i].getFailureMessage());
+            } else {
+                results.put(index, readHits(responses[i].getResponse()));
+            }
+        }
+        return results;
+    }
+
+    private SearchRequest getSearchRequest(String index, SearchQuery searchQuery) {
+        SearchQueryCompiler compiler = getQueryCompiler(index, searchQuery.isPublicFieldsOnly());
 
         SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
-                .query(query)
+                .query(compiler.compile(searchQuery.getFilters()))
+                .fetchSource(compiler.getSourceFilter())
                 .size(searchQuery.getLimit())
                 .from(searchQuery.getOffset());
-        SearchRequest searchRequest = new SearchRequest(index).source(sourceBuilder);
-        ArrayNode resultArray = JsonNodeFactory.instance.arrayNode();
-        ObjectMapper mapper = new ObjectMapper();
-            SearchResponse searchResponse = getClient(index).search(searchRequest, RequestOptions.DEFAULT);
-            for (SearchHit hit : searchResponse.getHits()) {
-                JsonNode node = mapper.readValue(hit.getSourceAsString(), JsonNode.class);
-                // TODO: Add draft mode condition
-                if(node.get("_status") == null || node.get("_status").asBoolean()) {
-                    resultArray.add(node);
-                }
-            }
-            logger.debug("Total search records found " + resultArray.size());
+        if (searchQuery.getCursor() != null) {
+            setSearchAfter(compiler, index, searchQuery, sourceBuilder);
+        }
+        return new SearchRequest(index).source(sourceBuilder);
+    }
 
+    private static ArrayNode readHits(SearchResponse searchResponse) throws IOException {
+        ArrayNode resultArray = JsonNodeFactory.instance.arrayNode();
+        for (SearchHit hit : searchResponse.getHits()) {
+            // TODO: Add draft mode condition
+            BytesRef source = hit.getSourceRef().toBytesRef();
+            resultArray.add((JsonNode) jsonNodeReader.readValue(source.bytes, source.offset, source.length));
+        }
+        logger.debug("Total search records found " + resultArray.size());
         return resultArray;
+    }
 
+    /**
+     * @param publicFieldsOnly - whether the hits hold only the fields returned by the public searches
+     */
+    private static SearchQueryCompiler getQueryCompiler(String index, boolean publicFieldsOnly) {
+        return new SearchQueryCompiler(indexWiseTemplates.get(index),
+                publicFieldsOnly ? indexWiseIncludeFields.get(index) : null, indexWiseExcludeFields.get(index));
     }
 
     /**
-     * Builds the final query builder for given searchQuery
+     * Orders the hits by the key field of the cursor and starts after the last key of the entity
+     * type, so that deep pages cost the same as the first one
      *
+     * @param compiler
+     * @param index
      * @param searchQuery
-     * @return
+     * @param sourceBuilder
      */
-    private BoolQueryBuilder buildQuery(SearchQuery searchQuery) {
-        List<Filter> filters = searchQuery.getFilters();
-        BoolQueryBuilder query = QueryBuilders.boolQuery();
-
-        for (Filter filter : filters) {
-            String field = filter.getProperty();
-            Object value = filter.getValue();
-            FilterOperators operator = filter.getOperator();
-            String path = filter.getPath();
-
-            if (path != null) {
-                field = path + "." + field;
-            }
-            switch (operator) {
-            case eq:
-                query = query.must(QueryBuilders.matchPhraseQuery(field, value));
-                break;
-            case neq:
-                query = query.mustNot(QueryBuilders.matchPhraseQuery(field, value));
-                break;
-            case gt:
-                query = query.must(QueryBuilders.rangeQuery(field).gt(value));
-                break;
-            case lt:
-                query = query.must(QueryBuilders.rangeQuery(field).lt(value));
-                break;
-            case gte:
-                query = query.must(QueryBuilders.rangeQuery(field).gte(value));
-                break;
-            case lte:
-                query = query.must(QueryBuilders.rangeQuery(field).lte(value));
-                break;
-            case between:
-                List<Object> objects = (List<Object>) value;
-                query = query
-                        .must(QueryBuilders.rangeQuery(field).from(objects.get(0)).to(objects.get(objects.size() - 1)));
-                break;
-            case or:
-                List<Object> values = (List<Object>) value;
-                query = query.must(QueryBuilders.termsQuery(String.format("%s.keyword", field), values));
-                break;
-
-            case contains:
-                query = query.must(QueryBuilders.matchPhraseQuery(field, value));
-                break;
-            case startsWith:
-                query = query.must(QueryBuilders.matchPhrasePrefixQuery(field, value.toString()));
-                break;
-            case endsWith:
-                query = query.must(QueryBuilders.wildcardQuery(field, "*" + value));
-                break;
-            case notContains:
-                query = query.mustNot(QueryBuilders.matchPhraseQuery(field, value));
-                break;
-            case notStartsWith:
-                query = query.mustNot(QueryBuilders.matchPhrasePrefixQuery(field, value.toString()));
-                break;
-            case notEndsWith:
-                query = query.mustNot(QueryBuilders.wildcardQuery(field, "*" + value));
-                break;                
-            case queryString:
-                query = query.must(QueryBuilders.queryStringQuery(value.toString()));
-                break;
-            default:
-                query = query.must(QueryBuilders.matchQuery(field, value));
-                break;
+    private void setSearchAfter(SearchQueryCompiler compiler, String index, SearchQuery searchQuery, SearchSourceBuilder sourceBuilder) {
+        SearchCursor cursor = searchQuery.getCursor();
+        sourceBuilder.from(0).sort(SortBuilders.fieldSort(compiler.keywordField(cursor.getKeyField())).order(SortOrder.ASC));
+        for (String entityType : searchQuery.getEntityTypes()) {
+            if (entityType.equalsIgnoreCase(index) && cursor.getLastKey(entityType) != null) {
+                sourceBuilder.searchAfter(new Object[]{cursor.getLastKey(entityType)});
             }
         }
-
-        return query;
     }
-
 }
@@ -3,7 +3,10 @@ package dev.sunbirdrc.elastic;
 import com.fasterxml.jackson.databind.JsonNode;
 import dev.sunbirdrc.pojos.SearchQuery;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.rest.RestStatus;
 
 /**
@@ -46,4 +49,31 @@ public interface IElasticService {
      * @return
      */
     JsonNode search(String index, SearchQuery searchQuery) throws IOException;
+
+    /** searches documents of several indices from ES in a single request
+     * @param indices - ElasticSearch Indices
+     * @param searchQuery - which contains details for search
+     * @return the documents found in each index, without the indices whose search failed
+     */
+    Map<String, JsonNode> search(List<String> indices, SearchQuery searchQuery) throws IOException;
+
+    /** builds the request of addEntity, to be sent in a bulk request
+     * @param index - ElasticSearch Index
+     * @param entityId - entity id as document id
+     * @param inputEntity - input document for adding
+     */
+    IndexRequest getIndexRequest(String index, String entityId, JsonNode inputEntity) throws IOException;
+
+    /** builds the request of updateEntity, to be sent in a bulk request
+     * @param index - ElasticSearch Index
+     * @param osid - which maps to document
+     * @param inputEntity - input json document for updating
+     */
+    UpdateRequest getUpdateRequest(String index, String osid, JsonNode inputEntity) throws IOException;
+
+    /** builds the request of deleteEntity, to be sent in a bulk request
+     * @param index - ElasticSearch Index
+     * @param osid - which maps to document
+     */
+    UpdateRequest getDeleteRequest(String index, String osid);
 }
@@ -0,0 +1,174 @@
+package dev.sunbirdrc.elastic;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Settings and mapping an index is created with. Text fields carry a "keyword" subfield for exact
+ * matches and sorting, a "prefix" subfield holding the edge n-grams of the value for prefix queries
+ * and a "reverse" subfield holding the reversed value for suffix queries. Keyword fields are
+ * matched as they are; the searchable ones, the enums and formatted strings such as emails, also
+ * carry a "text" subfield for case insensitive phrase queries and the prefix and reverse subfields.
+ * The hashes of the settings and of the mapping are kept in the _meta of the mapping, so that a
+ * changed template can be told apart from the one the index was created with.
+ */
+public class IndexTemplate {
+    public static final String KEYWORD = "keyword";
+    public static final String TEXT = "text";
+    public static final String PREFIX = "prefix";
+    public static final String REVERSE = "reverse";
+    public static final String META = "_meta";
+    public static final String MAPPING_HASH = "mappingHash";
+    public static final String SETTINGS_HASH = "settingsHash";
+    /**
+     * Longest prefix indexed by the prefix subfield, longer prefixes are matched without it
+     */
+    public static final int PREFIX_MAX_GRAM = 20;
+    /**
+     * Number of characters of a value kept by the prefix and reverse subfields
+     */
+    public static final int MAX_TOKEN_LENGTH = 256;
+
+    private static final String PREFIX_ANALYZER = "prefix_index";
+    private static final String REVERSE_ANALYZER = "reverse_index";
+    private static final String LOWERCASE_ANALYZER = "lowercase_keyword";
+
+    private final ObjectNode settings;
+    private final ObjectNode mapping;
+    private final Set<String> keywordFields;
+    private final Set<String> textFields;
+    private final Set<String> searchableKeywordFields;
+    private final String mappingHash;
+    private final String settingsHash;
+
+    /**
+     * @param properties    - the mapping of the fields of the documents
+     * @param keywordFields - paths of the fields mapped as keyword
+     * @param textFields    - paths of the fields mapped as text, with the keyword, prefix and reverse subfields
+     */
+    public IndexTemplate(ObjectNode properties, Set<String> keywordFields, Set<String> textFields) {
+        this(properties, keywordFields, textFields, Collections.emptySet());
+    }
+
+    /**
+     * @param properties              - the mapping of the fields of the documents
+     * @param keywordFields           - paths of the fields mapped as keyword
+     * @param textFields              - paths of the fields mapped as text, with the keyword, prefix and reverse subfields
+     * @param searchableKeywordFields - paths of the keyword fields with the text, prefix and reverse subfields
+     */
+    public IndexTemplate(ObjectNode properties, Set<String> keywordFields, Set<String> textFields,
+                         Set<String> searchableKeywordFields) {
+        this.settings = analysisSettings();
+        this.mapping = JsonNodeFactory.instance.objectNode();
+        this.mapping.set("properties", properties);
+        this.keywordFields = Collections.unmodifiableSet(keywordFields);
+        this.textFields = Collections.unmodifiableSet(textFields);
+        this.searchableKeywordFields = Collections.unmodifiableSet(searchableKeywordFields);
+        this.mappingHash = sha256(mapping.toString());
+        this.settingsHash = sha256(settings.toString());
+        this.mapping.putObject(META).put(MAPPING_HASH, mappingHash).put(SETTINGS_HASH, settingsHash);
+    }
+
+    /**
+     * The mapping of a string field holding free text
+     */
+    public static ObjectNode textField() {
+        ObjectNode field = JsonNodeFactory.instance.objectNode().put("type", "text");
+        ObjectNode fields = field.putObject("fields");
+        fields.putObject(KEYWORD).put("type", "keyword").put("ignore_above", MAX_TOKEN_LENGTH);
+        fields.putObject(PREFIX).put("type", "text").put("analyzer", PREFIX_ANALYZER)
+                .put("search_analyzer", LOWERCASE_ANALYZER);
+        fields.putObject(REVERSE).put("type", "text").put("analyzer", REVERSE_ANALYZER);
+        return field;
+    }
+
+    /**
+     * The mapping of a string field holding a code, an identifier or one of a few values
+     */
+    public static ObjectNode keywordField() {
+        return JsonNodeFactory.instance.objectNode().put("type", "keyword").put("ignore_above", MAX_TOKEN_LENGTH);
+    }
+
+    /**
+     * The mapping of a string field holding one of a few values or a formatted value such as an
+     * email, matched as it is, and also as text, by prefix and by suffix regardless of the case
+     */
+    public static ObjectNode searchableKeywordField() {
+        ObjectNode field = keywordField();
+        ObjectNode fields = field.putObject("fields");
+        fields.putObject(TEXT).put("type", "text");
+        fields.putObject(PREFIX).put("type", "text").put("analyzer", PREFIX_ANALYZER)
+                .put("search_analyzer", LOWERCASE_ANALYZER);
+        fields.putObject(REVERSE).put("type", "text").put("analyzer", REVERSE_ANALYZER);
+        return field;
+    }
+
+    private static ObjectNode analysisSettings() {
+        ObjectNode settings = JsonNodeFactory.instance.objectNode();
+        ObjectNode analysis = settings.putObject("analysis");
+        ObjectNode filter = analysis.putObject("filter");
+        filter.putObject("prefix_edge_ngram").put("type", "edge_ngram").put("min_gram", 1).put("max_gram", PREFIX_MAX_GRAM);
+        filter.putObject("value_truncate").put("type", "truncate").put("length", MAX_TOKEN_LENGTH);
+        ObjectNode analyzer = analysis.putObject("analyzer");
+        analyzer.set(PREFIX_ANALYZER, keywordAnalyzer("lowercase", "value_truncate", "prefix_edge_ngram"));
+        analyzer.set(REVERSE_ANALYZER, keywordAnalyzer("lowercase", "reverse", "value_truncate"));
+        analyzer.set(LOWERCASE_ANALYZER, keywordAnalyzer("lowercase", "value_truncate"));
+        return settings;
+    }
+
+    private static ObjectNode keywordAnalyzer(String... filters) {
+        ObjectNode analyzer = JsonNodeFactory.instance.objectNode().put("type", "custom").put("tokenizer", "keyword");
+        for (String filter : filters) {
+            analyzer.withArray("filter").add(filter);
+        }
+        return analyzer;
+    }
+
+    private static String sha256(String content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ObjectNode getSettings() {
+        return settings;
+    }
+
+    /**
+     * The mapping of the document type, with the hashes in its _meta
+     */
+    public ObjectNode getMapping() {
+        return mapping;
+    }
+
+    public String getMappingHash() {
+        return mappingHash;
+    }
+
+    public String getSettingsHash() {
+        return settingsHash;
+    }
+
+    public boolean isKeywordField(String path) {
+        return keywordFields.contains(path);
+    }
+
+    public boolean isTextField(String path) {
+        return textFields.contains(path);
+    }
+
+    public boolean isSearchableKeywordField(String path) {
+        return searchableKeywordFields.contains(path);
+    }
+}
@@ -0,0 +1,179 @@
+package dev.sunbirdrc.elastic;
+
+import dev.sunbirdrc.pojos.Filter;
+import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * Compiles the filters of a search into the query of an index. Exact, range, terms, prefix and
+ * suffix filters are put in the filter context, where they are not scored and elastic-search can
+ * cache them; only the full text filters are scored. The phrase, prefix and suffix filters on the
+ * searchable keyword fields go to their subfields, so that they match regardless of the case and
+ * within the value as they did on text fields. Inactive documents are left out by the query
+ * itself, so that pages are not cut short after the search.
+ * The source of the hits is filtered to the public fields of the index when it has some, for the
+ * public searches, and is always without its private and internal fields.
+ */
+public class SearchQueryCompiler {
+    private final IndexTemplate template;
+    private final Set<String> includeFields;
+    private final Set<String> excludeFields;
+
+    /**
+     * @param template      - the template the index is mapped with, null when it has the dynamic mapping
+     * @param includeFields - json paths of the fields returned, all of them when empty
+     * @param excludeFields - json paths of the fields left out of the hits
+     */
+    public SearchQueryCompiler(IndexTemplate template, Set<String> includeFields, Set<String> excludeFields) {
+        this.template = template;
+        this.includeFields = includeFields != null ? includeFields : Collections.emptySet();
+        this.excludeFields = excludeFields != null ? excludeFields : Collections.emptySet();
+    }
+
+    public BoolQueryBuilder compile(List<Filter> filters) {
+        BoolQueryBuilder query = QueryBuilders.boolQuery();
+        for (Filter filter : filters) {
+            String field = filter.getProperty();
+            Object value = filter.getValue();
+            FilterOperators operator = filter.getOperator();
+            String path = filter.getPath();
+
+            if (path != null) {
+                field = path + "." + field;
+            }
+            switch (operator) {
+            case eq:
+                query.filter(QueryBuilders.matchPhraseQuery(textField(field), value));
+                break;
+            case neq:
+                query.mustNot(QueryBuilders.matchPhraseQuery(textField(field), value));
+                break;
+            case gt:
+                query.filter(QueryBuilders.rangeQuery(field).gt(value));
+                break;
+            case lt:
+                query.filter(QueryBuilders.rangeQuery(field).lt(value));
+                break;
+            case gte:
+                query.filter(QueryBuilders.rangeQuery(field).gte(value));
+                break;
+            case lte:
+                query.filter(QueryBuilders.rangeQuery(field).lte(value));
+                break;
+            case between:
+                List<Object> objects = (List<Object>) value;
+                query.filter(QueryBuilders.rangeQuery(field).from(objects.get(0)).to(objects.get(objects.size() - 1)));
+                break;
+            case or:
+                List<Object> values = (List<Object>) value;
+                query.filter(QueryBuilders.termsQuery(keywordField(field), values));
+                break;
+            case contains:
+                query.must(QueryBuilders.matchPhraseQuery(textField(field), value));
+                break;
+            case startsWith:
+                query.filter(startsWithQuery(field, value.toString()));
+                break;
+            case endsWith:
+                query.filter(endsWithQuery(field, value.toString()));
+                break;
+            case notContains:
+                query.mustNot(QueryBuilders.matchPhraseQuery(textField(field), value));
+                break;
+            case notStartsWith:
+                query.mustNot(startsWithQuery(field, value.toString()));
+                break;
+            case notEndsWith:
+                query.mustNot(endsWithQuery(field, value.toString()));
+                break;
+            case queryString:
+                query.must(QueryBuilders.queryStringQuery(value.toString()));
+                break;
+            default:
+                query.must(QueryBuilders.matchQuery(textField(field), value));
+                break;
+            }
+        }
+        query.mustNot(QueryBuilders.termQuery(keywordField(Constants.STATUS_KEYWORD), Constants.STATUS_INACTIVE));
+        return query;
+    }
+
+    /**
+     * @return the fields of the source returned with the hits
+     */
+    public FetchSourceContext getSourceFilter() {
+        return new FetchSourceContext(true, toSourcePaths(includeFields), toSourcePaths(excludeFields));
+    }
+
+    /**
+     * @return the field holding the whole value of the field, its keyword subfield unless it is a keyword itself
+     */
+    public String keywordField(String field) {
+        if (template != null && template.isKeywordField(field)) {
+            return field;
+        }
+        return field + "." + IndexTemplate.KEYWORD;
+    }
+
+    /**
+     * @return the field phrases are matched in, the text subfield of a searchable keyword field
+     */
+    private String textField(String field) {
+        if (template != null && template.isSearchableKeywordField(field)) {
+            return field + "." + IndexTemplate.TEXT;
+        }
+        return field;
+    }
+
+    private boolean hasPrefixAndReverse(String field) {
+        return template != null && (template.isTextField(field) || template.isSearchableKeywordField(field));
+    }
+
+    /**
+     * Looks the prefix up in the prefix subfield of a text field, instead of expanding it over the terms of the field
+     */
+    private QueryBuilder startsWithQuery(String field, String value) {
+        if (hasPrefixAndReverse(field) && value.length() <= IndexTemplate.PREFIX_MAX_GRAM) {
+            return QueryBuilders.matchQuery(field + "." + IndexTemplate.PREFIX, value);
+        }
+        if (template != null && template.isKeywordField(field)) {
+            return QueryBuilders.prefixQuery(field, value);
+        }
+        return QueryBuilders.matchPhrasePrefixQuery(field, value);
+    }
+
+    /**
+     * Looks the reversed suffix up as a prefix of the reverse subfield of a text field, instead of
+     * a leading wildcard which scans all the terms of the field
+     */
+    private QueryBuilder endsWithQuery(String field, String value) {
+        if (hasPrefixAndReverse(field)) {
+            String reversed = new StringBuilder(value.toLowerCase(Locale.ROOT)).reverse().toString();
+            return QueryBuilders.prefixQuery(field + "." + IndexTemplate.REVERSE, reversed);
+        }
+        return QueryBuilders.wildcardQuery(field, "*" + value);
+    }
+
+    /**
+     * Turns json paths such as $.education[*].marks into the source paths education.marks
+     */
+    private static String[] toSourcePaths(Set<String> jsonPaths) {
+        Set<String> sourcePaths = new LinkedHashSet<>();
+        for (String jsonPath : jsonPaths) {
+            String sourcePath = jsonPath.replaceFirst("^\\$\\.?", "").replaceAll("\\[[^\\]]*\\]", "");
+            if (!sourcePath.isEmpty()) {
+                sourcePaths.add(sourcePath);
+            }
+        }
+        return sourcePaths.toArray(new String[0]);
+    }
+}
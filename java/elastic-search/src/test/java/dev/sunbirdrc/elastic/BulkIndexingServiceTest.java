@@ -0,0 +1,229 @@
+package dev.sunbirdrc.elastic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BulkIndexingServiceTest {
+    private static final long WAIT = 5000;
+
+    private RecordingBulkClient bulkClient;
+    private BulkIndexingService bulkIndexingService;
+
+    @Before
+    public void setUp() {
+        bulkClient = new RecordingBulkClient();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        bulkIndexingService.close();
+    }
+
+    @Test
+    public void shouldSendFullBatchesAndFlushTheRestOnClose() throws Exception {
+        bulkIndexingService = start(10, 60000, 100, 3);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(bulkIndexingService.add(indexRequest(String.valueOf(i))));
+        }
+        waitForCalls(2);
+        bulkIndexingService.close();
+
+        assertEquals(Arrays.asList(10, 10, 5), bulkClient.getBatchSizes());
+        assertEquals(25, bulkIndexingService.getIndexedCount());
+        assertEquals(0, bulkIndexingService.getQueueSize());
+    }
+
+    @Test
+    public void shouldSendPartialBatchAfterFlushInterval() throws Exception {
+        bulkIndexingService = start(100, 100, 100, 3);
+        for (int i = 0; i < 3; i++) {
+            bulkIndexingService.add(indexRequest(String.valueOf(i)));
+        }
+        waitForCalls(1);
+
+        assertEquals(Collections.singletonList(3), bulkClient.getBatchSizes());
+    }
+
+    @Test
+    public void shouldRetryOnlyTheRejectedRequests() throws Exception {
+        bulkClient.reject("1", 1);
+        bulkClient.reject("3", 2);
+        bulkIndexingService = start(5, 60000, 100, 3);
+        for (int i = 0; i < 5; i++) {
+            bulkIndexingService.add(indexRequest(String.valueOf(i)));
+        }
+        bulkIndexingService.close();
+
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), bulkClient.getCalls().get(0));
+        assertEquals(Arrays.asList("1", "3"), bulkClient.getCalls().get(1));
+        assertEquals(Collections.singletonList("3"), bulkClient.getCalls().get(2));
+        assertEquals(5, bulkIndexingService.getIndexedCount());
+        assertEquals(3, bulkIndexingService.getRetriedCount());
+        assertEquals(0, bulkIndexingService.getFailedCount());
+    }
+
+    @Test
+    public void shouldRetryTheLaterRequestsOfTheDocumentAfterTheRejectedOne() throws Exception {
+        bulkClient.reject("1", 1);
+        bulkIndexingService = start(3, 60000, 100, 3);
+        bulkIndexingService.add(indexRequest("1"));
+        bulkIndexingService.add(indexRequest("2"));
+        bulkIndexingService.add(updateRequest("1"));
+        bulkIndexingService.close();
+
+        assertEquals(Arrays.asList("1", "2", "1"), bulkClient.getCalls().get(0));
+        assertEquals(Arrays.asList("1", "1"), bulkClient.getCalls().get(1));
+        assertEquals(DocWriteRequest.OpType.UPDATE, bulkClient.getRequests().get(4).opType());
+        assertEquals(3, bulkIndexingService.getIndexedCount());
+    }
+
+    @Test
+    public void shouldNotRetryARequestReplacedByALaterOne() throws Exception {
+        bulkClient.reject("1", 1);
+        bulkIndexingService = start(3, 60000, 100, 3);
+        bulkIndexingService.add(updateRequest("1"));
+        bulkIndexingService.add(new DeleteRequest("teacher", "_doc", "1"));
+        bulkIndexingService.close();
+
+        assertEquals(1, bulkClient.getCalls().size());
+        assertEquals(2, bulkIndexingService.getIndexedCount());
+        assertEquals(0, bulkIndexingService.getRetriedCount());
+    }
+
+    @Test
+    public void shouldNotRetryInvalidRequests() throws Exception {
+        bulkClient.failPermanently("1");
+        bulkIndexingService = start(3, 60000, 100, 3);
+        for (int i = 0; i < 3; i++) {
+            bulkIndexingService.add(indexRequest(String.valueOf(i)));
+        }
+        bulkIndexingService.close();
+
+        assertEquals(1, bulkClient.getCalls().size());
+        assertEquals(2, bulkIndexingService.getIndexedCount());
+        assertEquals(1, bulkIndexingService.getFailedCount());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxRetries() throws Exception {
+        bulkClient.reject("1", Integer.MAX_VALUE);
+        bulkIndexingService = start(1, 60000, 100, 2);
+        bulkIndexingService.add(indexRequest("1"));
+        bulkIndexingService.close();
+
+        assertEquals(3, bulkClient.getCalls().size());
+        assertEquals(1, bulkIndexingService.getFailedCount());
+    }
+
+    @Test
+    public void shouldBlockCallersWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = bulkClient.hold();
+        bulkIndexingService = start(1, 60000, 2, 3);
+        // taken by the flusher, which then waits on the client
+        bulkIndexingService.add(indexRequest("0"));
+        waitForEmptyQueue();
+        bulkIndexingService.add(indexRequest("1"));
+        bulkIndexingService.add(indexRequest("2"));
+
+        Thread producer = new Thread(() -> {
+            try {
+                bulkIndexingService.add(indexRequest("3"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(300);
+        assertTrue("add must wait while the queue is full", producer.isAlive());
+
+        release.countDown();
+        producer.join(WAIT);
+        assertFalse(producer.isAlive());
+        bulkIndexingService.close();
+
+        assertEquals(4, bulkIndexingService.getIndexedCount());
+    }
+
+    @Test
+    public void shouldNotQueueWhenNotRunning() throws Exception {
+        bulkIndexingService = new BulkIndexingService(bulkClient, 10, 100, 10, 3, 1);
+
+        assertFalse(bulkIndexingService.add(indexRequest("0")));
+        bulkIndexingService.start();
+        bulkIndexingService.close();
+        assertFalse(bulkIndexingService.add(indexRequest("1")));
+        assertTrue(bulkClient.getCalls().isEmpty());
+    }
+
+    @Test
+    public void shouldSendEveryAcceptedRequestWhenClosedWhileAdding() throws Exception {
+        bulkIndexingService = start(5, 60000, 10000, 3);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        if (bulkIndexingService.add(indexRequest(producer + "-" + i))) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        Thread.sleep(5);
+        bulkIndexingService.close();
+        for (Thread producer : producers) {
+            producer.join(WAIT);
+        }
+
+        assertEquals(accepted.get(), bulkIndexingService.getIndexedCount());
+        assertEquals(0, bulkIndexingService.getQueueSize());
+    }
+
+    private BulkIndexingService start(int batchSize, long flushInterval, int queueCapacity, int maxRetries) {
+        BulkIndexingService service = new BulkIndexingService(bulkClient, batchSize, flushInterval, queueCapacity, maxRetries, 1);
+        service.start();
+        return service;
+    }
+
+    private static IndexRequest indexRequest(String id) {
+        return new IndexRequest("teacher", "_doc", id).source(Collections.singletonMap("name", "teacher" + id));
+    }
+
+    private static UpdateRequest updateRequest(String id) {
+        return new UpdateRequest("teacher", "_doc", id).doc(Collections.singletonMap("name", "teacher" + id));
+    }
+
+    private void waitForCalls(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (bulkClient.getCalls().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(bulkClient.getCalls().size() >= count);
+    }
+
+    private void waitForEmptyQueue() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (bulkIndexingService.getQueueSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.sunbirdrc.elastic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.pojos.Filter;
+import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
+import dev.sunbirdrc.pojos.SearchQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ElasticServiceImplTest {
+    private RecordingSearchClient searchClient;
+    private ElasticServiceImpl elasticService;
+
+    @Before
+    public void setUp() {
+        searchClient = new RecordingSearchClient();
+        elasticService = new ElasticServiceImpl();
+        elasticService.setMultiSearchClient(searchClient);
+    }
+
+    private static SearchQuery searchQuery(List<String> entityTypes) {
+        SearchQuery searchQuery = new SearchQuery(entityTypes, 0, 100);
+        searchQuery.setFilters(new ArrayList<>(Collections.singletonList(new Filter("name", FilterOperators.eq, "John"))));
+        return searchQuery;
+    }
+
+    @Test
+    public void shouldSearchAllTheIndicesInASingleCall() throws Exception {
+        List<String> indices = Arrays.asList("student", "teacher", "institute", "course", "exam");
+        for (String index : indices) {
+            searchClient.addDocument(index, "{\"osid\": \"1-" + index + "\", \"name\": \"John\"}");
+        }
+        searchClient.addDocument("teacher", "{\"osid\": \"2-teacher\", \"name\": \"John\"}");
+
+        Map<String, JsonNode> results = elasticService.search(indices, searchQuery(indices));
+
+        assertEquals(1, searchClient.getCalls().size());
+        assertEquals(indices, searchClient.getCalls().get(0));
+        assertEquals(indices.size(), results.size());
+        for (String index : indices) {
+            assertEquals("1-" + index, results.get(index).get(0).get("osid").asText());
+        }
+        assertEquals(2, results.get("teacher").size());
+    }
+
+    @Test
+    public void shouldLeaveTheFailedIndicesOutOfTheResults() throws Exception {
+        searchClient.addDocument("student", "{\"osid\": \"1-student\"}");
+        List<String> indices = Arrays.asList("student", "unknown");
+
+        Map<String, JsonNode> results = elasticService.search(indices, searchQuery(indices));
+
+        assertEquals(1, searchClient.getCalls().size());
+        assertEquals(1, results.get("student").size());
+        assertFalse(results.containsKey("unknown"));
+    }
+
+    @Test
+    public void shouldStartEachIndexAfterTheLastKeyOfTheCursor() throws Exception {
+        searchClient.addDocument("student", "{\"osid\": \"1-student\"}");
+        searchClient.addDocument("teacher", "{\"osid\": \"1-teacher\"}");
+        List<String> indices = Arrays.asList("student", "teacher");
+        SearchQuery searchQuery = searchQuery(Arrays.asList("Student", "Teacher"));
+        SearchCursor cursor = SearchCursor.decode("", searchQuery.getEntityTypes(), "osid");
+        cursor.setLastKey("Teacher", "1-abc");
+        searchQuery.setCursor(cursor);
+
+        elasticService.search(indices, searchQuery);
+
+        SearchSourceBuilder studentSource = searchClient.getRequests().get(0).source();
+        SearchSourceBuilder teacherSource = searchClient.getRequests().get(1).source();
+        assertNull(studentSource.searchAfter());
+        assertArrayEquals(new Object[]{"1-abc"}, teacherSource.searchAfter());
+        assertEquals(0, teacherSource.from());
+        assertEquals("osid.keyword", ((FieldSortBuilder) teacherSource.sorts().get(0)).getFieldName());
+    }
+
+    @Test
+    public void shouldReturnOnlyThePublicFieldsToThePublicSearch() throws Exception {
+        elasticService.init(Collections.emptyMap(),
+                Collections.singletonMap("employee", new HashSet<>(Arrays.asList("$.name", "$.osid"))),
+                Collections.singletonMap("employee", Collections.singleton("$.salary")));
+        searchClient.addDocument("employee", "{\"osid\": \"1-employee\", \"name\": \"John\"}");
+        List<String> indices = Collections.singletonList("employee");
+        SearchQuery publicQuery = searchQuery(indices);
+        publicQuery.setPublicFieldsOnly(true);
+
+        elasticService.search(indices, searchQuery(indices));
+        elasticService.search(indices, publicQuery);
+
+        SearchSourceBuilder internalSource = searchClient.getRequests().get(0).source();
+        SearchSourceBuilder publicSource = searchClient.getRequests().get(1).source();
+        assertEquals(0, internalSource.fetchSource().includes().length);
+        assertArrayEquals(new String[]{"salary"}, internalSource.fetchSource().excludes());
+        assertEquals(new HashSet<>(Arrays.asList("name", "osid")), new HashSet<>(Arrays.asList(publicSource.fetchSource().includes())));
+        assertArrayEquals(new String[]{"salary"}, publicSource.fetchSource().excludes());
+    }
+}
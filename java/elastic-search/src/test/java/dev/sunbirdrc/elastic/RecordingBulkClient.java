@@ -0,0 +1,97 @@
+package dev.sunbirdrc.elastic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+/**
+ * Stands in for the elastic-search client: records every bulk call and answers each request
+ * with success unless told to reject or fail it.
+ */
+class RecordingBulkClient implements BulkIndexingService.BulkClient {
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private final List<DocWriteRequest<?>> requests = Collections.synchronizedList(new ArrayList<>());
+    // document id -> number of times the request is rejected as overloaded before it succeeds
+    private final Map<String, Integer> rejections = new HashMap<>();
+    private final List<String> invalidIds = new ArrayList<>();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    void reject(String id, int times) {
+        rejections.put(id, times);
+    }
+
+    void failPermanently(String id) {
+        invalidIds.add(id);
+    }
+
+    /**
+     * Holds every bulk call until the returned latch is released
+     */
+    CountDownLatch hold() {
+        gate = new CountDownLatch(1);
+        return gate;
+    }
+
+    List<List<String>> getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return every request sent, in the order of the calls
+     */
+    List<DocWriteRequest<?>> getRequests() {
+        return requests;
+    }
+
+    List<Integer> getBatchSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        synchronized (calls) {
+            for (List<String> call : calls) {
+                sizes.add(call.size());
+            }
+        }
+        return sizes;
+    }
+
+    @Override
+    public synchronized BulkResponse bulk(BulkRequest bulkRequest) throws IOException {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        List<String> ids = new ArrayList<>();
+        BulkItemResponse[] items = new BulkItemResponse[bulkRequest.requests().size()];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<?> request = bulkRequest.requests().get(i);
+            ids.add(request.id());
+            int rejectionsLeft = rejections.getOrDefault(request.id(), 0);
+            if (rejectionsLeft > 0) {
+                rejections.put(request.id(), rejectionsLeft - 1);
+                items[i] = failure(i, request, new EsRejectedExecutionException("rejected execution"));
+            } else if (invalidIds.contains(request.id())) {
+                items[i] = failure(i, request, new IllegalArgumentException("failed to parse"));
+            } else {
+                items[i] = new BulkItemResponse(i, request.opType(), (DocWriteResponse) null);
+            }
+        }
+        calls.add(ids);
+        requests.addAll(bulkRequest.requests());
+        return new BulkResponse(items, 1);
+    }
+
+    private static BulkItemResponse failure(int itemId, DocWriteRequest<?> request, Exception cause) {
+        return new BulkItemResponse(itemId, request.opType(),
+                new BulkItemResponse.Failure(request.index(), request.type(), request.id(), cause));
+    }
+}
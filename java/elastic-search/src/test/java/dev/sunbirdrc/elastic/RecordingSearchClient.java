@@ -0,0 +1,73 @@
+package dev.sunbirdrc.elastic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+
+/**
+ * Stands in for the elastic-search client: records every multi search call and answers the
+ * search of each index with the documents given for it, or fails it when the index is unknown.
+ */
+class RecordingSearchClient implements ElasticServiceImpl.MultiSearchClient {
+    private final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+    private final List<SearchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+    // index -> sources of the documents found in it
+    private final Map<String, List<String>> documents = new HashMap<>();
+
+    void addDocument(String index, String source) {
+        documents.computeIfAbsent(index, key -> new ArrayList<>()).add(source);
+    }
+
+    List<List<String>> getCalls() {
+        return calls;
+    }
+
+    List<SearchRequest> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public synchronized MultiSearchResponse msearch(MultiSearchRequest multiSearchRequest) {
+        List<String> indices = new ArrayList<>();
+        MultiSearchResponse.Item[] items = new MultiSearchResponse.Item[multiSearchRequest.requests().size()];
+        for (int i = 0; i < items.length; i++) {
+            SearchRequest request = multiSearchRequest.requests().get(i);
+            requests.add(request);
+            String index = request.indices()[0];
+            indices.add(index);
+            if (documents.containsKey(index)) {
+                items[i] = new MultiSearchResponse.Item(response(documents.get(index)), null);
+            } else {
+                items[i] = new MultiSearchResponse.Item(null, new IndexNotFoundException(index));
+            }
+        }
+        calls.add(indices);
+        return new MultiSearchResponse(items);
+    }
+
+    private static SearchResponse response(List<String> sources) {
+        SearchHit[] hits = new SearchHit[sources.size()];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new SearchHit(i, String.valueOf(i), new Text("_doc"), Collections.emptyMap());
+            hits[i].sourceRef(new BytesArray(sources.get(i).getBytes(StandardCharsets.UTF_8)));
+        }
+        InternalSearchResponse internalResponse = new InternalSearchResponse(new SearchHits(hits, hits.length, 1),
+                null, null, null, false, null, 1);
+        return new SearchResponse(internalResponse, null, 1, 1, 0, 1, ShardSearchFailure.EMPTY_ARRAY,
+                SearchResponse.Clusters.EMPTY);
+    }
+}
@@ -0,0 +1,106 @@
+package dev.sunbirdrc.elastic;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.pojos.Filter;
+import dev.sunbirdrc.pojos.FilterOperators;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchPhraseQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.PrefixQueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchQueryCompilerTest {
+
+    private static IndexTemplate template() {
+        ObjectNode properties = JsonNodeFactory.instance.objectNode();
+        properties.set("name", IndexTemplate.textField());
+        properties.set("grade", IndexTemplate.keywordField());
+        properties.set("_status", IndexTemplate.keywordField());
+        properties.set("email", IndexTemplate.searchableKeywordField());
+        return new IndexTemplate(properties, new HashSet<>(Arrays.asList("grade", "_status", "email")),
+                new HashSet<>(Collections.singletonList("name")), new HashSet<>(Collections.singletonList("email")));
+    }
+
+    @Test
+    public void shouldPutTheExactFiltersInTheFilterContext() {
+        SearchQueryCompiler compiler = new SearchQueryCompiler(template(), null, null);
+        List<Filter> filters = Arrays.asList(
+                new Filter("grade", FilterOperators.eq, "A"),
+                new Filter("age", FilterOperators.between, Arrays.asList(10, 20)),
+                new Filter("grade", FilterOperators.or, Arrays.asList("A", "B")),
+                new Filter("name", FilterOperators.startsWith, "Jo"),
+                new Filter("name", FilterOperators.endsWith, "Doe"),
+                new Filter("name", FilterOperators.contains, "John"));
+
+        BoolQueryBuilder query = compiler.compile(filters);
+
+        assertEquals(5, query.filter().size());
+        assertTrue(query.filter().get(0) instanceof MatchPhraseQueryBuilder);
+        assertTrue(query.filter().get(1) instanceof RangeQueryBuilder);
+        assertEquals("grade", ((TermsQueryBuilder) query.filter().get(2)).fieldName());
+        assertEquals("name.prefix", ((MatchQueryBuilder) query.filter().get(3)).fieldName());
+        assertEquals("name.reverse", ((PrefixQueryBuilder) query.filter().get(4)).fieldName());
+        assertEquals("eod", ((PrefixQueryBuilder) query.filter().get(4)).value());
+        assertEquals(1, query.must().size());
+        assertTrue(query.must().get(0) instanceof MatchPhraseQueryBuilder);
+    }
+
+    @Test
+    public void shouldMatchTheSearchableKeywordsAsText() {
+        SearchQueryCompiler compiler = new SearchQueryCompiler(template(), null, null);
+        List<Filter> filters = Arrays.asList(
+                new Filter("email", FilterOperators.eq, "John@Example.com"),
+                new Filter("email", FilterOperators.contains, "example"),
+                new Filter("email", FilterOperators.startsWith, "JOHN"),
+                new Filter("email", FilterOperators.endsWith, ".COM"),
+                new Filter("email", FilterOperators.or, Arrays.asList("a@example.com", "b@example.com")),
+                new Filter("grade", FilterOperators.startsWith, "A"));
+
+        BoolQueryBuilder query = compiler.compile(filters);
+
+        assertEquals("email.text", ((MatchPhraseQueryBuilder) query.filter().get(0)).fieldName());
+        assertEquals("email.prefix", ((MatchQueryBuilder) query.filter().get(1)).fieldName());
+        assertEquals("email.reverse", ((PrefixQueryBuilder) query.filter().get(2)).fieldName());
+        assertEquals("moc.", ((PrefixQueryBuilder) query.filter().get(2)).value());
+        assertEquals("email", ((TermsQueryBuilder) query.filter().get(3)).fieldName());
+        assertEquals("grade", ((PrefixQueryBuilder) query.filter().get(4)).fieldName());
+        assertEquals("email.text", ((MatchPhraseQueryBuilder) query.must().get(0)).fieldName());
+    }
+
+    @Test
+    public void shouldLeaveTheInactiveDocumentsOut() {
+        BoolQueryBuilder query = new SearchQueryCompiler(template(), null, null).compile(Collections.emptyList());
+        BoolQueryBuilder legacyQuery = new SearchQueryCompiler(null, null, null).compile(Collections.emptyList());
+
+        assertEquals(1, query.mustNot().size());
+        assertEquals("_status", ((TermQueryBuilder) query.mustNot().get(0)).fieldName());
+        assertEquals("false", ((TermQueryBuilder) query.mustNot().get(0)).value());
+        assertEquals("_status.keyword", ((TermQueryBuilder) legacyQuery.mustNot().get(0)).fieldName());
+    }
+
+    @Test
+    public void shouldFilterTheSourceByTheFieldsOfTheDefinition() {
+        SearchQueryCompiler compiler = new SearchQueryCompiler(template(),
+                new HashSet<>(Arrays.asList("$.name", "$.grade")),
+                new HashSet<>(Arrays.asList("$.identity.idValue", "$.education[*].marks")));
+
+        FetchSourceContext sourceFilter = compiler.getSourceFilter();
+
+        assertTrue(sourceFilter.fetchSource());
+        assertEquals(new HashSet<>(Arrays.asList("name", "grade")), new HashSet<>(Arrays.asList(sourceFilter.includes())));
+        assertEquals(new HashSet<>(Arrays.asList("identity.idValue", "education.marks")),
+                new HashSet<>(Arrays.asList(sourceFilter.excludes())));
+        assertEquals(0, new SearchQueryCompiler(null, null, null).getSourceFilter().includes().length);
+    }
+}
@@ -2,6 +2,7 @@ package dev.sunbirdrc.registry.middleware.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import org.slf4j.Logger;
@@ -9,14 +10,41 @@ import org.slf4j.LoggerFactory;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ConditionResolverService {
     private static final Logger logger = LoggerFactory.getLogger(ConditionResolverService.class);
+    private static final int EXPRESSION_CACHE_SIZE = 512;
+    private static final Configuration alwaysReturnListConfig = Configuration.builder().options(Option.ALWAYS_RETURN_LIST).build();
+
+    // prefix of the variables the values of the matcher paths are bound to
+    private static final String VALUE_VARIABLE = "value";
+
+    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    // parsed conditions by their matcher and text, before any value is substituted, the least
+    // recently used one is evicted once full
+    private final Map<String, ParsedCondition> conditionCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, ParsedCondition>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ParsedCondition> eldest) {
+                    return size() > EXPRESSION_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Parses the entity once, so that it can be used to resolve several conditions
+     */
+    public DocumentContext parse(JsonNode entityNode) {
+        return JsonPath.using(alwaysReturnListConfig).parse(entityNode.toString());
+    }
 
     /**
      * @param entityNode subject node where we will apply the extract out the values for given json path
@@ -28,14 +56,24 @@ public class ConditionResolverService {
         if(condition == null || condition.isEmpty()) {
             return "";
         }
-        String entity = entityNode.toString();
-        logger.info("Gonna resolve for the json {}", entity);
+        logger.info("Gonna resolve for the json {}", entityNode);
+        return resolve(parse(entityNode), matcher, condition, attributes);
+    }
+
+    /**
+     * @param entityContext subject parsed by {@link #parse(JsonNode)}, reused by all the conditions on the same subject
+     * @see #resolve(JsonNode, String, String, List)
+     * */
+    public String resolve(DocumentContext entityContext, String matcher, String condition, List<String[]> attributes) {
+        if(condition == null || condition.isEmpty()) {
+            return "";
+        }
         condition = replaceMultipleEntries(condition, attributes);
         List<Integer> matchersIndices = findWordIndices(matcher, condition);
         List<String[]> matchersValuesPair = new ArrayList<>();
         for (int index : matchersIndices) {
             String[] expressions = generateExpressionAndJsonPathPair(index, condition);
-            expressions[1] = replaceOriginalValueForGivenJsonPath(entity, expressions[1]);
+            expressions[1] = replaceOriginalValueForGivenJsonPath(entityContext, expressions[1]);
             matchersValuesPair.add(expressions);
         }
         for(String[] pair: matchersValuesPair) {
@@ -43,9 +81,8 @@ public class ConditionResolverService {
         }
         return condition;
     }
-    private String replaceOriginalValueForGivenJsonPath(String entity, String path) {
-        Configuration alwaysReturnListConfig = Configuration.builder().options(Option.ALWAYS_RETURN_LIST).build();
-        List<String> read = JsonPath.using(alwaysReturnListConfig).parse(entity).read(path);
+    private String replaceOriginalValueForGivenJsonPath(DocumentContext entityContext, String path) {
+        List<String> read = entityContext.read(path);
         String s;
         if(read.size() == 1) {
             s = "'" + read.get(0) + "'";
@@ -105,8 +142,58 @@ public class ConditionResolverService {
 
     public boolean evaluate(String condition) {
         logger.info("Resolved conditions {}", condition);
-        ExpressionParser expressionParser = new SpelExpressionParser();
-        Expression expression = expressionParser.parseExpression(condition);
-        return expression.getValue(Boolean.class);
+        return expressionParser.parseExpression(condition).getValue(Boolean.class);
+    }
+
+    /**
+     * Evaluates the condition on the entity without resolving it into a new text. The condition
+     * is parsed once, with a variable in place of each matcher path, and the values the paths
+     * read from the entity are bound to those variables. The same condition evaluated for
+     * different entities is hence parsed only once.
+     *
+     * @param entityContext subject parsed by {@link #parse(JsonNode)}
+     * @param matcher it accepts either ATTESTOR or REQUESTER
+     * @param condition the condition, with the paths of the other matchers already resolved
+     * */
+    public boolean evaluate(DocumentContext entityContext, String matcher, String condition) {
+        ParsedCondition parsedCondition = conditionCache.get(matcher + condition);
+        if (parsedCondition == null) {
+            parsedCondition = parseCondition(matcher, condition);
+            conditionCache.put(matcher + condition, parsedCondition);
+        }
+        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+        for (int i = 0; i < parsedCondition.paths.size(); i++) {
+            List<Object> values = entityContext.read(parsedCondition.paths.get(i));
+            evaluationContext.setVariable(VALUE_VARIABLE + i, values.size() == 1 ? String.valueOf(values.get(0)) : values);
+        }
+        return parsedCondition.expression.getValue(evaluationContext, Boolean.class);
+    }
+
+    private ParsedCondition parseCondition(String matcher, String condition) {
+        List<String> paths = new ArrayList<>();
+        List<String[]> variablePairs = new ArrayList<>();
+        for (int index : findWordIndices(matcher, condition)) {
+            String[] expressions = generateExpressionAndJsonPathPair(index, condition);
+            int variable = paths.indexOf(expressions[1]);
+            if (variable == -1) {
+                variable = paths.size();
+                paths.add(expressions[1]);
+            }
+            variablePairs.add(new String[]{expressions[0], "#" + VALUE_VARIABLE + variable});
+        }
+        for (String[] pair : variablePairs) {
+            condition = condition.replace(pair[0], pair[1]);
+        }
+        return new ParsedCondition(expressionParser.parseExpression(condition), paths);
+    }
+
+    private static class ParsedCondition {
+        private final Expression expression;
+        private final List<String> paths;
+
+        ParsedCondition(Expression expression, List<String> paths) {
+            this.expression = expression;
+            this.paths = paths;
+        }
     }
 }
@@ -0,0 +1,217 @@
+package dev.sunbirdrc.registry.middleware.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Queues items and hands them to a handler in batches, from a single thread. A batch is handed
+ * over once it holds batchSize items or flushInterval ms after its first item, whichever comes
+ * first. The queue is bounded. Items are only accepted while the queue is running, every
+ * accepted item is handed over before close returns.
+ *
+ * @param <T> the type of the items
+ */
+public class BatchingQueue<T> implements AutoCloseable {
+    private static Logger logger = LoggerFactory.getLogger(BatchingQueue.class);
+
+    // queued by close to wake the worker up, never handed over
+    private static final Object SHUTDOWN = new Object();
+
+    /**
+     * Handles a batch of items, called from the worker thread only
+     */
+    public interface BatchHandler<T> {
+        void handle(List<T> batch) throws InterruptedException;
+    }
+
+    public enum Offer {
+        QUEUED,
+        // the queue is full, the item was not queued
+        FULL,
+        // the queue is not started or already closed, the item was not queued
+        STOPPED
+    }
+
+    private final String name;
+    private final BatchHandler<T> handler;
+    private final int batchSize;
+    private final long flushInterval;
+    private final BlockingQueue<Object> queue;
+    private final Thread worker;
+
+    private volatile boolean running;
+    // held while queueing, so that close waits for the items being queued
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param name          - name of the worker thread
+     * @param handler       - handles the batches
+     * @param batchSize     - maximum number of items in a batch
+     * @param flushInterval - maximum time in ms an item waits for its batch to fill up
+     * @param capacity      - number of items which can wait to be handed over
+     */
+    public BatchingQueue(String name, BatchHandler<T> handler, int batchSize, long flushInterval, int capacity) {
+        this.name = name;
+        this.handler = handler;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running && !worker.isAlive()) {
+                running = true;
+                worker.start();
+            }
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queues the item if there is room for it, without waiting
+     */
+    public Offer offer(T item) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                return Offer.STOPPED;
+            }
+            return queue.offer(item) ? Offer.QUEUED : Offer.FULL;
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues the item, waiting while the queue is full.
+     *
+     * @return false if the queue is not started or already closed, the item was not queued
+     * @throws InterruptedException
+     */
+    public boolean put(T item) throws InterruptedException {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                return false;
+            }
+            if (!queue.offer(item)) {
+                logger.warn("{} queue is full, waiting", name);
+                queue.put(item);
+            }
+            return true;
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops accepting items and hands the queued ones over before returning
+     */
+    @Override
+    public void close() throws InterruptedException {
+        // waits for the items being queued, the worker keeps handling batches while they wait for room
+        lifecycleLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        // wakes the worker up, which then hands over what is left in the queue
+        queue.put(SHUTDOWN);
+        worker.join();
+        drain();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of accepted items never handed over, as the worker was interrupted
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<T> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    handler.handle(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("{} interrupted, {} items not handled", name, queue.size());
+                return;
+            } catch (Exception e) {
+                logger.error("{} failed to handle a batch", name, e);
+            }
+        }
+        drain();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> nextBatch() throws InterruptedException {
+        List<T> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (batch.size() < batchSize) {
+            Object next = batch.isEmpty() ? queue.poll(flushInterval, TimeUnit.MILLISECONDS)
+                    : queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null || next == SHUTDOWN) {
+                break;
+            }
+            if (batch.isEmpty()) {
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+            }
+            batch.add((T) next);
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void drain() {
+        List<Object> drained = new ArrayList<>(batchSize);
+        while (queue.drainTo(drained, batchSize) > 0) {
+            drained.remove(SHUTDOWN);
+            List<T> batch = new ArrayList<>(drained.size());
+            drained.forEach(item -> batch.add((T) item));
+            try {
+                if (!batch.isEmpty()) {
+                    handler.handle(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.addAndGet(batch.size() + queue.size());
+                logger.error("{} interrupted, dropped {} items", name, batch.size() + queue.size());
+                return;
+            } catch (Exception e) {
+                logger.error("{} failed to handle a batch", name, e);
+            }
+            drained.clear();
+        }
+    }
+}
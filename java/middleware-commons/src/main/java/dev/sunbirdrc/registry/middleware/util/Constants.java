@@ -24,6 +24,14 @@ public class Constants {
 	public static final String ARRAY_ITEM = "_item";
 	public static final String INTERNAL_TYPE_KEYWORD = "_intType";
 	public static final String ROOT_KEYWORD = "_osroot";
+	// Native array storage - suffix of the list valued properties and the position of an item edge
+	public static final String ARRAY_LIST_SUFFIX = "_list";
+	public static final String ARRAY_ITEM_INDEX = "_arrayIndex";
+	// Shard rebalancing - the vertex left behind by a moved record and the label of its new shard
+	public static final String RELOCATED_KEYWORD = "_relocated";
+	public static final String RELOCATED_SHARD_LABEL = "_shardLabel";
+	// the uuid of the moved record, not stored under the uuid property so that lookups by uuid never find the relocation
+	public static final String RELOCATED_UUID = "_relocatedUuid";
 	
 	//Audit Fields Constant
 	public static final String ACTION="action";
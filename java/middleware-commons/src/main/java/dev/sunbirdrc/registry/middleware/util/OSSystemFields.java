@@ -44,7 +44,7 @@ public enum OSSystemFields {
           JSONUtil.addField((ObjectNode) node, osOwner.toString(), ListUtils.emptyIfNull(owners));
       }
     },
-    _osState, _osClaimId, _osAttestedData, _osSignedData;
+    _osState, _osClaimId, _osAttestedData, _osSignedData, _osSignatureStatus;
 
     public void createdBy(JsonNode node, String userId){};
 
@@ -2,6 +2,8 @@ package dev.sunbirdrc.registry.middleware.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jayway.jsonpath.DocumentContext;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -63,6 +65,45 @@ public class ConditionResolverServiceTest {
         resolve = conditionResolverService.resolve(getTeacherJsonNode(), attestor, resolve, attributes);
         assertFalse(conditionResolverService.evaluate(resolve));
     }
+    @Test
+    public void shouldResolveSeveralConditionsWithTheSameParsedEntity() throws IOException {
+        DocumentContext teacher = conditionResolverService.parse(getTeacherJsonNode());
+        String matcher = "ATTESTOR";
+        List<String[]> attributes = new ArrayList<>();
+        assertEquals("{\"Mary school\",\"ABC institute of school\"}.contains('Mary school')",
+                conditionResolverService.resolve(teacher, matcher, "ATTESTOR#$.experience.[*].institute#.contains('Mary school')", attributes));
+        assertEquals("{\"hod\",\"admin\"}.contains('hod')",
+                conditionResolverService.resolve(teacher, matcher, "ATTESTOR#$.experience[?(@.institute == 'Mary school')]['role'][*]#.contains('hod')", attributes));
+        assertEquals("", conditionResolverService.resolve(teacher, matcher, "", attributes));
+    }
+
+    @Test
+    public void shouldEvaluateTheSameExpressionAgain() {
+        String condition = "{'hod','admin'}.contains('hod')";
+        assertTrue(conditionResolverService.evaluate(condition));
+        assertTrue(conditionResolverService.evaluate(condition));
+        assertFalse(conditionResolverService.evaluate("{'hod','admin'}.contains('bo')"));
+    }
+
+    @Test
+    public void shouldEvaluateTheConditionWithTheValuesOfEachEntity() throws IOException {
+        String condition = "ATTESTOR#$.experience.[*].institute#.contains('Mary school') && ATTESTOR#$.identityDetails.fullName#.contains('Om')";
+        JsonNode otherTeacherNode = getTeacherJsonNode();
+        ((ObjectNode) otherTeacherNode.get("identityDetails")).put("fullName", "Ravi");
+        DocumentContext teacher = conditionResolverService.parse(getTeacherJsonNode());
+        DocumentContext otherTeacher = conditionResolverService.parse(otherTeacherNode);
+        assertTrue(conditionResolverService.evaluate(teacher, "ATTESTOR", condition));
+        assertFalse(conditionResolverService.evaluate(otherTeacher, "ATTESTOR", condition));
+        assertTrue(conditionResolverService.evaluate(teacher, "ATTESTOR", condition));
+    }
+
+    @Test
+    public void shouldNotEvaluateTheValuesOfTheEntity() throws IOException {
+        JsonNode attestor = new ObjectMapper().readTree("{\"name\": \"x') || true || ('\"}");
+        assertFalse(conditionResolverService.evaluate(conditionResolverService.parse(attestor), "ATTESTOR",
+                "ATTESTOR#$.name#.equals('admin')"));
+    }
+
     private JsonNode getTeacherJsonNode() throws IOException {
         String nodeStr = "{\n" +
                 "   \"identityDetails\":{\n" +
@@ -0,0 +1,55 @@
+package dev.sunbirdrc.registry.middleware.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BatchingQueueTest {
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void shouldHandOverFullBatchesAndTheRestOnClose() throws Exception {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", batch -> batches.add(new ArrayList<>(batch)), 2, 60000, 10);
+        queue.start();
+        for (int i = 0; i < 5; i++) {
+            queue.put(i);
+        }
+        queue.close();
+
+        List<Integer> handled = new ArrayList<>();
+        batches.forEach(handled::addAll);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), handled);
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void shouldHandOverAPartialBatchAfterTheFlushInterval() throws Exception {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", batch -> batches.add(new ArrayList<>(batch)), 10, 50, 10);
+        queue.start();
+        queue.put(1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Collections.singletonList(Collections.singletonList(1)), batches);
+        queue.close();
+    }
+
+    @Test
+    public void shouldNotQueueOnceClosed() throws Exception {
+        BatchingQueue<Integer> queue = new BatchingQueue<>("test", batch -> batches.add(new ArrayList<>(batch)), 10, 50, 1);
+        assertEquals(BatchingQueue.Offer.STOPPED, queue.offer(1));
+        queue.start();
+        assertEquals(BatchingQueue.Offer.QUEUED, queue.offer(1));
+        queue.close();
+
+        assertEquals(BatchingQueue.Offer.STOPPED, queue.offer(2));
+        assertFalse(queue.put(2));
+    }
+}
@@ -0,0 +1,106 @@
+package dev.sunbirdrc.pojos;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Position of a keyset paged search. The records of every entity type are ordered by their
+ * key field (the uuid property); the cursor keeps the key of the last record returned for each
+ * entity type, and the next page starts after it. Entity types that have no more records are
+ * dropped from the cursor.
+ * The token handed out to the clients is the url safe base64 of the keys, opaque to them.
+ */
+public class SearchCursor {
+    /**
+     * Request field carrying the token, empty for the first page
+     */
+    public static final String CURSOR = "cursor";
+    /**
+     * Response field carrying the token of the next page, absent after the last page
+     */
+    public static final String NEXT_CURSOR = "nextCursor";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String START = "";
+
+    private final String keyField;
+    private final Map<String, String> lastKeys;
+
+    private SearchCursor(String keyField, Map<String, String> lastKeys) {
+        this.keyField = keyField;
+        this.lastKeys = lastKeys;
+    }
+
+    /**
+     * @param token the token of a previous page, or empty for the first page
+     * @param entityTypes the entity types searched
+     * @param keyField the field the records are ordered by
+     * @return
+     * @throws IllegalArgumentException when the token is not one handed out
+     */
+    public static SearchCursor decode(String token, List<String> entityTypes, String keyField) {
+        Map<String, String> lastKeys = new LinkedHashMap<>();
+        if (token == null || token.isEmpty()) {
+            entityTypes.forEach(entityType -> lastKeys.put(entityType, START));
+        } else {
+            try {
+                byte[] json = Base64.getUrlDecoder().decode(token);
+                lastKeys.putAll(objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, String>>() {
+                }));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            lastKeys.keySet().retainAll(entityTypes);
+        }
+        return new SearchCursor(keyField, lastKeys);
+    }
+
+    /**
+     * @return the token of the next page, null when all the records have been returned
+     */
+    public String encode() {
+        if (lastKeys.isEmpty()) {
+            return null;
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(lastKeys));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getKeyField() {
+        return keyField;
+    }
+
+    /**
+     * @param entityType
+     * @return whether all the records of the entity type have been returned
+     */
+    public boolean isExhausted(String entityType) {
+        return !lastKeys.containsKey(entityType);
+    }
+
+    /**
+     * @param entityType
+     * @return the key after which the page starts, null for the first page
+     */
+    public String getLastKey(String entityType) {
+        String lastKey = lastKeys.get(entityType);
+        return START.equals(lastKey) ? null : lastKey;
+    }
+
+    public void setLastKey(String entityType, String lastKey) {
+        lastKeys.put(entityType, lastKey);
+    }
+
+    public void setExhausted(String entityType) {
+        lastKeys.remove(entityType);
+    }
+}
@@ -10,6 +10,12 @@ public class SearchQuery {
 	private List<String> fields;
 	private String rootLabel;
 	private List<String> entityTypes;
+	// set for a keyset paged search, which ignores the offset
+	private SearchCursor cursor;
+	// field the records of an offset paged search are ordered by, unordered when null
+	private String orderBy;
+	// set for the public search, which returns only the public fields of the definitions declaring some
+	private boolean publicFieldsOnly;
 
 	public SearchQuery(String rootLabel, int offset, int limit) {
 		this.rootLabel = rootLabel;
@@ -68,5 +74,29 @@ public class SearchQuery {
     public List<String> getEntityTypes() {
         return entityTypes;
     }
+
+	public SearchCursor getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(SearchCursor cursor) {
+		this.cursor = cursor;
+	}
+
+	public String getOrderBy() {
+		return orderBy;
+	}
+
+	public void setOrderBy(String orderBy) {
+		this.orderBy = orderBy;
+	}
+
+	public boolean isPublicFieldsOnly() {
+		return publicFieldsOnly;
+	}
+
+	public void setPublicFieldsOnly(boolean publicFieldsOnly) {
+		this.publicFieldsOnly = publicFieldsOnly;
+	}
 	
 }
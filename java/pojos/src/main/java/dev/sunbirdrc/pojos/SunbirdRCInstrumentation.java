@@ -1,9 +1,17 @@
 package dev.sunbirdrc.pojos;
 
+import org.perf4j.StopWatch;
 import org.perf4j.slf4j.Slf4JStopWatch;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Logs the time taken between start and stop of a tag. The instance is shared by the requests,
+ * so the stop watches are kept per thread and per tag.
+ */
 public class SunbirdRCInstrumentation {
-	private org.perf4j.StopWatch perf4jStopWatch = new Slf4JStopWatch();
+	private final ThreadLocal<Map<String, StopWatch>> stopWatches = ThreadLocal.withInitial(HashMap::new);
 	private boolean performanceMonitoingEnabled;
 
 	public SunbirdRCInstrumentation(boolean performanceMonitoringEnabled) {
@@ -12,13 +20,16 @@ public class SunbirdRCInstrumentation {
 
 	public void start(String tag) {
 		if (performanceMonitoingEnabled) {
-			perf4jStopWatch.start(tag);
+			stopWatches.get().put(tag, new Slf4JStopWatch(tag));
 		}
 	}
 
 	public void stop(String tag) {
 		if (performanceMonitoingEnabled) {
-			perf4jStopWatch.stop(tag);
+			StopWatch stopWatch = stopWatches.get().remove(tag);
+			if (stopWatch != null) {
+				stopWatch.stop();
+			}
 		}
 	}
 }
@@ -1,13 +1,35 @@
 package dev.sunbirdrc.registry.app;
 
+import dev.sunbirdrc.registry.dao.ArrayStorageMigrator;
+import dev.sunbirdrc.registry.helper.RegistryHelper;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.service.RegistryService;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.sink.shard.ConsistentHashShardAdvisor;
+import dev.sunbirdrc.registry.sink.shard.HashRing;
+import dev.sunbirdrc.registry.sink.shard.IShardAdvisor;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.sink.shard.ShardRebalancer;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
 import dev.sunbirdrc.registry.util.EntityParenter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class AppStartupRunner implements ApplicationRunner {
 
@@ -16,12 +38,99 @@ public class AppStartupRunner implements ApplicationRunner {
 	@Autowired
 	EntityParenter entityParenter;
 
+	@Autowired
+	RegistryHelper registryHelper;
+
+	@Autowired
+	DBConnectionInfoMgr dbConnectionInfoMgr;
+
+	@Autowired
+	ShardManager shardManager;
+
+	@Autowired
+	IShardAdvisor shardAdvisor;
+
+	@Autowired
+	DefinitionsManager definitionsManager;
+
+	@Autowired
+	RegistryService registryService;
+
+	@Value("${database.uuidPropertyName}")
+	private String uuidPropertyName;
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
     	logger.info("On Boot starts loading: parent vertex and shard records");
+    	if (dbConnectionInfoMgr.isArrayStorageMigration()) {
+    		migrateArrayStorage();
+    	}
     	entityParenter.ensureKnownParenters();
     	entityParenter.loadDefinitionIndex();
     	entityParenter.ensureIndexExists();
+    	registryHelper.loadAttestationPolicies();
+    }
+
+    /**
+     * Moves the records whose shard changed before the web server starts, so that no request
+     * reads or writes a record while it moves. A rebalancing is recorded once completed and not
+     * run again on the following starts.
+     */
+    @PostConstruct
+    public void rebalanceShards() throws Exception {
+    	if (dbConnectionInfoMgr.getRebalanceFromShards().isEmpty()) {
+    		return;
+    	}
+    	if (!(shardAdvisor instanceof ConsistentHashShardAdvisor)) {
+    		logger.warn("Shards are rebalanced only with the ConsistentHashShardAdvisor, skipping the rebalancing");
+    		return;
+    	}
+    	List<DBConnectionInfo> previousShards = new ArrayList<>();
+    	for (String previousShard : dbConnectionInfoMgr.getRebalanceFromShards()) {
+    		String[] shardWeight = previousShard.trim().split(":");
+    		DBConnectionInfo connectionInfo = dbConnectionInfoMgr.getDBConnectionInfo(shardWeight[0]);
+    		if (connectionInfo == null) {
+    			logger.error("Shard {} to rebalance from is not configured, skipping the rebalancing", shardWeight[0]);
+    			return;
+    		}
+    		DBConnectionInfo previousConnectionInfo = new DBConnectionInfo();
+    		previousConnectionInfo.setShardId(connectionInfo.getShardId());
+    		previousConnectionInfo.setShardLabel(connectionInfo.getShardLabel());
+    		previousConnectionInfo.setWeight(shardWeight.length > 1 ? Integer.parseInt(shardWeight[1]) : connectionInfo.getWeight());
+    		previousShards.add(previousConnectionInfo);
+    	}
+    	Map<String, DatabaseProvider> shards = new HashMap<>();
+    	for (DBConnectionInfo connectionInfo : dbConnectionInfoMgr.getConnectionInfo()) {
+    		shards.put(connectionInfo.getShardId(), shardManager.activateShard(connectionInfo.getShardId()).getDatabaseProvider());
+    	}
+    	HashRing previous = new HashRing(previousShards, dbConnectionInfoMgr.getVirtualNodes());
+    	HashRing current = ((ConsistentHashShardAdvisor) shardAdvisor).getHashRing();
+    	ShardRebalancer rebalancer = new ShardRebalancer(uuidPropertyName, dbConnectionInfoMgr.getShardProperty(),
+    			definitionsManager.getAllKnownDefinitions(),
+    			(entityType, uuid, to) -> registryService.reindexEntity(shardManager.activateShard(to.getShardId()), entityType, uuid));
+    	DatabaseProvider defaultShard = shardManager.getDefaultShard().getDatabaseProvider();
+    	if (rebalancer.isRebalanced(defaultShard, previous, current)) {
+    		logger.info("Shards {} are rebalanced already, rebalanceFromShards can be removed", previous);
+    		return;
+    	}
+    	int moved = rebalancer.rebalance(previous, current, shards);
+    	rebalancer.markRebalanced(defaultShard, previous, current);
+    	logger.info("Rebalancing moved {} records", moved);
+    }
+
+    private void migrateArrayStorage() {
+    	for (DBConnectionInfo connectionInfo : dbConnectionInfoMgr.getConnectionInfo()) {
+    		DatabaseProvider databaseProvider = shardManager.activateShard(connectionInfo.getShardId()).getDatabaseProvider();
+    		if (databaseProvider.getArrayStorage() != ArrayStorage.NATIVE) {
+    			logger.warn("Array storage is not native, skipping the array migration");
+    			return;
+    		}
+    		try (OSGraph osGraph = databaseProvider.getOSGraph()) {
+    			int migrated = new ArrayStorageMigrator(databaseProvider, uuidPropertyName).migrate(osGraph.getGraphStore());
+    			logger.info("Migrated {} arrays of shard {}", migrated, connectionInfo.getShardId());
+    		} catch (Exception e) {
+    			logger.error("Array migration of shard {} failed", connectionInfo.getShardId(), e);
+    		}
+    	}
     }
 }
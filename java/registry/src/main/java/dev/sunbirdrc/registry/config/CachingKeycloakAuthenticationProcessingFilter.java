@@ -0,0 +1,63 @@
+package dev.sunbirdrc.registry.config;
+
+import dev.sunbirdrc.registry.util.VerifiedTokenCache;
+import org.keycloak.KeycloakSecurityContext;
+import org.keycloak.adapters.springsecurity.filter.KeycloakAuthenticationProcessingFilter;
+import org.keycloak.adapters.springsecurity.token.KeycloakAuthenticationToken;
+import org.keycloak.representations.AccessToken;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates the bearer token of a request from the cache of the tokens verified so far, and
+ * verifies it with keycloak only when it is not cached yet. The principal and roles the token is
+ * verified into are kept until the token expires.
+ */
+public class CachingKeycloakAuthenticationProcessingFilter extends KeycloakAuthenticationProcessingFilter {
+    private static final String BEARER = "bearer ";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public CachingKeycloakAuthenticationProcessingFilter(AuthenticationManager authenticationManager,
+                                                         VerifiedTokenCache verifiedTokenCache) {
+        super(authenticationManager);
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    @Override
+    public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response)
+            throws AuthenticationException, IOException, ServletException {
+        String token = getBearerToken(request);
+        if (token != null) {
+            Authentication cached = verifiedTokenCache.get(token);
+            if (cached instanceof KeycloakAuthenticationToken) {
+                request.setAttribute(KeycloakSecurityContext.class.getName(),
+                        ((KeycloakAuthenticationToken) cached).getAccount().getKeycloakSecurityContext());
+                return cached;
+            }
+        }
+        Authentication authentication = super.attemptAuthentication(request, response);
+        if (token != null && authentication instanceof KeycloakAuthenticationToken) {
+            AccessToken accessToken = ((KeycloakAuthenticationToken) authentication).getAccount()
+                    .getKeycloakSecurityContext().getToken();
+            if (accessToken.getExp() != null) {
+                verifiedTokenCache.put(token, authentication, accessToken.getExp() * 1000L);
+            }
+        }
+        return authentication;
+    }
+
+    private static String getBearerToken(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return authorization.substring(BEARER.length()).trim();
+        }
+        return null;
+    }
+}
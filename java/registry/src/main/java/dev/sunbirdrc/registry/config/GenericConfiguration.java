@@ -6,6 +6,7 @@ import com.google.gson.Gson;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import dev.sunbirdrc.actors.services.NotificationService;
+import dev.sunbirdrc.elastic.BulkIndexingService;
 import dev.sunbirdrc.elastic.ElasticServiceImpl;
 import dev.sunbirdrc.elastic.IElasticService;
 import dev.sunbirdrc.pojos.AuditRecord;
@@ -29,6 +30,7 @@ import dev.sunbirdrc.registry.sink.shard.IShardAdvisor;
 import dev.sunbirdrc.registry.sink.shard.ShardAdvisor;
 import dev.sunbirdrc.registry.transform.*;
 import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.IndexTemplateGenerator;
 import dev.sunbirdrc.registry.util.ServiceProvider;
 import dev.sunbirdrc.validators.IValidate;
 import dev.sunbirdrc.validators.ValidationFilter;
@@ -45,6 +47,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.retry.annotation.EnableRetry;
@@ -62,6 +65,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableRetry
@@ -84,6 +88,8 @@ public class GenericConfiguration implements WebMvcConfigurer {
 
 	@Autowired
 	private DefinitionsManager definitionsManager;
+	@Autowired
+	private IndexTemplateGenerator indexTemplateGenerator;
 	@Value("${service.connection.timeout}")
 	private int connectionTimeout;
 	@Value("${service.read.timeout}")
@@ -124,8 +130,38 @@ public class GenericConfiguration implements WebMvcConfigurer {
 	private int auditMaxPoolSize;
 	@Value("${auditTaskExecutor.queueCapacity}")
 	private int auditQueueCapacity;
+	@Value("${searchTaskExecutor.threadPoolName:SearchThread-}")
+	private String searchThreadName;
+	@Value("${searchTaskExecutor.corePoolSize:4}")
+	private int searchCorePoolSize;
+	@Value("${searchTaskExecutor.maxPoolSize:4}")
+	private int searchMaxPoolSize;
+	@Value("${searchTaskExecutor.queueCapacity:100}")
+	private int searchQueueCapacity;
+	@Value("${fileStorageTaskExecutor.threadPoolName:FileStorageThread-}")
+	private String fileStorageThreadName;
+	@Value("${fileStorageTaskExecutor.corePoolSize:4}")
+	private int fileStorageCorePoolSize;
+	@Value("${fileStorageTaskExecutor.maxPoolSize:4}")
+	private int fileStorageMaxPoolSize;
+	@Value("${fileStorageTaskExecutor.queueCapacity:100}")
+	private int fileStorageQueueCapacity;
 	@Value("${elastic.search.connection_url}")
 	private String elasticConnInfo;
+	@Value("${elastic.search.bulk.enabled:false}")
+	private boolean elasticBulkEnabled;
+	@Value("${elastic.search.bulk.batchSize:500}")
+	private int elasticBulkBatchSize;
+	@Value("${elastic.search.bulk.flushInterval:1000}")
+	private long elasticBulkFlushInterval;
+	@Value("${elastic.search.bulk.queueCapacity:10000}")
+	private int elasticBulkQueueCapacity;
+	@Value("${elastic.search.bulk.maxRetries:3}")
+	private int elasticBulkMaxRetries;
+	@Value("${elastic.search.bulk.retryBackoff:500}")
+	private long elasticBulkRetryBackoff;
+	@Value("${elastic.search.reindexOnMappingChange:false}")
+	private boolean elasticReindexOnMappingChange;
 	@Value("${notification.service.connection_url}")
 	private String notificationServiceConnInfo;
 	@Value("${search.providerName}")
@@ -400,7 +436,41 @@ public class GenericConfiguration implements WebMvcConfigurer {
 	}
 
 	/**
-	 * creates elastic-service bean and instanstiates the indices
+	 * This method creates ThreadPool task-executor for searching the shards in parallel
+	 *
+	 * @return - AsyncTaskExecutor
+	 */
+	@Bean(name = "searchExecutor")
+	public AsyncTaskExecutor searchTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(searchCorePoolSize);
+		executor.setMaxPoolSize(searchMaxPoolSize);
+		executor.setQueueCapacity(searchQueueCapacity);
+		executor.setThreadNamePrefix(searchThreadName);
+		executor.initialize();
+		return executor;
+	}
+
+	/**
+	 * This method creates ThreadPool task-executor for uploading the files of a request concurrently
+	 *
+	 * @return - AsyncTaskExecutor
+	 */
+	@Bean(name = "fileStorageExecutor")
+	public AsyncTaskExecutor fileStorageTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(fileStorageCorePoolSize);
+		executor.setMaxPoolSize(fileStorageMaxPoolSize);
+		executor.setQueueCapacity(fileStorageQueueCapacity);
+		executor.setThreadNamePrefix(fileStorageThreadName);
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.initialize();
+		return executor;
+	}
+
+	/**
+	 * creates elastic-service bean and instanstiates the indices, mapped from the definitions.
+	 * The indices of the definitions appended later are added as they are appended.
 	 *
 	 * @return - IElasticService
 	 * @throws IOException
@@ -412,11 +482,34 @@ public class GenericConfiguration implements WebMvcConfigurer {
 		if (isElasticSearchEnabled()) {
 			elasticService.setType(Constants.ES_DOC_TYPE);
 			elasticService.setConnectionInfo(elasticConnInfo);
-			elasticService.init(definitionsManager.getAllKnownDefinitions(), definitionsManager.getExcludingFields());
+			elasticService.setReindexOnMappingChange(elasticReindexOnMappingChange);
+			elasticService.init(indexTemplateGenerator.generateAll(), indexTemplateGenerator.getAllSourceIncludes(),
+					definitionsManager.getExcludingFields());
+			definitionsManager.addDefinitionListener(definition -> elasticService.addIndex(definition.getTitle().toLowerCase(),
+					indexTemplateGenerator.generate(definition), indexTemplateGenerator.getSourceIncludes(definition),
+					definitionsManager.getExcludingFields(definition)));
 		}
 		return elasticService;
 	}
 
+	/**
+	 * creates the bulk indexer the registry queues its index updates on, when it is enabled.
+	 * Queued requests are sent when the application shuts down
+	 *
+	 * @return - BulkIndexingService
+	 */
+	@Bean(destroyMethod = "close")
+	public BulkIndexingService bulkIndexingService() {
+		// the elastic-search clients are shared by all ElasticServiceImpl instances
+		BulkIndexingService bulkIndexingService = new BulkIndexingService(new ElasticServiceImpl()::bulk,
+				elasticBulkBatchSize, elasticBulkFlushInterval, elasticBulkQueueCapacity,
+				elasticBulkMaxRetries, elasticBulkRetryBackoff);
+		if (isElasticSearchEnabled() && elasticBulkEnabled) {
+			bulkIndexingService.start();
+		}
+		return bulkIndexingService;
+	}
+
 	@Bean
 	public NotificationService notificationService() {
 		NotificationService notificationService = new NotificationService();
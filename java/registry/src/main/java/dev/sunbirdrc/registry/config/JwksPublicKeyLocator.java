@@ -0,0 +1,96 @@
+package dev.sunbirdrc.registry.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.rotation.PublicKeyLocator;
+import org.keycloak.jose.jwk.JSONWebKeySet;
+import org.keycloak.jose.jwk.JWK;
+import org.keycloak.jose.jwk.JWKParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Locates the keys tokens are signed with in a JSON web key set read from a file or url. The set
+ * is read again when a token is signed with a key it does not have, at most once every
+ * minRefreshInterval, so that the keys can be rotated without restarting the registry.
+ */
+public class JwksPublicKeyLocator implements PublicKeyLocator {
+    private static Logger logger = LoggerFactory.getLogger(JwksPublicKeyLocator.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String jwksUrl;
+    private final long minRefreshInterval;
+    private volatile Map<String, PublicKey> publicKeys = Collections.emptyMap();
+    private volatile long lastRefresh;
+
+    /**
+     * @param jwksUrl            - url of the key set, a file: url for a local file
+     * @param minRefreshInterval - minimum time in milliseconds between two reads of the key set
+     */
+    public JwksPublicKeyLocator(String jwksUrl, long minRefreshInterval) {
+        this.jwksUrl = jwksUrl;
+        this.minRefreshInterval = minRefreshInterval;
+        refresh();
+    }
+
+    @Override
+    public PublicKey getPublicKey(String kid, KeycloakDeployment deployment) {
+        PublicKey publicKey = findKey(kid);
+        if (publicKey == null && System.currentTimeMillis() - lastRefresh >= minRefreshInterval) {
+            synchronized (this) {
+                publicKey = findKey(kid);
+                if (publicKey == null && System.currentTimeMillis() - lastRefresh >= minRefreshInterval) {
+                    refresh();
+                    publicKey = findKey(kid);
+                }
+            }
+        }
+        if (publicKey == null) {
+            logger.warn("No key {} in the key set of {}", kid, jwksUrl);
+        }
+        return publicKey;
+    }
+
+    @Override
+    public void reset(KeycloakDeployment deployment) {
+        synchronized (this) {
+            refresh();
+        }
+    }
+
+    /**
+     * @return the key of the id, the only key of the set when the token names none
+     */
+    private PublicKey findKey(String kid) {
+        Map<String, PublicKey> keys = publicKeys;
+        if (kid == null) {
+            return keys.size() == 1 ? keys.values().iterator().next() : null;
+        }
+        return keys.get(kid);
+    }
+
+    private void refresh() {
+        lastRefresh = System.currentTimeMillis();
+        try (InputStream inputStream = new URL(jwksUrl).openStream()) {
+            JSONWebKeySet keySet = objectMapper.readValue(inputStream, JSONWebKeySet.class);
+            Map<String, PublicKey> keys = new HashMap<>();
+            for (JWK jwk : keySet.getKeys()) {
+                if (jwk.getPublicKeyUse() == null || JWK.Use.SIG.asString().equals(jwk.getPublicKeyUse())) {
+                    keys.put(jwk.getKeyId(), JWKParser.create(jwk).toPublicKey());
+                }
+            }
+            publicKeys = keys;
+            logger.info("Read {} keys from {}", keys.size(), jwksUrl);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Reading the key set from {} failed, keeping the {} keys read before", jwksUrl, publicKeys.size(), e);
+        }
+    }
+}
@@ -13,6 +13,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,8 +30,12 @@ public class KafkaConfiguration {
 	String createEntityTopic;
 	@Value("${kafka.postCreateEntityTopic:post_create_entity}")
 	String postCreateEntityTopic;
+	@Value("${kafka.createEntityDeadLetterTopic:create_entity_dlt}")
+	String createEntityDeadLetterTopic;
 	@Value(value = "${kafka.bootstrapAddress}")
 	private String bootstrapAddress;
+	@Value("${kafka.batchListener.maxPollRecords:500}")
+	private int batchMaxPollRecords;
 
 	@Bean
 	public KafkaAdmin kafkaAdmin() {
@@ -47,6 +54,11 @@ public class KafkaConfiguration {
 		return new NewTopic(postCreateEntityTopic, 1, (short) 1);
 	}
 
+	@Bean
+	public NewTopic createEntityDeadLetterTopic() {
+		return new NewTopic(createEntityDeadLetterTopic, 1, (short) 1);
+	}
+
 	@Bean
 	public ProducerFactory<String, String> producerFactory() {
 		Map<String, Object> configProps = new HashMap<>();
@@ -79,4 +91,24 @@ public class KafkaConfiguration {
 		return factory;
 	}
 
+	/**
+	 * Listener container handing over every poll as one batch. Offsets are committed by the
+	 * listener once the batch is processed. When the listener names the record that failed, the
+	 * records before it are committed and the batch is polled again from it; a record failing
+	 * every retry is logged and skipped.
+	 */
+	@Bean
+	public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+		Map<String, Object> props = new HashMap<>(consumerFactory().getConfigurationProperties());
+		props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+		props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+		ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+		factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+		factory.setBatchListener(true);
+		factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+		factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 3L)));
+		return factory;
+	}
+
 }
@@ -1,9 +1,14 @@
 package dev.sunbirdrc.registry.config;
 
+import dev.sunbirdrc.registry.util.VerifiedTokenCache;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.OIDCHttpFacade;
+import org.keycloak.adapters.rotation.PublicKeyLocator;
 import org.keycloak.adapters.springboot.KeycloakSpringBootConfigResolver;
 import org.keycloak.adapters.springsecurity.KeycloakSecurityComponents;
 import org.keycloak.adapters.springsecurity.authentication.KeycloakAuthenticationProvider;
 import org.keycloak.adapters.springsecurity.config.KeycloakWebSecurityConfigurerAdapter;
+import org.keycloak.adapters.springsecurity.filter.KeycloakAuthenticationProcessingFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -12,9 +17,12 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.authority.mapping.SimpleAuthorityMapper;
 import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.web.authentication.session.NullAuthenticatedSessionStrategy;
 import org.springframework.security.web.authentication.session.RegisterSessionAuthenticationStrategy;
 import org.springframework.security.web.authentication.session.SessionAuthenticationStrategy;
 
@@ -26,6 +34,18 @@ public class SecurityConfig extends KeycloakWebSecurityConfigurerAdapter {
 
     @Value("${authentication.enabled:true}") boolean authenticationEnabled;
 
+    @Value("${authentication.stateless:true}")
+    private boolean stateless;
+
+    @Value("${authentication.tokenCache.maxSize:10000}")
+    private int tokenCacheMaxSize;
+
+    @Value("${server.port:8081}")
+    private int serverPort;
+
+    @Value("${management.server.port:${server.port:8081}}")
+    private int managementPort;
+
     @Autowired
     public void configureGlobal(AuthenticationManagerBuilder auth) throws Exception {
 
@@ -35,14 +55,55 @@ public class SecurityConfig extends KeycloakWebSecurityConfigurerAdapter {
         auth.authenticationProvider(keycloakAuthenticationProvider);
     }
 
+    /**
+     * Resolves the keycloak deployment from the spring boot properties. The keys tokens are signed
+     * with are read from authentication.jwks.url when it is set, instead of the realm of the server.
+     * Static, as the keycloak adapter this configuration extends needs it before its fields are set.
+     */
+    @Bean
+    public static KeycloakSpringBootConfigResolver KeycloakConfigResolver(
+            @Value("${authentication.jwks.url:}") String jwksUrl,
+            @Value("${authentication.jwks.minRefreshInterval:10000}") long jwksMinRefreshInterval) {
+        if (jwksUrl.isEmpty()) {
+            return new KeycloakSpringBootConfigResolver();
+        }
+        PublicKeyLocator publicKeyLocator = new JwksPublicKeyLocator(jwksUrl, jwksMinRefreshInterval);
+        return new KeycloakSpringBootConfigResolver() {
+            @Override
+            public KeycloakDeployment resolve(OIDCHttpFacade.Request request) {
+                KeycloakDeployment deployment = super.resolve(request);
+                if (deployment.getPublicKeyLocator() != publicKeyLocator) {
+                    deployment.setPublicKeyLocator(publicKeyLocator);
+                }
+                return deployment;
+            }
+        };
+    }
+
     @Bean
-    public KeycloakSpringBootConfigResolver KeycloakConfigResolver() {
-        return new KeycloakSpringBootConfigResolver();
+    public VerifiedTokenCache verifiedTokenCache() {
+        return new VerifiedTokenCache(tokenCacheMaxSize);
     }
 
+    @Bean
+    @Override
+    protected KeycloakAuthenticationProcessingFilter keycloakAuthenticationProcessingFilter() throws Exception {
+        KeycloakAuthenticationProcessingFilter filter = new CachingKeycloakAuthenticationProcessingFilter(
+                authenticationManagerBean(), verifiedTokenCache());
+        filter.setSessionAuthenticationStrategy(sessionAuthenticationStrategy());
+        return filter;
+    }
+
+    /**
+     * Bearer tokens authenticate every request on their own, so no session is registered for them
+     * unless authentication.stateless is turned off
+     */
     @Bean
     @Override
     protected SessionAuthenticationStrategy sessionAuthenticationStrategy() {
+        if (stateless) {
+            return new NullAuthenticatedSessionStrategy();
+        }
         return new RegisterSessionAuthenticationStrategy(
                 new SessionRegistryImpl());
     }
@@ -52,9 +113,16 @@ public class SecurityConfig extends KeycloakWebSecurityConfigurerAdapter {
         super.configure(http);
 
         HttpSecurity httpConfig = http.csrf().disable();
+        if (stateless) {
+            httpConfig.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+        }
         if (authenticationEnabled) {
-            httpConfig.authorizeRequests()
-                    .antMatchers("/**/invite", "/health", "/error",
+            ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry requests = httpConfig.authorizeRequests();
+            if (managementPort != serverPort) {
+                // the management port is not exposed outside the cluster, metrics are scraped from it without a token
+                requests.requestMatchers(request -> request.getLocalPort() == managementPort).permitAll();
+            }
+            requests.antMatchers("/**/invite", "/health", "/error",
                             "/_schemas/**", "/**/templates/**", "/**/*.json", "/**/verify",
                             "/swagger-ui", "/**/search", "/**/attestation/**",
                             "/api/docs/swagger.json","/api/docs/*.json", "/plugin/**")
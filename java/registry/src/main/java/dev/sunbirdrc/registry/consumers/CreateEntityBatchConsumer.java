@@ -0,0 +1,274 @@
+package dev.sunbirdrc.registry.consumers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.model.dto.AddEntitiesResult;
+import dev.sunbirdrc.registry.model.dto.CreateEntityMessage;
+import dev.sunbirdrc.registry.model.dto.CreateEntityStatus;
+import dev.sunbirdrc.registry.model.dto.PostCreateEntityMessage;
+import dev.sunbirdrc.registry.model.dto.WebhookEvent;
+import dev.sunbirdrc.registry.service.RegistryService;
+import dev.sunbirdrc.registry.service.WebhookService;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.validators.IValidate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+import static dev.sunbirdrc.registry.Constants.SUNBIRD_RC;
+import static dev.sunbirdrc.registry.Constants.createEntityGroupId;
+
+/**
+ * Consumes the create entity topic a poll at a time. The records are validated against their
+ * schema up front, the entities of a shard are added in one transaction and the post create
+ * messages are sent together. When the transaction of a shard fails, only its records that were
+ * not persisted are added one by one, and the ones still failing are sent to the dead letter
+ * topic. Offsets are committed once the batch is done. When the result of a record cannot be
+ * sent, the records before it are committed and the batch is polled again from it; the entities
+ * it already added are remembered by record, and not added again.
+ */
+@Component
+@ConditionalOnExpression("${async.enabled:false} && ${kafka.batchListener.enabled:false}")
+public class CreateEntityBatchConsumer {
+    private static final Logger logger = LoggerFactory.getLogger(CreateEntityBatchConsumer.class);
+    public static final String ERROR_HEADER = "error";
+    private static final int UNCOMMITTED_BATCHES = 4;
+
+    private final ObjectMapper objectMapper;
+    private final ShardManager shardManager;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final RegistryService registryService;
+    private final WebhookService webhookService;
+    private final DefinitionsManager definitionsManager;
+    private final IValidate validationService;
+
+    @Value("${kafka.postCreateEntityTopic:post_create_entity}")
+    String postCreateEntityTopic;
+    @Value("${kafka.createEntityDeadLetterTopic:create_entity_dlt}")
+    String createEntityDeadLetterTopic;
+    @Value("${kafka.batchListener.maxPollRecords:500}")
+    int maxPollRecords = 500;
+
+    // the entities added by a batch that failed before its offsets were committed, by record,
+    // so that the records polled again are not added twice; a few batches are kept at most
+    private final Map<String, PostCreateEntityMessage> uncommitted = Collections.synchronizedMap(
+            new LinkedHashMap<String, PostCreateEntityMessage>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PostCreateEntityMessage> eldest) {
+                    return size() > maxPollRecords * UNCOMMITTED_BATCHES;
+                }
+            });
+
+    @Autowired
+    public CreateEntityBatchConsumer(ObjectMapper objectMapper, ShardManager shardManager, KafkaTemplate<String, String> kafkaTemplate,
+                                     @Qualifier("sync") RegistryService registryService, WebhookService webhookService,
+                                     DefinitionsManager definitionsManager, IValidate validationService) {
+        this.objectMapper = objectMapper;
+        this.shardManager = shardManager;
+        this.kafkaTemplate = kafkaTemplate;
+        this.registryService = registryService;
+        this.webhookService = webhookService;
+        this.definitionsManager = definitionsManager;
+        this.validationService = validationService;
+    }
+
+    @KafkaListener(topics = "#{'${kafka.createEntityTopic}'}", groupId = createEntityGroupId, autoStartup = "${async.enabled}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void createEntitiesConsumer(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        logger.debug("Received {} messages", records.size());
+        Map<ConsumerRecord<String, String>, PostCreateEntityMessage> results = new LinkedHashMap<>();
+        Map<ConsumerRecord<String, String>, ListenableFuture<SendResult<String, String>>> deadLetters = new HashMap<>();
+
+        Map<String, ShardBatch> shardBatches = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            PostCreateEntityMessage persisted = uncommitted.get(recordId(record));
+            if (persisted != null) {
+                logger.info("Entity of key {} was added before the batch failed, not adding it again", record.key());
+                results.put(record, persisted);
+                continue;
+            }
+            results.put(record, null);
+            try {
+                CreateEntityMessage createEntityMessage = objectMapper.readValue(record.value(), CreateEntityMessage.class);
+                JsonNode inputJson = createEntityMessage.getInputJson();
+                String entityType = inputJson.fields().next().getKey();
+                if (definitionsManager.getDefinition(entityType) == null) {
+                    throw new IllegalArgumentException("Unknown entity type " + entityType);
+                }
+                validationService.validate(entityType, objectMapper.writeValueAsString(inputJson),
+                        createEntityMessage.isSkipSignature());
+                Shard shard = shardManager.getShard(inputJson.get(entityType).get(shardManager.getShardProperty()));
+                shardBatches.computeIfAbsent(shard.getShardId(), shardId -> new ShardBatch(shard))
+                        .add(record, createEntityMessage, entityType);
+            } catch (Exception e) {
+                logger.error("Invalid create entity message, key: {}, {}", record.key(), e.getMessage(), e);
+                results.put(record, failed(record, e));
+                deadLetters.put(record, sendToDeadLetterTopic(record, e));
+            }
+        }
+
+        for (ShardBatch shardBatch : shardBatches.values()) {
+            AddEntitiesResult added = null;
+            try {
+                added = registryService.addEntities(shardBatch.shard, shardBatch.messages);
+            } catch (Exception e) {
+                logger.warn("Adding {} entities to shard {} failed, adding them one by one: {}", shardBatch.records.size(),
+                        shardBatch.shard.getShardId(), e.getMessage());
+            }
+            for (int i = 0; i < shardBatch.records.size(); i++) {
+                ConsumerRecord<String, String> record = shardBatch.records.get(i);
+                CreateEntityMessage createEntityMessage = shardBatch.messages.get(i);
+                if (added != null && added.isPersisted(i)) {
+                    results.put(record, successful(record, createEntityMessage, shardBatch.entityTypes.get(i), added.getEntityId(i)));
+                } else if (added != null && added.getError(i) != null) {
+                    logger.error("Creating entity failed, key: {}, {}", record.key(), added.getError(i).getMessage(), added.getError(i));
+                    results.put(record, failed(record, added.getError(i)));
+                    deadLetters.put(record, sendToDeadLetterTopic(record, added.getError(i)));
+                } else {
+                    // not persisted, its transaction was rolled back
+                    try {
+                        String entityOsid = registryService.addEntity(shardBatch.shard, createEntityMessage.getUserId(),
+                                createEntityMessage.getInputJson().deepCopy(), createEntityMessage.isSkipSignature());
+                        results.put(record, successful(record, createEntityMessage, shardBatch.entityTypes.get(i), entityOsid));
+                    } catch (Exception recordException) {
+                        logger.error("Creating entity failed, key: {}, {}", record.key(), recordException.getMessage(), recordException);
+                        results.put(record, failed(record, recordException));
+                        deadLetters.put(record, sendToDeadLetterTopic(record, recordException));
+                    }
+                }
+            }
+        }
+        for (Map.Entry<ConsumerRecord<String, String>, PostCreateEntityMessage> result : results.entrySet()) {
+            if (result.getValue().getStatus() == CreateEntityStatus.SUCCESSFUL) {
+                uncommitted.put(recordId(result.getKey()), result.getValue());
+            }
+        }
+
+        int unsent = publish(records, results, deadLetters);
+
+        List<WebhookEvent> webhookEvents = new ArrayList<>(unsent);
+        for (ConsumerRecord<String, String> record : records.subList(0, unsent)) {
+            webhookEvents.add(WebhookEvent.builder().event(String.format("%s-create", SUNBIRD_RC))
+                    .data(results.get(record))
+                    .timestamp(Timestamp.from(Instant.now())).build());
+        }
+        try {
+            webhookService.postEvents(webhookEvents);
+        } catch (Exception e) {
+            logger.error("Posting {} webhook events failed: {}", webhookEvents.size(), e.getMessage(), e);
+        }
+
+        if (unsent < records.size()) {
+            // the records before it are committed by the error handler, polling the batch again from it
+            forget(records.subList(0, unsent));
+            throw new BatchListenerFailedException("Sending the result of key " + records.get(unsent).key() + " failed", unsent);
+        }
+        acknowledgment.acknowledge();
+        forget(records);
+    }
+
+    /**
+     * Sends the post create message of every record, and waits for them and the dead letters to be sent.
+     *
+     * @return the index of the first record whose messages could not be sent, the number of records when all were sent
+     */
+    private int publish(List<ConsumerRecord<String, String>> records,
+                        Map<ConsumerRecord<String, String>, PostCreateEntityMessage> results,
+                        Map<ConsumerRecord<String, String>, ListenableFuture<SendResult<String, String>>> deadLetters) {
+        List<ListenableFuture<SendResult<String, String>>> postCreateMessages = new ArrayList<>(records.size());
+        try {
+            for (ConsumerRecord<String, String> record : records) {
+                postCreateMessages.add(kafkaTemplate.send(postCreateEntityTopic, record.key(),
+                        objectMapper.writeValueAsString(results.get(record))));
+            }
+            kafkaTemplate.flush();
+        } catch (Exception e) {
+            logger.error("Sending message to {} topic failed: {}", postCreateEntityTopic, e.getMessage(), e);
+            return 0;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            ListenableFuture<SendResult<String, String>> deadLetter = deadLetters.get(records.get(i));
+            if (!isSent(postCreateEntityTopic, postCreateMessages.get(i))
+                    || deadLetter != null && !isSent(createEntityDeadLetterTopic, deadLetter)) {
+                return i;
+            }
+        }
+        return records.size();
+    }
+
+    private boolean isSent(String topic, ListenableFuture<SendResult<String, String>> future) {
+        try {
+            future.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while sending to {} topic", topic);
+        } catch (Exception e) {
+            logger.error("Sending message to {} topic failed: {}", topic, e.getMessage(), e);
+        }
+        return false;
+    }
+
+    private void forget(List<ConsumerRecord<String, String>> records) {
+        for (ConsumerRecord<String, String> record : records) {
+            uncommitted.remove(recordId(record));
+        }
+    }
+
+    private static String recordId(ConsumerRecord<String, String> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private ListenableFuture<SendResult<String, String>> sendToDeadLetterTopic(ConsumerRecord<String, String> record, Exception e) {
+        ProducerRecord<String, String> deadLetter = new ProducerRecord<>(createEntityDeadLetterTopic, record.key(), record.value());
+        deadLetter.headers().add(ERROR_HEADER, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(deadLetter);
+    }
+
+    private static PostCreateEntityMessage successful(ConsumerRecord<String, String> record, CreateEntityMessage createEntityMessage,
+                                                      String entityType, String entityOsid) {
+        return PostCreateEntityMessage.builder().entityType(entityType).osid(entityOsid).transactionId(record.key())
+                .userId(createEntityMessage.getUserId()).status(CreateEntityStatus.SUCCESSFUL).message("").build();
+    }
+
+    private static PostCreateEntityMessage failed(ConsumerRecord<String, String> record, Exception e) {
+        return PostCreateEntityMessage.builder().transactionId(record.key()).status(CreateEntityStatus.FAILED)
+                .message(e.getMessage()).build();
+    }
+
+    private static class ShardBatch {
+        private final Shard shard;
+        private final List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        private final List<CreateEntityMessage> messages = new ArrayList<>();
+        private final List<String> entityTypes = new ArrayList<>();
+
+        ShardBatch(Shard shard) {
+            this.shard = shard;
+        }
+
+        void add(ConsumerRecord<String, String> record, CreateEntityMessage createEntityMessage, String entityType) {
+            records.add(record);
+            messages.add(createEntityMessage);
+            entityTypes.add(entityType);
+        }
+    }
+}
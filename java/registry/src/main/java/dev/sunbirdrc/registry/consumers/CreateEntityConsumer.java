@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -32,6 +33,7 @@ import static dev.sunbirdrc.registry.Constants.SUNBIRD_RC;
 import static dev.sunbirdrc.registry.Constants.createEntityGroupId;
 
 @Component
+@ConditionalOnProperty(name = "kafka.batchListener.enabled", havingValue = "false", matchIfMissing = true)
 public class CreateEntityConsumer {
     private static final Logger logger = LoggerFactory.getLogger(CreateEntityConsumer.class);
     private final ObjectMapper objectMapper;
@@ -3,19 +3,25 @@ package dev.sunbirdrc.registry.controller;
 import dev.sunbirdrc.registry.helper.RegistryHelper;
 import dev.sunbirdrc.registry.model.dto.DocumentsResponse;
 import dev.sunbirdrc.registry.service.FileStorageService;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import io.minio.StatObjectResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 // TODO: Get should be viewed by both attestor and reviewer
 @Controller
 public class FileStorageController {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageController.class);
     private final FileStorageService fileStorageService;
     private final RegistryHelper registryHelper;
 
@@ -71,12 +77,18 @@ public class FileStorageController {
         return fileStorageService.deleteDocument(httpServletRequest.getRequestURI());
     }
 
+    /**
+     * Streams the document from the file storage, so the memory used does not grow with the size
+     * of the document. A single byte range can be requested with the Range header; the other
+     * range requests get the whole document.
+     */
     @GetMapping(value = "/api/v1/{entity}/{entityId}/{property}/documents/{documentId}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<byte[]> get(@PathVariable String entity,
-                                      @PathVariable String entityId,
-                                      @PathVariable String property,
-                                      @PathVariable String documentId,
-                                      HttpServletRequest httpServletRequest) {
+    public ResponseEntity<StreamingResponseBody> get(@PathVariable String entity,
+                                                     @PathVariable String entityId,
+                                                     @PathVariable String property,
+                                                     @PathVariable String documentId,
+                                                     @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                                                     HttpServletRequest httpServletRequest) {
         try {
             registryHelper.authorize(entity, entityId, httpServletRequest);
         } catch (Exception e) {
@@ -86,7 +98,65 @@ public class FileStorageController {
                 return new ResponseEntity<>(HttpStatus.FORBIDDEN);
             }
         }
-        byte[] document = fileStorageService.getDocument(httpServletRequest.getRequestURI());
-        return ResponseEntity.ok().body(document);
+        String requestedURI = httpServletRequest.getRequestURI();
+        StatObjectResponse stat;
+        try {
+            stat = fileStorageService.statDocument(requestedURI);
+        } catch (Exception e) {
+            logger.error("Error has occurred while fetching the document {} {}", requestedURI, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        long size = stat.size();
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(size);
+        }
+        if (ranges.size() != 1) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(size)
+                    .body(streamDocument(requestedURI, null, null));
+        }
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(size);
+        }
+        if (start >= size || start > end) {
+            return rangeNotSatisfiable(size);
+        }
+        long length = end - start + 1;
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", start, end, size))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(length)
+                .body(streamDocument(requestedURI, start, length));
+    }
+
+    private StreamingResponseBody streamDocument(String requestedURI, Long offset, Long length) {
+        return outputStream -> {
+            try (InputStream inputStream = fileStorageService.getDocument(requestedURI, offset, length)) {
+                StreamUtils.copy(inputStream, outputStream);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error has occurred while streaming the document " + requestedURI, e);
+            }
+        };
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long size) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                .build();
     }
 }
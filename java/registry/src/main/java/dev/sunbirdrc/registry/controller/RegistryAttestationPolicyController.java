@@ -36,7 +36,9 @@ public class RegistryAttestationPolicyController extends AbstractController {
                 logger.info("Creating attestation policy for entity: {} - {}", entityName, attestationPolicy);
                 attestationPolicy.setEntity(entityName);
                 attestationPolicy.setStatus(AttestationStatus.DRAFT);
-                response.setResult(registryHelper.createAttestationPolicy(attestationPolicy, userId));
+                String policyOSID = registryHelper.createAttestationPolicy(attestationPolicy, userId);
+                response.setResult(policyOSID);
+                registryHelper.cacheAttestationPolicy(userId, policyOSID);
                 responseParams.setStatus(Response.Status.SUCCESSFUL);
                 return new ResponseEntity<>(response, HttpStatus.OK);
             } else {
@@ -87,6 +89,11 @@ public class RegistryAttestationPolicyController extends AbstractController {
                 if (attestationPolicyOptional.isPresent() && attestationPolicyOptional.get().getCreatedBy().equals(userId)) {
                     logger.info("Updating attestation policies id: {}", policyOSID);
                     response.setResult(registryHelper.updateAttestationPolicy(userId, attestationPolicy));
+                    String previousEntityName = attestationPolicyOptional.get().getEntity();
+                    if (previousEntityName != null && !previousEntityName.equals(attestationPolicy.getEntity())) {
+                        registryHelper.uncacheAttestationPolicy(previousEntityName, policyOSID);
+                    }
+                    registryHelper.cacheAttestationPolicy(userId, policyOSID);
                     responseParams.setStatus(Response.Status.SUCCESSFUL);
                     return new ResponseEntity<>(response, HttpStatus.OK);
                 }
@@ -112,6 +119,7 @@ public class RegistryAttestationPolicyController extends AbstractController {
                     AttestationPolicy attestationPolicy = attestationPolicyOptional.get();
                     attestationPolicy.setStatus(status);
                     response.setResult(registryHelper.updateAttestationPolicy(userId, attestationPolicy));
+                    registryHelper.cacheAttestationPolicy(userId, policyId);
                     responseParams.setStatus(Response.Status.SUCCESSFUL);
                     return new ResponseEntity<>(response, HttpStatus.OK);
                 }
@@ -136,6 +144,7 @@ public class RegistryAttestationPolicyController extends AbstractController {
                     logger.info("Updating attestation policy status of id: {}", policyId);
                     AttestationPolicy attestationPolicy = attestationPolicyOptional.get();
                     registryHelper.deleteAttestationPolicy(attestationPolicy);
+                    registryHelper.uncacheAttestationPolicy(attestationPolicy.getEntity(), policyId);
                     response.setResult("deleted");
                     responseParams.setStatus(Response.Status.SUCCESSFUL);
                     return new ResponseEntity<>(response, HttpStatus.OK);
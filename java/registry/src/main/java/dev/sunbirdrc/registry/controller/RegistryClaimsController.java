@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -58,10 +59,23 @@ public class RegistryClaimsController extends AbstractController{
 
     @RequestMapping(value = "/api/v1/{entityName}/claims", method = RequestMethod.GET)
     public ResponseEntity<Object> getAllClaims(@PathVariable String entityName,
+                                               @RequestParam(required = false) String status,
+                                               @RequestParam(required = false) String property,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
                                                HttpServletRequest request) {
         try {
             JsonNode result = registryHelper.getRequestedUserDetails(request, entityName);
-            JsonNode claims = claimRequestClient.getClaims(result.get(entityName).get(0), entityName);
+            JsonNode attestor = result.get(entityName).get(0);
+            if (status != null || property != null || cursor != null || limit != null) {
+                Map<String, Object> filters = new HashMap<>();
+                filters.put("status", status);
+                filters.put("property", property);
+                filters.put("cursor", cursor);
+                filters.put("limit", limit);
+                return new ResponseEntity<>(claimRequestClient.searchClaims(attestor, entityName, filters), HttpStatus.OK);
+            }
+            JsonNode claims = claimRequestClient.getClaims(attestor, entityName);
             logger.info("Received {} claims", claims.size());
             return new ResponseEntity<>(claims, HttpStatus.OK);
         } catch (Exception e) {
@@ -5,14 +5,10 @@ import dev.sunbirdrc.pojos.APIMessage;
 import dev.sunbirdrc.pojos.Response;
 import dev.sunbirdrc.pojos.ResponseParams;
 import dev.sunbirdrc.registry.middleware.util.Constants;
-import dev.sunbirdrc.registry.service.RegistryService;
-import dev.sunbirdrc.registry.sink.shard.Shard;
-import dev.sunbirdrc.registry.sink.shard.ShardManager;
 import dev.sunbirdrc.registry.transform.Configuration;
 import dev.sunbirdrc.registry.transform.Data;
 import dev.sunbirdrc.registry.transform.ITransformer;
 import dev.sunbirdrc.registry.util.Definition;
-import dev.sunbirdrc.registry.util.RecordIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,15 +27,9 @@ import java.util.Set;
 public class RegistryController extends AbstractController {
     private static Logger logger = LoggerFactory.getLogger(RegistryController.class);
 
-    @Autowired
-    private RegistryService registryService;
-
     @Autowired
     private APIMessage apiMessage;
 
-    @Autowired
-    private ShardManager shardManager;
-
     /**
      * Note: Only one mime type is supported at a time. Pick up the first mime
      * type from the header.
@@ -55,7 +45,7 @@ public class RegistryController extends AbstractController {
 
         try {
             watch.start("RegistryController.searchEntity");
-            JsonNode result = registryHelper.searchEntity(payload);
+            JsonNode result = registryHelper.searchPublicEntity(payload);
 
             response.setResult(result);
             responseParams.setStatus(Response.Status.SUCCESSFUL);
@@ -76,10 +66,7 @@ public class RegistryController extends AbstractController {
         try {
             String entityType = apiMessage.getRequest().getEntityType();
             String entityId = apiMessage.getRequest().getRequestMapNode().get(entityType).get(dbConnectionInfoMgr.getUuidPropertyName()).asText();
-            RecordIdentifier recordId = RecordIdentifier.parse(entityId);
-            String shardId = dbConnectionInfoMgr.getShardId(recordId.getShardLabel());
-            Shard shard = shardManager.activateShard(shardId);
-            registryService.deleteEntityById(shard, apiMessage.getUserID(), recordId.getUuid());
+            registryHelper.deleteEntity(entityId, apiMessage.getUserID());
             responseParams.setErrmsg("");
             responseParams.setStatus(Response.Status.SUCCESSFUL);
         } catch (UnsupportedOperationException e) {
@@ -19,6 +19,7 @@ import dev.sunbirdrc.registry.middleware.util.JSONUtil;
 import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
 import dev.sunbirdrc.registry.service.FileStorageService;
 import dev.sunbirdrc.registry.service.ICertificateService;
+import dev.sunbirdrc.registry.service.impl.MpiBlockingService;
 import dev.sunbirdrc.registry.transform.Configuration;
 import dev.sunbirdrc.registry.transform.Data;
 import dev.sunbirdrc.registry.transform.ITransformer;
@@ -37,6 +38,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 
@@ -46,6 +49,7 @@ import static dev.sunbirdrc.registry.Constants.*;
 public class RegistryEntityController extends AbstractController {
 
     private static final String TRANSACTION_ID = "transactionId";
+    private static final String NDJSON_VALUE = "application/x-ndjson";
     private static Logger logger = LoggerFactory.getLogger(RegistryEntityController.class);
 
     @Autowired
@@ -54,6 +58,9 @@ public class RegistryEntityController extends AbstractController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private MpiBlockingService mpiBlockingService;
+
     @Value("${authentication.enabled:true}") boolean securityEnabled;
     @Value("${certificate.enableExternalTemplates:false}") boolean externalTemplatesEnabled;
 
@@ -147,8 +154,12 @@ public class RegistryEntityController extends AbstractController {
             entity.add(entityName);
             searchNode.set("entityType", entity);
             if (definitionsManager.getDefinition(entityName).getOsSchemaConfiguration().getEnableSearch()) {
-                JsonNode result = registryHelper.searchEntity(searchNode);
+                JsonNode result = registryHelper.searchPublicEntity(searchNode);
                 watch.stop("RegistryController.searchEntity");
+                if (searchNode.has(SearchCursor.CURSOR)) {
+                    // the records come with the token of the next page
+                    return new ResponseEntity<>(result, HttpStatus.OK);
+                }
                 return new ResponseEntity<>(result.get(entityName), HttpStatus.OK);
             } else {
                 watch.stop("RegistryController.searchEntity");
@@ -166,6 +177,58 @@ public class RegistryEntityController extends AbstractController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Finds the records likely to be the same patient as the one posted, scoring only the records
+     * the MPI blocking index files under the same block keys. The posted record is left out of the
+     * candidates when it carries its id.
+     */
+    @RequestMapping(value = "/api/v1/{entityName}/duplicates", method = RequestMethod.POST)
+    public ResponseEntity<Object> findDuplicates(@PathVariable String entityName, @RequestBody JsonNode rootNode,
+                                                 HttpServletRequest request) {
+        try {
+            registryHelper.authorizeManageEntity(request, entityName);
+        } catch (Exception e) {
+            return createUnauthorizedExceptionResponse(e);
+        }
+        ResponseParams responseParams = new ResponseParams();
+        Response response = new Response(Response.API_ID.SEARCH, "OK", responseParams);
+        try {
+            response.setResult(mpiBlockingService.findDuplicates(entityName, rootNode));
+            responseParams.setStatus(Response.Status.SUCCESSFUL);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return badRequestException(responseParams, response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Exception in controller while finding duplicates !", e);
+            return internalErrorResponse(responseParams, response, e);
+        }
+    }
+
+    /**
+     * Streams all the records of the entity type as newline delimited json. The records are read
+     * page by page with a search cursor and written as each page is read.
+     */
+    @RequestMapping(value = "/api/v1/{entityName}/export", method = RequestMethod.GET)
+    public void exportEntities(@PathVariable String entityName, HttpServletResponse response) throws IOException {
+        if (!definitionsManager.getDefinition(entityName).getOsSchemaConfiguration().getEnableSearch()) {
+            logger.error("Searching on entity {} not allowed", entityName);
+            response.sendError(HttpStatus.FORBIDDEN.value(), String.format("Searching on entity %s not allowed", entityName));
+            return;
+        }
+        response.setContentType(NDJSON_VALUE);
+        try {
+            registryHelper.exportEntities(entityName, response.getOutputStream());
+        } catch (Exception e) {
+            logger.error("Exception in controller while exporting entities !", e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage());
+            } else {
+                throw new IOException("Export of " + entityName + " failed", e);
+            }
+        }
+    }
+
     @RequestMapping(value = "/api/v1/{entityName}/{entityId}", method = RequestMethod.PUT)
     public ResponseEntity<Object> putEntity(
             @PathVariable String entityName,
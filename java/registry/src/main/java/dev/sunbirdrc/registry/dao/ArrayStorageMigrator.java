@@ -0,0 +1,168 @@
+package dev.sunbirdrc.registry.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.util.ArrayHelper;
+import dev.sunbirdrc.registry.util.RefLabelHelper;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Converts the arrays stored as string into the native array storage, in batches of vertices
+ * each committed on its own. Arrays already converted are left as they are, so that an
+ * interrupted migration can be run again.
+ * Signatures are not converted, they are always stored behind a blank array node.
+ */
+public class ArrayStorageMigrator {
+    private static final int BATCH_SIZE = 500;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static Logger logger = LoggerFactory.getLogger(ArrayStorageMigrator.class);
+
+    private DatabaseProvider databaseProvider;
+    private String uuidPropertyName;
+
+    public ArrayStorageMigrator(DatabaseProvider databaseProvider, String uuidPropertyName) {
+        this.databaseProvider = databaseProvider;
+        this.uuidPropertyName = uuidPropertyName;
+    }
+
+    /**
+     * Migrates all the arrays of the graph
+     *
+     * @param graph
+     * @return the number of arrays converted
+     */
+    public int migrate(Graph graph) {
+        List<Object> arrayNodeIds = graph.traversal().V().hasLabel(Constants.ARRAY_NODE_KEYWORD).id().toList();
+        int migrated = migrateInBatches(graph, arrayNodeIds, arrayNode -> migrateObjectArray(arrayNode) ? 1 : 0);
+        logger.info("Migrated {} arrays of objects", migrated);
+
+        List<Object> vertexIds = graph.traversal().V().id().toList();
+        int migratedValues = migrateInBatches(graph, vertexIds, this::migrateValueArrays);
+        logger.info("Migrated {} arrays of values", migratedValues);
+        return migrated + migratedValues;
+    }
+
+    /**
+     * Loads the vertices batch by batch, committing the changes made to a batch before the next
+     * is loaded. A batch which fails is rolled back, the batches committed before it stay migrated.
+     *
+     * @return the number of arrays migrated
+     */
+    private int migrateInBatches(Graph graph, List<Object> ids, ToIntFunction<Vertex> migration) {
+        int migrated = 0;
+        for (int next = 0; next < ids.size(); next += BATCH_SIZE) {
+            List<Object> batchIds = ids.subList(next, Math.min(next + BATCH_SIZE, ids.size()));
+            Transaction tx = databaseProvider.startTransaction(graph);
+            try {
+                int batchMigrated = 0;
+                Iterator<Vertex> batch = graph.vertices(batchIds.toArray());
+                while (batch.hasNext()) {
+                    batchMigrated += migration.applyAsInt(batch.next());
+                }
+                databaseProvider.commitTransaction(graph, tx);
+                migrated += batchMigrated;
+            } catch (RuntimeException e) {
+                if (tx != null) {
+                    tx.rollback();
+                }
+                logger.error("Migrating the arrays of a batch failed, rolled back after {} arrays", migrated);
+                throw e;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Connects the owner of the array directly to the items, in the order of the item ids on
+     * the blank array node, and removes the blank array node
+     */
+    private boolean migrateObjectArray(Vertex arrayNode) {
+        String arrayName = arrayNode.value(Constants.INTERNAL_TYPE_KEYWORD).toString();
+        if (arrayName.equals(Constants.SIGNATURES_STR)) {
+            return false;
+        }
+        Iterator<Vertex> owners = arrayNode.vertices(Direction.IN, arrayName);
+        if (!owners.hasNext()) {
+            logger.warn("Array node {} of {} has no owner, not migrated", databaseProvider.getId(arrayNode), arrayName);
+            return false;
+        }
+        Vertex owner = owners.next();
+
+        Map<String, Vertex> items = new HashMap<>();
+        arrayNode.vertices(Direction.OUT, arrayName + Constants.ARRAY_ITEM)
+                .forEachRemaining(item -> items.put(databaseProvider.getId(item), item));
+        String itemIds = ArrayHelper.removeSquareBraces(
+                arrayNode.value(RefLabelHelper.getLabel(arrayName, uuidPropertyName)).toString());
+        int index = 0;
+        for (String itemId : itemIds.split(",")) {
+            Vertex item = items.get(ArrayHelper.unquoteString(itemId.trim()));
+            if (item != null) {
+                Edge edge = owner.addEdge(arrayName + Constants.ARRAY_ITEM, item);
+                edge.property(Constants.ARRAY_ITEM_INDEX, index++);
+            }
+        }
+
+        VertexProperty<Object> arrayLabel = owner.property(RefLabelHelper.getArrayLabel(arrayName, uuidPropertyName));
+        if (arrayLabel.isPresent()) {
+            arrayLabel.remove();
+        }
+        arrayNode.remove();
+        return true;
+    }
+
+    /**
+     * Converts the properties holding an array of values like ["a","b"] into native arrays.
+     * Arrays of mixed values are left as they are.
+     */
+    private int migrateValueArrays(Vertex vertex) {
+        List<VertexProperty<Object>> arrayProperties = new ArrayList<>();
+        vertex.properties().forEachRemaining(property -> {
+            if (property.value() instanceof String && ArrayHelper.isArray((String) property.value())
+                    && !RefLabelHelper.isRefLabel(property.key(), uuidPropertyName)
+                    && !RefLabelHelper.isParentLabel(property.key())) {
+                arrayProperties.add(property);
+            }
+        });
+
+        int migrated = 0;
+        for (VertexProperty<Object> property : arrayProperties) {
+            Object values = toNativeArray((String) property.value());
+            if (values != null) {
+                String key = property.key();
+                property.remove();
+                vertex.property(key + Constants.ARRAY_LIST_SUFFIX, values);
+                migrated++;
+            } else {
+                logger.debug("Property {} of vertex {} is not an array of values, not migrated", property.key(), vertex.id());
+            }
+        }
+        return migrated;
+    }
+
+    private Object toNativeArray(String value) {
+        try {
+            JsonNode node = objectMapper.readTree(value);
+            return node.isArray() ? ArrayHelper.toNativeArray((ArrayNode) node) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
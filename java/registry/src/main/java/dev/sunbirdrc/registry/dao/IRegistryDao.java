@@ -5,11 +5,16 @@ import dev.sunbirdrc.registry.util.ReadConfigurator;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
+import java.util.List;
+import java.util.Map;
+
 public interface IRegistryDao {
 
 	String addEntity(Graph graph, JsonNode rootNode);
 	JsonNode getEntity(Graph graph, String entityType, String uuid, ReadConfigurator readConfigurator) throws Exception;
 	JsonNode getEntity(Graph graph, Vertex vertex, ReadConfigurator readConfigurator, boolean expandInternal) throws Exception;
+	JsonNode getOwnership(Graph graph, String entityType, String uuid) throws Exception;
+	Map<String, JsonNode> getEntities(Graph graph, String entityType, List<String> uuids, ReadConfigurator readConfigurator) throws Exception;
 	void updateVertex(Graph graph, Vertex rootVertex, JsonNode inputJsonNode, String parentName) throws Exception;
     void deleteEntity(Vertex uuid);
 
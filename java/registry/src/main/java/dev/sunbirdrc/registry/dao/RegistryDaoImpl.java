@@ -2,11 +2,11 @@ package dev.sunbirdrc.registry.dao;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import dev.sunbirdrc.pojos.SunbirdRCInstrumentation;
 import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
 import dev.sunbirdrc.registry.util.DefinitionsManager;
 import dev.sunbirdrc.registry.util.ReadConfigurator;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
 import dev.sunbirdrc.registry.util.TypePropertyHelper;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -14,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 
 public class RegistryDaoImpl implements IRegistryDao {
     public String uuidPropertyName;
@@ -23,8 +24,6 @@ public class RegistryDaoImpl implements IRegistryDao {
 
     private Logger logger = LoggerFactory.getLogger(RegistryDaoImpl.class);
 
-    private SunbirdRCInstrumentation watch = new SunbirdRCInstrumentation(true);
-
     public List<String> getPrivatePropertyList() {
         return privatePropertyList;
     }
@@ -70,6 +69,31 @@ public class RegistryDaoImpl implements IRegistryDao {
         return result;
     }
 
+    /**
+     * Retrieves only the owners of a record, from its root vertex
+     *
+     * @param uuid entity identifier
+     * @return the uuid and osOwner of the record
+     */
+    public JsonNode getOwnership(Graph graph, String entityType, String uuid) throws Exception {
+
+        VertexReader vr = new VertexReader(getDatabaseProvider(), graph, ReadConfiguratorFactory.getDefault(), uuidPropertyName, definitionsManager);
+        return vr.readOwnership(entityType, uuid);
+    }
+
+    /**
+     * Retrieves a batch of records of the same entity type from the database
+     *
+     * @param uuids            entity identifiers to retrieve
+     * @param readConfigurator
+     * @return the records keyed by uuid, in the order of uuids
+     */
+    public Map<String, JsonNode> getEntities(Graph graph, String entityType, List<String> uuids, ReadConfigurator readConfigurator) throws Exception {
+
+        VertexReader vr = new VertexReader(getDatabaseProvider(), graph, readConfigurator, uuidPropertyName, definitionsManager);
+        return vr.readAll(entityType, uuids);
+    }
+
 
     public JsonNode getEntity(Graph graph, Vertex vertex, ReadConfigurator readConfigurator, boolean expandInternal) throws Exception {
 
@@ -6,23 +6,48 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.pojos.Filter;
 import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.SearchQuery;
 import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.middleware.util.Constants.GraphDatabaseProvider;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
 import dev.sunbirdrc.registry.util.ReadConfigurator;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiPredicate;
 import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 
 public class SearchDaoImpl implements SearchDao {
     private IRegistryDao registryDao;
+    private GraphDatabaseProvider provider;
+    private ArrayStorage arrayStorage;
 
     public SearchDaoImpl(IRegistryDao registryDaoImpl) {
+        this(registryDaoImpl, GraphDatabaseProvider.TINKERGRAPH);
+    }
+
+    /**
+     * @param registryDaoImpl
+     * @param provider the database searched, to push the text filters down to it
+     */
+    public SearchDaoImpl(IRegistryDao registryDaoImpl, GraphDatabaseProvider provider) {
+        this(registryDaoImpl, provider, ArrayStorage.STRING);
+    }
+
+    /**
+     * @param registryDaoImpl
+     * @param provider the database searched, to push the text filters down to it
+     * @param arrayStorage how the arrays searched are stored, to filter on their native properties and item edges
+     */
+    public SearchDaoImpl(IRegistryDao registryDaoImpl, GraphDatabaseProvider provider, ArrayStorage arrayStorage) {
         registryDao = registryDaoImpl;
+        this.provider = provider;
+        this.arrayStorage = arrayStorage;
     }
 
     public JsonNode search(Graph graphFromStore, SearchQuery searchQuery, boolean expandInternal) {
@@ -31,13 +56,27 @@ public class SearchDaoImpl implements SearchDao {
         List<Filter> filterList = searchQuery.getFilters();
         int offset = searchQuery.getOffset();
         ObjectNode resultNode = JsonNodeFactory.instance.objectNode();
+        SearchCursor cursor = searchQuery.getCursor();
         for (String entity : searchQuery.getEntityTypes()) {
+            if (cursor != null && cursor.isExhausted(entity)) {
+                resultNode.set(entity, JsonNodeFactory.instance.arrayNode());
+                continue;
+            }
             GraphTraversal<Vertex, Vertex> resultGraphTraversal = dbGraphTraversalSource.V().hasLabel(entity);
 
             GraphTraversal<Vertex, Vertex> parentTraversal = resultGraphTraversal.asAdmin();
 
-            resultGraphTraversal = getFilteredResultTraversal(resultGraphTraversal, filterList)
-                    .range(offset, offset + searchQuery.getLimit()).limit(searchQuery.getLimit());
+            resultGraphTraversal = getFilteredResultTraversal(resultGraphTraversal, filterList);
+            if (cursor != null) {
+                resultGraphTraversal = getKeysetTraversal(resultGraphTraversal, cursor, entity)
+                        .limit(searchQuery.getLimit());
+            } else {
+                if (searchQuery.getOrderBy() != null) {
+                    resultGraphTraversal = resultGraphTraversal.order().by(searchQuery.getOrderBy());
+                }
+                resultGraphTraversal = resultGraphTraversal
+                        .range(offset, offset + searchQuery.getLimit()).limit(searchQuery.getLimit());
+            }
             JsonNode result = getResult(graphFromStore, resultGraphTraversal, parentTraversal, expandInternal);
             resultNode.set(entity, result);
         }
@@ -45,10 +84,24 @@ public class SearchDaoImpl implements SearchDao {
         return resultNode;
     }
     
+    /**
+     * Orders the vertices by the key field, starting after the last key of the cursor. Inactive
+     * vertices are skipped in the database, so that a page of vertices is a page of records.
+     */
+    private GraphTraversal<Vertex, Vertex> getKeysetTraversal(GraphTraversal<Vertex, Vertex> resultGraphTraversal,
+                                                              SearchCursor cursor, String entity) {
+        resultGraphTraversal = resultGraphTraversal.or(__.hasNot(Constants.STATUS_KEYWORD),
+                __.has(Constants.STATUS_KEYWORD, Constants.STATUS_ACTIVE));
+        String lastKey = cursor.getLastKey(entity);
+        if (lastKey != null) {
+            resultGraphTraversal = resultGraphTraversal.has(cursor.getKeyField(), P.gt(lastKey));
+        }
+        return resultGraphTraversal.order().by(cursor.getKeyField());
+    }
+
     private GraphTraversal<Vertex, Vertex> getFilteredResultTraversal(
             GraphTraversal<Vertex, Vertex> resultGraphTraversal, List<Filter> filterList) {
 
-        BiPredicate<String, String> condition = null;
         // Ensure the root label is correct
         if (filterList != null) {
             for (Filter filter : filterList) {
@@ -58,72 +111,56 @@ public class SearchDaoImpl implements SearchDao {
                 FilterOperators operator = filter.getOperator();
                 String path = filter.getPath();
                 if (path != null) {
-                    resultGraphTraversal = resultGraphTraversal.outE(path).inV();
+                    resultGraphTraversal = arrayStorage == ArrayStorage.NATIVE
+                            ? resultGraphTraversal.out(path, path + Constants.ARRAY_ITEM)
+                            : resultGraphTraversal.outE(path).inV();
                 }
 
                 switch (operator) {
                 case eq:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.eq(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.eq(genericValue), false);
                     break;
                 case neq:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.neq(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.neq(genericValue), true);
                     break;
                 case gt:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.gt(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.gt(genericValue), false);
                     break;
                 case lt:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.lt(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.lt(genericValue), false);
                     break;
                 case gte:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.gte(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.gte(genericValue), false);
                     break;
                 case lte:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.lte(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.lte(genericValue), false);
                     break;
                 case between:
                     List<Object> objects = (List<Object>) genericValue;
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            P.between(objects.get(0), objects.get(objects.size() - 1)));
+                    resultGraphTraversal = has(resultGraphTraversal, property,
+                            P.between(objects.get(0), objects.get(objects.size() - 1)), false);
                     break;
                 case or:
                     List<Object> values = (List<Object>) genericValue;
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.within(values));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.within(values), false);
                     break;
 
                 case contains:
-                    condition = (s1, s2) -> (s1.contains(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
-                    break;
                 case startsWith:
-                    condition = (s1, s2) -> (s1.startsWith(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
-                    break;
                 case endsWith:
-                    condition = (s1, s2) -> (s1.endsWith(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
+                    resultGraphTraversal = has(resultGraphTraversal, property,
+                            TextPredicates.get(provider, operator, genericValue.toString()), false);
                     break;
                 case notContains:
-                    condition = (s1, s2) -> (s1.contains(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
-                    break;
                 case notStartsWith:
-                    condition = (s1, s2) -> (!s1.startsWith(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
-                    break;
                 case notEndsWith:
-                    condition = (s1, s2) -> (!s1.endsWith(s2));
-                    resultGraphTraversal = resultGraphTraversal.has(property,
-                            new P<String>(condition, genericValue.toString()));
+                    resultGraphTraversal = has(resultGraphTraversal, property,
+                            TextPredicates.get(provider, operator, genericValue.toString()), true);
                     break;
                 case queryString:
                     throw new IllegalArgumentException("queryString not supported for native search!");
                 default:
-                    resultGraphTraversal = resultGraphTraversal.has(property, P.eq(genericValue));
+                    resultGraphTraversal = has(resultGraphTraversal, property, P.eq(genericValue), false);
                     break;
                 }
 
@@ -132,6 +169,47 @@ public class SearchDaoImpl implements SearchDao {
         return resultGraphTraversal;
     }
 
+    /**
+     * Filters on the property. With native array storage the property may also be an array of
+     * values, stored under the list suffix: it matches when any of its values does, or every one
+     * of them for the negated operators.
+     */
+    private GraphTraversal<Vertex, Vertex> has(GraphTraversal<Vertex, Vertex> resultGraphTraversal, String property,
+                                               P<?> predicate, boolean negated) {
+        if (arrayStorage != ArrayStorage.NATIVE) {
+            return resultGraphTraversal.has(property, predicate);
+        }
+        P<Object> valuePredicate = (P<Object>) predicate;
+        P<Object> arrayPredicate = new P<>((array, ignored) -> negated ? everyValue(array, valuePredicate)
+                : anyValue(array, valuePredicate), null);
+        return resultGraphTraversal.or(__.has(property, predicate),
+                __.has(property + Constants.ARRAY_LIST_SUFFIX, arrayPredicate));
+    }
+
+    private static boolean anyValue(Object array, P<Object> predicate) {
+        if (array == null || !array.getClass().isArray()) {
+            return false;
+        }
+        for (int i = 0; i < Array.getLength(array); i++) {
+            if (predicate.test(Array.get(array, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean everyValue(Object array, P<Object> predicate) {
+        if (array == null || !array.getClass().isArray()) {
+            return false;
+        }
+        for (int i = 0; i < Array.getLength(array); i++) {
+            if (!predicate.test(Array.get(array, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 	private void updateValueList(Object value, List valueList) {
 		valueList.add(value);
 	}
@@ -0,0 +1,76 @@
+package dev.sunbirdrc.registry.dao;
+
+import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.registry.middleware.util.Constants.GraphDatabaseProvider;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.janusgraph.core.attribute.Text;
+
+import java.util.function.BiPredicate;
+
+/**
+ * Translates the text filter operators into predicates the graph database can push down.
+ * Sqlg turns its Text predicates into a LIKE condition of the query, Janus answers textPrefix
+ * from a mixed index. The other operators and databases are filtered as the vertices stream
+ * out of the database, before any entity is read.
+ */
+public class TextPredicates {
+    private static final BiPredicate<Object, Object> CONTAINS = (value, text) -> String.valueOf(value).contains(text.toString());
+    private static final BiPredicate<Object, Object> STARTS_WITH = (value, text) -> String.valueOf(value).startsWith(text.toString());
+    private static final BiPredicate<Object, Object> ENDS_WITH = (value, text) -> String.valueOf(value).endsWith(text.toString());
+
+    private TextPredicates() {
+    }
+
+    /**
+     * @param provider the database searched
+     * @param operator one of the text operators
+     * @param text the text searched for
+     * @return
+     */
+    public static P<?> get(GraphDatabaseProvider provider, FilterOperators operator, String text) {
+        if (provider == GraphDatabaseProvider.SQLG) {
+            return getSqlg(operator, text);
+        } else if (provider == GraphDatabaseProvider.CASSANDRA && operator == FilterOperators.startsWith) {
+            return Text.textPrefix(text);
+        }
+        return getInMemory(operator, text);
+    }
+
+    private static P<String> getSqlg(FilterOperators operator, String text) {
+        switch (operator) {
+            case contains:
+                return org.umlg.sqlg.predicate.Text.contains(text);
+            case notContains:
+                return org.umlg.sqlg.predicate.Text.ncontains(text);
+            case startsWith:
+                return org.umlg.sqlg.predicate.Text.startsWith(text);
+            case notStartsWith:
+                return org.umlg.sqlg.predicate.Text.nstartsWith(text);
+            case endsWith:
+                return org.umlg.sqlg.predicate.Text.endsWith(text);
+            case notEndsWith:
+                return org.umlg.sqlg.predicate.Text.nendsWith(text);
+            default:
+                throw new IllegalArgumentException(operator + " is not a text operator");
+        }
+    }
+
+    private static P<Object> getInMemory(FilterOperators operator, String text) {
+        switch (operator) {
+            case contains:
+                return new P<>(CONTAINS, text);
+            case notContains:
+                return new P<>(CONTAINS.negate(), text);
+            case startsWith:
+                return new P<>(STARTS_WITH, text);
+            case notStartsWith:
+                return new P<>(STARTS_WITH.negate(), text);
+            case endsWith:
+                return new P<>(ENDS_WITH, text);
+            case notEndsWith:
+                return new P<>(ENDS_WITH.negate(), text);
+            default:
+                throw new IllegalArgumentException(operator + " is not a text operator");
+        }
+    }
+}
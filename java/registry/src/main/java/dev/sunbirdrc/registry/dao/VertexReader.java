@@ -7,6 +7,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.registry.exception.RecordNotFoundException;
 import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.middleware.util.JSONUtil;
+import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
 import dev.sunbirdrc.registry.util.ArrayHelper;
 import dev.sunbirdrc.registry.util.Definition;
@@ -14,9 +16,12 @@ import dev.sunbirdrc.registry.util.DefinitionsManager;
 import dev.sunbirdrc.registry.util.ReadConfigurator;
 import dev.sunbirdrc.registry.util.RefLabelHelper;
 import dev.sunbirdrc.registry.util.TypePropertyHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Property;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty;
 import org.slf4j.Logger;
@@ -24,6 +29,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -31,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Given a vertex from the graph, constructs a json out it
@@ -48,6 +56,10 @@ public class VertexReader {
 
     private Logger logger = LoggerFactory.getLogger(VertexReader.class);
 
+    private static final String PARENT = "parent";
+    private static final String EDGE = "edge";
+    private static final String CHILD = "child";
+
     public VertexReader(DatabaseProvider databaseProvider, Graph graph, ReadConfigurator configurator, String uuidPropertyName,
                         DefinitionsManager definitionsManager) {
         this.databaseProvider = databaseProvider;
@@ -98,6 +110,14 @@ public class VertexReader {
      * @return
      */
     public ObjectNode constructObject(Vertex currVertex) {
+        return constructObject(currVertex, true);
+    }
+
+    /**
+     * @param withItemReferences whether to read the edges of the natively stored arrays, a page
+     *                           read sets them from the edges it loads a level at a time instead
+     */
+    private ObjectNode constructObject(Vertex currVertex, boolean withItemReferences) {
 
         ObjectNode contentNode = JsonNodeFactory.instance.objectNode();
         String entityType = currVertex.label();
@@ -110,7 +130,12 @@ public class VertexReader {
         Iterator<VertexProperty<Object>> properties = currVertex.properties();
         while (properties.hasNext()) {
             VertexProperty<Object> prop = properties.next();
-            if (!RefLabelHelper.isParentLabel(prop.key())) {
+            if (isNativeArray(prop)) {
+                String arrayName = prop.key().substring(0, prop.key().length() - Constants.ARRAY_LIST_SUFFIX.length());
+                if (canAdd(arrayName, privatePropertyList)) {
+                    contentNode.set(arrayName, ArrayHelper.toArrayNode(prop.value()));
+                }
+            } else if (!RefLabelHelper.isParentLabel(prop.key())) {
                 boolean isArrayType = ArrayHelper.isArray(prop.value().toString());
                 String propValue = ArrayHelper.removeSquareBraces(prop.value().toString());
                 if (RefLabelHelper.isRefLabel(prop.key(), uuidPropertyName)) {
@@ -151,6 +176,10 @@ public class VertexReader {
             }
         }
 
+        if (withItemReferences && isNativeArrayStorage() && !currVertex.label().equals(Constants.ARRAY_NODE_KEYWORD)) {
+            setArrayItemReferences(contentNode, currVertex.edges(Direction.OUT), Edge::inVertex);
+        }
+
         // In Neo4j, the uuidPropertyName is given a special handling
         // It is not part of the list of attributes, even though it is persisted
         contentNode.put(uuidPropertyName, databaseProvider.getId(currVertex));
@@ -158,6 +187,58 @@ public class VertexReader {
         return contentNode;
     }
 
+    private boolean isNativeArrayStorage() {
+        return databaseProvider.getArrayStorage() == ArrayStorage.NATIVE;
+    }
+
+    private boolean isNativeArray(VertexProperty<Object> prop) {
+        return prop.key().endsWith(Constants.ARRAY_LIST_SUFFIX) && ArrayHelper.isNativeArray(prop.value());
+    }
+
+    /**
+     * For the arrays of objects stored natively, sets a reference for each item, in the order
+     * of the item edges. The references are replaced by the items in expandChildObject.
+     *
+     * @param contentNode
+     * @param edges the out edges of the vertex
+     * @param inVertex gives the vertex an edge leads to
+     */
+    private void setArrayItemReferences(ObjectNode contentNode, Iterator<Edge> edges, Function<Edge, Vertex> inVertex) {
+        Map<String, List<Edge>> arrayItemEdges = new LinkedHashMap<>();
+        while (edges.hasNext()) {
+            Edge edge = edges.next();
+            if (edge.label().endsWith(Constants.ARRAY_ITEM) && edge.property(Constants.ARRAY_ITEM_INDEX).isPresent()) {
+                String arrayName = edge.label().substring(0, edge.label().length() - Constants.ARRAY_ITEM.length());
+                arrayItemEdges.computeIfAbsent(arrayName, name -> new ArrayList<>()).add(edge);
+            }
+        }
+
+        arrayItemEdges.forEach((arrayName, itemEdges) -> {
+            itemEdges.sort(Comparator.comparingInt(VertexReader::getArrayItemIndex));
+            ArrayNode references = contentNode.putArray(arrayName);
+            for (Edge itemEdge : itemEdges) {
+                references.addObject().put(uuidPropertyName, databaseProvider.getId(inVertex.apply(itemEdge)));
+            }
+        });
+    }
+
+    static int getArrayItemIndex(Edge itemEdge) {
+        Property<Object> index = itemEdge.property(Constants.ARRAY_ITEM_INDEX);
+        return index.isPresent() ? ((Number) index.value()).intValue() : Integer.MAX_VALUE;
+    }
+
+    private boolean isArrayItemReferences(JsonNode entry) {
+        if (!isNativeArrayStorage() || !entry.isArray() || entry.size() == 0) {
+            return false;
+        }
+        for (JsonNode item : entry) {
+            if (!item.isObject() || item.size() != 1 || !item.has(uuidPropertyName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Loads the signature vertices
      *
@@ -233,28 +314,8 @@ public class VertexReader {
         int tempCurrLevel = currLevel;
         while (otherVertices.hasNext()) {
             Vertex currVertex = otherVertices.next();
-            if(currVertex.property(Constants.STATUS_KEYWORD).isPresent() &&
-                    currVertex.property(Constants.STATUS_KEYWORD).value().equals(Constants.STATUS_INACTIVE)){
-                continue;
-            }
-            VertexProperty internalTypeProp = currVertex.property(Constants.INTERNAL_TYPE_KEYWORD);
-            String internalType = internalTypeProp.isPresent() ? internalTypeProp.value().toString() : "";
-            logger.debug("Current vertext {}", currVertex.label());
-
-            // Do not work on the signatures again here.
-            if (!currVertex.label().equals(entityType) && !internalType.equals(Constants.SIGNATURES_STR)) {
-                logger.debug("Reading vertex label {} and internal type {}", currVertex.label(), internalType);
-
-                ObjectNode node = constructObject(currVertex);
-                populateMaps(node, currVertex);
-
-                // Load any signatures within child entity
-                ArrayNode signatureNode = loadSignatures(currVertex);
-                if (signatureNode != null) {
-                    node.set(Constants.SIGNATURES_STR, signatureNode);
-                }
-
-                if (currVertex.property(Constants.TYPE_STR_JSON_LD).value().equals(Constants.ARRAY_NODE_KEYWORD)) {
+            if (loadChildVertex(currVertex, true) != null) {
+                if (isArrayNode(currVertex)) {
                     // Not incrementing levels here, because it is we who
                     // inserted a blank array_node
                     // for data modelling.
@@ -271,6 +332,44 @@ public class VertexReader {
         }
     }
 
+    /**
+     * Reads a child vertex into the internal maps, unless it is inactive, of the type of the
+     * entity or a signature.
+     *
+     * @param currVertex
+     * @param withItemReferences
+     * @return the node read, null when the vertex is skipped
+     */
+    private ObjectNode loadChildVertex(Vertex currVertex, boolean withItemReferences) {
+        if (currVertex.property(Constants.STATUS_KEYWORD).isPresent() &&
+                currVertex.property(Constants.STATUS_KEYWORD).value().equals(Constants.STATUS_INACTIVE)) {
+            return null;
+        }
+        VertexProperty internalTypeProp = currVertex.property(Constants.INTERNAL_TYPE_KEYWORD);
+        String internalType = internalTypeProp.isPresent() ? internalTypeProp.value().toString() : "";
+        logger.debug("Current vertext {}", currVertex.label());
+
+        // Do not work on the signatures again here.
+        if (currVertex.label().equals(entityType) || internalType.equals(Constants.SIGNATURES_STR)) {
+            return null;
+        }
+        logger.debug("Reading vertex label {} and internal type {}", currVertex.label(), internalType);
+
+        ObjectNode node = constructObject(currVertex, withItemReferences);
+        populateMaps(node, currVertex);
+
+        // Load any signatures within child entity
+        ArrayNode signatureNode = loadSignatures(currVertex);
+        if (signatureNode != null) {
+            node.set(Constants.SIGNATURES_STR, signatureNode);
+        }
+        return node;
+    }
+
+    private boolean isArrayNode(Vertex vertex) {
+        return vertex.property(Constants.TYPE_STR_JSON_LD).value().equals(Constants.ARRAY_NODE_KEYWORD);
+    }
+
     private void printUuidNodeMap() {
         uuidNodeMap.keySet().forEach(entry -> {
             logger.debug(entry.toString() + " -> " + uuidNodeMap.get(entry).get(Constants.TYPE_STR_JSON_LD));
@@ -361,6 +460,23 @@ public class VertexReader {
                                 }
                             }
                         }
+                    } else if (isArrayItemReferences(entry)) {
+                        // Natively stored array, replace the references by the loaded items
+                        ArrayNode items = JsonNodeFactory.instance.arrayNode();
+                        for (JsonNode reference : entry) {
+                            ObjectNode item = uuidNodeMap.getOrDefault(reference.get(uuidPropertyName).asText(), null);
+                            if (item != null) {
+                                expandChildObject(item, currentLevel + 1);
+                                items.add(item);
+                            } else {
+                                logger.debug("Field {} Array item {} not loaded", field, reference);
+                            }
+                        }
+                        if (items.size() > 0) {
+                            entityNode.set(field, items);
+                        } else {
+                            entityNode.remove(field);
+                        }
                     } else if (entry.isObject()) {
                         logger.debug("Field {} is an object. Expanding further.", entry);
                         ArrayNode expandChildObject = expandChildObject((ObjectNode) entry, currentLevel + 1);
@@ -396,6 +512,7 @@ public class VertexReader {
                 itrV = graph.vertices(osid);
                 break;
             case SQLG:
+            case TINKERGRAPH:
                 if (null != entityType) {
                     itrV = graph.traversal().clone().V().hasLabel(entityType).has(uuidPropertyName, osid);
                 } else {
@@ -421,6 +538,34 @@ public class VertexReader {
         return vertex;
     }
 
+    /**
+     * Loads all the vertices for the given osids in a single lookup, unlike getVertex which
+     * costs one lookup per osid.
+     * @param entityType the label of the vertices, can be null
+     * @param osids the osids of the vertices to be loaded
+     * @return the vertices keyed by osid; osids not found are absent from the map
+     */
+    public Map<String, Vertex> getVertices(String entityType, List<String> osids) {
+        Map<String, Vertex> vertices = new LinkedHashMap<>();
+        if (osids.isEmpty()) {
+            return vertices;
+        }
+        Iterator<Vertex> itrV;
+        if (databaseProvider.getProvider() == Constants.GraphDatabaseProvider.NEO4J) {
+            itrV = graph.vertices(osids.toArray());
+        } else if (null != entityType) {
+            itrV = graph.traversal().clone().V().hasLabel(entityType).has(uuidPropertyName, P.within(osids));
+        } else {
+            itrV = graph.traversal().clone().V().has(uuidPropertyName, P.within(osids));
+        }
+
+        while (itrV.hasNext()) {
+            Vertex vertex = itrV.next();
+            vertices.put(databaseProvider.getId(vertex), vertex);
+        }
+        return vertices;
+    }
+
     /**
      * Returns the root vertex of the entity.
      * @return
@@ -464,6 +609,190 @@ public class VertexReader {
         return readInternal(rootVertex);
     }
 
+    /**
+     * Reads a page of entities of the same type. The root vertices are resolved with one
+     * lookup and the children of the whole page are loaded a level at a time, with one
+     * traversal per level, so the number of queries depends on the depth of the read and not
+     * on the size of the page. Signatures, when asked for, are still read per vertex.
+     * @param entityType
+     * @param osids the ids to be read
+     * @return the entities found, in the order of osids, keyed by osid; ids that are not found
+     * or are inactive are left out
+     * @throws Exception
+     */
+    public Map<String, JsonNode> readAll(String entityType, List<String> osids) throws Exception {
+        Map<String, Vertex> rootVertices = getVertices(entityType, osids);
+        Map<String, PageEntity> pageEntities = new LinkedHashMap<>();
+        List<PageVertex> frontier = new ArrayList<>();
+        for (String osid : osids) {
+            Vertex vertex = rootVertices.get(osid);
+            if (null == vertex) {
+                logger.warn("Skipping {} {}, not found", entityType, osid);
+                continue;
+            }
+            if (vertex.property(Constants.STATUS_KEYWORD).isPresent()
+                    && vertex.property(Constants.STATUS_KEYWORD).value().equals(Constants.STATUS_INACTIVE)) {
+                logger.warn("Skipping {} {}, entity status is inactive", entityType, osid);
+                continue;
+            }
+            PageEntity pageEntity = new PageEntity(vertex);
+            useMapsOf(pageEntity);
+            pageEntity.rootNode = constructObject(vertex, false);
+            this.entityType = (String) ValueType.getValue(pageEntity.rootNode.get(TypePropertyHelper.getTypeName()));
+            populateMaps(pageEntity.rootNode, vertex);
+
+            ArrayNode signatureNode = loadSignatures(vertex);
+            if (signatureNode != null) {
+                pageEntity.rootNode.set(Constants.SIGNATURES_STR, signatureNode);
+            } else {
+                pageEntity.rootNode.remove(Constants.SIGNATURES_STR);
+            }
+            pageEntities.put(osid, pageEntity);
+            frontier.add(new PageVertex(pageEntity, vertex, pageEntity.rootNode, 0));
+        }
+
+        if (configurator.getDepth() > 0) {
+            while (!frontier.isEmpty()) {
+                frontier = loadNextLevel(frontier);
+            }
+        }
+
+        Map<String, JsonNode> entities = new LinkedHashMap<>();
+        for (Map.Entry<String, PageEntity> entry : pageEntities.entrySet()) {
+            PageEntity pageEntity = entry.getValue();
+            useMapsOf(pageEntity);
+            rootVertex = pageEntity.rootVertex;
+            expandChildObject(pageEntity.rootNode, 0);
+
+            ObjectNode entityNode = JsonNodeFactory.instance.objectNode();
+            entityNode.set(entityType, pageEntity.rootNode);
+            trimAttributes(entityNode);
+            entities.put(entry.getKey(), entityNode);
+        }
+        return entities;
+    }
+
+    /**
+     * Loads the children of all the vertices of a level of the page in one traversal, the way
+     * loadOtherVertices does for a single entity.
+     *
+     * @param level the vertices whose children are loaded
+     * @return the vertices whose children are to be loaded next
+     */
+    private List<PageVertex> loadNextLevel(List<PageVertex> level) {
+        Map<Object, List<Map<String, Object>>> outEdges = getOutEdges(level);
+        List<PageVertex> nextLevel = new ArrayList<>();
+        for (PageVertex parent : level) {
+            useMapsOf(parent.pageEntity);
+            List<Map<String, Object>> edges = outEdges.getOrDefault(parent.vertex.id(), Collections.emptyList());
+            if (isNativeArrayStorage() && !parent.vertex.label().equals(Constants.ARRAY_NODE_KEYWORD)) {
+                Map<Edge, Vertex> inVertices = new LinkedHashMap<>();
+                edges.forEach(edge -> inVertices.put((Edge) edge.get(EDGE), (Vertex) edge.get(CHILD)));
+                setArrayItemReferences(parent.node, inVertices.keySet().iterator(), inVertices::get);
+            }
+            for (Map<String, Object> edge : edges) {
+                Vertex child = (Vertex) edge.get(CHILD);
+                ObjectNode node = loadChildVertex(child, false);
+                if (node == null) {
+                    continue;
+                }
+                if (isArrayNode(child)) {
+                    // The blank array_node is ours, it does not count as a level
+                    nextLevel.add(new PageVertex(parent.pageEntity, child, node, parent.level));
+                } else if (canLoadVertex(parent.level + 1, configurator.getDepth())) {
+                    nextLevel.add(new PageVertex(parent.pageEntity, child, node, parent.level + 1));
+                }
+            }
+        }
+        return nextLevel;
+    }
+
+    /**
+     * @return the out edges of the vertices, with the vertex each leads to, keyed by the id of
+     * the vertex they leave
+     */
+    private Map<Object, List<Map<String, Object>>> getOutEdges(List<PageVertex> level) {
+        Map<Object, List<Map<String, Object>>> outEdges = new HashMap<>();
+        Object[] ids = level.stream().map(pageVertex -> pageVertex.vertex.id()).distinct().toArray();
+        GraphTraversal<Vertex, Map<String, Object>> traversal = graph.traversal().V(ids).as(PARENT)
+                .outE().as(EDGE).inV().as(CHILD).select(PARENT, EDGE, CHILD);
+        while (traversal.hasNext()) {
+            Map<String, Object> edge = traversal.next();
+            outEdges.computeIfAbsent(((Vertex) edge.get(PARENT)).id(), id -> new ArrayList<>()).add(edge);
+        }
+        return outEdges;
+    }
+
+    private void useMapsOf(PageEntity pageEntity) {
+        uuidNodeMap = pageEntity.uuidNodeMap;
+        uuidVertexMap = pageEntity.uuidVertexMap;
+    }
+
+    /**
+     * An entity of a page being read, with its own maps of the nodes read
+     */
+    private static class PageEntity {
+        private final LinkedHashMap<String, ObjectNode> uuidNodeMap = new LinkedHashMap<>();
+        private final LinkedHashMap<String, Vertex> uuidVertexMap = new LinkedHashMap<>();
+        private final Vertex rootVertex;
+        private ObjectNode rootNode;
+
+        PageEntity(Vertex rootVertex) {
+            this.rootVertex = rootVertex;
+        }
+    }
+
+    /**
+     * A vertex of a page whose children are to be loaded, at the given level of its entity
+     */
+    private static class PageVertex {
+        private final PageEntity pageEntity;
+        private final Vertex vertex;
+        private final ObjectNode node;
+        private final int level;
+
+        PageVertex(PageEntity pageEntity, Vertex vertex, ObjectNode node, int level) {
+            this.pageEntity = pageEntity;
+            this.vertex = vertex;
+            this.node = node;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Reads only the owners of the entity from the properties of its root vertex, looked up once,
+     * without expanding its children. Enough to tell whether a user owns the entity.
+     * @param entityType
+     * @param osid
+     * @return the osid and, when the entity has owners, the osOwner of the entity
+     * @throws RecordNotFoundException when the id is not found or the entity is inactive
+     */
+    public ObjectNode readOwnership(String entityType, String osid) throws RecordNotFoundException {
+        Vertex vertex = getVertex(entityType, osid);
+        if (null == vertex) {
+            throw new RecordNotFoundException("Invalid id");
+        }
+        if (vertex.property(Constants.STATUS_KEYWORD).isPresent()
+                && vertex.property(Constants.STATUS_KEYWORD).value().equals(Constants.STATUS_INACTIVE)) {
+            throw new RecordNotFoundException("entity status is inactive");
+        }
+        ObjectNode ownership = JsonNodeFactory.instance.objectNode();
+        String osOwner = OSSystemFields.osOwner.toString();
+        VertexProperty<Object> owners = vertex.property(osOwner + Constants.ARRAY_LIST_SUFFIX);
+        if (owners.isPresent() && ArrayHelper.isNativeArray(owners.value())) {
+            ownership.set(osOwner, ArrayHelper.toArrayNode(owners.value()));
+        } else if (vertex.property(osOwner).isPresent()) {
+            String value = vertex.property(osOwner).value().toString();
+            if (ArrayHelper.isArray(value)) {
+                ownership.set(osOwner, ArrayHelper.constructArrayNode(value));
+            } else {
+                ownership.put(osOwner, value);
+            }
+        }
+        ownership.put(uuidPropertyName, databaseProvider.getId(vertex));
+        return ownership;
+    }
+
     public JsonNode readInternal(Vertex rootVertex) throws Exception {
         if (null == rootVertex) {
             throw new RecordNotFoundException("Invalid id");
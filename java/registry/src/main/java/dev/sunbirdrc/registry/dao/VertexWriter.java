@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
 import dev.sunbirdrc.registry.util.ArrayHelper;
 import dev.sunbirdrc.registry.util.RefLabelHelper;
@@ -134,6 +135,12 @@ public class VertexWriter {
         Vertex blankNode = vertex;
         String label;
 
+        // Signatures are always looked up through their blank node
+        if (databaseProvider.getArrayStorage() == ArrayStorage.NATIVE && !isSignature
+                && writeNativeArrayNode(vertex, entryKey, arrayNode)) {
+            return;
+        }
+
         identifyParentOSid(vertex);
 
         if (isArrayItemObject) {
@@ -176,10 +183,69 @@ public class VertexWriter {
         if (isArrayItemObject) {
             blankNode.property(label, ArrayHelper.formatToString(uidList));
         } else {
+            removeExistingDefaultProperty(vertex, entryKey + Constants.ARRAY_LIST_SUFFIX);
             blankNode.property(entryKey, ArrayHelper.formatToString(uidList));
         }
     }
 
+    /**
+     * Writes an array in the native storage. Values are set as a native array property named
+     * with the list suffix; objects are written as item vertices, each connected from the given
+     * vertex by an edge carrying the index of the item.
+     *
+     * @param vertex
+     * @param entryKey
+     * @param arrayNode
+     * @return false if the array could not be stored natively, like an array of mixed values
+     */
+    private boolean writeNativeArrayNode(Vertex vertex, String entryKey, ArrayNode arrayNode) {
+        boolean allObjects = arrayNode.size() > 0;
+        for (JsonNode item : arrayNode) {
+            allObjects &= item.isObject();
+        }
+
+        if (allObjects) {
+            removeExistingDefaultProperty(vertex, entryKey);
+            int index = 0;
+            for (JsonNode item : arrayNode) {
+                addArrayItem(vertex, entryKey, item, index++);
+            }
+            return true;
+        }
+
+        Object values = ArrayHelper.toNativeArray(arrayNode);
+        if (values == null) {
+            logger.debug("Array {} can't be stored natively", entryKey);
+            return false;
+        }
+        removeExistingDefaultProperty(vertex, entryKey);
+        vertex.property(entryKey + Constants.ARRAY_LIST_SUFFIX, values);
+        return true;
+    }
+
+    /**
+     * Adds an object as the item at the given index of a natively stored array
+     *
+     * @param vertex the vertex owning the array
+     * @param entryKey the array name
+     * @param item the object, whose uuidPropertyName is set once written
+     * @param index
+     * @return the item vertex
+     */
+    public Vertex addArrayItem(Vertex vertex, String entryKey, JsonNode item, int index) {
+        VertexProperty<Object> rootProperty = vertex.property(Constants.ROOT_KEYWORD);
+        if (parentOSid == null || parentOSid.isEmpty()) {
+            parentOSid = rootProperty.isPresent() ? rootProperty.value().toString() : databaseProvider.getId(vertex);
+        }
+
+        Vertex itemVertex = processNode(entryKey, item);
+        ((ObjectNode) item).put(uuidPropertyName, databaseProvider.getId(itemVertex));
+        itemVertex.property(Constants.ROOT_KEYWORD, parentOSid);
+        Edge edge = addEdge(entryKey + Constants.ARRAY_ITEM, vertex, itemVertex);
+        edge.property(Constants.ARRAY_ITEM_INDEX, index);
+        return itemVertex;
+    }
+
     public void createArrayNode(Vertex vertex, String entryKey, ArrayNode arrayNode) {
         writeArrayNode(vertex, entryKey, arrayNode, false);
     }
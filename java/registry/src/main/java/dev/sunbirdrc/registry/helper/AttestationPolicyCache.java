@@ -0,0 +1,179 @@
+package dev.sunbirdrc.registry.helper;
+
+import dev.sunbirdrc.registry.entities.AttestationPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Holds the attestation policies stored in the registry, keyed by the entity name they apply to.
+ * The policies are searched through the search index, which catches up with a change only after
+ * a while, so a policy created, updated or deleted through the policy apis is applied to the
+ * cached entry as persisted rather than reloaded. Entries expire after the configured ttl in case
+ * a change happened outside of the policy apis.
+ */
+@Component
+public class AttestationPolicyCache {
+    private static final Logger logger = LoggerFactory.getLogger(AttestationPolicyCache.class);
+
+    @Value("${registry.attestationPolicy.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${registry.attestationPolicy.cache.ttl:300}")
+    private long ttlSeconds;
+
+    private final Map<String, CachedPolicies> policies = new ConcurrentHashMap<>();
+
+    // Bumped on every change, so that a load racing with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the cached policies of the entity, loading them with the loader when absent or expired.
+     * Nothing is cached when the loader fails.
+     *
+     * @param entityName
+     * @param loader
+     * @return
+     * @throws Exception thrown by the loader
+     */
+    public List<AttestationPolicy> get(String entityName, Callable<List<AttestationPolicy>> loader) throws Exception {
+        if (!enabled) {
+            return loader.call();
+        }
+        CachedPolicies cached = policies.get(entityName);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                hits.incrementAndGet();
+                return cached.policies;
+            }
+            if (policies.remove(entityName, cached)) {
+                evictions.incrementAndGet();
+                logger.debug("Attestation policies of {} expired", entityName);
+            }
+        }
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        List<AttestationPolicy> loaded = Collections.unmodifiableList(loader.call());
+        synchronized (this) {
+            if (loadGeneration == generation.get()) {
+                policies.put(entityName, newEntry(loaded));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Adds the policy as persisted to the cached policies of the entity, replacing the one with the same osid.
+     * The policies are loaded with the loader first when absent, the policy is applied whether or not the
+     * search index has caught up with it.
+     *
+     * @param entityName
+     * @param attestationPolicy
+     * @param loader
+     */
+    public void put(String entityName, AttestationPolicy attestationPolicy, Callable<List<AttestationPolicy>> loader) {
+        update(entityName, loader, cachedPolicies -> {
+            cachedPolicies.removeIf(policy -> attestationPolicy.getOsid().equals(policy.getOsid()));
+            cachedPolicies.add(attestationPolicy);
+        });
+    }
+
+    /**
+     * Removes the policy with the osid from the cached policies of the entity, loading them with the loader
+     * first when absent
+     *
+     * @param entityName
+     * @param policyOsid
+     * @param loader
+     */
+    public void remove(String entityName, String policyOsid, Callable<List<AttestationPolicy>> loader) {
+        update(entityName, loader, cachedPolicies -> cachedPolicies.removeIf(policy -> policyOsid.equals(policy.getOsid())));
+    }
+
+    private synchronized void update(String entityName, Callable<List<AttestationPolicy>> loader,
+                                     Consumer<List<AttestationPolicy>> change) {
+        generation.incrementAndGet();
+        if (!enabled) {
+            return;
+        }
+        try {
+            CachedPolicies cached = policies.get(entityName);
+            List<AttestationPolicy> updated = new ArrayList<>(cached != null && !cached.isExpired() ?
+                    cached.policies : loader.call());
+            change.accept(updated);
+            policies.put(entityName, newEntry(Collections.unmodifiableList(updated)));
+        } catch (Exception e) {
+            logger.error("Failed updating the attestation policies of {}, dropping them", entityName, e);
+            invalidate(entityName);
+        }
+    }
+
+    private CachedPolicies newEntry(List<AttestationPolicy> loaded) {
+        return new CachedPolicies(loaded, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+    }
+
+    public synchronized void invalidate(String entityName) {
+        generation.incrementAndGet();
+        if (policies.remove(entityName) != null) {
+            evictions.incrementAndGet();
+            logger.info("Attestation policies of {} invalidated", entityName);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        evictions.addAndGet(policies.size());
+        policies.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("size", (long) policies.size());
+        stats.put("hits", getHitCount());
+        stats.put("misses", getMissCount());
+        stats.put("evictions", getEvictionCount());
+        return stats;
+    }
+
+    private static class CachedPolicies {
+        private final List<AttestationPolicy> policies;
+        private final long expiresAt;
+
+        CachedPolicies(List<AttestationPolicy> policies, long expiresAt) {
+            this.policies = policies;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
@@ -11,7 +11,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.flipkart.zjsonpatch.JsonPatch;
 import dev.sunbirdrc.pojos.PluginResponseMessage;
-import dev.sunbirdrc.pojos.SunbirdRCInstrumentation;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.attestation.Action;
 import dev.sunbirdrc.pojos.attestation.States;
 import dev.sunbirdrc.pojos.attestation.exception.PolicyNotFoundException;
@@ -24,12 +24,14 @@ import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
 import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
 import dev.sunbirdrc.registry.model.attestation.EntityPropertyURI;
 import dev.sunbirdrc.registry.service.*;
+import dev.sunbirdrc.registry.service.impl.AsyncSigningService;
 import dev.sunbirdrc.registry.sink.shard.Shard;
 import dev.sunbirdrc.registry.sink.shard.ShardManager;
 import dev.sunbirdrc.registry.util.*;
 import dev.sunbirdrc.validators.IValidate;
 import dev.sunbirdrc.views.ViewTemplate;
 import dev.sunbirdrc.views.ViewTransformer;
+import io.micrometer.core.instrument.Timer;
 import lombok.Setter;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
@@ -47,7 +49,9 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static dev.sunbirdrc.registry.Constants.*;
 import static dev.sunbirdrc.registry.exception.ErrorMessages.*;
@@ -64,6 +68,7 @@ public class RegistryHelper {
 
     private static final String ATTESTED_DATA = "attestedData";
     private static final String CLAIM_ID = "claimId";
+    private static final String OWNERSHIP_ATTRIBUTE_PREFIX = RegistryHelper.class.getName() + ".ownership.";
     public static String ROLE_ANONYMOUS = "anonymous";
 
     private static final Logger logger = LoggerFactory.getLogger(RegistryHelper.class);
@@ -101,7 +106,7 @@ public class RegistryHelper {
     private DecryptionHelper decryptionHelper;
 
     @Autowired
-    private SunbirdRCInstrumentation watch;
+    private RegistryMetrics registryMetrics;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -109,6 +114,12 @@ public class RegistryHelper {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private AttestationPolicyCache attestationPolicyCache;
+
+    @Autowired
+    private AsyncSigningService asyncSigningService;
+
     @Value("${database.uuidPropertyName}")
     public String uuidPropertyName;
 
@@ -130,6 +141,12 @@ public class RegistryHelper {
     @Value("${workflow.enabled:true}")
     private boolean workflowEnabled;
 
+    @Value("${search.exportPageSize:500}")
+    private int exportPageSize;
+
+    @Value("${read.memoizeOwnership:true}")
+    private boolean memoizeOwnership;
+
     @Autowired
     private EntityTypeHandler entityTypeHandler;
 
@@ -221,10 +238,8 @@ public class RegistryHelper {
         try {
             logger.info("Add api: entity type: {} and shard propery: {}", entityType, shardManager.getShardProperty());
             Shard shard = shardManager.getShard(inputJson.get(entityType).get(shardManager.getShardProperty()));
-            watch.start("RegistryController.addToExistingEntity");
             String resultId = registryService.addEntity(shard, userId, inputJson, skipSignature);
             recordId = new RecordIdentifier(shard.getShardLabel(), resultId);
-            watch.stop("RegistryController.addToExistingEntity");
             logger.info("AddEntity,{}", recordId.toString());
         } catch (Exception e) {
             logger.error("Exception in controller while adding entity !", e);
@@ -252,11 +267,21 @@ public class RegistryHelper {
     }
 
     public JsonNode readEntity(String userId, String entityType, String label, boolean includeSignatures, ViewTemplate viewTemplate, boolean requireLDResponse) throws Exception {
+        Timer.Sample sample = registryMetrics.start();
+        RecordIdentifier recordId = RecordIdentifier.parse(label);
+        boolean success = false;
+        try {
+            JsonNode resultNode = readEntity(userId, entityType, recordId, label, includeSignatures, viewTemplate, requireLDResponse);
+            success = true;
+            return resultNode;
+        } finally {
+            registryMetrics.stop(sample, RegistryMetrics.Operation.read, entityType, recordId.getShardLabel(), success);
+        }
+    }
+
+    private JsonNode readEntity(String userId, String entityType, RecordIdentifier recordId, String label, boolean includeSignatures, ViewTemplate viewTemplate, boolean requireLDResponse) throws Exception {
         boolean includePrivateFields = false;
         JsonNode resultNode = null;
-        RecordIdentifier recordId = RecordIdentifier.parse(label);
-        String shardId = dbConnectionInfoMgr.getShardId(recordId.getShardLabel());
-        Shard shard = shardManager.activateShard(shardId);
         logger.info("Read Api: shard id: " + recordId.getShardLabel() + " for label: " + label);
         ReadConfigurator configurator = ReadConfiguratorFactory.getOne(includeSignatures);
         configurator.setIncludeTypeAttributes(requireLDResponse);
@@ -264,7 +289,8 @@ public class RegistryHelper {
             includePrivateFields = viewTemplateManager.isPrivateFieldEnabled(viewTemplate, entityType);
         }
         configurator.setIncludeEncryptedProp(includePrivateFields);
-        resultNode = readService.getEntity(shard, userId, recordId.getUuid(), entityType, configurator);
+        resultNode = shardManager.onRecordShard(recordId,
+                shard -> readService.getEntity(shard, userId, recordId.getUuid(), entityType, configurator));
         if (!isOwner(resultNode.get(entityType), userId)) {
 //            throw new Exception("Unauthorized");
             //TODO: return public fields
@@ -278,6 +304,26 @@ public class RegistryHelper {
         return resultNode;
     }
 
+    /**
+     * Reads only the owners of the record, which is all an ownership check needs. The result is kept
+     * on the request when read.memoizeOwnership is set, so that checking the ownership of the same
+     * record again while serving the request does not hit the database. Only the ownership is kept,
+     * a full read of the record made while serving the request still goes to the database.
+     */
+    private JsonNode readOwnership(HttpServletRequest request, String userId, String entityType, String label) throws Exception {
+        String attributeName = OWNERSHIP_ATTRIBUTE_PREFIX + entityType + "/" + label;
+        if (memoizeOwnership && request.getAttribute(attributeName) instanceof JsonNode) {
+            return (JsonNode) request.getAttribute(attributeName);
+        }
+        RecordIdentifier recordId = RecordIdentifier.parse(label);
+        JsonNode ownership = shardManager.onRecordShard(recordId,
+                shard -> readService.getOwnership(shard, userId, recordId.getUuid(), entityType));
+        if (memoizeOwnership) {
+            request.setAttribute(attributeName, ownership);
+        }
+        return ownership;
+    }
+
     private boolean isOwner(JsonNode entity, String userId) {
         String osOwner = OSSystemFields.osOwner.toString();
         return userId != null && (!entity.has(osOwner) || entity.get(osOwner).toString().contains(userId));
@@ -295,26 +341,97 @@ public class RegistryHelper {
     }
 
     /**
-     * Search the input in the configured backend, external api's can use this method for searching
+     * Search the input in the configured backend, external api's can use this method for searching.
+     * The records hold all their fields but the private and internal ones.
      *
      * @param inputJson
      * @return
      * @throws Exception
      */
     public JsonNode searchEntity(JsonNode inputJson) throws Exception {
+        return searchEntity(inputJson, false);
+    }
+
+    /**
+     * Search for the public search end points, which return only the public fields of the
+     * entity types declaring some
+     *
+     * @param inputJson
+     * @return
+     * @throws Exception
+     */
+    public JsonNode searchPublicEntity(JsonNode inputJson) throws Exception {
+        return searchEntity(inputJson, true);
+    }
+
+    private JsonNode searchEntity(JsonNode inputJson, boolean publicFieldsOnly) throws Exception {
+        Timer.Sample sample = registryMetrics.start();
+        boolean success = false;
+        try {
+            JsonNode resultNode = doSearchEntity(inputJson, publicFieldsOnly);
+            success = true;
+            return resultNode;
+        } finally {
+            registryMetrics.stop(sample, RegistryMetrics.Operation.search, success);
+        }
+    }
+
+    private JsonNode doSearchEntity(JsonNode inputJson, boolean publicFieldsOnly) throws Exception {
         logger.debug("searchEntity starts");
-        JsonNode resultNode = searchService.search(inputJson);
+        JsonNode resultNode = publicFieldsOnly ? searchService.searchPublic(inputJson) : searchService.search(inputJson);
+        JsonNode nextCursor = ((ObjectNode) resultNode).remove(SearchCursor.NEXT_CURSOR);
         removeNonPublicFields((ObjectNode) resultNode);
         ViewTemplate viewTemplate = viewTemplateManager.getViewTemplate(inputJson);
         if (viewTemplate != null) {
             ViewTransformer vTransformer = new ViewTransformer();
             resultNode = vTransformer.transform(viewTemplate, resultNode);
         }
+        if (nextCursor != null) {
+            ((ObjectNode) resultNode).set(SearchCursor.NEXT_CURSOR, nextCursor);
+        }
         // Search is tricky to support LD. Needs a revisit here.
         logger.debug("searchEntity ends");
         return resultNode;
     }
 
+    /**
+     * Writes all the records of the entity type as newline delimited json, one keyset page of
+     * search results at a time, so that only a page is held in memory. A page which fails on a
+     * shard or index fails the export rather than leaving its records out.
+     *
+     * @param entityName
+     * @param outputStream
+     * @return the number of records written
+     * @throws Exception
+     */
+    public long exportEntities(String entityName, OutputStream outputStream) throws Exception {
+        ObjectNode searchNode = JsonNodeFactory.instance.objectNode();
+        searchNode.putArray("entityType").add(entityName);
+        searchNode.putObject("filters");
+        searchNode.put("limit", exportPageSize);
+        searchNode.put(SearchCursor.CURSOR, "");
+        long exported = 0;
+        JsonNode nextCursor;
+        do {
+            JsonNode resultNode = searchEntity(searchNode);
+            for (JsonNode record : resultNode.path(entityName)) {
+                outputStream.write(objectMapper.writeValueAsBytes(record));
+                outputStream.write('\n');
+                exported++;
+            }
+            outputStream.flush();
+            nextCursor = resultNode.get(SearchCursor.NEXT_CURSOR);
+            if (nextCursor != null) {
+                if (nextCursor.equals(searchNode.get(SearchCursor.CURSOR))) {
+                    throw new IllegalStateException("Export of " + entityName + " does not move on past cursor " + nextCursor.asText());
+                }
+                searchNode.set(SearchCursor.CURSOR, nextCursor);
+            }
+        } while (nextCursor != null);
+        logger.info("Exported {} records of {}", exported, entityName);
+        return exported;
+    }
+
     private void removeNonPublicFields(ObjectNode searchResultNode) throws Exception {
         if (searchResultNode != null) {
             ObjectReader stringListReader = objectMapper.readerFor(new TypeReference<List<String>>() {
@@ -547,17 +664,18 @@ public class RegistryHelper {
     private void uploadAttestedFiles(PluginResponseMessage pluginResponseMessage, ObjectNode metaData) throws Exception {
         if (!CollectionUtils.isEmpty(pluginResponseMessage.getFiles())) {
             ArrayNode fileUris = JsonNodeFactory.instance.arrayNode();
+            List<CompletableFuture<Void>> uploads = new ArrayList<>();
             pluginResponseMessage.getFiles().forEach(file -> {
                 String propertyURI = String.format("%s/%s/%s/documents/%s", pluginResponseMessage.getSourceEntity(),
                         pluginResponseMessage.getSourceOSID(), pluginResponseMessage.getPolicyName(), file.getFileName());
-                try {
-                    fileStorageService.save(new ByteArrayInputStream(file.getFile()), propertyURI);
-                } catch (Exception e) {
-                    logger.error("Failed persisting file", e);
-                    e.printStackTrace();
-                }
+                uploads.add(fileStorageService.saveAsync(new ByteArrayInputStream(file.getFile()), file.getFile().length, propertyURI)
+                        .exceptionally(e -> {
+                            logger.error("Failed persisting file {}", propertyURI, e);
+                            return null;
+                        }));
                 fileUris.add(propertyURI);
             });
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
             JsonNode jsonNode = metaData.get(ATTESTED_DATA);
             ObjectNode attestedObjectNode = objectMapper.readValue(jsonNode.asText(), ObjectNode.class);
             attestedObjectNode.set("files", fileUris);
@@ -616,16 +734,23 @@ public class RegistryHelper {
         if(!securityEnabled){
             return DEFAULT_USER;
         }
-        KeycloakAuthenticationToken principal = (KeycloakAuthenticationToken) request.getUserPrincipal();
+        KeycloakAuthenticationToken principal = getAuthenticationToken(request);
         if (principal != null) {
             return principal.getAccount().getPrincipal().getName();
         }
         throw new Exception("Forbidden");
     }
 
+    /**
+     * @return the authentication the security filter set on the request, null when the request is not authenticated
+     */
+    private KeycloakAuthenticationToken getAuthenticationToken(HttpServletRequest request) {
+        return (KeycloakAuthenticationToken) request.getUserPrincipal();
+    }
+
     public String fetchEmailIdFromToken(HttpServletRequest request, String entityName) throws Exception {
         if (doesEntityContainOwnershipAttributes(entityName) || getManageRoles(entityName).size() > 0) {
-            KeycloakAuthenticationToken principal = (KeycloakAuthenticationToken) request.getUserPrincipal();
+            KeycloakAuthenticationToken principal = getAuthenticationToken(request);
             if (principal != null) {
                 try{
                     return principal.getAccount().getKeycloakSecurityContext().getToken().getEmail();
@@ -672,18 +797,14 @@ public class RegistryHelper {
             filters.set(OSSystemFields.osOwner.toString(), JsonNodeFactory.instance.objectNode().put("contains", userId));
             payload.set("filters", filters);
 
-            watch.start("RegistryController.searchEntity");
-            JsonNode result = searchEntity(payload);
-            watch.stop("RegistryController.searchEntity");
-            return result;
+            return searchEntity(payload);
         }
         throw new Exception("Forbidden");
     }
 
     public void authorize(String entityName, String entityId, HttpServletRequest request) throws Exception {
         String userIdFromRequest = getUserId(request, entityName);
-        JsonNode response = readEntity(userIdFromRequest, entityName, entityId, false, null, false);
-        JsonNode entityFromDB = response.get(entityName);
+        JsonNode entityFromDB = readOwnership(request, userIdFromRequest, entityName, entityId);
         if (!isOwner(entityFromDB, userIdFromRequest)) {
             throw new Exception(UNAUTHORIZED_OPERATION_MESSAGE);
         }
@@ -725,15 +846,73 @@ public class RegistryHelper {
         return fieldsToRemove;
     }
 
+    /**
+     * Hydrates the search hits from the database. The hits are grouped per shard
+     * and each group is read as one batch, instead of a read per hit.
+     *
+     * @param entity
+     * @param esSearchResponse
+     * @return
+     * @throws Exception
+     */
     public ArrayNode fetchFromDBUsingEsResponse(String entity, ArrayNode esSearchResponse) throws Exception {
-        ArrayNode result = objectMapper.createArrayNode();
+        Map<String, List<String>> shardUuids = new LinkedHashMap<>();
+        List<RecordIdentifier> recordIds = new ArrayList<>();
         for (JsonNode value : esSearchResponse) {
-            JsonNode dbResponse = readEntity("", entity, value.get(uuidPropertyName).asText(), false, null, false);
-            result.add(dbResponse.get(entity));
+            RecordIdentifier recordId = RecordIdentifier.parse(value.get(uuidPropertyName).asText());
+            String shardId = dbConnectionInfoMgr.getShardId(recordId.getShardLabel());
+            shardUuids.computeIfAbsent(shardId, k -> new ArrayList<>()).add(recordId.getUuid());
+            recordIds.add(recordId);
+        }
+
+        ReadConfigurator configurator = ReadConfiguratorFactory.getOne(false);
+        configurator.setIncludeTypeAttributes(false);
+        configurator.setIncludeEncryptedProp(false);
+        Map<String, JsonNode> entities = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : shardUuids.entrySet()) {
+            Shard shard = shardManager.activateShard(entry.getKey());
+            logger.info("Read Api: shard id: {} for {} records", shard.getShardLabel(), entry.getValue().size());
+            entities.putAll(readService.getEntities(shard, "", entry.getValue(), entity, configurator));
+        }
+        entities.putAll(readRelocatedEntities(entity, recordIds, entities, configurator));
+
+        ArrayNode result = objectMapper.createArrayNode();
+        for (RecordIdentifier recordId : recordIds) {
+            JsonNode record = entities.get(recordId.getUuid());
+            if (record == null) {
+                // indexed but no longer readable, like a record deleted since
+                logger.warn("Skipping search hit {} {}, not found in the database", entity, recordId);
+                continue;
+            }
+            result.add(record.get(entity));
         }
         return result;
     }
 
+    /**
+     * Reads the records not found on the shard of their id from the shard the rebalancing moved
+     * them to, as the index may still hold their id with the old shard label
+     */
+    private Map<String, JsonNode> readRelocatedEntities(String entity, List<RecordIdentifier> recordIds,
+                                                        Map<String, JsonNode> entities, ReadConfigurator configurator) throws Exception {
+        Map<String, List<String>> relocatedUuids = new LinkedHashMap<>();
+        for (RecordIdentifier recordId : recordIds) {
+            if (!entities.containsKey(recordId.getUuid())) {
+                Shard relocatedShard = shardManager.getRelocatedShard(shardManager.getShardByLabel(recordId.getShardLabel()),
+                        recordId.getUuid());
+                if (relocatedShard != null) {
+                    relocatedUuids.computeIfAbsent(relocatedShard.getShardId(), k -> new ArrayList<>()).add(recordId.getUuid());
+                }
+            }
+        }
+        Map<String, JsonNode> relocatedEntities = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : relocatedUuids.entrySet()) {
+            Shard shard = shardManager.activateShard(entry.getKey());
+            relocatedEntities.putAll(readService.getEntities(shard, "", entry.getValue(), entity, configurator));
+        }
+        return relocatedEntities;
+    }
+
     public void authorizeInviteEntity(HttpServletRequest request, String entityName) throws Exception {
         List<String> inviteRoles = definitionsManager.getDefinition(entityName)
                 .getOsSchemaConfiguration()
@@ -754,8 +933,7 @@ public class RegistryHelper {
         }
         Set<String> userRoles = getUserRolesFromRequest(request);
         String userIdFromRequest = getUserId(request, entityName);
-        JsonNode response = readEntity(userIdFromRequest, entityName, entityId, false, null, false);
-        JsonNode entityFromDB = response.get(entityName);
+        JsonNode entityFromDB = readOwnership(request, userIdFromRequest, entityName, entityId);
         final boolean hasNoValidRole = !deleteRoles.isEmpty() && deleteRoles.stream().noneMatch(userRoles::contains);
         final boolean hasInValidOwnership = !isOwner(entityFromDB, userIdFromRequest);
         if(hasNoValidRole && hasInValidOwnership){
@@ -790,7 +968,7 @@ public class RegistryHelper {
     }
 
     private Set<String> getUserRolesFromRequest(HttpServletRequest request) {
-        KeycloakAuthenticationToken userPrincipal = (KeycloakAuthenticationToken) request.getUserPrincipal();
+        KeycloakAuthenticationToken userPrincipal = getAuthenticationToken(request);
         return userPrincipal!=null ? userPrincipal.getAccount().getRoles():Collections.emptySet();
     }
 
@@ -811,7 +989,7 @@ public class RegistryHelper {
     }
 
     public List<String> getUserEntities(HttpServletRequest request) {
-        KeycloakAuthenticationToken principal = (KeycloakAuthenticationToken) request.getUserPrincipal();
+        KeycloakAuthenticationToken principal = getAuthenticationToken(request);
         Object customAttributes = principal.getAccount()
                 .getKeycloakSecurityContext()
                 .getToken()
@@ -861,13 +1039,19 @@ public class RegistryHelper {
         return signatureService.sign(requestBodyMap);
     }
 
-    // TODO: can be async?
+    /**
+     * Signs the entity again after an update, or queues the signing when async signing is enabled
+     */
     public void signDocument(String entityName, String entityId, String userId) throws Exception {
         if (!signatureEnabled) {
             return;
         }
         Object credentialTemplate = definitionsManager.getCredentialTemplate(entityName);
-        if (credentialTemplate != null) {
+        if (credentialTemplate != null && asyncSigningService.isEnabled()) {
+            RecordIdentifier recordId = RecordIdentifier.parse(entityId);
+            Shard shard = shardManager.getShardByLabel(recordId.getShardLabel());
+            asyncSigningService.resubmit(shard, entityName, recordId.getUuid());
+        } else if (credentialTemplate != null) {
             ObjectNode updatedNode = (ObjectNode) readEntity(userId, entityName, entityId, false, null, false)
                     .get(entityName);
             Object signedCredentials = getSignedDoc(updatedNode, credentialTemplate);
@@ -880,38 +1064,52 @@ public class RegistryHelper {
 
     public void deleteEntity(String entityId, String userId) throws Exception {
         RecordIdentifier recordId = RecordIdentifier.parse(entityId);
-        String shardId = dbConnectionInfoMgr.getShardId(recordId.getShardLabel());
-        Shard shard = shardManager.activateShard(shardId);
-        registryService.deleteEntityById(shard, userId, recordId.getUuid());
+        shardManager.onRecordShard(recordId, shard -> {
+            registryService.deleteEntityById(shard, userId, recordId.getUuid());
+            return null;
+        });
     }
 
-    //TODO: add cache
     public List<AttestationPolicy> getAttestationPolicies(String entityName) {
         List<AttestationPolicy> dbAttestationPolicies = getAttestationsFromRegistry(entityName);
         List<AttestationPolicy> schemaAttestationPolicies = definitionsManager.getDefinition(entityName).getOsSchemaConfiguration().getAttestationPolicies();
         return ListUtils.union(dbAttestationPolicies, schemaAttestationPolicies);
     }
 
+    /**
+     * Loads the attestation policies of all the known entities into the cache
+     */
+    public void loadAttestationPolicies() {
+        for (String entityName : definitionsManager.getAllKnownDefinitions()) {
+            getAttestationsFromRegistry(entityName);
+        }
+        logger.info("Loaded attestation policies: {}", attestationPolicyCache.getStats());
+    }
+
     private List<AttestationPolicy> getAttestationsFromRegistry(String entityName) {
         try {
-            JsonNode searchRequest = objectMapper.readTree("{\n" +
-                    "    \"entityType\": [\n" +
-                    "        \"" + ATTESTATION_POLICY + "\"\n" +
-                    "    ],\n" +
-                    "    \"filters\": {\n" +
-                    "       \"entity\": {\n" +
-                    "           \"eq\": \"" + entityName + "\"\n" +
-                    "       }\n" +
-                    "    }\n" +
-                    "}");
-            JsonNode searchResponse = searchEntity(searchRequest);
-            return convertJsonNodeToAttestationList(searchResponse);
+            return attestationPolicyCache.get(entityName, () -> searchAttestationPolicies(entityName));
         } catch (Exception e) {
             logger.error("Error fetching attestation policy", e);
             return Collections.emptyList();
         }
     }
 
+    private List<AttestationPolicy> searchAttestationPolicies(String entityName) throws Exception {
+        JsonNode searchRequest = objectMapper.readTree("{\n" +
+                "    \"entityType\": [\n" +
+                "        \"" + ATTESTATION_POLICY + "\"\n" +
+                "    ],\n" +
+                "    \"filters\": {\n" +
+                "       \"entity\": {\n" +
+                "           \"eq\": \"" + entityName + "\"\n" +
+                "       }\n" +
+                "    }\n" +
+                "}");
+        JsonNode searchResponse = searchEntity(searchRequest);
+        return convertJsonNodeToAttestationList(searchResponse);
+    }
+
     private List<AttestationPolicy> convertJsonNodeToAttestationList(JsonNode searchResponse) throws java.io.IOException {
         TypeReference<List<AttestationPolicy>> typeRef
                 = new TypeReference<List<AttestationPolicy>>() {
@@ -978,4 +1176,29 @@ public class RegistryHelper {
     public void deleteAttestationPolicy(AttestationPolicy attestationPolicy) throws Exception {
         deleteEntity(attestationPolicy.getOsid(), attestationPolicy.getCreatedBy());
     }
+
+    /**
+     * Applies the policy as persisted to the cached policies of its entity, the search the cache is
+     * loaded with may not return it yet
+     *
+     * @param userId
+     * @param policyOSID
+     * @throws Exception
+     */
+    public void cacheAttestationPolicy(String userId, String policyOSID) throws Exception {
+        AttestationPolicy attestationPolicy = findAttestationPolicyById(userId, policyOSID).get();
+        String entityName = attestationPolicy.getEntity();
+        attestationPolicyCache.put(entityName, attestationPolicy, () -> searchAttestationPolicies(entityName));
+    }
+
+    /**
+     * Removes the policy from the cached policies of the entity, the search the cache is loaded with
+     * may still return it
+     *
+     * @param entityName
+     * @param policyOSID
+     */
+    public void uncacheAttestationPolicy(String entityName, String policyOSID) {
+        attestationPolicyCache.remove(entityName, policyOSID, () -> searchAttestationPolicies(entityName));
+    }
 }
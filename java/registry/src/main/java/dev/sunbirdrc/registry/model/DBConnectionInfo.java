@@ -8,6 +8,11 @@ public class DBConnectionInfo {
 	private String username;
 	private String password;
 	private int maxPoolSize;
+	/**
+	 * Share of the keys given to this shard by the consistent hash shard advisor,
+	 * relative to the other shards
+	 */
+	private int weight = 1;
 	private boolean profilerEnabled = false;
 
 	public String getShardId() {
@@ -65,4 +70,12 @@ public class DBConnectionInfo {
 	public void setMaxPoolSize(int maxPoolSize) {
 		this.maxPoolSize = maxPoolSize;
 	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	public void setWeight(int weight) {
+		this.weight = weight;
+	}
 }
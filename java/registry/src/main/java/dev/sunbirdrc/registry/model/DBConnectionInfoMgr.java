@@ -42,6 +42,30 @@ public class DBConnectionInfoMgr {
 	 * advisor allowed
 	 */
 	private String shardAdvisorClassName;
+
+	/**
+	 * How the arrays are stored in the graph, string or native. Defaults to
+	 * string, the format of the existing databases.
+	 */
+	private String arrayStorage = "string";
+
+	/**
+	 * Converts the arrays stored as string to native storage on startup, once
+	 * arrayStorage is switched to native.
+	 */
+	private boolean arrayStorageMigration;
+
+	/**
+	 * Points placed on the hash ring per unit of shard weight, by the consistent
+	 * hash shard advisor
+	 */
+	private int virtualNodes = 160;
+
+	/**
+	 * The shards as shardId or shardId:weight before shards were added or
+	 * weighted differently. The records whose shard changed are moved on startup.
+	 */
+	private List<String> rebalanceFromShards = new ArrayList<>();
 	private Map<String, String> shardLabelIdMap = new HashMap<>();
 
 	@PostConstruct
@@ -105,6 +129,38 @@ public class DBConnectionInfoMgr {
 		this.shardAdvisorClassName = shardAdvisorClassName;
 	}
 
+	public String getArrayStorage() {
+		return arrayStorage;
+	}
+
+	public void setArrayStorage(String arrayStorage) {
+		this.arrayStorage = arrayStorage;
+	}
+
+	public boolean isArrayStorageMigration() {
+		return arrayStorageMigration;
+	}
+
+	public void setArrayStorageMigration(boolean arrayStorageMigration) {
+		this.arrayStorageMigration = arrayStorageMigration;
+	}
+
+	public int getVirtualNodes() {
+		return virtualNodes;
+	}
+
+	public void setVirtualNodes(int virtualNodes) {
+		this.virtualNodes = virtualNodes;
+	}
+
+	public List<String> getRebalanceFromShards() {
+		return rebalanceFromShards;
+	}
+
+	public void setRebalanceFromShards(List<String> rebalanceFromShards) {
+		this.rebalanceFromShards = rebalanceFromShards;
+	}
+
 	public String getShardId(String shardLabel) {
 		return shardLabelIdMap.getOrDefault(shardLabel, null);
 	}
@@ -0,0 +1,44 @@
+package dev.sunbirdrc.registry.model.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What became of each entity of a batch, by its position in the batch. An entity is either
+ * persisted with its osid, failed on its own with the error, or neither when the transaction
+ * it was part of was rolled back, in which case it can be added again.
+ */
+public class AddEntitiesResult {
+    private final List<String> entityIds;
+    private final List<Exception> errors;
+
+    public AddEntitiesResult(int size) {
+        this.entityIds = new ArrayList<>(Collections.nCopies(size, null));
+        this.errors = new ArrayList<>(Collections.nCopies(size, null));
+    }
+
+    public void persisted(int index, String entityId) {
+        entityIds.set(index, entityId);
+    }
+
+    public void failed(int index, Exception error) {
+        errors.set(index, error);
+    }
+
+    public boolean isPersisted(int index) {
+        return entityIds.get(index) != null;
+    }
+
+    public String getEntityId(int index) {
+        return entityIds.get(index);
+    }
+
+    public Exception getError(int index) {
+        return errors.get(index);
+    }
+
+    public int size() {
+        return entityIds.size();
+    }
+}
@@ -2,7 +2,9 @@ package dev.sunbirdrc.registry.service;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +13,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -18,9 +21,8 @@ import dev.sunbirdrc.elastic.IElasticService;
 import dev.sunbirdrc.pojos.APIMessage;
 import dev.sunbirdrc.pojos.AuditRecord;
 import dev.sunbirdrc.pojos.Filter;
-import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.SearchQuery;
-import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.util.RecordIdentifier;
 
 /**
@@ -50,6 +52,9 @@ public class ElasticSearchService implements ISearchService {
     @Value("${database.uuidPropertyName}")
     private String uuidPropertyName;
 
+    @Value("${elastic.search.multiSearch:true}")
+    private boolean multiSearchEnabled;
+
     @Value("${audit.enabled}")
     private boolean auditEnabled;
     
@@ -58,15 +63,24 @@ public class ElasticSearchService implements ISearchService {
 
     @Override
     public JsonNode search(JsonNode inputQueryNode) throws IOException {
+        return search(inputQueryNode, false);
+    }
+
+    @Override
+    public JsonNode searchPublic(JsonNode inputQueryNode) throws IOException {
+        return search(inputQueryNode, true);
+    }
+
+    private JsonNode search(JsonNode inputQueryNode, boolean publicFieldsOnly) throws IOException {
         logger.debug("search request body = " + inputQueryNode);
 
         SearchQuery searchQuery = getSearchQuery(inputQueryNode, offset, limit);
+        searchQuery.setPublicFieldsOnly(publicFieldsOnly);
+        setCursor(searchQuery, inputQueryNode, uuidPropertyName);
+        SearchCursor cursor = searchQuery.getCursor();
 
         Filter uuidFilter = getUUIDFilter(searchQuery, uuidPropertyName);
-        
-        // Fetch only Active records
-        updateStatusFilter(searchQuery);
-        
+
         boolean isSpecificSearch = (uuidFilter != null);
         if (isSpecificSearch) {
             RecordIdentifier recordIdentifier = RecordIdentifier.parse(uuidFilter.getValue().toString());
@@ -77,15 +91,35 @@ public class ElasticSearchService implements ISearchService {
             }
         }
 
+        SearchQuery indexQuery = cursor != null ? getKeysetQuery(searchQuery) : searchQuery;
         ObjectNode resultNode = JsonNodeFactory.instance.objectNode();
-        for(String indexName : searchQuery.getEntityTypes()){
-            try{
-                JsonNode node = elasticService.search(indexName.toLowerCase(), searchQuery);
-                resultNode.set(indexName, node);
+        List<String> indexNames = new ArrayList<>();
+        for (String indexName : searchQuery.getEntityTypes()) {
+            if (cursor == null || !cursor.isExhausted(indexName)) {
+                indexNames.add(indexName);
             }
-            catch (Exception e) {
-                logger.error("Elastic search operation - {}", e);
+        }
+        Map<String, JsonNode> indexResults = searchIndices(indexNames, indexQuery);
+        for (String indexName : searchQuery.getEntityTypes()) {
+            if (!indexNames.contains(indexName)) {
+                resultNode.set(indexName, JsonNodeFactory.instance.arrayNode());
+                continue;
+            }
+            JsonNode node = indexResults.get(indexName.toLowerCase());
+            if (node == null) {
+                if (cursor != null) {
+                    // the cursor would move on past the records of the failed index
+                    throw new IOException("Elastic search operation failed on index " + indexName);
+                }
+                continue;
+            }
+            if (cursor != null) {
+                node = getKeysetPage(indexName, (ArrayNode) node, searchQuery);
             }
+            resultNode.set(indexName, node);
+        }
+        if (cursor != null && cursor.encode() != null) {
+            resultNode.put(SearchCursor.NEXT_CURSOR, cursor.encode());
         }
 
         try {
@@ -99,10 +133,40 @@ public class ElasticSearchService implements ISearchService {
 
     }
 
-	private void updateStatusFilter(SearchQuery searchQuery) {		
-        List<Filter> filterList = searchQuery.getFilters();
-        Filter filter = new Filter(Constants.STATUS_KEYWORD, FilterOperators.neq, Constants.STATUS_INACTIVE);
-        filterList.add(filter);
-	}
+    /**
+     * Searches the indices of the entity types, in a single multi search request when there are
+     * several of them and multi search is enabled, or one index after the other
+     *
+     * @return the records found in each index searched successfully, by the index name
+     */
+    private Map<String, JsonNode> searchIndices(List<String> indexNames, SearchQuery indexQuery) {
+        Map<String, JsonNode> indexResults = new HashMap<>();
+        if (multiSearchEnabled && indexNames.size() > 1) {
+            List<String> indices = new ArrayList<>();
+            indexNames.forEach(indexName -> indices.add(indexName.toLowerCase()));
+            try {
+                indexResults.putAll(elasticService.search(indices, indexQuery));
+            } catch (Exception e) {
+                logger.error("Elastic search operation - {}", e);
+            }
+            return indexResults;
+        }
+        for (String indexName : indexNames) {
+            try {
+                indexResults.put(indexName.toLowerCase(), elasticService.search(indexName.toLowerCase(), indexQuery));
+            } catch (Exception e) {
+                logger.error("Elastic search operation - {}", e);
+            }
+        }
+        return indexResults;
+    }
+
+    /**
+     * The index orders the records by the key as stored, shard label included
+     */
+    @Override
+    public String getKeysetKey(JsonNode record, String keyField) {
+        return record.get(keyField).asText();
+    }
 
 }
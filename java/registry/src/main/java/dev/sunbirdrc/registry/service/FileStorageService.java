@@ -6,23 +6,27 @@ import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import dev.sunbirdrc.registry.model.dto.DocumentsResponse;
-import org.apache.poi.util.IOUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -31,29 +35,80 @@ public class FileStorageService {
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
     private final MinioClient minioClient;
     private final String bucketName;
+    private final AsyncTaskExecutor uploadExecutor;
     private static final String CONTENT_TYPE_TEXT = "text/plain";
+    private static final long UNKNOWN_SIZE_PART_SIZE = 10485760;
+    // the bucket is only checked until it is found or created
+    private volatile boolean bucketChecked;
 
-    public FileStorageService(MinioClient minioClient, @Value("${filestorage.bucketname}") String bucketName) {
+    public FileStorageService(MinioClient minioClient, @Value("${filestorage.bucketname}") String bucketName,
+                              @Qualifier("fileStorageExecutor") AsyncTaskExecutor uploadExecutor) {
         this.bucketName = bucketName;
         this.minioClient = minioClient;
+        this.uploadExecutor = uploadExecutor;
     }
 
-    public void save(InputStream inputStream, String objectName) throws Exception {
-        if (!isBucketExists()) {
-            logger.info("Bucket {} doesn't exist creating new bucket", bucketName);
-            createNewBucket();
-            //TODO: check if this can go infinite loop
-            save(inputStream, objectName);
+    @PostConstruct
+    public void init() {
+        try {
+            ensureBucketExists();
+        } catch (Exception e) {
+            logger.error("Bucket {} could not be checked, it will be checked on the first upload: {}", bucketName, e.getMessage());
         }
+    }
+
+    public void save(InputStream inputStream, String objectName) throws Exception {
+        save(inputStream, -1, objectName);
+    }
+
+    /**
+     * Streams the input into the object. The input is read a part at a time, so the memory used
+     * does not grow with the size of the file.
+     *
+     * @param size - size of the input in bytes, or -1 if it is not known
+     */
+    public void save(InputStream inputStream, long size, String objectName) throws Exception {
+        ensureBucketExists();
         logger.info("Saving the file in the location {}", objectName);
         minioClient.putObject(PutObjectArgs.builder()
                 .bucket(bucketName)
                 .object(objectName)
-                .stream(inputStream, -1, 10485760)
+                .stream(inputStream, size, size < 0 ? UNKNOWN_SIZE_PART_SIZE : -1)
                 .build());
         logger.info("File has successfully saved");
     }
 
+    /**
+     * Saves the input on the file storage executor. The input is closed once it is saved.
+     */
+    public CompletableFuture<Void> saveAsync(InputStream inputStream, long size, String objectName) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        uploadExecutor.execute(() -> {
+            try (InputStream input = inputStream) {
+                save(input, size, objectName);
+                future.complete(null);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private void ensureBucketExists() throws Exception {
+        if (bucketChecked) {
+            return;
+        }
+        synchronized (this) {
+            if (!bucketChecked) {
+                if (!isBucketExists()) {
+                    logger.info("Bucket {} doesn't exist creating new bucket", bucketName);
+                    createNewBucket();
+                }
+                bucketChecked = true;
+            }
+        }
+    }
+
     private void createNewBucket() throws ErrorResponseException, InsufficientDataException, InternalException, InvalidKeyException, InvalidResponseException, IOException, NoSuchAlgorithmException, ServerException, XmlParserException {
         minioClient.makeBucket(MakeBucketArgs
                 .builder()
@@ -71,17 +126,29 @@ public class FileStorageService {
     public DocumentsResponse saveAndFetchFileNames(MultipartFile[] files, String requestedURI) {
         String objectPath = getDirectoryPath(requestedURI);
 
-        DocumentsResponse documentsResponse = new DocumentsResponse();
+        List<String> objectNames = new ArrayList<>();
+        List<CompletableFuture<Void>> uploads = new ArrayList<>();
         for (MultipartFile file : files) {
-            String fileName = getFileName(file.getOriginalFilename());
+            String objectName = objectPath + "/" + getFileName(file.getOriginalFilename());
+            objectNames.add(objectName);
             try {
-                String objectName = objectPath + "/" + fileName;
-                save(file.getInputStream(), objectName);
-                documentsResponse.addDocumentLocation(objectName);
+                uploads.add(saveAsync(file.getInputStream(), file.getSize(), objectName));
+            } catch (IOException e) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                uploads.add(failed);
+            }
+        }
+
+        // the files are kept in the order they were sent
+        DocumentsResponse documentsResponse = new DocumentsResponse();
+        for (int i = 0; i < files.length; i++) {
+            try {
+                uploads.get(i).join();
+                documentsResponse.addDocumentLocation(objectNames.get(i));
             } catch (Exception e) {
-                documentsResponse.addError(file.getOriginalFilename());
-                logger.error("Error has occurred while trying to save the file {}", fileName);
-                e.printStackTrace();
+                documentsResponse.addError(files[i].getOriginalFilename());
+                logger.error("Error has occurred while trying to save the file {}", objectNames.get(i), e);
             }
         }
         return documentsResponse;
@@ -127,21 +194,26 @@ public class FileStorageService {
                         .build());
     }
 
-    public byte[] getDocument(String requestedURI) {
-        String objectName = getDirectoryPath(requestedURI);
-        byte[] bytes = new byte[0];
-        try {
-            InputStream inputStream = minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build());
-            bytes = IOUtils.toByteArray(inputStream);
-        } catch (Exception e) {
-            logger.error("Error has occurred while fetching the document {} {}", objectName, e.getMessage());
-            e.printStackTrace();
-        }
-        return bytes;
+    public StatObjectResponse statDocument(String requestedURI) throws Exception {
+        return minioClient.statObject(StatObjectArgs.builder()
+                .bucket(bucketName)
+                .object(getDirectoryPath(requestedURI))
+                .build());
+    }
+
+    /**
+     * Opens the document, or the given range of it, for reading. The caller closes the stream.
+     *
+     * @param offset - offset of the first byte to read, or null to read from the start
+     * @param length - number of bytes to read, or null to read till the end
+     */
+    public InputStream getDocument(String requestedURI, Long offset, Long length) throws Exception {
+        return minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(getDirectoryPath(requestedURI))
+                .offset(offset)
+                .length(length)
+                .build());
     }
 
     public ResponseEntity deleteDocument(String requestedURI) {
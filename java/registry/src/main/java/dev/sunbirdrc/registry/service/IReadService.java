@@ -2,11 +2,56 @@ package dev.sunbirdrc.registry.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import dev.sunbirdrc.registry.exception.RecordNotFoundException;
 import dev.sunbirdrc.registry.sink.shard.Shard;
 import dev.sunbirdrc.registry.util.ReadConfigurator;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface IReadService {
 
     JsonNode getEntity(Shard shard, String userId, String id, String entityType, ReadConfigurator configurator) throws Exception;
 
+    /**
+     * Reads what is needed to tell whether a user owns a record, its osid and osOwner.
+     * Providers that can read the owners without the rest of the record should override this;
+     * by default the whole record is read.
+     *
+     * @param id - osid without the shard prefix
+     * @param entityType
+     * @return the record, holding at least its osOwner when it has owners
+     * @throws Exception
+     */
+    default JsonNode getOwnership(Shard shard, String userId, String id, String entityType) throws Exception {
+        return getEntity(shard, userId, id, entityType, ReadConfiguratorFactory.getOne(false)).get(entityType);
+    }
+
+    /**
+     * Reads a batch of records of the same entity type living in the given shard.
+     * Providers that can resolve many ids at once must override this; by default
+     * every id is read one after the other.
+     *
+     * @param ids          - osids without the shard prefix
+     * @param entityType
+     * @param configurator
+     * @return the records found keyed by id, in the order of ids; ids not found are left out
+     * @throws Exception
+     */
+    default Map<String, JsonNode> getEntities(Shard shard, String userId, List<String> ids, String entityType, ReadConfigurator configurator) throws Exception {
+        Map<String, JsonNode> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            try {
+                result.put(id, getEntity(shard, userId, id, entityType, configurator));
+            } catch (RecordNotFoundException e) {
+                LoggerFactory.getLogger(IReadService.class).warn("Skipping {} {}: {}", entityType, id, e.getMessage());
+            }
+        }
+        return result;
+    }
+
 }
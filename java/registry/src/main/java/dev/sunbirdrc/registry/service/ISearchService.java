@@ -3,11 +3,15 @@ package dev.sunbirdrc.registry.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import dev.sunbirdrc.pojos.Filter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.SearchQuery;
 import dev.sunbirdrc.registry.dao.ValueType;
+import dev.sunbirdrc.registry.util.RecordIdentifier;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +25,16 @@ public interface ISearchService {
     static Logger logger = LoggerFactory.getLogger(ISearchService.class);
 
     JsonNode search(JsonNode inputQueryNode) throws IOException;
+
+    /**
+     * Searches for the public search end points, the records holding only the public fields of the
+     * definitions which declare some. The other searches return all but the private and internal fields.
+     * @param inputQueryNode
+     * @return
+     */
+    default JsonNode searchPublic(JsonNode inputQueryNode) throws IOException {
+        return search(inputQueryNode);
+    }
     
     /**
      * Building SearchQuery from given input search json
@@ -70,6 +84,73 @@ public interface ISearchService {
         return searchQuery;
     }
 
+    /**
+     * Switches the search query to keyset paging when the request carries a cursor, empty for
+     * the first page. The records are then ordered by the key field and the offset is ignored.
+     * @param searchQuery
+     * @param inputQueryNode          request search json
+     * @param keyField                the field the records are ordered by
+     */
+    default void setCursor(SearchQuery searchQuery, JsonNode inputQueryNode, String keyField) {
+        JsonNode cursorNode = inputQueryNode.get(SearchCursor.CURSOR);
+        if (cursorNode != null) {
+            searchQuery.setCursor(SearchCursor.decode(cursorNode.asText(""), searchQuery.getEntityTypes(), keyField));
+            searchQuery.setOffset(0);
+        }
+    }
+
+    /**
+     * The query to run against each shard or index for a keyset page. One more record than the
+     * page is asked for, which tells whether there is a next page.
+     * @param searchQuery
+     * @return
+     */
+    default SearchQuery getKeysetQuery(SearchQuery searchQuery) {
+        SearchQuery keysetQuery = new SearchQuery(searchQuery.getEntityTypes(), 0, searchQuery.getLimit() + 1);
+        keysetQuery.setFilters(searchQuery.getFilters());
+        keysetQuery.setFields(searchQuery.getFields());
+        keysetQuery.setCursor(searchQuery.getCursor());
+        keysetQuery.setPublicFieldsOnly(searchQuery.isPublicFieldsOnly());
+        return keysetQuery;
+    }
+
+    /**
+     * Merges the records of a keyset page from all the shards or indices, each ordered by the key
+     * field, and moves the cursor past the page.
+     * @param entityType
+     * @param records                 the records found after the cursor
+     * @param searchQuery
+     * @return the first limit records in the order of the key field
+     */
+    default ArrayNode getKeysetPage(String entityType, ArrayNode records, SearchQuery searchQuery) {
+        SearchCursor cursor = searchQuery.getCursor();
+        List<JsonNode> sorted = new ArrayList<>();
+        records.forEach(sorted::add);
+        sorted.sort(Comparator.comparing(record -> getKeysetKey(record, cursor.getKeyField())));
+
+        ArrayNode page = JsonNodeFactory.instance.arrayNode();
+        for (int i = 0; i < sorted.size() && i < searchQuery.getLimit(); i++) {
+            page.add(sorted.get(i));
+        }
+        if (sorted.size() > searchQuery.getLimit() && page.size() > 0) {
+            JsonNode lastRecord = page.get(page.size() - 1);
+            cursor.setLastKey(entityType, getKeysetKey(lastRecord, cursor.getKeyField()));
+        } else {
+            cursor.setExhausted(entityType);
+        }
+        return page;
+    }
+
+    /**
+     * The key a record is ordered by in a keyset page, the uuid without the shard label
+     * @param record
+     * @param keyField
+     * @return
+     */
+    default String getKeysetKey(JsonNode record, String keyField) {
+        return RecordIdentifier.getUUID(record.get(keyField).asText());
+    }
+
     /**
      * For a given path filter, iterate through the fields given and set the filterList
      * @param path
@@ -2,6 +2,9 @@ package dev.sunbirdrc.registry.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
@@ -79,4 +82,61 @@ public class NativeReadService implements IReadService {
 		}
 	}
 
+	/**
+	 * Reads the owners of the record from its root vertex alone, with a single lookup and
+	 * without auditing a read of the record.
+	 */
+	@Override
+	public JsonNode getOwnership(Shard shard, String userId, String id, String entityType) throws Exception {
+		DatabaseProvider dbProvider = shard.getDatabaseProvider();
+		IRegistryDao registryDao = new RegistryDaoImpl(dbProvider, definitionsManager, uuidPropertyName);
+		try (OSGraph osGraph = dbProvider.getOSGraph()) {
+			Graph graph = osGraph.getGraphStore();
+			Transaction tx = dbProvider.startTransaction(graph);
+			JsonNode ownership = registryDao.getOwnership(graph, entityType, id);
+			dbProvider.commitTransaction(graph, tx);
+			return ownership;
+		}
+	}
+
+	/**
+	 * Reads all the records in a single graph session and transaction. The root
+	 * vertices are resolved with one lookup, their children with one traversal per
+	 * level, and a single read audit is written for the whole batch. Records not
+	 * found are left out.
+	 *
+	 * @param ids          - osids
+	 * @param entityType
+	 * @param configurator
+	 * @return
+	 * @throws Exception
+	 */
+	@Override
+	public Map<String, JsonNode> getEntities(Shard shard, String userId, List<String> ids, String entityType, ReadConfigurator configurator) throws Exception {
+		if (ids.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		DatabaseProvider dbProvider = shard.getDatabaseProvider();
+		IRegistryDao registryDao = new RegistryDaoImpl(dbProvider, definitionsManager, uuidPropertyName);
+		try (OSGraph osGraph = dbProvider.getOSGraph()) {
+			Graph graph = osGraph.getGraphStore();
+			Transaction tx = dbProvider.startTransaction(graph);
+			Map<String, JsonNode> result = registryDao.getEntities(graph, entityType, ids, configurator);
+
+			if (!shard.getShardLabel().isEmpty()) {
+				// Replace osid with shard details
+				String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
+				for (JsonNode entity : result.values()) {
+					JSONUtil.addPrefix((ObjectNode) entity, prefix, new ArrayList<String>(Arrays.asList(uuidPropertyName)));
+				}
+			}
+
+			dbProvider.commitTransaction(graph, tx);
+
+			auditService.auditRead(auditService.createAuditRecord(userId, String.join(",", ids), tx, entityType), shard);
+
+			return result;
+		}
+	}
+
 }
@@ -3,15 +3,24 @@ package dev.sunbirdrc.registry.service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -23,6 +32,7 @@ import dev.sunbirdrc.pojos.APIMessage;
 import dev.sunbirdrc.pojos.AuditRecord;
 import dev.sunbirdrc.pojos.Filter;
 import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchCursor;
 import dev.sunbirdrc.pojos.SearchQuery;
 import dev.sunbirdrc.registry.dao.IRegistryDao;
 import dev.sunbirdrc.registry.dao.RegistryDaoImpl;
@@ -46,6 +56,8 @@ public class NativeSearchService implements ISearchService {
 
 	private static Logger logger = LoggerFactory.getLogger(NativeSearchService.class);
 
+	public static final String SHARDS_FAILED = "shardsFailed";
+
 	@Autowired
 	private DBConnectionInfoMgr dbConnectionInfoMgr;
 
@@ -79,11 +91,35 @@ public class NativeSearchService implements ISearchService {
 	@Value("${search.expandInternal}")
 	private boolean expandInternal;
 
+	@Value("${search.parallel.enabled:false}")
+	private boolean parallelSearchEnabled;
+
+	@Value("${search.parallel.shardTimeout:5000}")
+	private long shardTimeout;
+
+	@Value("${search.parallel.partialResults:bestEffort}")
+	private PartialResultsPolicy partialResultsPolicy;
+
+	@Autowired
+	@Qualifier("searchExecutor")
+	private AsyncTaskExecutor searchExecutor;
+
+	/**
+	 * What a parallel search returns when some of the shards fail or time out
+	 */
+	public enum PartialResultsPolicy {
+		// the search fails
+		failFast,
+		// the results of the other shards are returned, with the failed shards listed under shardsFailed
+		bestEffort
+	}
+
 	@Override
 	public JsonNode search(JsonNode inputQueryNode) throws IOException {
 		
 		ArrayNode result = JsonNodeFactory.instance.arrayNode();
 		SearchQuery searchQuery = getSearchQuery(inputQueryNode, offset, limit);
+		setCursor(searchQuery, inputQueryNode, uuidPropertyName);
 
 		if(searchQuery.getFilters().size() == 1 && searchQuery.getFilters().get(0).getOperator() == FilterOperators.queryString)
             throw new IllegalArgumentException("free-text queries not supported for native search!");
@@ -91,6 +127,11 @@ public class NativeSearchService implements ISearchService {
 		Filter uuidFilter = getUUIDFilter(searchQuery, uuidPropertyName);
 		boolean isSpecificSearch = (uuidFilter != null);
 
+		if (parallelSearchEnabled && !isSpecificSearch && dbConnectionInfoMgr.getConnectionInfo().size() > 1) {
+			return parallelSearch(inputQueryNode, searchQuery);
+		}
+
+		SearchQuery shardQuery = searchQuery.getCursor() != null ? getKeysetQuery(searchQuery) : searchQuery;
 		boolean continueSearch = true;
 		// Now, search across all shards and return the results.
 		for (DBConnectionInfo dbConnection : dbConnectionInfoMgr.getConnectionInfo()) {
@@ -105,38 +146,22 @@ public class NativeSearchService implements ISearchService {
 					}
 				}
 
-				// TODO: parallel search.
 				List<Object> transaction = new LinkedList<>();
 
 				Shard shard = shardManager.activateShard(dbConnection.getShardId());
-				IRegistryDao registryDao = new RegistryDaoImpl(shard.getDatabaseProvider(), definitionsManager, uuidPropertyName);
-				SearchDaoImpl searchDao = new SearchDaoImpl(registryDao);
-				try (OSGraph osGraph = shard.getDatabaseProvider().getOSGraph()) {
-					Graph graph = osGraph.getGraphStore();
-					try (Transaction tx = shard.getDatabaseProvider().startTransaction(graph)) {
-						ObjectNode shardResult = (ObjectNode) searchDao.search(graph, searchQuery, expandInternal);
-						if (!shard.getShardLabel().isEmpty()) {
-							// Replace osid with shard details
-							String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
-							JSONUtil.addPrefix((ObjectNode) shardResult, prefix, new ArrayList<>(Arrays.asList(uuidPropertyName)));
-						}
-
-						result.add(shardResult);
-						transaction.add(tx.hashCode());
-					}
+				Exception shardError = null;
+				try {
+					result.add(searchShard(shard, shardQuery, transaction));
 				} catch (Exception e) {
 					logger.error("search operation failed: {}", e);
+					shardError = e;
 				} finally {
 					continueSearch = !isSpecificSearch;
 				}
-				try {
-					auditService.auditNativeSearch(
-							new AuditRecord()
-									.setUserId(apiMessage.getUserID())
-									.setTransactionId(transaction),
-							shard, searchQuery.getEntityTypes(), inputQueryNode);
-				} catch (Exception e) {
-					logger.error("Exception while auditing " + e);
+				auditSearch(getUserId(), shard, transaction, searchQuery, inputQueryNode);
+				if (shardError != null && searchQuery.getCursor() != null) {
+					// the cursor would move on past the records of the failed shard
+					throw new IOException("search operation failed on shard " + shard.getShardId(), shardError);
 				}
 
 		 	}
@@ -144,6 +169,161 @@ public class NativeSearchService implements ISearchService {
 		
 		return buildResultNode(searchQuery, result);
 	}
+
+	/**
+	 * Searches all the shards at once on the search executor. Every shard is asked for its first
+	 * offset + limit records in the order of the uuid, and the records of all the shards are
+	 * sorted by the uuid, without the shard label, before applying the offset and limit of the
+	 * request, so that a page holds the same records whichever shards they live in.
+	 * All the shards share one deadline of shardTimeout.
+	 *
+	 * @param inputQueryNode
+	 * @param searchQuery
+	 * @return
+	 * @throws IOException when a shard fails and partial results are not allowed, or the search is keyset paged
+	 */
+	private JsonNode parallelSearch(JsonNode inputQueryNode, SearchQuery searchQuery) throws IOException {
+		SearchQuery shardQuery;
+		if (searchQuery.getCursor() != null) {
+			shardQuery = getKeysetQuery(searchQuery);
+		} else {
+			shardQuery = new SearchQuery(searchQuery.getEntityTypes(), 0,
+					searchQuery.getOffset() + searchQuery.getLimit());
+			shardQuery.setFilters(searchQuery.getFilters());
+			shardQuery.setFields(searchQuery.getFields());
+			shardQuery.setOrderBy(uuidPropertyName);
+		}
+		// Read in the request thread, the api message is request scoped
+		String userId = getUserId();
+
+		List<ShardSearch> shardSearches = new ArrayList<>();
+		for (DBConnectionInfo dbConnection : dbConnectionInfoMgr.getConnectionInfo()) {
+			ShardSearch shardSearch = new ShardSearch(shardManager.activateShard(dbConnection.getShardId()));
+			try {
+				shardSearch.future = searchExecutor.submit(() -> searchShard(shardSearch.shard, shardQuery, shardSearch.transaction));
+			} catch (RejectedExecutionException e) {
+				shardSearch.error = e;
+			}
+			shardSearches.add(shardSearch);
+		}
+
+		ArrayNode result = JsonNodeFactory.instance.arrayNode();
+		ArrayNode shardsFailed = JsonNodeFactory.instance.arrayNode();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shardTimeout);
+		try {
+			for (ShardSearch shardSearch : shardSearches) {
+				if (shardSearch.future != null) {
+					try {
+						result.add(shardSearch.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+					} catch (ExecutionException e) {
+						shardSearch.error = e.getCause();
+					} catch (TimeoutException e) {
+						shardSearch.future.cancel(true);
+						shardSearch.error = e;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						shardSearch.error = e;
+					}
+				}
+				if (shardSearch.error != null) {
+					String shardId = shardSearch.shard.getShardId();
+					logger.error("search operation failed on shard {}: {}", shardId, shardSearch.error);
+					// a keyset page can not skip a shard, the cursor would move on past its records
+					if (partialResultsPolicy == PartialResultsPolicy.failFast || searchQuery.getCursor() != null) {
+						throw new IOException("search operation failed on shard " + shardId, shardSearch.error);
+					}
+					shardsFailed.add(JsonNodeFactory.instance.objectNode().put("shardId", shardId));
+				}
+			}
+		} finally {
+			for (ShardSearch shardSearch : shardSearches) {
+				if (shardSearch.future != null && !shardSearch.future.isDone()) {
+					shardSearch.future.cancel(true);
+				}
+				auditSearch(userId, shardSearch.shard, shardSearch.transaction, searchQuery, inputQueryNode);
+			}
+		}
+
+		ObjectNode resultNode = (ObjectNode) buildResultNode(searchQuery, result);
+		if (searchQuery.getCursor() == null) {
+			for (String entity : searchQuery.getEntityTypes()) {
+				resultNode.set(entity, page(sortByUuid((ArrayNode) resultNode.get(entity)), searchQuery.getOffset(), searchQuery.getLimit()));
+			}
+		}
+		if (shardsFailed.size() > 0) {
+			resultNode.set(SHARDS_FAILED, shardsFailed);
+		}
+		return resultNode;
+	}
+
+	private ObjectNode searchShard(Shard shard, SearchQuery searchQuery, List<Object> transaction) throws Exception {
+		IRegistryDao registryDao = new RegistryDaoImpl(shard.getDatabaseProvider(), definitionsManager, uuidPropertyName);
+		SearchDaoImpl searchDao = new SearchDaoImpl(registryDao, shard.getDatabaseProvider().getProvider(),
+				shard.getDatabaseProvider().getArrayStorage());
+		try (OSGraph osGraph = shard.getDatabaseProvider().getOSGraph()) {
+			Graph graph = osGraph.getGraphStore();
+			try (Transaction tx = shard.getDatabaseProvider().startTransaction(graph)) {
+				ObjectNode shardResult = (ObjectNode) searchDao.search(graph, searchQuery, expandInternal);
+				if (!shard.getShardLabel().isEmpty()) {
+					// Replace osid with shard details
+					String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
+					JSONUtil.addPrefix((ObjectNode) shardResult, prefix, new ArrayList<>(Arrays.asList(uuidPropertyName)));
+				}
+				if (tx != null) {
+					transaction.add(tx.hashCode());
+				}
+				return shardResult;
+			}
+		}
+	}
+
+	private void auditSearch(String userId, Shard shard, List<Object> transaction, SearchQuery searchQuery, JsonNode inputQueryNode) {
+		try {
+			auditService.auditNativeSearch(
+					new AuditRecord()
+							.setUserId(userId)
+							.setTransactionId(transaction),
+					shard, searchQuery.getEntityTypes(), inputQueryNode);
+		} catch (Exception e) {
+			logger.error("Exception while auditing " + e);
+		}
+	}
+
+	private String getUserId() {
+		try {
+			return apiMessage.getUserID();
+		} catch (Exception e) {
+			// not searching on behalf of a request
+			return null;
+		}
+	}
+
+	private List<JsonNode> sortByUuid(ArrayNode records) {
+		List<JsonNode> sorted = new ArrayList<>();
+		records.forEach(sorted::add);
+		sorted.sort(Comparator.comparing(record -> record.has(uuidPropertyName) ? getKeysetKey(record, uuidPropertyName) : ""));
+		return sorted;
+	}
+
+	private ArrayNode page(List<JsonNode> records, int offset, int limit) {
+		ArrayNode page = JsonNodeFactory.instance.arrayNode();
+		for (int i = offset; i < records.size() && i < offset + limit; i++) {
+			page.add(records.get(i));
+		}
+		return page;
+	}
+
+	private static class ShardSearch {
+		private final Shard shard;
+		// written by the search thread, read after the search completes or is cancelled
+		private final List<Object> transaction = Collections.synchronizedList(new LinkedList<>());
+		private Future<ObjectNode> future;
+		private Throwable error;
+
+		ShardSearch(Shard shard) {
+			this.shard = shard;
+		}
+	}
 	
 	/**
 	 * combines all the nodes for an entity
@@ -166,10 +346,17 @@ public class NativeSearchService implements ISearchService {
 	 */
 	private JsonNode buildResultNode(SearchQuery searchQuery, ArrayNode allShardResult) {
 		ObjectNode resultNode = JsonNodeFactory.instance.objectNode();
+		SearchCursor cursor = searchQuery.getCursor();
 		for (String entity : searchQuery.getEntityTypes()) {
 			ArrayNode entityResult = getEntityAttibute(entity, allShardResult);
+			if (cursor != null) {
+				entityResult = getKeysetPage(entity, entityResult, searchQuery);
+			}
 			resultNode.set(entity, entityResult);
 		}
+		if (cursor != null && cursor.encode() != null) {
+			resultNode.put(SearchCursor.NEXT_CURSOR, cursor.encode());
+		}
 		return resultNode;
 	}
 }
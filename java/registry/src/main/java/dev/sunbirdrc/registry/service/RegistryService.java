@@ -2,9 +2,13 @@ package dev.sunbirdrc.registry.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import dev.sunbirdrc.pojos.HealthCheckResponse;
+import dev.sunbirdrc.registry.model.dto.AddEntitiesResult;
+import dev.sunbirdrc.registry.model.dto.CreateEntityMessage;
 import dev.sunbirdrc.registry.sink.shard.Shard;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
 
+import java.util.List;
+
 public interface RegistryService {
 
 	HealthCheckResponse health(Shard shard) throws Exception;
@@ -13,8 +17,12 @@ public interface RegistryService {
 
 	String addEntity(Shard shard, String userId, JsonNode inputJson, boolean skipSignature) throws Exception;
 
+	AddEntitiesResult addEntities(Shard shard, List<CreateEntityMessage> createEntityMessages) throws Exception;
+
 	void updateEntity(Shard shard, String userId, String id, String jsonString) throws Exception;
 
+	void reindexEntity(Shard shard, String entityType, String uuid) throws Exception;
+
 	void callESActors(JsonNode rootNode, String operation, String parentEntityType, String entityRootId, Transaction tx) throws Exception;
 
 	void callNotificationActors(String operation, String to, String subject, String message) throws Exception;
@@ -2,11 +2,27 @@ package dev.sunbirdrc.registry.service;
 
 import dev.sunbirdrc.registry.exception.SignatureException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface SignatureService {
 
 	Object sign(Object propertyValue)
 			throws SignatureException.UnreachableException, SignatureException.CreationException;
 
+	/**
+	 * Signs all the values, in the order given. Signs them one by one unless the
+	 * signature service takes them together.
+	 */
+	default List<Object> signAll(List<Object> propertyValues)
+			throws SignatureException.UnreachableException, SignatureException.CreationException {
+		List<Object> result = new ArrayList<>(propertyValues.size());
+		for (Object propertyValue : propertyValues) {
+			result.add(sign(propertyValue));
+		}
+		return result;
+	}
+
 	boolean verify(Object propertyValue)
 			throws SignatureException.UnreachableException, SignatureException.VerificationException;
 
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.sunbirdrc.registry.model.dto.WebhookEvent;
 import dev.sunbirdrc.registry.service.impl.RetryRestTemplate;
+import dev.sunbirdrc.registry.service.impl.WebhookDispatcher;
+import dev.sunbirdrc.registry.service.impl.WebhookOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,33 +16,67 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
+
 @Service
 public class WebhookService {
     private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
 
     @Value("${webhook.url}")
-    private String webhookUrl;
+    private String[] webhookUrls;
     @Value("${webhook.enabled}")
     private Boolean webhookEnabled;
+    @Value("${webhook.outbox.enabled:false}")
+    private boolean outboxEnabled;
     @Autowired
     private RetryRestTemplate retryRestTemplate;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private WebhookOutbox webhookOutbox;
+    @Autowired
+    private WebhookDispatcher webhookDispatcher;
 
     public void postEvent(WebhookEvent event) {
-        if (webhookEnabled) {
+        postEvents(Collections.singletonList(event));
+    }
+
+    /**
+     * Posts the events to every webhook url. With the outbox enabled the events are only stored,
+     * and delivered in the background by the {@link WebhookDispatcher}; when they cannot be stored
+     * they are posted right away, as without the outbox.
+     */
+    public void postEvents(List<WebhookEvent> events) {
+        if (!webhookEnabled) {
+            logger.info("Webhook service is disabled");
+            return;
+        }
+        if (outboxEnabled) {
+            try {
+                webhookOutbox.add(events, webhookUrls);
+                webhookDispatcher.wakeUp();
+                return;
+            } catch (Exception e) {
+                logger.error("Storing {} webhook events failed, posting them directly, {}", events.size(), e.getMessage(), e);
+            }
+        }
+        post(events);
+    }
+
+    private void post(List<WebhookEvent> events) {
+        for (WebhookEvent event : events) {
             logger.debug("Post event {}", event);
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             try {
                 HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(event), headers);
-                ResponseEntity<String> response = retryRestTemplate.postForEntity(webhookUrl, entity);
-
+                for (String webhookUrl : webhookUrls) {
+                    ResponseEntity<String> response = retryRestTemplate.postForEntity(webhookUrl, entity);
+                }
             } catch (JsonProcessingException e) {
                 logger.error("Failed calling webhook event, {}", e.getMessage(), e);
             }
-        } else {
-            logger.info("Webhook service is disabled");
         }
     }
 }
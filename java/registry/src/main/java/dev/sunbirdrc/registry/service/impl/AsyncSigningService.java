@@ -0,0 +1,483 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.actors.factory.MessageFactory;
+import dev.sunbirdrc.registry.dao.IRegistryDao;
+import dev.sunbirdrc.registry.dao.RegistryDaoImpl;
+import dev.sunbirdrc.registry.middleware.util.JSONUtil;
+import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import dev.sunbirdrc.registry.service.SignatureService;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+import dev.sunbirdrc.registry.util.RecordIdentifier;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.sunbird.akka.core.ActorCache;
+import org.sunbird.akka.core.MessageProtos;
+import org.sunbird.akka.core.Router;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signs the entities after they are saved instead of while the request waits. A saved entity
+ * carries the signature status PENDING until a worker has signed it and written the signed data
+ * back in a transaction of its own, after which the status is SIGNED.
+ * The workers take up to batchSize entities at a time and sign them with one call when the
+ * signature service takes an array. A batch the signature service failed is retried with an
+ * exponential backoff; its entities are marked FAILED once the retries are used up.
+ * The queue is bounded and never blocks the request: an entity which does not fit stays PENDING,
+ * as do the ones queued when the registry stopped. Such entities are queued again by the
+ * reconciliation which looks for them every reconcileInterval ms.
+ */
+@Component
+public class AsyncSigningService {
+    private static Logger logger = LoggerFactory.getLogger(AsyncSigningService.class);
+
+    public enum Status {
+        PENDING, SIGNED, FAILED
+    }
+
+    @Autowired
+    private SignatureService signatureService;
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+
+    @Autowired
+    private ShardManager shardManager;
+
+    @Value("${database.uuidPropertyName}")
+    private String uuidPropertyName;
+
+    @Value("${signature.enabled}")
+    private boolean signatureEnabled;
+
+    @Value("${signature.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${signature.async.workers:2}")
+    private int workers;
+
+    @Value("${signature.async.batchSize:20}")
+    private int batchSize;
+
+    @Value("${signature.async.flushInterval:200}")
+    private long flushInterval;
+
+    @Value("${signature.async.queueCapacity:10000}")
+    private int queueCapacity;
+
+    @Value("${signature.async.maxRetries:3}")
+    private int maxRetries;
+
+    @Value("${signature.async.retryBackoff:1000}")
+    private long retryBackoff;
+
+    @Value("${signature.async.reconcileInterval:300000}")
+    private long reconcileInterval;
+
+    @Value("${search.providerName}")
+    private String searchProvider;
+
+    @Value("${elastic.search.add_shard_prefix:true}")
+    private boolean addShardPrefixForESRecord;
+
+    private BlockingQueue<Task> queue;
+    private List<Thread> signers;
+    private ScheduledExecutorService reconciler;
+    private volatile boolean running;
+
+    // the latest request of every queued entity, by shard and uuid; an older request is skipped
+    private final Map<String, Long> requests = new ConcurrentHashMap<>();
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    private final AtomicLong signed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    @PostConstruct
+    public synchronized void start() {
+        if (isEnabled() && !running) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            signers = new ArrayList<>(workers);
+            running = true;
+            for (int i = 0; i < workers; i++) {
+                Thread signer = new Thread(this::run, "AsyncSigner-" + i);
+                signer.setDaemon(true);
+                signers.add(signer);
+                signer.start();
+            }
+            reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "AsyncSigningReconciler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reconciler.scheduleWithFixedDelay(this::reconcile, reconcileInterval, reconcileInterval, TimeUnit.MILLISECONDS);
+            logger.info("Async signing started with {} workers and batch size {}", workers, batchSize);
+        }
+    }
+
+    /**
+     * Stops the workers; the entities still queued stay PENDING and are signed after the restart
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        reconciler.shutdownNow();
+        for (Thread signer : signers) {
+            signer.join();
+        }
+        logger.info("Async signing stopped, {} signed, {} failed, {} left pending", signed.get(), failed.get(), queue.size());
+    }
+
+    public boolean isEnabled() {
+        return signatureEnabled && asyncEnabled;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Marks the entity, about to be added, as waiting for its signature
+     *
+     * @param entityNode - the entity without its entity type
+     */
+    public void setPending(JsonNode entityNode) {
+        ((ObjectNode) entityNode).put(OSSystemFields._osSignatureStatus.name(), Status.PENDING.name());
+    }
+
+    /**
+     * Queues the signing of an entity which is already PENDING
+     *
+     * @param shard      - the shard of the entity
+     * @param entityType - the entity type
+     * @param uuid       - the uuid of the entity, without the shard label
+     * @return false if the entity was not queued; it is then signed by the reconciliation
+     */
+    public boolean submit(Shard shard, String entityType, String uuid) {
+        if (!running) {
+            return false;
+        }
+        Task task = new Task(shard, entityType, uuid, requestSequence.incrementAndGet());
+        requests.put(task.key(), task.sequence);
+        if (!queue.offer(task)) {
+            requests.remove(task.key(), task.sequence);
+            long count = deferred.incrementAndGet();
+            logger.warn("Signing queue is full, {} entities left to the reconciliation so far", count);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Marks a saved entity PENDING and queues its signing, used when the entity is updated
+     *
+     * @return false if the entity was not queued
+     */
+    public boolean resubmit(Shard shard, String entityType, String uuid) throws Exception {
+        if (!running) {
+            return false;
+        }
+        writeBack(shard, entityType, uuid, null, Status.PENDING);
+        return submit(shard, entityType, uuid);
+    }
+
+    public long getSignedCount() {
+        return signed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getDeferredCount() {
+        return deferred.get();
+    }
+
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<Task> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    sign(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Async signing failed", e);
+            }
+        }
+    }
+
+    private List<Task> nextBatch() throws InterruptedException {
+        List<Task> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (batch.size() < batchSize && running) {
+            Task next = batch.isEmpty() ? queue.poll(flushInterval, TimeUnit.MILLISECONDS)
+                    : queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            if (batch.isEmpty()) {
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+            }
+            if (isLatest(next)) {
+                batch.add(next);
+            }
+        }
+        return batch;
+    }
+
+    private boolean isLatest(Task task) {
+        return Long.valueOf(task.sequence).equals(requests.get(task.key()));
+    }
+
+    /**
+     * Signs the batch, retrying it while the signature service fails
+     */
+    private void sign(List<Task> batch) throws InterruptedException {
+        List<Task> tasks = new ArrayList<>(batch.size());
+        List<Object> requestBodies = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            try {
+                Optional<Object> requestBody = readRequestBody(task);
+                if (requestBody.isPresent()) {
+                    tasks.add(task);
+                    requestBodies.add(requestBody.get());
+                } else {
+                    requests.remove(task.key(), task.sequence);
+                }
+            } catch (Exception e) {
+                logger.error("Reading entity {} to sign failed", task.uuid, e);
+                requests.remove(task.key(), task.sequence);
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        List<Object> signedDocuments = null;
+        for (int attempt = 0; signedDocuments == null; attempt++) {
+            if (attempt > 0) {
+                if (attempt > maxRetries) {
+                    logger.error("Signing gave up on {} entities after {} retries", tasks.size(), maxRetries);
+                    for (Task task : tasks) {
+                        complete(task, null, Status.FAILED);
+                    }
+                    failed.addAndGet(tasks.size());
+                    return;
+                }
+                retried.addAndGet(tasks.size());
+                Thread.sleep(retryBackoff << (attempt - 1));
+            }
+            try {
+                signedDocuments = signatureService.signAll(requestBodies);
+            } catch (Exception e) {
+                logger.error("Signing {} entities failed", tasks.size(), e);
+            }
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (complete(tasks.get(i), signedDocuments.get(i).toString(), Status.SIGNED)) {
+                signed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * The request of the signature service for the entity as it is now, empty when the
+     * entity is gone or its type is not signed any more
+     */
+    private Optional<Object> readRequestBody(Task task) throws Exception {
+        Object credentialTemplate = definitionsManager.getCredentialTemplate(task.entityType);
+        if (credentialTemplate == null) {
+            return Optional.empty();
+        }
+        ObjectNode entity = (ObjectNode) read(task.shard, task.entityType, task.uuid).get(task.entityType);
+        entity.remove(OSSystemFields._osSignatureStatus.name());
+        entity.remove(OSSystemFields._osSignedData.name());
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("data", entity);
+        requestBody.put("credentialTemplate", credentialTemplate);
+        return Optional.of(requestBody);
+    }
+
+    private JsonNode read(Shard shard, String entityType, String uuid) throws Exception {
+        DatabaseProvider dbProvider = shard.getDatabaseProvider();
+        IRegistryDao registryDao = new RegistryDaoImpl(dbProvider, definitionsManager, uuidPropertyName);
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            JsonNode entity = registryDao.getEntity(graph, entityType, uuid, ReadConfiguratorFactory.getOne(false));
+            dbProvider.commitTransaction(graph, tx);
+            if (!shard.getShardLabel().isEmpty()) {
+                // the entity is signed with the osids returned by the read api
+                String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
+                JSONUtil.addPrefix((ObjectNode) entity, prefix, new ArrayList<>(Collections.singletonList(uuidPropertyName)));
+            }
+            return entity;
+        }
+    }
+
+    /**
+     * Writes the signed data back unless the entity was queued again since it was read
+     *
+     * @return true if written
+     */
+    private boolean complete(Task task, String signedData, Status status) {
+        if (!isLatest(task)) {
+            return false;
+        }
+        try {
+            writeBack(task.shard, task.entityType, task.uuid, signedData, status);
+            if (status == Status.SIGNED) {
+                updateIndex(task);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Writing the signature of entity {} failed, left to the reconciliation", task.uuid, e);
+            return false;
+        } finally {
+            requests.remove(task.key(), task.sequence);
+        }
+    }
+
+    private void writeBack(Shard shard, String entityType, String uuid, String signedData, Status status) throws Exception {
+        DatabaseProvider dbProvider = shard.getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            Optional<Vertex> vertex = graph.traversal().V().hasLabel(entityType).has(uuidPropertyName, uuid).tryNext();
+            if (vertex.isPresent()) {
+                if (signedData != null) {
+                    vertex.get().property(OSSystemFields._osSignedData.name(), signedData);
+                }
+                vertex.get().property(OSSystemFields._osSignatureStatus.name(), status.name());
+            }
+            dbProvider.commitTransaction(graph, tx);
+        }
+    }
+
+    private void updateIndex(Task task) throws Exception {
+        if (!searchProvider.equals("dev.sunbirdrc.registry.service.ElasticSearchService")) {
+            return;
+        }
+        JsonNode entity = read(task.shard, task.entityType, task.uuid).get(task.entityType);
+        if (!addShardPrefixForESRecord && !task.shard.getShardLabel().isEmpty()) {
+            String prefix = task.shard.getShardLabel() + RecordIdentifier.getSeparator();
+            JSONUtil.trimPrefix((ObjectNode) entity, uuidPropertyName, prefix);
+        }
+        MessageProtos.Message message = MessageFactory.instance().createOSActorMessage(true, "UPDATE",
+                task.entityType.toLowerCase(), task.uuid, entity, null);
+        ActorCache.instance().get(Router.ROUTER_NAME).tell(message, null);
+    }
+
+    /**
+     * Queues the PENDING entities of every shard which are not queued
+     */
+    void reconcile() {
+        List<String> entityTypes = new ArrayList<>();
+        for (String entityType : definitionsManager.getAllKnownDefinitions()) {
+            if (definitionsManager.getCredentialTemplate(entityType) != null) {
+                entityTypes.add(entityType);
+            }
+        }
+        for (Shard shard : shardManager.getShards()) {
+            for (String entityType : entityTypes) {
+                try {
+                    int queued = reconcile(shard, entityType);
+                    if (queued > 0) {
+                        logger.info("Queued {} pending {} entities of shard {} for signing", queued, entityType, shard.getShardId());
+                    }
+                } catch (Exception e) {
+                    logger.error("Reconciling the signatures of {} in shard {} failed", entityType, shard.getShardId(), e);
+                }
+            }
+        }
+    }
+
+    private int reconcile(Shard shard, String entityType) throws Exception {
+        List<Object> uuids;
+        DatabaseProvider dbProvider = shard.getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            uuids = graph.traversal().V().hasLabel(entityType)
+                    .has(OSSystemFields._osSignatureStatus.name(), Status.PENDING.name())
+                    .values(uuidPropertyName).toList();
+            dbProvider.commitTransaction(graph, tx);
+        }
+        int queued = 0;
+        for (Object uuid : uuids) {
+            if (!requests.containsKey(Task.key(shard, uuid.toString()))) {
+                if (!submit(shard, entityType, uuid.toString())) {
+                    break;
+                }
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    private static class Task {
+        private final Shard shard;
+        private final String entityType;
+        private final String uuid;
+        private final long sequence;
+
+        Task(Shard shard, String entityType, String uuid, long sequence) {
+            this.shard = shard;
+            this.entityType = entityType;
+            this.uuid = uuid;
+            this.sequence = sequence;
+        }
+
+        String key() {
+            return key(shard, uuid);
+        }
+
+        static String key(Shard shard, String uuid) {
+            return shard.getShardId() + "/" + uuid;
+        }
+    }
+}
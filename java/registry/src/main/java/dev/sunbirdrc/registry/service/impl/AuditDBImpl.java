@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import dev.sunbirdrc.pojos.AuditRecord;
@@ -31,6 +32,9 @@ public class AuditDBImpl extends AuditServiceImpl {
     @Autowired
     private AuditDBWriter auditWriter;
 
+    @Autowired
+    private AuditGroupCommitter auditGroupCommitter;
+
 
     @Value("${audit.frame.suffix}")
     private String auditSuffix;
@@ -57,7 +61,11 @@ public class AuditDBImpl extends AuditServiceImpl {
       		}
       		
         	JsonNode rootNode = convertAuditRecordToJson(auditRecord, entityType);
-            auditToDB(rootNode, entityType, shard);
+            if (auditGroupCommitter.isRunning()) {
+                groupCommit(auditRecord, rootNode, entityType, shard);
+            } else {
+                auditToDB(rootNode, entityType, shard);
+            }
 
         } catch (AuditFailedException ae) {
             logger.error("Error in saving audit info: {}", ae);
@@ -78,6 +86,27 @@ public class AuditDBImpl extends AuditServiceImpl {
 
     }
 
+    private void groupCommit(AuditRecord auditRecord, JsonNode rootNode, String entityType, Shard shard) throws InterruptedException {
+        if (null == shard) {
+            shard = shardManager.getDefaultShard();
+        }
+        boolean added = auditGroupCommitter.add(shard, rootNode, entityType, auditRecord, entityId -> {
+            try {
+                sendAuditToESActor(rootNode, entityType, entityId);
+            } catch (JsonProcessingException e) {
+                logger.error("Sending audit {} to elastic search failed", entityId, e);
+            }
+        });
+        if (!added) {
+            // the committer stopped, the context is shutting down
+            try {
+                auditToDB(rootNode, entityType, shard);
+            } catch (IOException | AuditFailedException e) {
+                logger.error("Error in saving audit info: {}", e);
+            }
+        }
+    }
+
 	@Override
 	public String getAuditProvider() {
 		
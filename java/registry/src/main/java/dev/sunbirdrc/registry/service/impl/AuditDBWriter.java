@@ -10,6 +10,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import com.fasterxml.jackson.databind.JsonNode;
 
 import dev.sunbirdrc.registry.dao.IRegistryDao;
@@ -72,4 +77,42 @@ public class AuditDBWriter {
         entityParenter.ensureIndexExists(dbProvider, parentVertex, definition, shardId);
         return entityId;
 	}
+
+	/**
+	 * Adds the audit records of a shard in a single transaction
+	 *
+	 * @param shard       - the shard the records belong to
+	 * @param rootNodes   - the audit records
+	 * @param entityTypes - the audit entity type of each record
+	 * @return the ids of the added records, in the same order
+	 * @throws AuditFailedException when the transaction could not be committed, no record is added
+	 */
+	public List<String> auditToDB(Shard shard, List<JsonNode> rootNodes, List<String> entityTypes) throws AuditFailedException {
+		List<String> entityIds = new ArrayList<>(rootNodes.size());
+		DatabaseProvider dbProvider = shard.getDatabaseProvider();
+		IRegistryDao registryDao = new RegistryDaoImpl(dbProvider, definitionsManager, uuidPropertyName);
+		try (OSGraph osGraph = dbProvider.getOSGraph()) {
+			Graph graph = osGraph.getGraphStore();
+			Transaction tx = dbProvider.startTransaction(graph);
+			for (JsonNode rootNode : rootNodes) {
+				entityIds.add(registryDao.addEntity(graph, rootNode));
+			}
+			if (commitEnabled) {
+				dbProvider.commitTransaction(graph, tx);
+			}
+			logger.debug("{} audits added to shard {}", entityIds.size(), shard.getShardId());
+		} catch (Exception e) {
+			// closing the graph rolls back the open transaction
+			logger.error("Audit of {} records failed", rootNodes.size(), e);
+			throw new AuditFailedException("Audit failed : " + e.getMessage());
+		}
+		// Add indices: executes only once.
+		Set<String> auditedTypes = new LinkedHashSet<>(entityTypes);
+		for (String entityType : auditedTypes) {
+			Vertex parentVertex = entityParenter.getKnownParentVertex(entityType, shard.getShardId());
+			Definition definition = definitionsManager.getDefinition(entityType);
+			entityParenter.ensureIndexExists(dbProvider, parentVertex, definition, shard.getShardId());
+		}
+		return entityIds;
+	}
 }
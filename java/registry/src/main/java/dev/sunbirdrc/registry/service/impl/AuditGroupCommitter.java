@@ -0,0 +1,203 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.pojos.AuditRecord;
+import dev.sunbirdrc.registry.exception.AuditFailedException;
+import dev.sunbirdrc.registry.middleware.util.BatchingQueue;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.util.AuditFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Buffers the audit records of the DATABASE audit store in a {@link BatchingQueue} and writes them
+ * batchSize records or flushInterval ms at a time, with one transaction per shard.
+ * What happens when the buffer is full is decided by the overflow policy.
+ */
+@Component
+public class AuditGroupCommitter {
+    private static Logger logger = LoggerFactory.getLogger(AuditGroupCommitter.class);
+
+    public enum OverflowPolicy {
+        // the caller waits for room in the buffer
+        block,
+        // the record is dropped and counted
+        drop,
+        // the record is written to the audit log file instead
+        spill
+    }
+
+    @Autowired
+    private AuditDBWriter auditDBWriter;
+
+    @Value("${audit.groupCommit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${audit.groupCommit.batchSize:100}")
+    private int batchSize;
+
+    @Value("${audit.groupCommit.flushInterval:500}")
+    private long flushInterval;
+
+    @Value("${audit.groupCommit.bufferCapacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${audit.groupCommit.overflow:block}")
+    private OverflowPolicy overflowPolicy;
+
+    private AuditFileWriter auditFileWriter = new AuditFileWriter();
+    private BatchingQueue<Entry> buffer;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    @PostConstruct
+    public synchronized void start() {
+        if (enabled && buffer == null) {
+            buffer = new BatchingQueue<>("AuditGroupCommitter", this::write, batchSize, flushInterval, bufferCapacity);
+            buffer.start();
+            logger.info("Audit group commit started with batch size {} and flush interval {}ms", batchSize, flushInterval);
+        }
+    }
+
+    public boolean isRunning() {
+        return buffer != null && buffer.isRunning();
+    }
+
+    /**
+     * Buffers the audit record, it is written to the shard by the writer thread.
+     *
+     * @param shard       - the shard to write the record to
+     * @param rootNode    - the audit record as added to the graph
+     * @param entityType  - the audit entity type
+     * @param auditRecord - the audit record, written to the audit log when spilled
+     * @param onWritten   - called with the id of the record once it is committed
+     * @return false if the committer is not running and the record was not taken
+     */
+    public boolean add(Shard shard, JsonNode rootNode, String entityType, AuditRecord auditRecord,
+                       Consumer<String> onWritten) throws InterruptedException {
+        if (buffer == null) {
+            return false;
+        }
+        Entry entry = new Entry(shard, rootNode, entityType, onWritten);
+        switch (buffer.offer(entry)) {
+            case QUEUED:
+                return true;
+            case STOPPED:
+                return false;
+            default:
+                break;
+        }
+        switch (overflowPolicy) {
+            case drop:
+                long count = dropped.incrementAndGet();
+                logger.warn("Audit buffer is full, dropped {} audit records so far", count);
+                return true;
+            case spill:
+                spilled.incrementAndGet();
+                try {
+                    auditFileWriter.auditToFile(auditRecord);
+                } catch (Exception e) {
+                    logger.error("Spilling audit record failed", e);
+                }
+                return true;
+            default:
+                return buffer.put(entry);
+        }
+    }
+
+    /**
+     * Stops taking records and writes the buffered ones before returning
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (isRunning()) {
+            buffer.close();
+            logger.info("Audit group commit stopped, {} written, {} failed, {} dropped, {} spilled",
+                    written.get(), getFailedCount(), dropped.get(), spilled.get());
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get() + (buffer == null ? 0 : buffer.getDroppedCount());
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    public int getBufferSize() {
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    private void write(List<Entry> batch) {
+        Map<String, List<Entry>> shardBatches = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            shardBatches.computeIfAbsent(entry.shard.getShardId(), shardId -> new ArrayList<>()).add(entry);
+        }
+        for (List<Entry> shardBatch : shardBatches.values()) {
+            List<JsonNode> rootNodes = new ArrayList<>(shardBatch.size());
+            List<String> entityTypes = new ArrayList<>(shardBatch.size());
+            for (Entry entry : shardBatch) {
+                rootNodes.add(entry.rootNode);
+                entityTypes.add(entry.entityType);
+            }
+            List<String> entityIds;
+            try {
+                entityIds = auditDBWriter.auditToDB(shardBatch.get(0).shard, rootNodes, entityTypes);
+            } catch (AuditFailedException e) {
+                failed.addAndGet(shardBatch.size());
+                logger.error("Writing {} audit records to shard {} failed: {}", shardBatch.size(),
+                        shardBatch.get(0).shard.getShardId(), e.getMessage());
+                continue;
+            }
+            written.addAndGet(entityIds.size());
+            for (int i = 0; i < shardBatch.size(); i++) {
+                Entry entry = shardBatch.get(i);
+                if (entry.onWritten != null) {
+                    try {
+                        entry.onWritten.accept(entityIds.get(i));
+                    } catch (Exception e) {
+                        logger.error("Post audit action failed for {}", entityIds.get(i), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Shard shard;
+        private final JsonNode rootNode;
+        private final String entityType;
+        private final Consumer<String> onWritten;
+
+        Entry(Shard shard, JsonNode rootNode, String entityType, Consumer<String> onWritten) {
+            this.shard = shard;
+            this.rootNode = rootNode;
+            this.entityType = entityType;
+            this.onWritten = onWritten;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.registry.exception.EncryptionException;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.service.EncryptionService;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.Definition;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.MpiBlockingIndex;
+import dev.sunbirdrc.registry.util.RecordIdentifier;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the MPI blocking index of the configured patient entity types in step with the entities
+ * added, updated and deleted, and finds the likely duplicates of a patient from it.
+ * The index is in memory and is rebuilt from the shards when the registry starts, into a new index
+ * which replaces the one in use once it is complete. Entities are indexed by their id with the
+ * shard label, private names and national ids are decrypted first.
+ */
+@Component
+public class MpiBlockingService {
+    private static Logger logger = LoggerFactory.getLogger(MpiBlockingService.class);
+
+    // keys of the values sent to the encryption service, after the position of the patient
+    private static final String NAME_KEY = ".name";
+    private static final String NATIONAL_ID_KEY = ".nationalId";
+
+    @Autowired
+    private ShardManager shardManager;
+
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Value("${database.uuidPropertyName}")
+    private String uuidPropertyName;
+
+    @Value("${mpi.blocking.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mpi.blocking.entityTypes:Patient}")
+    private String[] entityTypes;
+
+    // the first of these present in the entity is indexed as its name
+    @Value("${mpi.blocking.nameFields:name}")
+    private String[] nameFields;
+
+    @Value("${mpi.blocking.nationalIdField:nationalId}")
+    private String nationalIdField;
+
+    @Value("${mpi.blocking.minScore:0.85}")
+    private double minScore;
+
+    @Value("${mpi.blocking.maxCandidates:20}")
+    private int maxCandidates;
+
+    @Value("${encryption.enabled:false}")
+    private boolean encryptionEnabled;
+
+    // patients decrypted with one call to the encryption service while rebuilding
+    @Value("${encryption.maxBatchSize:100}")
+    private int decryptBatchSize;
+
+    private volatile MpiBlockingIndex index;
+
+    // the index being rebuilt, and the entities indexed or removed since the rebuild started, which
+    // the rebuild leaves as they are since what it read of them may be older
+    private MpiBlockingIndex rebuiltIndex;
+    private final Set<String> changedWhileRebuilding = ConcurrentHashMap.newKeySet();
+    private final Object rebuildLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        index = new MpiBlockingIndex(minScore, maxCandidates);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds or updates the entity in the index, entities of other types are ignored. Private
+     * fields are decrypted before they are indexed.
+     *
+     * @param shard      - the shard of the entity
+     * @param entityType - the entity type
+     * @param uuid       - the entity id, without the shard label
+     * @param entityNode - the entity as stored, without the entity type wrapper
+     */
+    public void index(Shard shard, String entityType, String uuid, JsonNode entityNode) {
+        if (!enabled || !isIndexed(entityType) || uuid == null || entityNode == null) {
+            return;
+        }
+        String id = getRecordId(shard, uuid);
+        String nameField = getNameField(entityNode);
+        JsonNode nationalId = entityNode.get(nationalIdField);
+        Patient patient = new Patient(id, entityType, nameField, nameField == null ? null : entityNode.get(nameField).asText(),
+                nationalId != null && nationalId.isTextual() ? nationalId.asText() : null);
+        try {
+            decrypt(Collections.singletonList(patient));
+        } catch (EncryptionException e) {
+            // the entity is saved already, it is indexed by the next rebuild
+            logger.error("Decrypting entity {} for the MPI blocking index failed", id, e);
+            return;
+        }
+        put(patient);
+    }
+
+    public void remove(Shard shard, String uuid) {
+        if (enabled) {
+            String id = getRecordId(shard, uuid);
+            change(id, changedIndex -> changedIndex.remove(id));
+        }
+    }
+
+    /**
+     * Finds the patients likely to be the same as the one with this name and national id,
+     * scoring only the patients blocked with it.
+     *
+     * @param name       - the name, Arabic or transliterated
+     * @param nationalId - the national id, may be null
+     * @return the candidates, with ids carrying their shard label
+     */
+    public List<MpiBlockingIndex.Candidate> findCandidates(String name, String nationalId) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        return index.findCandidates(name, nationalId);
+    }
+
+    /**
+     * Finds the patients likely to be the same as the entity, from its name and national id fields.
+     * The entity itself is left out when it has an id.
+     *
+     * @param entityType - the entity type
+     * @param entityNode - the entity, without the entity type wrapper
+     * @return the candidates, with ids carrying their shard label
+     */
+    public List<MpiBlockingIndex.Candidate> findDuplicates(String entityType, JsonNode entityNode) {
+        if (!enabled || !isIndexed(entityType)) {
+            throw new IllegalArgumentException("Entity type " + entityType + " is not in the MPI blocking index");
+        }
+        String nameField = getNameField(entityNode);
+        if (nameField == null) {
+            throw new IllegalArgumentException("None of the name fields " + Arrays.toString(nameFields) + " is set");
+        }
+        JsonNode nationalId = entityNode.get(nationalIdField);
+        List<MpiBlockingIndex.Candidate> candidates = findCandidates(entityNode.get(nameField).asText(),
+                nationalId != null && nationalId.isTextual() ? nationalId.asText() : null);
+        JsonNode id = entityNode.get(uuidPropertyName);
+        if (id != null && id.isTextual()) {
+            String uuid = RecordIdentifier.getUUID(id.asText());
+            candidates.removeIf(candidate -> RecordIdentifier.getUUID(candidate.getId()).equals(uuid));
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Loads a new index from the shards and then puts it in place of the one in use, which keeps
+     * serving the searches meanwhile. The entities indexed or removed while loading are applied to
+     * both indices.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            rebuiltIndex = new MpiBlockingIndex(minScore, maxCandidates);
+            changedWhileRebuilding.clear();
+        }
+        for (DBConnectionInfo connectionInfo : dbConnectionInfoMgr.getConnectionInfo()) {
+            try {
+                rebuild(shardManager.activateShard(connectionInfo.getShardId()));
+            } catch (Exception e) {
+                logger.error("Loading the MPI blocking index from shard {} failed", connectionInfo.getShardId(), e);
+            }
+        }
+        synchronized (rebuildLock) {
+            index = rebuiltIndex;
+            rebuiltIndex = null;
+            changedWhileRebuilding.clear();
+        }
+        logger.info("MPI blocking index loaded with {} entities", index.size());
+    }
+
+    private void rebuild(Shard shard) throws Exception {
+        try (OSGraph osGraph = shard.getDatabaseProvider().getOSGraph()) {
+            for (String entityType : entityTypes) {
+                Iterator<Vertex> vertices = osGraph.getGraphStore().traversal().V().hasLabel(entityType);
+                List<Patient> patients = new ArrayList<>(decryptBatchSize);
+                while (vertices.hasNext()) {
+                    Vertex vertex = vertices.next();
+                    if (isDeleted(vertex)) {
+                        continue;
+                    }
+                    String uuid = getValue(vertex, uuidPropertyName);
+                    String name = null;
+                    String nameField = null;
+                    for (int i = 0; i < nameFields.length && name == null; i++) {
+                        nameField = nameFields[i];
+                        name = getValue(vertex, nameField);
+                    }
+                    if (uuid != null && name != null) {
+                        patients.add(new Patient(getRecordId(shard, uuid), entityType, nameField, name,
+                                getValue(vertex, nationalIdField)));
+                    }
+                    if (patients.size() == decryptBatchSize) {
+                        putAll(patients);
+                        patients = new ArrayList<>(decryptBatchSize);
+                    }
+                }
+                putAll(patients);
+            }
+        }
+    }
+
+    private void putAll(List<Patient> patients) throws EncryptionException {
+        decrypt(patients);
+        synchronized (rebuildLock) {
+            for (Patient patient : patients) {
+                if (!changedWhileRebuilding.contains(patient.id)) {
+                    rebuiltIndex.put(patient.id, patient.name, patient.nationalId);
+                }
+            }
+        }
+    }
+
+    private void put(Patient patient) {
+        if (patient.name == null) {
+            change(patient.id, changedIndex -> changedIndex.remove(patient.id));
+        } else {
+            change(patient.id, changedIndex -> changedIndex.put(patient.id, patient.name, patient.nationalId));
+        }
+    }
+
+    /**
+     * Applies the change of an entity to the index in use, and to the index being rebuilt if any
+     */
+    private void change(String id, Consumer<MpiBlockingIndex> change) {
+        synchronized (rebuildLock) {
+            change.accept(index);
+            if (rebuiltIndex != null) {
+                changedWhileRebuilding.add(id);
+                change.accept(rebuiltIndex);
+            }
+        }
+    }
+
+    /**
+     * Decrypts the names and national ids which are private fields of their entity type, with one
+     * call to the encryption service
+     */
+    private void decrypt(List<Patient> patients) throws EncryptionException {
+        if (!encryptionEnabled || patients.isEmpty()) {
+            return;
+        }
+        Map<String, Object> encrypted = new HashMap<>();
+        for (int i = 0; i < patients.size(); i++) {
+            Patient patient = patients.get(i);
+            List<String> privateFields = getPrivateFields(patient.entityType);
+            if (patient.name != null && privateFields.contains(patient.nameField)) {
+                encrypted.put(i + NAME_KEY, patient.name);
+            }
+            if (patient.nationalId != null && privateFields.contains(nationalIdField)) {
+                encrypted.put(i + NATIONAL_ID_KEY, patient.nationalId);
+            }
+        }
+        if (encrypted.isEmpty()) {
+            return;
+        }
+        Map<String, Object> decrypted = encryptionService.decrypt(encrypted);
+        for (int i = 0; i < patients.size(); i++) {
+            Patient patient = patients.get(i);
+            if (decrypted.containsKey(i + NAME_KEY)) {
+                patient.name = String.valueOf(decrypted.get(i + NAME_KEY));
+            }
+            if (decrypted.containsKey(i + NATIONAL_ID_KEY)) {
+                patient.nationalId = String.valueOf(decrypted.get(i + NATIONAL_ID_KEY));
+            }
+        }
+    }
+
+    private List<String> getPrivateFields(String entityType) {
+        Definition definition = definitionsManager.getDefinition(entityType);
+        if (definition == null || definition.getOsSchemaConfiguration().getPrivateFields() == null) {
+            return Collections.emptyList();
+        }
+        return definition.getOsSchemaConfiguration().getPrivateFields();
+    }
+
+    private static String getRecordId(Shard shard, String uuid) {
+        return new RecordIdentifier(shard.getShardLabel(), RecordIdentifier.getUUID(uuid)).toString();
+    }
+
+    private boolean isIndexed(String entityType) {
+        return Arrays.asList(entityTypes).contains(entityType);
+    }
+
+    /**
+     * @return the first of the name fields present in the entity, null if none is
+     */
+    private String getNameField(JsonNode entityNode) {
+        for (String nameField : nameFields) {
+            JsonNode name = entityNode.get(nameField);
+            if (name != null && name.isTextual() && !name.asText().trim().isEmpty()) {
+                return nameField;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDeleted(Vertex vertex) {
+        VertexProperty<Object> status = vertex.property(Constants.STATUS_KEYWORD);
+        return status.isPresent() && Constants.STATUS_INACTIVE.equals(status.value());
+    }
+
+    private static String getValue(Vertex vertex, String propertyName) {
+        VertexProperty<Object> property = vertex.property(propertyName);
+        return property.isPresent() && property.value() instanceof String ? (String) property.value() : null;
+    }
+
+    private static class Patient {
+        private final String id;
+        private final String entityType;
+        private final String nameField;
+        private String name;
+        private String nationalId;
+
+        Patient(String id, String entityType, String nameField, String name, String nationalId) {
+            this.id = id;
+            this.entityType = entityType;
+            this.nameField = nameField;
+            this.name = name;
+            this.nationalId = nationalId;
+        }
+    }
+}
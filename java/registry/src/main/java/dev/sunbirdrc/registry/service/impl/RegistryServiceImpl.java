@@ -7,21 +7,30 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.actors.factory.MessageFactory;
+import dev.sunbirdrc.elastic.BulkIndexingService;
+import dev.sunbirdrc.elastic.IElasticService;
 import dev.sunbirdrc.pojos.ComponentHealthInfo;
 import dev.sunbirdrc.pojos.HealthCheckResponse;
 import dev.sunbirdrc.registry.dao.IRegistryDao;
 import dev.sunbirdrc.registry.dao.RegistryDaoImpl;
 import dev.sunbirdrc.registry.dao.VertexReader;
 import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.exception.RecordNotFoundException;
 import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.middleware.util.JSONUtil;
 import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import dev.sunbirdrc.registry.model.dto.AddEntitiesResult;
+import dev.sunbirdrc.registry.model.dto.CreateEntityMessage;
 import dev.sunbirdrc.registry.service.*;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
 import dev.sunbirdrc.registry.sink.OSGraph;
 import dev.sunbirdrc.registry.sink.shard.Shard;
 import dev.sunbirdrc.registry.util.*;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.apache.tinkerpop.gremlin.structure.Transaction;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
@@ -37,6 +46,7 @@ import org.sunbird.akka.core.ActorCache;
 import org.sunbird.akka.core.MessageProtos;
 import org.sunbird.akka.core.Router;
 
+import java.io.IOException;
 import java.util.*;
 
 import static dev.sunbirdrc.registry.Constants.Schema;
@@ -102,6 +112,21 @@ public class RegistryServiceImpl implements RegistryService {
     @Autowired
     private IAuditService auditService;
 
+    @Autowired
+    private MpiBlockingService mpiBlockingService;
+
+    @Autowired
+    private RegistryMetrics registryMetrics;
+
+    @Autowired
+    private AsyncSigningService asyncSigningService;
+
+    @Autowired
+    private BulkIndexingService bulkIndexingService;
+
+    @Autowired
+    private IElasticService elasticService;
+
     public HealthCheckResponse health(Shard shard) throws Exception {
         HealthCheckResponse healthCheck;
         boolean databaseServiceup = shard.getDatabaseProvider().isDatabaseServiceUp();
@@ -141,6 +166,21 @@ public class RegistryServiceImpl implements RegistryService {
      */
     @Override
     public void deleteEntityById(Shard shard, String userId, String uuid) throws Exception {
+        Timer.Sample sample = registryMetrics.start();
+        String entityType = null;
+        boolean success = false;
+        try {
+            entityType = doDeleteEntityById(shard, userId, uuid);
+            success = true;
+        } finally {
+            registryMetrics.stop(sample, RegistryMetrics.Operation.delete, entityType, shard, success);
+        }
+    }
+
+    /**
+     * @return the type of the deleted entity
+     */
+    private String doDeleteEntityById(Shard shard, String userId, String uuid) throws Exception {
         DatabaseProvider databaseProvider = shard.getDatabaseProvider();
         IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, uuidPropertyName);
         try (OSGraph osGraph = databaseProvider.getOSGraph()) {
@@ -149,6 +189,9 @@ public class RegistryServiceImpl implements RegistryService {
             ReadConfigurator configurator = ReadConfiguratorFactory.getOne(false);
             VertexReader vertexReader = new VertexReader(databaseProvider, graph, configurator, uuidPropertyName, definitionsManager);
             Vertex vertex = vertexReader.getVertex(null, uuid);
+            if (vertex == null) {
+                throw new RecordNotFoundException("Invalid id");
+            }
             String index = vertex.property(Constants.TYPE_STR_JSON_LD).isPresent() ? (String) vertex.property(Constants.TYPE_STR_JSON_LD).value() : null;
             if (!StringUtils.isEmpty(index) && index.equals(Schema)) {
                 JsonNode jsonNode = vertexReader.readInternal(vertex);
@@ -163,6 +206,7 @@ public class RegistryServiceImpl implements RegistryService {
                 auditService.auditDelete(
                         auditService.createAuditRecord(userId, uuid, tx, index),
                         shard);
+                mpiBlockingService.remove(shard, uuid);
                 if (isElasticSearchEnabled()) {
                     callESActors(null, "DELETE", index, uuid, tx);
                 }
@@ -170,9 +214,8 @@ public class RegistryServiceImpl implements RegistryService {
 
             }
             logger.info("Entity {} marked deleted", uuid);
+            return index;
         }
-
-
     }
 
     /**
@@ -184,25 +227,22 @@ public class RegistryServiceImpl implements RegistryService {
      * @throws Exception
      */
     public String addEntity(Shard shard, String userId, JsonNode rootNode, boolean skipSignature) throws Exception {
-        Transaction tx = null;
-        String entityId = "entityPlaceholderId";
-        String vertexLabel = rootNode.fieldNames().next();
-
-        systemFieldsHelper.ensureCreateAuditFields(vertexLabel, rootNode.get(vertexLabel), userId);
-
-        if (encryptionEnabled) {
-            rootNode = encryptionHelper.getEncryptedJson(rootNode);
+        Timer.Sample sample = registryMetrics.start();
+        boolean success = false;
+        try {
+            String entityId = doAddEntity(shard, userId, rootNode, skipSignature);
+            success = true;
+            return entityId;
+        } finally {
+            registryMetrics.stop(sample, RegistryMetrics.Operation.add, rootNode.fieldNames().next(), shard, success);
         }
+    }
 
-        Object credentialTemplate = definitionsManager.getCredentialTemplate(vertexLabel);
-        if (!skipSignature && signatureEnabled && credentialTemplate != null) {
-            Map<String, Object> requestBodyMap = new HashMap<>();
-            requestBodyMap.put("data", rootNode.get(vertexLabel));
-            requestBodyMap.put("credentialTemplate", credentialTemplate);
-            Object signedCredentials = signatureService.sign(requestBodyMap);
-            ((ObjectNode) rootNode.get(vertexLabel)).set(OSSystemFields._osSignedData.name(), JsonNodeFactory.instance.textNode(signedCredentials.toString()));
-        }
+    private String doAddEntity(Shard shard, String userId, JsonNode rootNode, boolean skipSignature) throws Exception {
+        Transaction tx = null;
+        String entityId = "entityPlaceholderId";
 
+        rootNode = prepareEntity(userId, rootNode, skipSignature);
 
         if (persistenceEnabled) {
             DatabaseProvider dbProvider = shard.getDatabaseProvider();
@@ -217,39 +257,189 @@ public class RegistryServiceImpl implements RegistryService {
             } finally {
                 tx.close();
             }
-            // Add indices: executes only once.
-            if (perRequestIndexCreation) {
-                String shardId = shard.getShardId();
-                Vertex parentVertex = entityParenter.getKnownParentVertex(vertexLabel, shardId);
-                Definition definition = definitionsManager.getDefinition(vertexLabel);
-                entityParenter.ensureIndexExists(dbProvider, parentVertex, definition, shardId);
-            }
+            afterAddEntity(shard, userId, rootNode, entityId, tx);
+        }
+        return entityId;
+    }
 
-            if (isElasticSearchEnabled()) {
-                if (addShardPrefixForESRecord && !shard.getShardLabel().isEmpty()) {
-                    // Replace osid with shard details
-                    String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
-                    JSONUtil.addPrefix((ObjectNode) rootNode, prefix, new ArrayList<>(Collections.singletonList(uuidPropertyName)));
+    /**
+     * Adds all the entities into the shard in a single transaction, so either all of them are
+     * added or none. Graphs without transactions add them one by one. The messages are left as
+     * they are, so that the entities not persisted can be added again from them.
+     *
+     * @param createEntityMessages - entities with the user adding them
+     * @return which entities were persisted and which failed on their own, by position
+     * @throws Exception
+     */
+    @Override
+    public AddEntitiesResult addEntities(Shard shard, List<CreateEntityMessage> createEntityMessages) throws Exception {
+        AddEntitiesResult result = new AddEntitiesResult(createEntityMessages.size());
+        DatabaseProvider dbProvider = shard.getDatabaseProvider();
+        if (!persistenceEnabled || !supportsTransactions(dbProvider)) {
+            // nothing to roll back if one of them fails
+            for (int i = 0; i < createEntityMessages.size(); i++) {
+                CreateEntityMessage createEntityMessage = createEntityMessages.get(i);
+                try {
+                    result.persisted(i, addEntity(shard, createEntityMessage.getUserId(),
+                            createEntityMessage.getInputJson().deepCopy(), createEntityMessage.isSkipSignature()));
+                } catch (Exception e) {
+                    result.failed(i, e);
                 }
-                callESActors(rootNode, "ADD", vertexLabel, entityId, tx);
             }
-            auditService.auditAdd(
-                    auditService.createAuditRecord(userId, entityId, tx, vertexLabel),
-                    shard, rootNode);
+            return result;
+        }
 
-            if (vertexLabel.equals(Schema)) {
-                JsonNode schema = rootNode.get(vertexLabel).get(Schema.toLowerCase());
-                definitionsManager.appendNewDefinition(schema);
+        List<Integer> indexes = new ArrayList<>();
+        List<JsonNode> rootNodes = new ArrayList<>();
+        for (int i = 0; i < createEntityMessages.size(); i++) {
+            CreateEntityMessage createEntityMessage = createEntityMessages.get(i);
+            try {
+                rootNodes.add(prepareEntity(createEntityMessage.getUserId(), createEntityMessage.getInputJson().deepCopy(),
+                        createEntityMessage.isSkipSignature()));
+                indexes.add(i);
+            } catch (Exception e) {
+                result.failed(i, e);
             }
+        }
+        if (rootNodes.isEmpty()) {
+            return result;
+        }
 
+        IRegistryDao registryDao = new RegistryDaoImpl(dbProvider, definitionsManager, uuidPropertyName);
+        List<String> entityIds = new ArrayList<>();
+        Transaction tx = null;
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            tx = dbProvider.startTransaction(graph);
+            try {
+                for (JsonNode rootNode : rootNodes) {
+                    entityIds.add(registryDao.addEntity(graph, rootNode));
+                }
+                if (commitEnabled) {
+                    dbProvider.commitTransaction(graph, tx);
+                }
+            } catch (Exception e) {
+                tx.rollback();
+                logger.warn("Adding {} entities to shard {} failed, rolled back: {}", rootNodes.size(), shard.getShardId(),
+                        e.getMessage());
+                return result;
+            }
+            for (int i = 0; i < rootNodes.size(); i++) {
+                result.persisted(indexes.get(i), entityIds.get(i));
+            }
+        } catch (Exception e) {
+            // the entities persisted by now are in the result already, the rest can be added again
+            logger.warn("Adding {} entities to shard {} failed: {}", rootNodes.size(), shard.getShardId(), e.getMessage());
+            return result;
+        } finally {
+            closeQuietly(tx);
+        }
+        for (int i = 0; i < rootNodes.size(); i++) {
+            int index = indexes.get(i);
+            try {
+                afterAddEntity(shard, createEntityMessages.get(index).getUserId(), rootNodes.get(i), entityIds.get(i), tx);
+            } catch (Exception e) {
+                // the entity is persisted, adding it again would duplicate it
+                logger.error("Post processing of entity {} failed: {}", entityIds.get(i), e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    private static void closeQuietly(Transaction tx) {
+        if (tx == null) {
+            return;
+        }
+        try {
+            tx.close();
+        } catch (Exception e) {
+            logger.warn("Closing transaction failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean supportsTransactions(DatabaseProvider dbProvider) throws Exception {
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            return osGraph.getGraphStore().features().graph().supportsTransactions();
+        }
+    }
+
+    /**
+     * Sets the audit fields, encrypts and signs the entity before it is added. With async
+     * signing the entity is only marked as pending and signed once added.
+     */
+    private JsonNode prepareEntity(String userId, JsonNode rootNode, boolean skipSignature) throws Exception {
+        String vertexLabel = rootNode.fieldNames().next();
+
+        systemFieldsHelper.ensureCreateAuditFields(vertexLabel, rootNode.get(vertexLabel), userId);
+
+        if (encryptionEnabled) {
+            rootNode = encryptionHelper.getEncryptedJson(rootNode);
+        }
+
+        Object credentialTemplate = definitionsManager.getCredentialTemplate(vertexLabel);
+        if (!skipSignature && signatureEnabled && credentialTemplate != null && asyncSigningService.isEnabled()) {
+            asyncSigningService.setPending(rootNode.get(vertexLabel));
+        } else if (!skipSignature && signatureEnabled && credentialTemplate != null) {
+            Map<String, Object> requestBodyMap = new HashMap<>();
+            requestBodyMap.put("data", rootNode.get(vertexLabel));
+            requestBodyMap.put("credentialTemplate", credentialTemplate);
+            Object signedCredentials = signatureService.sign(requestBodyMap);
+            ((ObjectNode) rootNode.get(vertexLabel)).set(OSSystemFields._osSignedData.name(), JsonNodeFactory.instance.textNode(signedCredentials.toString()));
+        }
+        return rootNode;
+    }
+
+    /**
+     * Creates the indices, indexes into elastic search and audits the entity once it is added
+     */
+    private void afterAddEntity(Shard shard, String userId, JsonNode rootNode, String entityId, Transaction tx) throws Exception {
+        String vertexLabel = rootNode.fieldNames().next();
+        DatabaseProvider dbProvider = shard.getDatabaseProvider();
+        if (rootNode.get(vertexLabel).has(OSSystemFields._osSignatureStatus.name())) {
+            asyncSigningService.submit(shard, vertexLabel, entityId);
+        }
+        // Add indices: executes only once.
+        if (perRequestIndexCreation) {
+            String shardId = shard.getShardId();
+            Vertex parentVertex = entityParenter.getKnownParentVertex(vertexLabel, shardId);
+            Definition definition = definitionsManager.getDefinition(vertexLabel);
+            entityParenter.ensureIndexExists(dbProvider, parentVertex, definition, shardId);
+        }
+
+        if (isElasticSearchEnabled()) {
+            if (addShardPrefixForESRecord && !shard.getShardLabel().isEmpty()) {
+                // Replace osid with shard details
+                String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
+                JSONUtil.addPrefix((ObjectNode) rootNode, prefix, new ArrayList<>(Collections.singletonList(uuidPropertyName)));
+            }
+            callESActors(rootNode, "ADD", vertexLabel, entityId, tx);
+        }
+        auditService.auditAdd(
+                auditService.createAuditRecord(userId, entityId, tx, vertexLabel),
+                shard, rootNode);
+        mpiBlockingService.index(shard, vertexLabel, entityId, rootNode.get(vertexLabel));
+
+        if (vertexLabel.equals(Schema)) {
+            JsonNode schema = rootNode.get(vertexLabel).get(Schema.toLowerCase());
+            definitionsManager.appendNewDefinition(schema);
         }
-        return entityId;
     }
 
     @Override
     public void updateEntity(Shard shard, String userId, String id, String jsonString) throws Exception {
+        Timer.Sample sample = registryMetrics.start();
         JsonNode inputNode = objectMapper.readTree(jsonString);
         String entityType = inputNode.fields().next().getKey();
+        boolean success = false;
+        try {
+            doUpdateEntity(shard, userId, id, inputNode, entityType);
+            success = true;
+        } finally {
+            registryMetrics.stop(sample, RegistryMetrics.Operation.update, entityType, shard, success);
+        }
+    }
+
+    private void doUpdateEntity(Shard shard, String userId, String id, JsonNode inputNode, String entityType) throws Exception {
         systemFieldsHelper.ensureUpdateAuditFields(entityType, inputNode.get(entityType), userId);
         if (encryptionEnabled) {
             inputNode = encryptionHelper.getEncryptedJson(inputNode);
@@ -336,6 +526,7 @@ public class RegistryServiceImpl implements RegistryService {
             auditService.auditUpdate(
                     auditService.createAuditRecord(userId, rootId, tx, entityType),
                     shard, mergedNode, readNode);
+            mpiBlockingService.index(shard, parentEntityType, rootId, mergedNode.get(parentEntityType));
 
             if (entityType.equals(Schema)) {
                 JsonNode schema = inputNode.get(entityType).get(Schema.toLowerCase());
@@ -354,16 +545,71 @@ public class RegistryServiceImpl implements RegistryService {
         logger.debug("callESActors started");
         rootNode = rootNode != null ? rootNode.get(parentEntityType) : rootNode;
         boolean elasticSearchEnabled = isElasticSearchEnabled();
+        if (elasticSearchEnabled && addToBulk(operation, parentEntityType.toLowerCase(), entityRootId, rootNode)) {
+            return;
+        }
         MessageProtos.Message message = MessageFactory.instance().createOSActorMessage(elasticSearchEnabled, operation,
                 parentEntityType.toLowerCase(), entityRootId, rootNode, null);
         ActorCache.instance().get(Router.ROUTER_NAME).tell(message, null);
         logger.debug("callESActors ends");
     }
 
+    /**
+     * Queues the operation for bulk indexing, when it is running
+     *
+     * @return false if the operation has to be sent through the actors
+     */
+    private boolean addToBulk(String operation, String index, String osid, JsonNode node) {
+        try {
+            switch (operation) {
+                case "ADD":
+                    return bulkIndexingService.add(elasticService.getIndexRequest(index, osid, node));
+                case "UPDATE":
+                    return bulkIndexingService.add(elasticService.getUpdateRequest(index, osid, node));
+                case "DELETE":
+                    return bulkIndexingService.add(elasticService.getDeleteRequest(index, osid));
+                default:
+                    return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (IOException e) {
+            logger.error("Building the bulk request of {} {} failed: {}", index, osid, e.getMessage());
+            return false;
+        }
+    }
+
     private boolean isElasticSearchEnabled() {
         return (searchProvider.equals("dev.sunbirdrc.registry.service.ElasticSearchService"));
     }
 
+    /**
+     * Indexes the record again as it is stored in the shard, with the shard label of the shard,
+     * after it was moved there from another shard
+     */
+    @Override
+    public void reindexEntity(Shard shard, String entityType, String uuid) throws Exception {
+        if (!isElasticSearchEnabled()) {
+            return;
+        }
+        DatabaseProvider databaseProvider = shard.getDatabaseProvider();
+        try (OSGraph osGraph = databaseProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = databaseProvider.startTransaction(graph);
+            VertexReader vertexReader = new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getForUpdateValidation(),
+                    uuidPropertyName, definitionsManager);
+            JsonNode rootNode = vertexReader.read(entityType, uuid);
+            databaseProvider.commitTransaction(graph, tx);
+            if (addShardPrefixForESRecord && !shard.getShardLabel().isEmpty()) {
+                // Replace osid with shard details
+                String prefix = shard.getShardLabel() + RecordIdentifier.getSeparator();
+                JSONUtil.addPrefix((ObjectNode) rootNode, prefix, new ArrayList<>(Collections.singletonList(uuidPropertyName)));
+            }
+            callESActors(rootNode, "ADD", entityType, uuid, tx);
+        }
+    }
+
     @Override
     @Async("taskExecutor")
     public void callNotificationActors(String operation, String to, String subject, String message) throws JsonProcessingException {
@@ -407,6 +653,48 @@ public class RegistryServiceImpl implements RegistryService {
 
     }
 
+    /**
+     * Updates an array stored natively on the given vertex. Items with a known uuid are updated
+     * and moved to their new index, items without one are added, and the previous items missing
+     * from the input are marked deleted and detached.
+     */
+    private void doUpdateNativeArray(Shard shard, Graph graph, IRegistryDao registryDao, Vertex vertex, String arrayName, ArrayNode arrayNode) throws Exception {
+        DatabaseProvider databaseProvider = shard.getDatabaseProvider();
+        VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, uuidPropertyName);
+        Map<String, Edge> previousItemEdges = new HashMap<>();
+        vertex.edges(Direction.OUT, arrayName + Constants.ARRAY_ITEM).forEachRemaining(edge ->
+                previousItemEdges.put(databaseProvider.getId(edge.inVertex()), edge));
+
+        int index = 0;
+        List<JsonNode> values = new ArrayList<>();
+        for (JsonNode item : arrayNode) {
+            if (!item.isObject()) {
+                values.add(item);
+                continue;
+            }
+            JsonNode itemOsid = item.get(uuidPropertyName);
+            if (itemOsid == null) {
+                vertexWriter.addArrayItem(vertex, arrayName, item, index++);
+            } else if (previousItemEdges.containsKey(itemOsid.textValue())) {
+                Edge itemEdge = previousItemEdges.remove(itemOsid.textValue());
+                registryDao.updateVertex(graph, itemEdge.inVertex(), item, arrayName);
+                itemEdge.property(Constants.ARRAY_ITEM_INDEX, index++);
+            } else {
+                logger.info("Ignoring unknown item {} of array {}", itemOsid.textValue(), arrayName);
+            }
+        }
+
+        for (Edge removedEdge : previousItemEdges.values()) {
+            registryDao.deleteEntity(removedEdge.inVertex());
+            removedEdge.remove();
+        }
+
+        if (index == 0) {
+            // No objects, an array of values
+            vertexWriter.createArrayNode(vertex, arrayName, JsonNodeFactory.instance.arrayNode().addAll(values));
+        }
+    }
+
     /**
      * Delete the previous array items Uuids which are not updated
      *
@@ -469,6 +757,8 @@ public class RegistryServiceImpl implements RegistryService {
                         if (null != existArrayVertex) {
                             // updateArrayItems one by one
                             doUpdateArray(shard, graph, registryDao, vr, existArrayVertex, (ArrayNode) oneElementNode, userInputKey);
+                        } else if (shard.getDatabaseProvider().getArrayStorage() == ArrayStorage.NATIVE) {
+                            doUpdateNativeArray(shard, graph, registryDao, existingVertex, oneElement.getKey(), (ArrayNode) oneElementNode);
                         } else {
                             VertexWriter vertexWriter = new VertexWriter(graph, shard.getDatabaseProvider(), uuidPropertyName);
                             vertexWriter.createArrayNode(rootVertex, oneElement.getKey(), (ArrayNode) oneElementNode);
@@ -12,6 +12,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClientException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class SignatureServiceImpl implements SignatureService {
 
@@ -20,6 +23,8 @@ public class SignatureServiceImpl implements SignatureService {
 	private String healthCheckURL;
 	@Value("${signature.signURL}")
 	private String signURL;
+	@Value("${signature.batchSupported:false}")
+	private boolean batchSupported;
 	@Value("${signature.verifyURL}")
 	private String verifyURL;
 	@Value("${signature.keysURL}")
@@ -73,6 +78,37 @@ public class SignatureServiceImpl implements SignatureService {
 		return result;
 	}
 
+	/** This method signs all the values with a single call when the signature service
+	 * takes an array, and one by one otherwise
+	 * @param propertyValues - contains the inputs need to be signed
+	 * @return - signed data of every input, in the same order
+	 * @throws SignatureException.UnreachableException
+	 * @throws SignatureException.CreationException
+	 */
+	@Override
+	public List<Object> signAll(List<Object> propertyValues)
+			throws SignatureException.UnreachableException, SignatureException.CreationException {
+		if (!batchSupported || propertyValues.size() < 2) {
+			return SignatureService.super.signAll(propertyValues);
+		}
+		List<Object> result = new ArrayList<>(propertyValues.size());
+		try {
+			ResponseEntity<String> response = retryRestTemplate.postForEntity(signURL, propertyValues);
+			JsonNode resultNode = objectMapper.readTree(response.getBody());
+			if (!resultNode.isArray() || resultNode.size() != propertyValues.size()) {
+				throw new IllegalStateException("Expected " + propertyValues.size() + " signed documents");
+			}
+			resultNode.forEach(result::add);
+		} catch (RestClientException ex) {
+			logger.error("RestClientException when signing: ", ex);
+			throw new SignatureException().new UnreachableException(ex.getMessage());
+		} catch (Exception e) {
+			logger.error("RestClientException when signing: ", e);
+			throw new SignatureException().new CreationException(e.getMessage());
+		}
+		return result;
+	}
+
 	/** This method verifies the sign value with request input object
 	 * @param propertyValue - contains input along with signed value
 	 * @return true/false
@@ -0,0 +1,431 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the events of the webhook outbox, so that a slow subscriber does not hold up the
+ * writes. The due events are read every pollInterval ms, or as soon as events are added, and
+ * posted by a pool of workers, at most maxConcurrency requests at a time per endpoint. With
+ * batchSupported the events of an endpoint are posted together as an array, batchSize at a time.
+ * A failed delivery is retried with an exponential backoff, and given up after maxRetries.
+ * An endpoint which failed circuitBreakerThreshold times in a row is not called for
+ * circuitBreakerOpenTime ms, after which a single request tells whether it is back.
+ *
+ * The events of an endpoint which is down or busy are not read, so that they do not hold up the
+ * events of the other endpoints.
+ *
+ * The events are claimed before they are posted, with a lease of leaseTime ms, so that the
+ * instances sharing the outbox seldom post the same events. An event is delivered at least once:
+ * it is posted again when its delivery could not be recorded or its instance stopped, and may be
+ * posted twice when two instances claim it at the same time, see {@link WebhookOutbox#claim}.
+ *
+ * The outbox depth, counted every depthRefreshInterval ms, is published as the registry.webhook.queue
+ * gauge and the time from the event to its delivery as the registry.webhook.delivery timer. The events
+ * given up are removed from the outbox failedRetention ms later, at the same interval.
+ */
+@Component
+public class WebhookDispatcher {
+    private static Logger logger = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    public static final String QUEUE_GAUGE_NAME = "registry.webhook.queue";
+    public static final String DELIVERY_TIMER_NAME = "registry.webhook.delivery";
+
+    @Autowired
+    private WebhookOutbox webhookOutbox;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${webhook.enabled:false}")
+    private boolean webhookEnabled;
+
+    @Value("${webhook.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    @Value("${webhook.outbox.workers:4}")
+    private int workers;
+
+    @Value("${webhook.outbox.maxConcurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${webhook.outbox.pollInterval:1000}")
+    private long pollInterval;
+
+    @Value("${webhook.outbox.fetchSize:500}")
+    private int fetchSize;
+
+    @Value("${webhook.outbox.batchSupported:false}")
+    private boolean batchSupported;
+
+    @Value("${webhook.outbox.batchSize:50}")
+    private int batchSize;
+
+    @Value("${webhook.outbox.maxRetries:10}")
+    private int maxRetries;
+
+    @Value("${webhook.outbox.retryBackoff:1000}")
+    private long retryBackoff;
+
+    @Value("${webhook.outbox.maxRetryBackoff:300000}")
+    private long maxRetryBackoff;
+
+    @Value("${webhook.outbox.circuitBreakerThreshold:5}")
+    private int circuitBreakerThreshold;
+
+    @Value("${webhook.outbox.circuitBreakerOpenTime:30000}")
+    private long circuitBreakerOpenTime;
+
+    @Value("${webhook.outbox.leaseTime:60000}")
+    private long leaseTime;
+
+    @Value("${webhook.outbox.depthRefreshInterval:30000}")
+    private long depthRefreshInterval;
+
+    @Value("${webhook.outbox.failedRetention:604800000}")
+    private long failedRetention;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicLong depth = new AtomicLong();
+    private long depthRefreshedAt;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private ExecutorService deliveryExecutor;
+    private Thread poller;
+    private volatile boolean running;
+
+    @PostConstruct
+    public synchronized void start() {
+        if (webhookEnabled && outboxEnabled && !running) {
+            AtomicInteger threads = new AtomicInteger();
+            deliveryExecutor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "WebhookDelivery-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            Gauge.builder(QUEUE_GAUGE_NAME, depth, AtomicLong::get)
+                    .description("Number of webhook events waiting to be delivered")
+                    .register(meterRegistry);
+            running = true;
+            poller = new Thread(this::run, "WebhookDispatcher");
+            poller.setDaemon(true);
+            poller.start();
+            logger.info("Webhook dispatcher started with {} workers", workers);
+        }
+    }
+
+    /**
+     * Stops reading the outbox and waits for the deliveries under way; the events not delivered
+     * stay in the outbox
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        wakeUp.release();
+        poller.join();
+        deliveryExecutor.shutdown();
+        deliveryExecutor.awaitTermination(pollInterval, TimeUnit.MILLISECONDS);
+        logger.info("Webhook dispatcher stopped, {} delivered, {} failed", delivered.get(), failed.get());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Reads the outbox without waiting for the poll interval, called once events are added
+     */
+    public void wakeUp() {
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getQueueDepth() {
+        return depth.get();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                dispatch();
+                wakeUp.tryAcquire(pollInterval, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Reading the webhook outbox failed", e);
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the delivery of the due events, as far as the endpoints take them
+     */
+    void dispatch() throws Exception {
+        long now = System.currentTimeMillis();
+        if (now - depthRefreshedAt >= depthRefreshInterval) {
+            depth.set(webhookOutbox.depth());
+            webhookOutbox.pruneFailed(now - failedRetention);
+            depthRefreshedAt = now;
+        }
+        // only the events an endpoint takes now are claimed, the others stay due for the other instances
+        Map<List<WebhookOutbox.Entry>, Endpoint> batches = new LinkedHashMap<>();
+        List<WebhookOutbox.Entry> taken = new ArrayList<>();
+        Set<String> skippedEndpoints = new HashSet<>();
+        endpoints.values().stream().filter(endpoint -> !endpoint.isAvailable(now))
+                .forEach(endpoint -> skippedEndpoints.add(endpoint.url));
+        List<WebhookOutbox.Entry> due;
+        do {
+            // every endpoint read is skipped by the next reads, which thus read the events of other endpoints
+            due = webhookOutbox.due(now, fetchSize, skippedEndpoints);
+            Map<String, List<WebhookOutbox.Entry>> dueByEndpoint = new LinkedHashMap<>();
+            for (WebhookOutbox.Entry entry : due) {
+                dueByEndpoint.computeIfAbsent(entry.getEndpoint(), url -> new ArrayList<>()).add(entry);
+            }
+            for (Map.Entry<String, List<WebhookOutbox.Entry>> dueOfEndpoint : dueByEndpoint.entrySet()) {
+                Endpoint endpoint = endpoints.computeIfAbsent(dueOfEndpoint.getKey(), url -> new Endpoint(url, maxConcurrency));
+                List<WebhookOutbox.Entry> entries = dueOfEndpoint.getValue();
+                int size = batchSupported ? batchSize : 1;
+                for (int from = 0; from < entries.size(); from += size) {
+                    if (!endpoint.tryAcquire(now)) {
+                        break;
+                    }
+                    List<WebhookOutbox.Entry> batch = entries.subList(from, Math.min(from + size, entries.size()));
+                    batches.put(batch, endpoint);
+                    taken.addAll(batch);
+                }
+                skippedEndpoints.add(dueOfEndpoint.getKey());
+            }
+        } while (!due.isEmpty());
+        if (taken.isEmpty()) {
+            return;
+        }
+        Set<WebhookOutbox.Entry> claimed;
+        try {
+            claimed = new HashSet<>(webhookOutbox.claim(taken, now + leaseTime));
+        } catch (Exception e) {
+            batches.values().forEach(Endpoint::release);
+            throw e;
+        }
+        for (Map.Entry<List<WebhookOutbox.Entry>, Endpoint> batch : batches.entrySet()) {
+            List<WebhookOutbox.Entry> entries = new ArrayList<>(batch.getKey());
+            entries.retainAll(claimed);
+            Endpoint endpoint = batch.getValue();
+            if (entries.isEmpty()) {
+                endpoint.release();
+            } else {
+                deliveryExecutor.execute(() -> deliver(endpoint, entries));
+            }
+        }
+    }
+
+    private void deliver(Endpoint endpoint, List<WebhookOutbox.Entry> batch) {
+        try {
+            if (post(endpoint, batch)) {
+                webhookOutbox.delivered(batch);
+                long now = System.currentTimeMillis();
+                for (WebhookOutbox.Entry entry : batch) {
+                    deliveryTimer(true).record(Duration.ofMillis(now - entry.getCreatedAt()));
+                }
+                delivered.addAndGet(batch.size());
+            } else {
+                retry(batch);
+            }
+        } catch (Exception e) {
+            logger.error("Removing {} delivered webhook events failed, they are delivered again", batch.size(), e);
+        } finally {
+            endpoint.release();
+        }
+    }
+
+    private boolean post(Endpoint endpoint, List<WebhookOutbox.Entry> batch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        try {
+            restTemplate.postForEntity(endpoint.url, new HttpEntity<>(toBody(batch), headers), String.class);
+            endpoint.succeeded();
+            return true;
+        } catch (Exception e) {
+            logger.warn("Delivering {} webhook events to {} failed: {}", batch.size(), endpoint.url, e.getMessage());
+            endpoint.failed(System.currentTimeMillis(), circuitBreakerThreshold, circuitBreakerOpenTime);
+            return false;
+        }
+    }
+
+    private String toBody(List<WebhookOutbox.Entry> batch) {
+        if (!batchSupported) {
+            return batch.get(0).getPayload();
+        }
+        StringBuilder body = new StringBuilder("[");
+        for (WebhookOutbox.Entry entry : batch) {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append(entry.getPayload());
+        }
+        return body.append(']').toString();
+    }
+
+    private void retry(List<WebhookOutbox.Entry> batch) {
+        long now = System.currentTimeMillis();
+        Map<WebhookOutbox.Entry, Long> nextAttempts = new LinkedHashMap<>();
+        int givenUp = 0;
+        for (WebhookOutbox.Entry entry : batch) {
+            int attempts = entry.getAttempts() + 1;
+            if (attempts > maxRetries) {
+                nextAttempts.put(entry, -1L);
+                givenUp++;
+            } else {
+                nextAttempts.put(entry, now + Math.min(maxRetryBackoff, retryBackoff << Math.min(attempts - 1, 30)));
+            }
+        }
+        try {
+            webhookOutbox.failed(nextAttempts);
+        } catch (Exception e) {
+            logger.error("Recording the failed delivery of {} webhook events failed, they are delivered again", batch.size(), e);
+            return;
+        }
+        for (Map.Entry<WebhookOutbox.Entry, Long> nextAttempt : nextAttempts.entrySet()) {
+            if (nextAttempt.getValue() < 0) {
+                deliveryTimer(false).record(Duration.ofMillis(now - nextAttempt.getKey().getCreatedAt()));
+            }
+        }
+        if (givenUp > 0) {
+            logger.error("Gave up delivering {} webhook events after {} retries", givenUp, maxRetries);
+        }
+        failed.addAndGet(givenUp);
+        retried.addAndGet(batch.size() - givenUp);
+    }
+
+    private Timer deliveryTimer(boolean success) {
+        return Timer.builder(DELIVERY_TIMER_NAME)
+                .description("Time from a webhook event to its delivery")
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * The concurrency limit and the circuit breaker of an endpoint
+     */
+    static class Endpoint {
+        private final String url;
+        private final Semaphore permits;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean probing;
+
+        Endpoint(String url, int maxConcurrency) {
+            this.url = url;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        /**
+         * @return whether a request slot can be taken
+         */
+        synchronized boolean isAvailable(long now) {
+            return !isOpen(now) && permits.availablePermits() > 0;
+        }
+
+        private boolean isOpen(long now) {
+            return openUntil > 0 && (now < openUntil || probing);
+        }
+
+        /**
+         * Takes a request slot, unless the endpoint is busy or its circuit is open. Once the
+         * circuit has been open long enough, a single request is let through.
+         */
+        synchronized boolean tryAcquire(long now) {
+            boolean open = openUntil > 0;
+            if (isOpen(now)) {
+                return false;
+            }
+            if (!permits.tryAcquire()) {
+                return false;
+            }
+            probing = open;
+            return true;
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        synchronized void succeeded() {
+            consecutiveFailures = 0;
+            openUntil = 0;
+            probing = false;
+        }
+
+        synchronized void failed(long now, int threshold, long openTime) {
+            consecutiveFailures++;
+            probing = false;
+            if (consecutiveFailures >= threshold) {
+                if (openUntil == 0) {
+                    logger.warn("Webhook endpoint {} failed {} times in a row, not called for {}ms", url,
+                            consecutiveFailures, openTime);
+                }
+                openUntil = now + openTime;
+            }
+        }
+    }
+}
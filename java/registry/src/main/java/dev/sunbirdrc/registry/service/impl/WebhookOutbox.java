@@ -0,0 +1,296 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.model.dto.WebhookEvent;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The webhook events waiting to be delivered, one record per event and endpoint, stored in the
+ * database of the default shard so that they survive a restart and are shared by the instances.
+ * A record is removed once delivered, or kept with the status FAILED once its delivery was given up,
+ * until it is pruned. The records are indexed by status and next attempt, and by endpoint, on the
+ * first add of each start.
+ */
+@Component
+public class WebhookOutbox {
+    private static Logger logger = LoggerFactory.getLogger(WebhookOutbox.class);
+
+    public static final String OUTBOX_LABEL = "_webhookOutbox";
+    private static final String ID = "eventId";
+    private static final String ENDPOINT = "endpoint";
+    private static final String PAYLOAD = "payload";
+    private static final String CREATED_AT = "createdAt";
+    private static final String ATTEMPTS = "attempts";
+    private static final String NEXT_ATTEMPT_AT = "nextAttemptAt";
+    private static final String STATUS = "status";
+    private static final String PENDING = "PENDING";
+    private static final String FAILED = "FAILED";
+
+    @Autowired
+    private ShardManager shardManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile boolean indexed;
+
+    /**
+     * Stores the events for every endpoint in a single transaction
+     *
+     * @param events    - the events, in the order they are delivered
+     * @param endpoints - the urls the events are delivered to
+     */
+    public void add(List<WebhookEvent> events, String[] endpoints) throws Exception {
+        long now = System.currentTimeMillis();
+        List<String> payloads = new ArrayList<>(events.size());
+        for (WebhookEvent event : events) {
+            payloads.add(objectMapper.writeValueAsString(event));
+        }
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            for (String endpoint : endpoints) {
+                for (String payload : payloads) {
+                    Vertex vertex = graph.addVertex(OUTBOX_LABEL);
+                    vertex.property(ID, UUID.randomUUID().toString());
+                    vertex.property(ENDPOINT, endpoint);
+                    vertex.property(PAYLOAD, payload);
+                    vertex.property(CREATED_AT, now);
+                    vertex.property(ATTEMPTS, 0);
+                    vertex.property(NEXT_ATTEMPT_AT, now);
+                    vertex.property(STATUS, PENDING);
+                }
+            }
+            dbProvider.commitTransaction(graph, tx);
+        }
+        logger.debug("Stored {} webhook events for {} endpoints", events.size(), endpoints.length);
+        if (!indexed) {
+            ensureIndex(dbProvider);
+        }
+    }
+
+    /**
+     * Indexes the records once they were added, as the database knows their properties only then
+     */
+    private synchronized void ensureIndex(DatabaseProvider dbProvider) {
+        if (indexed) {
+            return;
+        }
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            dbProvider.createIndex(graph, OUTBOX_LABEL, Collections.singletonList(ID));
+            dbProvider.createCompositeIndex(graph, OUTBOX_LABEL, Arrays.asList(STATUS, NEXT_ATTEMPT_AT));
+            dbProvider.createCompositeIndex(graph, OUTBOX_LABEL, Arrays.asList(ENDPOINT, STATUS, NEXT_ATTEMPT_AT));
+            dbProvider.commitTransaction(graph, tx);
+            indexed = true;
+        } catch (Exception e) {
+            logger.error("Indexing the webhook outbox failed, it is retried on the next add", e);
+        }
+    }
+
+    /**
+     * The records due for delivery, oldest first. The records claimed by an instance are not
+     * due until their lease ends.
+     *
+     * @param now              - time in ms
+     * @param limit            - maximum number of records
+     * @param skippedEndpoints - the endpoints whose records are not read
+     */
+    public List<Entry> due(long now, int limit, Collection<String> skippedEndpoints) throws Exception {
+        List<Entry> entries = new ArrayList<>();
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            GraphTraversal<Vertex, Vertex> traversal = graph.traversal().V().hasLabel(OUTBOX_LABEL).has(STATUS, PENDING)
+                    .has(NEXT_ATTEMPT_AT, P.lte(now));
+            if (!skippedEndpoints.isEmpty()) {
+                traversal = traversal.has(ENDPOINT, P.without(skippedEndpoints));
+            }
+            List<Vertex> vertices = traversal.order().by(NEXT_ATTEMPT_AT).limit(limit).toList();
+            for (Vertex vertex : vertices) {
+                entries.add(new Entry(vertex.value(ID), vertex.value(ENDPOINT), vertex.value(PAYLOAD),
+                        ((Number) vertex.value(CREATED_AT)).longValue(), ((Number) vertex.value(ATTEMPTS)).intValue(),
+                        ((Number) vertex.value(NEXT_ATTEMPT_AT)).longValue()));
+            }
+            dbProvider.commitTransaction(graph, tx);
+        }
+        return entries;
+    }
+
+    /**
+     * Claims the records for delivery by moving their next attempt to the end of the lease, so
+     * that neither this instance nor another one reads them again meanwhile. A record is claimed
+     * only if its next attempt is still the one it was read with, the next attempt serving as
+     * the version of the record. The check and the update are not a single statement though, so
+     * two instances claiming a record at the same time may both get it, and post it twice.
+     * A record still leased when its delivery is neither recorded as done nor failed, because
+     * the instance stopped, is due again once the lease ends.
+     *
+     * @param entries    - the due records
+     * @param leaseUntil - time in ms
+     * @return the records claimed, without the ones claimed by another instance since they were read
+     */
+    public List<Entry> claim(List<Entry> entries, long leaseUntil) throws Exception {
+        List<Entry> claimed = new ArrayList<>(entries.size());
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            for (Entry entry : entries) {
+                graph.traversal().V().hasLabel(OUTBOX_LABEL).has(ID, entry.getId()).has(STATUS, PENDING)
+                        .has(NEXT_ATTEMPT_AT, entry.getNextAttemptAt()).tryNext().ifPresent(vertex -> {
+                            vertex.property(NEXT_ATTEMPT_AT, leaseUntil);
+                            claimed.add(entry);
+                        });
+            }
+            dbProvider.commitTransaction(graph, tx);
+        }
+        return claimed;
+    }
+
+    /**
+     * The number of records waiting to be delivered
+     */
+    public long depth() throws Exception {
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            long depth = graph.traversal().V().hasLabel(OUTBOX_LABEL).has(STATUS, PENDING).count().next();
+            dbProvider.commitTransaction(graph, tx);
+            return depth;
+        }
+    }
+
+    /**
+     * Removes the delivered records
+     */
+    public void delivered(Collection<Entry> entries) throws Exception {
+        List<String> ids = new ArrayList<>(entries.size());
+        entries.forEach(entry -> ids.add(entry.getId()));
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            graph.traversal().V().hasLabel(OUTBOX_LABEL).has(ID, P.within(ids)).drop().iterate();
+            dbProvider.commitTransaction(graph, tx);
+        }
+    }
+
+    /**
+     * Removes the records given up before the given time
+     *
+     * @param before - time in ms
+     */
+    public void pruneFailed(long before) throws Exception {
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            graph.traversal().V().hasLabel(OUTBOX_LABEL).has(STATUS, FAILED).has(NEXT_ATTEMPT_AT, P.lt(before))
+                    .drop().iterate();
+            dbProvider.commitTransaction(graph, tx);
+        }
+    }
+
+    /**
+     * Records a failed delivery of the records, each delivered again from its next attempt
+     * time in ms on, or given up when that is negative. The next attempt of a record given up
+     * is the time it was given up.
+     */
+    public void failed(Map<Entry, Long> nextAttempts) throws Exception {
+        long now = System.currentTimeMillis();
+        DatabaseProvider dbProvider = getDatabaseProvider();
+        try (OSGraph osGraph = dbProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = dbProvider.startTransaction(graph);
+            for (Map.Entry<Entry, Long> nextAttempt : nextAttempts.entrySet()) {
+                Entry entry = nextAttempt.getKey();
+                graph.traversal().V().hasLabel(OUTBOX_LABEL).has(ID, entry.getId()).tryNext().ifPresent(vertex -> {
+                    vertex.property(ATTEMPTS, entry.getAttempts() + 1);
+                    if (nextAttempt.getValue() < 0) {
+                        vertex.property(STATUS, FAILED);
+                        vertex.property(NEXT_ATTEMPT_AT, now);
+                    } else {
+                        vertex.property(NEXT_ATTEMPT_AT, nextAttempt.getValue());
+                    }
+                });
+            }
+            dbProvider.commitTransaction(graph, tx);
+        }
+    }
+
+    private DatabaseProvider getDatabaseProvider() {
+        return shardManager.getDefaultShard().getDatabaseProvider();
+    }
+
+    public static class Entry {
+        private final String id;
+        private final String endpoint;
+        private final String payload;
+        private final long createdAt;
+        private final int attempts;
+        private final long nextAttemptAt;
+
+        Entry(String id, String endpoint, String payload, long createdAt, int attempts, long nextAttemptAt) {
+            this.id = id;
+            this.endpoint = endpoint;
+            this.payload = payload;
+            this.createdAt = createdAt;
+            this.attempts = attempts;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * The event as json
+         */
+        public String getPayload() {
+            return payload;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * The next attempt of the record when it was read
+         */
+        public long getNextAttemptAt() {
+            return nextAttemptAt;
+        }
+    }
+}
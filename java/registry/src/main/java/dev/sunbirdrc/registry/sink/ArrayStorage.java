@@ -0,0 +1,28 @@
+package dev.sunbirdrc.registry.sink;
+
+/**
+ * How the arrays of an entity are stored in the graph.
+ */
+public enum ArrayStorage {
+    /**
+     * Arrays of values are stored as a string like ["a","b"]. Arrays of objects are stored
+     * behind a blank array node vertex, holding the list of item ids as a string.
+     */
+    STRING,
+    /**
+     * Arrays of values are stored as a native array property (String[], long[], double[] or
+     * boolean[]) named with the list suffix. Arrays of objects are stored as edges from the
+     * owning vertex to the items, ordered by the item index property of the edges.
+     * Arrays that cannot be stored so, like arrays of mixed values, are stored as STRING.
+     */
+    NATIVE;
+
+    public static ArrayStorage fromName(String name) {
+        for (ArrayStorage arrayStorage : values()) {
+            if (arrayStorage.name().equalsIgnoreCase(name)) {
+                return arrayStorage;
+            }
+        }
+        throw new IllegalArgumentException("Unknown array storage " + name + ", expected string or native");
+    }
+}
@@ -54,6 +54,7 @@ public class DBProviderFactory {
 			}
 		}
 		provider.setUuidPropertyName(uuidPropertyName);
+		provider.setArrayStorage(ArrayStorage.fromName(dbConnectionInfoMgr.getArrayStorage()));
 		return provider;
 	}
 
@@ -17,6 +17,7 @@ import java.util.UUID;
 public abstract class DatabaseProvider {
     private Constants.GraphDatabaseProvider provider;
     private String uuidPropertyName;
+    private ArrayStorage arrayStorage = ArrayStorage.STRING;
     private Optional<Boolean> supportsTransaction = Optional.empty();
 
     private static Logger logger = LoggerFactory.getLogger(DatabaseProvider.class);
@@ -140,6 +141,14 @@ public abstract class DatabaseProvider {
     protected void setUuidPropertyName(String uuidPropertyName) {
         this.uuidPropertyName = uuidPropertyName;
     }
+
+    public ArrayStorage getArrayStorage() {
+        return arrayStorage;
+    }
+
+    public void setArrayStorage(ArrayStorage arrayStorage) {
+        this.arrayStorage = arrayStorage;
+    }
    
     /**
      * Creates index
@@ -0,0 +1,29 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+
+/**
+ * Chooses the shard of the shard property value on a consistent hash ring of the configured shards,
+ * weighted by the weight of each connectionInfo. Adding a shard moves only the share of records the
+ * new shard takes, see {@link ShardRebalancer}.
+ * Records without the shard property go to the first shard.
+ */
+public class ConsistentHashShardAdvisor extends DefaultShardAdvisor {
+
+	private volatile HashRing hashRing;
+
+	@Override
+	public DBConnectionInfo getShard(Object attributeValue) {
+		if (attributeValue == null) {
+			return super.getShard(null);
+		}
+		return getHashRing().getShard(attributeValue);
+	}
+
+	public HashRing getHashRing() {
+		if (hashRing == null) {
+			hashRing = new HashRing(dBConnectionInfoMgr.getConnectionInfo(), dBConnectionInfoMgr.getVirtualNodes());
+		}
+		return hashRing;
+	}
+}
@@ -0,0 +1,151 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring of the shards. Every shard is placed on the ring at weight x virtualNodes
+ * points, hashed from its shardId, and a key belongs to the shard of the first point at or after
+ * the hash of the key. Adding a shard only takes over the keys just before its own points, the
+ * other keys keep their shard. A shard of weight 0 gets no keys, which is how a shard is drained.
+ * The ring is immutable; a change of the shards builds a new ring.
+ */
+public class HashRing {
+    private final NavigableMap<Long, DBConnectionInfo> points;
+    private final String description;
+
+    public HashRing(List<DBConnectionInfo> shards, int virtualNodes) {
+        TreeMap<Long, DBConnectionInfo> ring = new TreeMap<>();
+        StringJoiner description = new StringJoiner(",");
+        for (DBConnectionInfo shard : shards) {
+            description.add(shard.getShardId() + ":" + shard.getWeight());
+            int shardPoints = shard.getWeight() * virtualNodes;
+            for (int i = 0; i < shardPoints; i++) {
+                ring.putIfAbsent(hash(shard.getShardId() + "#" + i), shard);
+            }
+        }
+        if (ring.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard of positive weight is needed on the hash ring");
+        }
+        points = Collections.unmodifiableNavigableMap(ring);
+        this.description = description.toString();
+    }
+
+    /**
+     * @param key the value of the shard property
+     * @return the shard owning the key
+     */
+    public DBConnectionInfo getShard(Object key) {
+        return getShard(hash(toKey(key)));
+    }
+
+    private DBConnectionInfo getShard(long hash) {
+        Map.Entry<Long, DBConnectionInfo> point = points.ceilingEntry(hash);
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /**
+     * The ranges of hashes whose shard is not the same on the other ring
+     *
+     * @param other the ring after the shards changed
+     * @return
+     */
+    public List<KeyRange> getMovedRanges(HashRing other) {
+        TreeSet<Long> bounds = new TreeSet<>(points.keySet());
+        bounds.addAll(other.points.keySet());
+
+        List<KeyRange> moved = new ArrayList<>();
+        long previous = bounds.last();
+        for (long bound : bounds) {
+            // hashes in (previous, bound] have the same shard on each ring, the first range wraps around
+            DBConnectionInfo from = getShard(bound);
+            DBConnectionInfo to = other.getShard(bound);
+            if (!from.getShardId().equals(to.getShardId())) {
+                moved.add(new KeyRange(previous, bound, from, to));
+            }
+            previous = bound;
+        }
+        return moved;
+    }
+
+    /**
+     * @return the shards of the ring as shardId:weight, comma separated
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static String toKey(Object key) {
+        if (key instanceof JsonNode) {
+            return ((JsonNode) key).asText();
+        }
+        return String.valueOf(key);
+    }
+
+    /**
+     * The first 8 bytes of the MD5 of the key, which spreads similar keys over the ring
+     */
+    public static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hashes in (start, end] moving from one shard to another. A range with start not below end wraps
+     * around the ring.
+     */
+    public static class KeyRange {
+        private final long start;
+        private final long end;
+        private final DBConnectionInfo from;
+        private final DBConnectionInfo to;
+
+        KeyRange(long start, long end, DBConnectionInfo from, DBConnectionInfo to) {
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+        }
+
+        public boolean contains(long hash) {
+            if (start < end) {
+                return hash > start && hash <= end;
+            }
+            return hash > start || hash <= end;
+        }
+
+        public DBConnectionInfo getFrom() {
+            return from;
+        }
+
+        public DBConnectionInfo getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d, %d] %s -> %s", start, end, from.getShardId(), to.getShardId());
+        }
+    }
+}
@@ -1,20 +1,20 @@
 package dev.sunbirdrc.registry.sink.shard;
 
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
-import org.springframework.context.annotation.Scope;
-import org.springframework.context.annotation.ScopedProxyMode;
-import org.springframework.stereotype.Component;
-import org.springframework.web.context.WebApplicationContext;
-/*@Component("shard")
-@Scope(value = WebApplicationContext.SCOPE_REQUEST,
-        proxyMode = ScopedProxyMode.TARGET_CLASS)*/
+
+/**
+ * A shard and its database. Shards are built once by the {@link ShardManager} and shared by all
+ * the requests, so they do not change.
+ */
 public class Shard {
 
-	private String shardId;
-	private String shardLabel;
-	private DatabaseProvider databaseProvider;
+	private final String shardId;
+	private final String shardLabel;
+	private final DatabaseProvider databaseProvider;
 
-	public void setDatabaseProvider(DatabaseProvider databaseProvider) {
+	public Shard(String shardId, String shardLabel, DatabaseProvider databaseProvider) {
+		this.shardId = shardId;
+		this.shardLabel = shardLabel;
 		this.databaseProvider = databaseProvider;
 	}
 
@@ -26,16 +26,8 @@ public class Shard {
 		return shardId;
 	}
 
-	public void setShardId(String shardId) {
-		this.shardId = shardId;
-	}
-
 	public String getShardLabel() {
 		return shardLabel;
 	}
 
-	public void setShardLabel(String shardLabel) {
-		this.shardLabel = shardLabel;
-	}
-
 }
@@ -1,17 +1,33 @@
 package dev.sunbirdrc.registry.sink.shard;
 
-import dev.sunbirdrc.registry.exception.CustomException;
+import dev.sunbirdrc.registry.exception.RecordNotFoundException;
+import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.model.DBConnectionInfo;
 import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
 import dev.sunbirdrc.registry.sink.DBProviderFactory;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.util.RecordIdentifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Registry of the shards. Every shard and its database provider is built once on startup from the
+ * connection info; the lookups only read the maps built then, so concurrent requests neither lock
+ * nor see each other's shard.
+ */
 @Component("shardManager")
 public class ShardManager {
 
@@ -23,89 +39,148 @@ public class ShardManager {
 	@Autowired
 	private IShardAdvisor shardAdvisor;
 
-	private Shard shard;
+	private Map<String, Shard> shardsById = Collections.emptyMap();
+	private Map<String, Shard> shardsByLabel = Collections.emptyMap();
 
+	@PostConstruct
+	public void init() {
+		Map<String, Shard> byId = new HashMap<>();
+		Map<String, Shard> byLabel = new HashMap<>();
+		for (DBConnectionInfo connectionInfo : dbConnectionInfoMgr.getConnectionInfo()) {
+			DatabaseProvider databaseProvider = dbProviderFactory.getInstance(connectionInfo);
+			Shard shard = new Shard(connectionInfo.getShardId(), connectionInfo.getShardLabel(), databaseProvider);
+			byId.putIfAbsent(toKey(shard.getShardId()), shard);
+			if (shard.getShardLabel() != null) {
+				byLabel.putIfAbsent(shard.getShardLabel(), shard);
+			}
+			logger.info("Shard {} with label {} is ready", shard.getShardId(), shard.getShardLabel());
+		}
+		shardsById = Collections.unmodifiableMap(byId);
+		shardsByLabel = Collections.unmodifiableMap(byLabel);
+	}
 
-	/**
-	 * intiatiate a DBShard and ensure activating a databaseProvider. used for
-	 * add end point.
-	 *
-	 * @param attributeValue
-	 * @throws IOException
-	 */
-	private Shard activateDbShard(Object attributeValue) {
-		DBConnectionInfo connectionInfo = shardAdvisor.getShard(attributeValue);
-		DatabaseProvider databaseProvider = dbProviderFactory.getInstance(connectionInfo);
-		shard = new Shard();
-		shard.setShardId(connectionInfo.getShardId());
-		shard.setShardLabel(connectionInfo.getShardLabel());
-		shard.setDatabaseProvider(databaseProvider);
-		logger.info("Activated shard "+connectionInfo.getShardId()+" for attribute value "+attributeValue);
-		return shard;
+	private static String toKey(String shardId) {
+		return shardId.toLowerCase(Locale.ROOT);
 	}
 
 	public String getShardProperty() {
 		return dbConnectionInfoMgr.getShardProperty();
 	}
+
 	/**
-	 * activates a shard (Default or others) and returns it.
+	 * The shard the advisor chooses for the value of the shard property. Used
+	 * by the add end point.
+	 *
 	 * @param attributeValue
 	 * @return
-	 * @throws CustomException
 	 */
 	public Shard getShard(Object attributeValue) {
-
-		if(attributeValue != null){
-			activateDbShard(attributeValue);
-		}else{
-			activateDbShard(null);
-		}
-		return shard;
+		DBConnectionInfo connectionInfo = shardAdvisor.getShard(attributeValue);
+		logger.debug("Shard {} chosen for attribute value {}", connectionInfo.getShardId(), attributeValue);
+		return activateShard(connectionInfo.getShardId());
 	}
+
 	/**
 	 * Default shard return first shard.
 	 * Atleast one shard configuration is mandatory.
 	 * @return
-	 * @throws CustomException
 	 */
 	public Shard getDefaultShard() {
-		activateDbShard(null);
-		return shard;
+		return getShard(null);
 	}
 
 	/**
-	 * activate a shard given a shardId from entity cache
-	 * use this for read operation
-	 * @param shardId
+	 * The shard of a shardId, from entity cache or the connection info. Use this
+	 * for read operation.
+	 * @param shardId the default shard when null
 	 * @return
-	 * @throws CustomException
 	 */
 	public Shard activateShard(String shardId) {
-		if (shardId != null) {
-			DBConnectionInfo connectionInfo = dbConnectionInfoMgr.getDBConnectionInfo(shardId);
-			DatabaseProvider databaseProvider = dbProviderFactory.getInstance(connectionInfo);
-			shard = new Shard();
-			shard.setShardId(shardId);
-			shard.setShardLabel(connectionInfo.getShardLabel());
-			shard.setDatabaseProvider(databaseProvider);
-		} else {
-			logger.info("Default shard is activated");
-			shard = activateDbShard(null);
-
+		if (shardId == null) {
+			logger.debug("Default shard is activated");
+			return getDefaultShard();
+		}
+		Shard shard = shardsById.get(toKey(shardId));
+		if (shard == null) {
+			throw new IllegalArgumentException("Unknown shard " + shardId);
 		}
 		return shard;
 	}
 
-	public Shard getShardInstance(String shardId) {
-		Shard thisShard = new Shard();
-		if (shardId != null) {
-			DBConnectionInfo connectionInfo = dbConnectionInfoMgr.getDBConnectionInfo(shardId);
-			DatabaseProvider databaseProvider = dbProviderFactory.getInstance(connectionInfo);
-			thisShard.setShardId(connectionInfo.getShardId());
-			thisShard.setDatabaseProvider(databaseProvider);
+	/**
+	 * All the shards, in no particular order
+	 * @return
+	 */
+	public Collection<Shard> getShards() {
+		return shardsById.values();
+	}
+
+	/**
+	 * The shard of the shard label of a record identifier
+	 * @param shardLabel the default shard when null or unknown
+	 * @return
+	 */
+	public Shard getShardByLabel(String shardLabel) {
+		Shard shard = shardLabel == null ? null : shardsByLabel.get(shardLabel);
+		return shard != null ? shard : getDefaultShard();
+	}
+
+	/**
+	 * An operation on the record in a shard
+	 */
+	public interface ShardOperation<T> {
+		T apply(Shard shard) throws Exception;
+	}
+
+	/**
+	 * Runs the operation on the shard of the shard label of the record id and, when the record
+	 * is not found there, on the shard the rebalancing moved it to. Ids handed out before a move
+	 * keep working this way.
+	 *
+	 * @param recordId
+	 * @param operation throws RecordNotFoundException when the record is not in the shard
+	 * @return what the operation returns
+	 */
+	public <T> T onRecordShard(RecordIdentifier recordId, ShardOperation<T> operation) throws Exception {
+		Shard shard = getShardByLabel(recordId.getShardLabel());
+		try {
+			return operation.apply(shard);
+		} catch (RecordNotFoundException e) {
+			Shard relocatedShard = getRelocatedShard(shard, recordId.getUuid());
+			if (relocatedShard == null) {
+				throw e;
+			}
+			return operation.apply(relocatedShard);
 		}
+	}
 
-		return thisShard;
+	/**
+	 * Finds the shard a record was moved to by the rebalancing, given the shard of
+	 * its id. The moves of several rebalancing runs are followed.
+	 *
+	 * @param shard the shard of the shard label of the record id
+	 * @param uuid
+	 * @return the shard holding the record now, null when the record was not moved
+	 */
+	public Shard getRelocatedShard(Shard shard, String uuid) throws Exception {
+		Set<String> visited = new HashSet<>();
+		Shard relocatedShard = null;
+		Shard current = shard;
+		while (visited.add(current.getShardId())) {
+			Optional<Object> shardLabel;
+			try (OSGraph osGraph = current.getDatabaseProvider().getOSGraph()) {
+				shardLabel = osGraph.getGraphStore().traversal().V().hasLabel(Constants.RELOCATED_KEYWORD)
+						.has(Constants.RELOCATED_UUID, uuid)
+						.values(Constants.RELOCATED_SHARD_LABEL).tryNext();
+			}
+			if (!shardLabel.isPresent()) {
+				break;
+			}
+			logger.info("Record {} moved from shard {} to shard label {}", uuid, current.getShardId(), shardLabel.get());
+			current = getShardByLabel(shardLabel.get().toString());
+			relocatedShard = current;
+		}
+		return relocatedShard;
 	}
 
 }
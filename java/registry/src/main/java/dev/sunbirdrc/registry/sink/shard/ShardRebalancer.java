@@ -0,0 +1,262 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.util.RefLabelHelper;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.structure.Transaction;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.apache.tinkerpop.gremlin.structure.VertexProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves the records whose shard changed between two hash rings, typically after a shard was added.
+ * Only the key ranges that changed shard are looked up: a shard is scanned only when it loses keys,
+ * page by page, and only the shard property of its records is read to find the ones to move.
+ * A record is copied as it is stored, with the same uuids, then removed from its old shard. A
+ * relocation vertex is left behind with the label of the new shard, through which the ids carrying
+ * the old shard label are still read, see {@link ShardManager#getRelocatedShard(Shard, String)}.
+ * Writes are not fenced during a move, the records must be moved while the registry serves no
+ * request. A move interrupted after the copy is redone from the old shard on the next run, and a
+ * completed rebalancing is recorded so that it is not run again.
+ */
+public class ShardRebalancer {
+    private static final int PAGE_SIZE = 500;
+    private static final String LABEL = "_label";
+    private static final String REBALANCED_LABEL = "_rebalanced";
+    private static final String REBALANCED_RINGS = "rings";
+
+    private static Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    /**
+     * Told about every record moved, once it is readable on its new shard
+     */
+    public interface RecordMoveListener {
+        void moved(String entityType, String uuid, DBConnectionInfo to) throws Exception;
+    }
+
+    private final String uuidPropertyName;
+    private final String shardProperty;
+    private final Collection<String> entityTypes;
+    private final RecordMoveListener listener;
+
+    public ShardRebalancer(String uuidPropertyName, String shardProperty, Collection<String> entityTypes) {
+        this(uuidPropertyName, shardProperty, entityTypes, (entityType, uuid, to) -> {
+        });
+    }
+
+    public ShardRebalancer(String uuidPropertyName, String shardProperty, Collection<String> entityTypes,
+                           RecordMoveListener listener) {
+        this.uuidPropertyName = uuidPropertyName;
+        this.shardProperty = shardProperty;
+        this.entityTypes = entityTypes;
+        this.listener = listener;
+    }
+
+    /**
+     * @param previous the ring the records were placed with
+     * @param current  the ring of the shards now configured
+     * @param shards   the database of every shard of both rings, by shardId
+     * @return the number of records moved
+     */
+    public int rebalance(HashRing previous, HashRing current, Map<String, DatabaseProvider> shards) {
+        Map<String, List<HashRing.KeyRange>> movedRangesByShard = new LinkedHashMap<>();
+        for (HashRing.KeyRange range : previous.getMovedRanges(current)) {
+            logger.debug("Moving key range {}", range);
+            movedRangesByShard.computeIfAbsent(range.getFrom().getShardId(), shardId -> new ArrayList<>()).add(range);
+        }
+
+        int moved = 0;
+        for (Map.Entry<String, List<HashRing.KeyRange>> entry : movedRangesByShard.entrySet()) {
+            logger.info("Shard {} gives away {} key ranges", entry.getKey(), entry.getValue().size());
+            moved += rebalanceShard(shards.get(entry.getKey()), entry.getValue(), shards);
+        }
+        logger.info("Moved {} records", moved);
+        return moved;
+    }
+
+    /**
+     * @param databaseProvider the database the rebalancing is recorded in
+     * @return whether the records were moved from the previous to the current ring already
+     */
+    public boolean isRebalanced(DatabaseProvider databaseProvider, HashRing previous, HashRing current) throws Exception {
+        try (OSGraph osGraph = databaseProvider.getOSGraph()) {
+            return osGraph.getGraphStore().traversal().V().hasLabel(REBALANCED_LABEL)
+                    .has(REBALANCED_RINGS, getRings(previous, current)).hasNext();
+        }
+    }
+
+    /**
+     * Records that the records were moved from the previous to the current ring
+     *
+     * @param databaseProvider the database the rebalancing is recorded in
+     */
+    public void markRebalanced(DatabaseProvider databaseProvider, HashRing previous, HashRing current) throws Exception {
+        try (OSGraph osGraph = databaseProvider.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            Transaction tx = databaseProvider.startTransaction(graph);
+            graph.addVertex(REBALANCED_LABEL).property(REBALANCED_RINGS, getRings(previous, current));
+            databaseProvider.commitTransaction(graph, tx);
+        }
+    }
+
+    private static String getRings(HashRing previous, HashRing current) {
+        return previous + " -> " + current;
+    }
+
+    private int rebalanceShard(DatabaseProvider source, List<HashRing.KeyRange> movedRanges,
+                               Map<String, DatabaseProvider> shards) {
+        int moved = 0;
+        try (OSGraph osGraph = source.getOSGraph()) {
+            Graph graph = osGraph.getGraphStore();
+            String lastUuid = null;
+            List<Map<String, Object>> page;
+            do {
+                page = readPage(graph, lastUuid);
+                for (Map<String, Object> record : page) {
+                    String uuid = record.get(uuidPropertyName).toString();
+                    Optional<HashRing.KeyRange> range = find(movedRanges, HashRing.hash(HashRing.toKey(record.get(shardProperty))));
+                    if (range.isPresent()) {
+                        DBConnectionInfo to = range.get().getTo();
+                        moveRecord(source, graph, shards.get(to.getShardId()), to.getShardLabel(), uuid);
+                        notifyMoved(record.get(LABEL).toString(), uuid, to);
+                        moved++;
+                    }
+                    lastUuid = uuid;
+                }
+            } while (page.size() == PAGE_SIZE);
+        } catch (Exception e) {
+            logger.error("Rebalancing failed after moving {} records", moved, e);
+            throw new IllegalStateException("Rebalancing failed", e);
+        }
+        return moved;
+    }
+
+    /**
+     * Reads the uuid, shard property and label of the records after the last uuid, in the order
+     * of the uuid. The records moved away are removed, so the following pages are not shifted.
+     */
+    private List<Map<String, Object>> readPage(Graph graph, String lastUuid) {
+        GraphTraversal<Vertex, Vertex> traversal = graph.traversal().V()
+                .hasLabel(P.within(entityTypes)).hasNot(Constants.ROOT_KEYWORD).has(shardProperty);
+        if (lastUuid != null) {
+            traversal = traversal.has(uuidPropertyName, P.gt(lastUuid));
+        }
+        return traversal.order().by(uuidPropertyName).limit(PAGE_SIZE)
+                .<Object>project(uuidPropertyName, shardProperty, LABEL).by(uuidPropertyName).by(shardProperty).by(T.label)
+                .toList();
+    }
+
+    private void notifyMoved(String entityType, String uuid, DBConnectionInfo to) {
+        try {
+            listener.moved(entityType, uuid, to);
+        } catch (Exception e) {
+            // the record is moved, only what follows the move failed
+            logger.error("Handling the move of {} {} to shard {} failed", entityType, uuid, to.getShardId(), e);
+        }
+    }
+
+    private static Optional<HashRing.KeyRange> find(List<HashRing.KeyRange> ranges, long hash) {
+        return ranges.stream().filter(range -> range.contains(hash)).findFirst();
+    }
+
+    private void moveRecord(DatabaseProvider source, Graph sourceGraph, DatabaseProvider target, String targetLabel,
+                            String uuid) throws Exception {
+        try (OSGraph targetOsGraph = target.getOSGraph()) {
+            Graph targetGraph = targetOsGraph.getGraphStore();
+            Transaction targetTx = target.startTransaction(targetGraph);
+            // a copy left by an interrupted move may miss what was written to the record since
+            getRecordVertices(targetGraph, uuid).forEach(Vertex::remove);
+            copyRecord(sourceGraph, targetGraph, target, uuid);
+            // the record moves back to a shard it was moved away from
+            getRelocations(targetGraph, uuid).forEach(Vertex::remove);
+            target.commitTransaction(targetGraph, targetTx);
+        }
+
+        Transaction sourceTx = source.startTransaction(sourceGraph);
+        getRecordVertices(sourceGraph, uuid).forEach(Vertex::remove);
+        getRelocations(sourceGraph, uuid).forEach(Vertex::remove);
+        Vertex relocated = sourceGraph.addVertex(Constants.RELOCATED_KEYWORD);
+        relocated.property(Constants.RELOCATED_UUID, uuid);
+        relocated.property(Constants.RELOCATED_SHARD_LABEL, targetLabel);
+        source.commitTransaction(sourceGraph, sourceTx);
+        logger.debug("Moved record {} to shard {}", uuid, targetLabel);
+    }
+
+    private static List<Vertex> getRelocations(Graph graph, String uuid) {
+        return graph.traversal().V().hasLabel(Constants.RELOCATED_KEYWORD).has(Constants.RELOCATED_UUID, uuid).toList();
+    }
+
+    /**
+     * Copies the vertices of the record and the edges between them, with all their properties.
+     * The edges to vertices outside the record are connected to the same vertices on the target:
+     * the parent group vertex of the entity type, created when missing, or the vertex of the
+     * other record when it is there too.
+     */
+    private void copyRecord(Graph sourceGraph, Graph targetGraph, DatabaseProvider target, String uuid) {
+        Map<Object, Vertex> copies = new HashMap<>();
+        List<Vertex> vertices = getRecordVertices(sourceGraph, uuid);
+        for (Vertex vertex : vertices) {
+            Vertex copy = targetGraph.addVertex(vertex.label());
+            vertex.properties().forEachRemaining(property -> copy.property(property.key(), property.value()));
+            copies.put(vertex.id(), copy);
+        }
+        for (Vertex vertex : vertices) {
+            vertex.edges(Direction.OUT).forEachRemaining(edge -> copyEdge(edge, copies, targetGraph, target));
+            vertex.edges(Direction.IN).forEachRemaining(edge -> {
+                // the edges within the record are copied from their out vertex
+                if (!copies.containsKey(edge.outVertex().id())) {
+                    copyEdge(edge, copies, targetGraph, target);
+                }
+            });
+        }
+    }
+
+    private void copyEdge(Edge edge, Map<Object, Vertex> copies, Graph targetGraph, DatabaseProvider target) {
+        Vertex outCopy = copies.containsKey(edge.outVertex().id()) ? copies.get(edge.outVertex().id())
+                : findOnTarget(edge.outVertex(), targetGraph, target);
+        Vertex inCopy = copies.containsKey(edge.inVertex().id()) ? copies.get(edge.inVertex().id())
+                : findOnTarget(edge.inVertex(), targetGraph, target);
+        if (outCopy == null || inCopy == null) {
+            logger.warn("Edge {} of the moved record not copied, its other vertex is not on the target shard", edge.label());
+            return;
+        }
+        Edge copy = outCopy.addEdge(edge.label(), inCopy);
+        edge.properties().forEachRemaining(property -> copy.property(property.key(), property.value()));
+    }
+
+    private Vertex findOnTarget(Vertex vertex, Graph targetGraph, DatabaseProvider target) {
+        if (RefLabelHelper.isParentLabel(vertex.label())) {
+            return new VertexWriter(targetGraph, target, uuidPropertyName).ensureParentVertex(vertex.label());
+        }
+        VertexProperty<Object> uuid = vertex.property(uuidPropertyName);
+        if (!uuid.isPresent()) {
+            return null;
+        }
+        return targetGraph.traversal().V().hasLabel(vertex.label()).has(uuidPropertyName, uuid.value()).tryNext().orElse(null);
+    }
+
+    private List<Vertex> getRecordVertices(Graph graph, String uuid) {
+        List<Vertex> vertices = graph.traversal().V().has(uuidPropertyName, uuid).hasNot(Constants.ROOT_KEYWORD)
+                .hasLabel(P.within(entityTypes)).toList();
+        vertices.addAll(graph.traversal().V().has(Constants.ROOT_KEYWORD, uuid).toList());
+        return vertices;
+    }
+}
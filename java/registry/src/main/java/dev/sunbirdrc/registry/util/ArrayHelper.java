@@ -1,12 +1,15 @@
 package dev.sunbirdrc.registry.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -107,4 +110,89 @@ public class ArrayHelper {
         }
         return arrNode;
     }
+
+    /**
+     * Converts an array of values into a native array that the graph databases can store as a
+     * property, String[], long[], double[] or boolean[]. An empty array is a String[].
+     * @param arrayNode example, ["social", "english"] or [1,2,3]
+     * @return the native array, or null when the items are objects, arrays or of mixed types
+     */
+    public static Object toNativeArray(ArrayNode arrayNode) {
+        int size = arrayNode.size();
+        if (size == 0 || allMatch(arrayNode, JsonNode::isTextual)) {
+            String[] values = new String[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = arrayNode.get(i).textValue();
+            }
+            return values;
+        } else if (allMatch(arrayNode, JsonNode::isIntegralNumber)) {
+            long[] values = new long[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = arrayNode.get(i).asLong();
+            }
+            return values;
+        } else if (allMatch(arrayNode, JsonNode::isNumber)) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = arrayNode.get(i).asDouble();
+            }
+            return values;
+        } else if (allMatch(arrayNode, JsonNode::isBoolean)) {
+            boolean[] values = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = arrayNode.get(i).asBoolean();
+            }
+            return values;
+        }
+        return null;
+    }
+
+    private static boolean allMatch(ArrayNode arrayNode, Predicate<JsonNode> predicate) {
+        for (JsonNode item : arrayNode) {
+            if (!predicate.test(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flags whether a value read from the database is a native array
+     * @param value
+     * @return
+     */
+    public static boolean isNativeArray(Object value) {
+        return value != null && value.getClass().isArray();
+    }
+
+    /**
+     * Converts a native array read from the database back into an array of values
+     * @param array a String[], long[], double[] or boolean[]
+     * @return
+     */
+    public static ArrayNode toArrayNode(Object array) {
+        ArrayNode arrNode = JsonNodeFactory.instance.arrayNode();
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            Object item = Array.get(array, i);
+            if (item instanceof String) {
+                arrNode.add((String) item);
+            } else if (item instanceof Boolean) {
+                arrNode.add((Boolean) item);
+            } else if (item instanceof Double || item instanceof Float) {
+                arrNode.add(((Number) item).doubleValue());
+            } else if (item instanceof Number) {
+                // ints as read from the string storage
+                long value = ((Number) item).longValue();
+                if (value == (int) value) {
+                    arrNode.add((int) value);
+                } else {
+                    arrNode.add(value);
+                }
+            } else if (item != null) {
+                arrNode.add(item.toString());
+            }
+        }
+        return arrNode;
+    }
 }
@@ -15,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class ClaimRequestClient {
@@ -23,6 +24,7 @@ public class ClaimRequestClient {
     private final RestTemplate restTemplate;
     private static final String CLAIMS_PATH = "/api/v1/claims";
     private static final String FETCH_CLAIMS_PATH = "/api/v1/getClaims";
+    private static final String SEARCH_CLAIMS_PATH = "/api/v1/claims/search";
 
     ClaimRequestClient(@Value("${claims.url}") String claimRequestUrl, RestTemplate restTemplate) {
         this.claimRequestUrl = claimRequestUrl;
@@ -42,6 +44,23 @@ public class ClaimRequestClient {
         return restTemplate.postForObject(claimRequestUrl + FETCH_CLAIMS_PATH, requestBody, JsonNode.class);
     }
 
+    /**
+     * Fetches a page of the claims, the response carries the claims and the nextCursor of the next page
+     *
+     * @param filters - the status, property, cursor and limit of the page, null values are left out
+     */
+    public JsonNode searchClaims(JsonNode jsonNode, String entityName, Map<String, Object> filters) {
+        ObjectNode requestBody = JsonNodeFactory.instance.objectNode();
+        requestBody.set("attestorInfo", jsonNode);
+        requestBody.put("entity", entityName);
+        filters.forEach((key, value) -> {
+            if (value != null) {
+                requestBody.putPOJO(key, value);
+            }
+        });
+        return restTemplate.postForObject(claimRequestUrl + SEARCH_CLAIMS_PATH, requestBody, JsonNode.class);
+    }
+
     public JsonNode getClaim(JsonNode jsonNode, String entityName, String claimId) {
         ObjectNode requestBody = JsonNodeFactory.instance.objectNode();
         requestBody.set("attestorInfo", jsonNode);
@@ -14,6 +14,8 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import static dev.sunbirdrc.registry.Constants.TITLE;
 
@@ -24,6 +26,7 @@ public class DefinitionsManager {
 
     private Map<String, Definition> definitionMap = new HashMap<>();
     private Map<String, Definition> derivedDefinitionMap = new HashedMap();
+    private List<Consumer<Definition>> definitionListeners = new CopyOnWriteArrayList<>();
 
     private OSResourceLoader osResourceLoader;
 
@@ -119,18 +122,25 @@ public class DefinitionsManager {
     public Map<String, Set<String>> getPublicFieldsInfoMap() {
         Map<String, Set<String>> result = new HashMap<>();
         for (String index : getAllKnownDefinitions()) {
-            List<String> publicFields = getDefinition(index)
-                    .getOsSchemaConfiguration()
-                    .getPublicFields();
-            if (publicFields != null) {
-                result.put(index.toLowerCase(), new HashSet<>(publicFields));
-            } else {
-                result.put(index.toLowerCase(), Collections.emptySet());
-            }
+            result.put(index.toLowerCase(), getPublicFields(getDefinition(index)));
         }
         return result;
     }
 
+    /**
+     * Returns the public fields of the definition
+     *
+     * @param definition
+     * @return
+     */
+    public Set<String> getPublicFields(Definition definition) {
+        List<String> publicFields = definition.getOsSchemaConfiguration().getPublicFields();
+        if (publicFields != null) {
+            return new HashSet<>(publicFields);
+        }
+        return Collections.emptySet();
+    }
+
     ;
 
     /**
@@ -141,18 +151,23 @@ public class DefinitionsManager {
     public Map<String, Set<String>> getExcludingFields() {
         Map<String, Set<String>> result = new HashMap<>();
         for (String index : getAllKnownDefinitions()) {
-            List<String> internalFields = getDefinition(index)
-                    .getOsSchemaConfiguration()
-                    .getInternalFields();
-            List<String> privateFields = getDefinition(index)
-                    .getOsSchemaConfiguration()
-                    .getPrivateFields();
-            internalFields.addAll(privateFields);
-            result.put(index.toLowerCase(), new HashSet<>(internalFields));
+            result.put(index.toLowerCase(), getExcludingFields(getDefinition(index)));
         }
         return result;
     }
 
+    /**
+     * Returns the internal and private fields of the definition
+     *
+     * @param definition
+     * @return
+     */
+    public Set<String> getExcludingFields(Definition definition) {
+        Set<String> excludingFields = new HashSet<>(definition.getOsSchemaConfiguration().getInternalFields());
+        excludingFields.addAll(definition.getOsSchemaConfiguration().getPrivateFields());
+        return excludingFields;
+    }
+
     public List<OwnershipsAttributes> getOwnershipAttributes(String entity) {
         Definition entityDefinition = definitionMap.get(entity);
         if (entityDefinition != null) {
@@ -183,11 +198,21 @@ public class DefinitionsManager {
                     + definition.getOsSchemaConfiguration().getPrivateFields().size() + " & signed fields size:"
                     + definition.getOsSchemaConfiguration().getSignedFields().size());
             definitionMap.put(definition.getTitle(), definition);
+            definitionListeners.forEach(listener -> listener.accept(definition));
         } catch (Exception e) {
             logger.error("Failed loading schema from DB", e);
         }
     }
 
+    /**
+     * Registers a listener called with every definition appended after the definitions are loaded
+     *
+     * @param listener
+     */
+    public void addDefinitionListener(Consumer<Definition> listener) {
+        definitionListeners.add(listener);
+    }
+
     public void removeDefinition(JsonNode jsonNode) {
         try {
             String schemaAsText = jsonNode.asText("{}");
@@ -0,0 +1,296 @@
+package dev.sunbirdrc.registry.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.elastic.IndexTemplate;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Derives the elastic-search index template of an entity type from its definition. Strings are
+ * mapped as dates when their format is a date, as keywords when they are enums or identifiers and
+ * as text otherwise; the keywords of the schema can also be searched as text, see
+ * {@link IndexTemplate#searchableKeywordField()}; integers as longs and numbers as doubles. The private and internal fields are
+ * not indexed. Fields the schema does not describe are left to the dynamic mapping.
+ */
+@Component
+public class IndexTemplateGenerator {
+    private static Logger logger = LoggerFactory.getLogger(IndexTemplateGenerator.class);
+
+    private static final String DEFINITIONS = "definitions";
+    private static final String PROPERTIES = "properties";
+    private static final String REF = "$ref";
+    private static final String TYPE = "type";
+    private static final String ITEMS = "items";
+    private static final String FORMAT = "format";
+    private static final String ENUM = "enum";
+    private static final String JSON_PATH_ROOT = "$.";
+    private static final Set<String> DATE_FORMATS = new HashSet<>(Arrays.asList("date", "date-time"));
+    private static final Set<String> KEYWORD_FORMATS = new HashSet<>(Arrays.asList("email", "uri", "uuid", "hostname", "ipv4", "ipv6"));
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${database.uuidPropertyName}")
+    private String uuidPropertyName;
+
+    @Value("${conditionalAccess.internal}")
+    private String internalFieldsProp;
+
+    @Value("${conditionalAccess.private}")
+    private String privateFieldsProp;
+
+    /**
+     * Returns the template of every known definition, by the name of the definition
+     */
+    public Map<String, IndexTemplate> generateAll() {
+        Map<String, IndexTemplate> templates = new HashMap<>();
+        for (String name : definitionsManager.getAllKnownDefinitions()) {
+            templates.put(name, generate(definitionsManager.getDefinition(name)));
+        }
+        return templates;
+    }
+
+    /**
+     * Returns the fields returned by the public searches of every known definition, by the index of the definition
+     */
+    public Map<String, Set<String>> getAllSourceIncludes() {
+        Map<String, Set<String>> includes = new HashMap<>();
+        for (String name : definitionsManager.getAllKnownDefinitions()) {
+            includes.put(name.toLowerCase(), getSourceIncludes(definitionsManager.getDefinition(name)));
+        }
+        return includes;
+    }
+
+    /**
+     * Returns the public fields of the definition, along with the identifier the searches are paged
+     * by and the lists of the fields each record hides. Empty, for all the fields, when the
+     * definition has no public fields.
+     */
+    public Set<String> getSourceIncludes(Definition definition) {
+        Set<String> publicFields = definitionsManager.getPublicFields(definition);
+        if (publicFields.isEmpty()) {
+            return publicFields;
+        }
+        Set<String> includes = new LinkedHashSet<>(publicFields);
+        includes.addAll(Arrays.asList(uuidPropertyName, internalFieldsProp, privateFieldsProp));
+        return includes;
+    }
+
+    public IndexTemplate generate(Definition definition) {
+        Mapping mapping = new Mapping(definitionsManager.getExcludingFields(definition));
+        ObjectNode properties = JsonNodeFactory.instance.objectNode();
+        addSystemFields(properties, mapping);
+        try {
+            JsonNode schema = objectMapper.readTree(definition.getContent());
+            addProperties(properties, schema.path(DEFINITIONS).path(definition.getTitle()), schema, "", mapping, new HashSet<>());
+        } catch (IOException e) {
+            logger.error("Reading the schema of {} failed, its fields are mapped dynamically", definition.getTitle(), e);
+        }
+        return new IndexTemplate(properties, mapping.keywordFields, mapping.textFields, mapping.searchableKeywordFields);
+    }
+
+    private void addSystemFields(ObjectNode properties, Mapping mapping) {
+        for (String field : Arrays.asList(uuidPropertyName, OSSystemFields.osOwner.name(), OSSystemFields.osCreatedBy.name(),
+                OSSystemFields.osUpdatedBy.name(), OSSystemFields._osState.name(), OSSystemFields._osClaimId.name(),
+                OSSystemFields._osSignatureStatus.name(), Constants.STATUS_KEYWORD)) {
+            properties.set(field, mapping.keyword(field));
+        }
+        for (String field : Arrays.asList(OSSystemFields.osCreatedAt.name(), OSSystemFields.osUpdatedAt.name())) {
+            properties.set(field, dateField());
+        }
+        for (String field : Arrays.asList(OSSystemFields._osSignedData.name(), OSSystemFields._osAttestedData.name())) {
+            properties.set(field, notIndexed(IndexTemplate.textField()));
+        }
+    }
+
+    private void addProperties(ObjectNode properties, JsonNode objectSchema, JsonNode schema, String path,
+                               Mapping mapping, Set<String> visiting) {
+        objectSchema.path(PROPERTIES).fields().forEachRemaining(field -> {
+            String fieldPath = path.isEmpty() ? field.getKey() : path + "." + field.getKey();
+            ObjectNode fieldMapping = mapField(field.getValue(), schema, fieldPath, mapping, visiting);
+            if (fieldMapping != null) {
+                properties.set(field.getKey(), fieldMapping);
+            }
+        });
+    }
+
+    /**
+     * @return the mapping of the field, null to leave it to the dynamic mapping
+     */
+    private ObjectNode mapField(JsonNode fieldSchema, JsonNode schema, String path, Mapping mapping, Set<String> visiting) {
+        if (fieldSchema.has(REF)) {
+            String ref = fieldSchema.get(REF).asText();
+            JsonNode refSchema = resolveSchema(ref, schema);
+            JsonNode refNode = resolveRef(ref, refSchema);
+            if (refNode.isMissingNode() || !visiting.add(ref)) {
+                logger.debug("{} of {} is mapped dynamically", ref, path);
+                return null;
+            }
+            ObjectNode fieldMapping = mapField(refNode, refSchema, path, mapping, visiting);
+            visiting.remove(ref);
+            return fieldMapping;
+        }
+        String type = getType(fieldSchema);
+        if ("array".equals(type)) {
+            return fieldSchema.has(ITEMS) ? mapField(fieldSchema.get(ITEMS), schema, path, mapping, visiting) : null;
+        }
+        if ("object".equals(type) || fieldSchema.has(PROPERTIES)) {
+            if (mapping.isExcluded(path)) {
+                return JsonNodeFactory.instance.objectNode().put(TYPE, "object").put("enabled", false);
+            }
+            ObjectNode properties = JsonNodeFactory.instance.objectNode();
+            properties.set(uuidPropertyName, mapping.keyword(path + "." + uuidPropertyName));
+            addProperties(properties, fieldSchema, schema, path, mapping, visiting);
+            ObjectNode objectMapping = JsonNodeFactory.instance.objectNode();
+            objectMapping.set(PROPERTIES, properties);
+            return objectMapping;
+        }
+        ObjectNode fieldMapping = mapScalar(type, fieldSchema, path, mapping);
+        if (fieldMapping != null && mapping.isExcluded(path)) {
+            mapping.keywordFields.remove(path);
+            mapping.textFields.remove(path);
+            mapping.searchableKeywordFields.remove(path);
+            return notIndexed(fieldMapping);
+        }
+        return fieldMapping;
+    }
+
+    private ObjectNode mapScalar(String type, JsonNode fieldSchema, String path, Mapping mapping) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case "string":
+                String format = fieldSchema.path(FORMAT).asText();
+                if (DATE_FORMATS.contains(format)) {
+                    return dateField();
+                }
+                if (fieldSchema.has(ENUM) || KEYWORD_FORMATS.contains(format)) {
+                    return mapping.searchableKeyword(path);
+                }
+                return mapping.text(path);
+            case "integer":
+                return JsonNodeFactory.instance.objectNode().put(TYPE, "long");
+            case "number":
+                return JsonNodeFactory.instance.objectNode().put(TYPE, "double");
+            case "boolean":
+                return JsonNodeFactory.instance.objectNode().put(TYPE, "boolean");
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the type of the field, the first one other than null when it has several
+     */
+    private static String getType(JsonNode fieldSchema) {
+        JsonNode type = fieldSchema.get(TYPE);
+        if (type == null) {
+            return null;
+        }
+        if (type.isArray()) {
+            for (JsonNode option : type) {
+                if (!"null".equals(option.asText())) {
+                    return option.asText();
+                }
+            }
+            return null;
+        }
+        return type.asText();
+    }
+
+    /**
+     * @return the schema the ref points in, another definition when the ref names its file
+     */
+    private JsonNode resolveSchema(String ref, JsonNode schema) {
+        int fragment = ref.indexOf('#');
+        String file = fragment < 0 ? ref : ref.substring(0, fragment);
+        if (file.isEmpty()) {
+            return schema;
+        }
+        String name = file.replaceAll("/$", "").replaceAll("\\.json$", "");
+        name = name.substring(name.lastIndexOf('/') + 1);
+        Definition definition = definitionsManager.getDefinition(name);
+        if (definition == null) {
+            return JsonNodeFactory.instance.missingNode();
+        }
+        try {
+            return objectMapper.readTree(definition.getContent());
+        } catch (IOException e) {
+            return JsonNodeFactory.instance.missingNode();
+        }
+    }
+
+    private static JsonNode resolveRef(String ref, JsonNode schema) {
+        int fragment = ref.indexOf('#');
+        if (fragment < 0) {
+            return schema;
+        }
+        return schema.at(ref.substring(fragment + 1));
+    }
+
+    private static ObjectNode dateField() {
+        return JsonNodeFactory.instance.objectNode().put(TYPE, "date").put("ignore_malformed", true);
+    }
+
+    private static ObjectNode notIndexed(ObjectNode fieldMapping) {
+        fieldMapping.remove("fields");
+        fieldMapping.remove("ignore_malformed");
+        return fieldMapping.put("index", false);
+    }
+
+    /**
+     * The fields mapped so far
+     */
+    private static class Mapping {
+        private final Set<String> excludedPaths = new HashSet<>();
+        private final Set<String> keywordFields = new LinkedHashSet<>();
+        private final Set<String> textFields = new LinkedHashSet<>();
+        private final Set<String> searchableKeywordFields = new LinkedHashSet<>();
+
+        Mapping(Set<String> excludedFields) {
+            for (String field : excludedFields) {
+                excludedPaths.add(field.startsWith(JSON_PATH_ROOT) ? field.substring(JSON_PATH_ROOT.length()) : field);
+            }
+        }
+
+        boolean isExcluded(String path) {
+            return excludedPaths.contains(path);
+        }
+
+        ObjectNode keyword(String path) {
+            keywordFields.add(path);
+            return IndexTemplate.keywordField();
+        }
+
+        ObjectNode searchableKeyword(String path) {
+            keywordFields.add(path);
+            searchableKeywordFields.add(path);
+            return IndexTemplate.searchableKeywordField();
+        }
+
+        ObjectNode text(String path) {
+            textFields.add(path);
+            return IndexTemplate.textField();
+        }
+    }
+}
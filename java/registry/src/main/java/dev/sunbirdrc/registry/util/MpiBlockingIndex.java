@@ -0,0 +1,282 @@
+package dev.sunbirdrc.registry.util;
+
+import dev.healthflow.registry.validators.ArabicNameNormalizer;
+import dev.healthflow.registry.validators.EgyptNationalIdValidator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory candidate blocking index of the Master Patient Index (MPI).
+ *
+ * Every record is filed under a few block keys, made of the phonetic codes of its normalized
+ * name tokens and of the birth year and governorate in its national id. Looking for duplicates
+ * of a name only scores the records sharing a block key with it, instead of every record.
+ * The block keys of a record are
+ * - N|first|second: codes of the first two name tokens (given and father name)
+ * - D|year|governorate|code: birth year and governorate with the code of either of the first
+ *   two name tokens, catching typos in the other one
+ * - I|nationalId: the national id itself
+ */
+public class MpiBlockingIndex {
+
+    private static final String NAME_BLOCK = "N|";
+    private static final String DEMOGRAPHIC_BLOCK = "D|";
+    private static final String NATIONAL_ID_BLOCK = "I|";
+    private static final String ENGLISH_VOWELS = "aeiouy";
+
+    private final double minScore;
+    private final int maxCandidates;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param minScore      - candidates scoring less are left out, unless their national id matches
+     * @param maxCandidates - the number of best scoring candidates returned
+     */
+    public MpiBlockingIndex(double minScore, int maxCandidates) {
+        this.minScore = minScore;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Adds the record, or moves it to its new blocks if it was already added
+     */
+    public void put(String id, String name, String nationalId) {
+        ArabicNameNormalizer.NormalizedName normalizedName = normalize(name);
+        Entry entry = new Entry(name, normalizedName, cleanNationalId(nationalId), blockKeys(normalizedName, nationalId));
+        entries.compute(id, (key, previous) -> {
+            if (previous != null) {
+                for (String blockKey : previous.blockKeys) {
+                    if (!entry.blockKeys.contains(blockKey)) {
+                        unblock(blockKey, id);
+                    }
+                }
+            }
+            for (String blockKey : entry.blockKeys) {
+                block(blockKey, id);
+            }
+            return entry;
+        });
+    }
+
+    public void remove(String id) {
+        entries.computeIfPresent(id, (key, previous) -> {
+            for (String blockKey : previous.blockKeys) {
+                unblock(blockKey, id);
+            }
+            return null;
+        });
+    }
+
+    public void clear() {
+        entries.clear();
+        blocks.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns the ids of the records sharing a block key with the name and national id, these
+     * are the only records findCandidates scores.
+     */
+    public Set<String> getBlockedIds(String name, String nationalId) {
+        return getBlockedIds(normalize(name), nationalId);
+    }
+
+    private Set<String> getBlockedIds(ArabicNameNormalizer.NormalizedName normalizedName, String nationalId) {
+        Set<String> ids = new HashSet<>();
+        for (String blockKey : blockKeys(normalizedName, nationalId)) {
+            Set<String> blocked = blocks.get(blockKey);
+            if (blocked != null) {
+                ids.addAll(blocked);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the records likely to be the same patient, best first
+     *
+     * @param name       - the name, Arabic or transliterated
+     * @param nationalId - the national id, may be null
+     * @return the candidates scoring at least minScore or having the same national id
+     */
+    public List<Candidate> findCandidates(String name, String nationalId) {
+        String cleanNationalId = cleanNationalId(nationalId);
+        // normalized once instead of for every candidate, as calculateNameSimilarity would
+        ArabicNameNormalizer.NormalizedName normalizedName = normalize(name);
+        List<Candidate> candidates = new ArrayList<>();
+        for (String id : getBlockedIds(normalizedName, nationalId)) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                // removed since it was blocked
+                continue;
+            }
+            double score = score(normalizedName, entry.normalizedName);
+            boolean nationalIdMatch = cleanNationalId != null && cleanNationalId.equals(entry.nationalId);
+            if (score >= minScore || nationalIdMatch) {
+                candidates.add(new Candidate(id, entry.name, score, nationalIdMatch));
+            }
+        }
+        candidates.sort(Comparator.comparing(Candidate::isNationalIdMatch)
+                .thenComparingDouble(Candidate::getScore).reversed());
+        return candidates.size() > maxCandidates ? new ArrayList<>(candidates.subList(0, maxCandidates)) : candidates;
+    }
+
+    /**
+     * The Jaro-Winkler similarity of the normalized names, boosted when the Arabic soundex codes
+     * of both names match, the same score as ArabicNameNormalizer.calculateNameSimilarity
+     */
+    private static double score(ArabicNameNormalizer.NormalizedName name, ArabicNameNormalizer.NormalizedName other) {
+        double jaroWinkler = ArabicNameNormalizer.jaroWinkler(name.getNormalized(), other.getNormalized());
+        if (name.getSoundex() != null && !name.getSoundex().isEmpty() && name.getSoundex().equals(other.getSoundex())) {
+            return Math.max(jaroWinkler, 0.85);
+        }
+        return jaroWinkler;
+    }
+
+    private void block(String blockKey, String id) {
+        blocks.compute(blockKey, (key, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    private void unblock(String blockKey, String id) {
+        blocks.computeIfPresent(blockKey, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> blockKeys(ArabicNameNormalizer.NormalizedName normalizedName, String nationalId) {
+        Set<String> blockKeys = new LinkedHashSet<>();
+        List<String> codes = nameCodes(normalizedName);
+        if (!codes.isEmpty()) {
+            blockKeys.add(NAME_BLOCK + String.join("|", codes));
+        }
+        String cleanNationalId = cleanNationalId(nationalId);
+        if (cleanNationalId != null) {
+            blockKeys.add(NATIONAL_ID_BLOCK + cleanNationalId);
+            // validated once, extractBirthDate and extractGovernorate would validate it twice
+            EgyptNationalIdValidator.ValidationResult result = EgyptNationalIdValidator.validate(cleanNationalId);
+            if (result.isValid()) {
+                String demographic = DEMOGRAPHIC_BLOCK + result.getBirthDate().getYear() + "|" + result.getGovernorateCode() + "|";
+                for (String code : codes) {
+                    blockKeys.add(demographic + code);
+                }
+            }
+        }
+        return blockKeys;
+    }
+
+    /**
+     * Normalizes the name as Arabic or as transliterated, only Arabic names have a soundex code
+     */
+    private static ArabicNameNormalizer.NormalizedName normalize(String name) {
+        if (name != null && ArabicNameNormalizer.isArabic(name)) {
+            return ArabicNameNormalizer.normalizeArabicName(name);
+        }
+        return ArabicNameNormalizer.normalizeEnglishName(name == null ? null : name.trim());
+    }
+
+    /**
+     * Phonetic codes of the first two tokens of the normalized name
+     */
+    private static List<String> nameCodes(ArabicNameNormalizer.NormalizedName normalizedName) {
+        boolean arabic = normalizedName.getSoundex() != null;
+        List<String> codes = new ArrayList<>(2);
+        for (String part : normalizedName.getParts()) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            codes.add(arabic ? ArabicNameNormalizer.arabicSoundex(part) : englishCode(part));
+            if (codes.size() == 2) {
+                break;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * The first letter followed by the consonants, repeated ones once, so that the usual
+     * transliterations of a name (Mohamed, Mohammed, Muhammad) share a code
+     */
+    static String englishCode(String token) {
+        String lowerCase = token.toLowerCase(Locale.ROOT);
+        StringBuilder code = new StringBuilder().append(lowerCase.charAt(0));
+        char last = lowerCase.charAt(0);
+        for (int i = 1; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            if (Character.isLetter(c) && ENGLISH_VOWELS.indexOf(c) < 0 && c != last) {
+                code.append(c);
+                last = c;
+            }
+        }
+        return code.toString();
+    }
+
+    private static String cleanNationalId(String nationalId) {
+        if (nationalId == null) {
+            return null;
+        }
+        String clean = nationalId.replaceAll("[\\s-]", "");
+        return clean.isEmpty() ? null : clean;
+    }
+
+    private static class Entry {
+        private final String name;
+        private final String nationalId;
+        private final Set<String> blockKeys;
+
+        private final ArabicNameNormalizer.NormalizedName normalizedName;
+
+        Entry(String name, ArabicNameNormalizer.NormalizedName normalizedName, String nationalId, Set<String> blockKeys) {
+            this.name = name;
+            this.normalizedName = normalizedName;
+            this.nationalId = nationalId;
+            this.blockKeys = blockKeys;
+        }
+    }
+
+    public static class Candidate {
+        private final String id;
+        private final String name;
+        private final double score;
+        private final boolean nationalIdMatch;
+
+        public Candidate(String id, String name, double score, boolean nationalIdMatch) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+            this.nationalIdMatch = nationalIdMatch;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public boolean isNationalIdMatch() {
+            return nationalIdMatch;
+        }
+    }
+}
@@ -1,17 +1,19 @@
 package dev.sunbirdrc.registry.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.registry.exception.EncryptionException;
 import dev.sunbirdrc.registry.middleware.util.Constants;
 import dev.sunbirdrc.registry.service.EncryptionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +22,8 @@ public class PrivateField {
     public EncryptionService encryptionService;
     @Autowired
     public DefinitionsManager definitionsManager;
+    @Value("${encryption.maxBatchSize:100}")
+    private int maxBatchSize;
     private Logger logger = LoggerFactory.getLogger(PrivateField.class);
 
     /**
@@ -66,38 +70,38 @@ public class PrivateField {
         return null;
     }
 
-    protected JsonNode processPrivateFields(JsonNode element, String rootDefinitionName, String childFieldName) throws EncryptionException {
-        JsonNode tempElement = element;
-        Definition definition = definitionsManager.getDefinition(rootDefinitionName);;
+    /**
+     * Returns the private fields of the definition the element belongs to, null if the definition is not known
+     */
+    private List<String> getPrivatePropertyList(String rootDefinitionName, String childFieldName) {
+        Definition definition = definitionsManager.getDefinition(rootDefinitionName);
+        if (null == definition) {
+            logger.debug("Cannot get definition {}", rootDefinitionName);
+            return null;
+        }
         if (null != childFieldName) {
             String defnName = definition.getDefinitionNameForField(childFieldName);
             Definition childDefinition = definitionsManager.getDefinition(defnName);
             if (null == childDefinition) {
                 logger.error("Cannot get child name definition {}", childFieldName);
-                return element;
+                return null;
             }
             definition = childDefinition;
         }
-
-        List<String> privatePropertyLst = definition.getOsSchemaConfiguration().getPrivateFields();
-        Map<String, Object> plainMap = getPrivateFields(element, privatePropertyLst);
-        if (null != plainMap && !plainMap.isEmpty()) {
-            Map<String, Object> encodedMap = performOperation(plainMap);
-            tempElement = replacePrivateFields(element, privatePropertyLst, encodedMap);
-        }
-        return tempElement;
+        return definition.getOsSchemaConfiguration().getPrivateFields();
     }
 
-    private void processArray(ArrayNode arrayNode, String rootFieldName, String fieldName) throws EncryptionException {
-        for (JsonNode jsonNode : arrayNode) {
-            if (jsonNode.isObject()) {
-                process(jsonNode, rootFieldName, fieldName);
-            }
+    /**
+     * Walks the element and its children and collects the private values in the document, keyed
+     * by their JSON pointer
+     */
+    private void collect(JsonNode jsonNode, String rootFieldName, String fieldName, String pointer,
+                         Map<String, PrivateValue> privateValues) {
+        List<String> privatePropertyLst = getPrivatePropertyList(rootFieldName, fieldName);
+        if (null != privatePropertyLst && !privatePropertyLst.isEmpty()) {
+            getPrivateFields(jsonNode, privatePropertyLst).forEach((key, value) ->
+                    privateValues.put(pointer + "/" + escape(key), new PrivateValue((ObjectNode) jsonNode, key, value)));
         }
-    }
-
-    protected JsonNode process(JsonNode jsonNode, String rootFieldName, String fieldName) throws EncryptionException {
-        processPrivateFields(jsonNode, rootFieldName, fieldName);
 
         String tempFieldName = fieldName;
         if (null == tempFieldName) {
@@ -105,29 +109,83 @@ public class PrivateField {
         }
 
         JsonNode toProcess = jsonNode;
+        String toProcessPointer = pointer;
         JsonNode childNode = jsonNode.get(tempFieldName);
         if (null != childNode) {
             toProcess = childNode;
+            toProcessPointer = pointer + "/" + escape(tempFieldName);
         }
 
         Iterator<Map.Entry<String, JsonNode>> fieldsItr = toProcess.fields();
         while (fieldsItr.hasNext()) {
-            try {
-                Map.Entry<String, JsonNode> entry = fieldsItr.next();
-                JsonNode entryValue = entry.getValue();
-                logger.debug("Processing {}.{} -> {}", tempFieldName, entry.getKey(), entry.getValue());
-                boolean isNotSignatures = !Constants.SIGNATURES_STR.equals(entry.getKey());
-
-                if (isNotSignatures && entryValue.isObject()) {
-                    // Recursive calls
-                    process(entryValue, tempFieldName, entry.getKey());
-                } else if (isNotSignatures && entryValue.isArray()) {
-                    processArray((ArrayNode) entryValue, tempFieldName, entry.getKey());
+            Map.Entry<String, JsonNode> entry = fieldsItr.next();
+            JsonNode entryValue = entry.getValue();
+            String entryPointer = toProcessPointer + "/" + escape(entry.getKey());
+            boolean isNotSignatures = !Constants.SIGNATURES_STR.equals(entry.getKey());
+
+            if (isNotSignatures && entryValue.isObject()) {
+                collect(entryValue, tempFieldName, entry.getKey(), entryPointer, privateValues);
+            } else if (isNotSignatures && entryValue.isArray()) {
+                for (int i = 0; i < entryValue.size(); i++) {
+                    if (entryValue.get(i).isObject()) {
+                        collect(entryValue.get(i), tempFieldName, entry.getKey(), entryPointer + "/" + i, privateValues);
+                    }
                 }
-            } catch (EncryptionException e) {
-                e.printStackTrace();
             }
         }
+    }
+
+    /**
+     * Encrypts/decrypts every private value of the document with as few calls as the max batch size
+     * allows: the values are first collected by their JSON pointer, sent together and then written
+     * back in place.
+     */
+    protected JsonNode process(JsonNode jsonNode, String rootFieldName, String fieldName) throws EncryptionException {
+        Map<String, PrivateValue> privateValues = new LinkedHashMap<>();
+        collect(jsonNode, rootFieldName, fieldName, "/" + escape(rootFieldName), privateValues);
+        if (privateValues.isEmpty()) {
+            return jsonNode;
+        }
+
+        Map<String, Object> plainMap = new LinkedHashMap<>();
+        for (Map.Entry<String, PrivateValue> privateValue : privateValues.entrySet()) {
+            plainMap.put(privateValue.getKey(), privateValue.getValue().value);
+            if (maxBatchSize > 0 && plainMap.size() == maxBatchSize) {
+                replace(privateValues, plainMap);
+                plainMap = new LinkedHashMap<>();
+            }
+        }
+        if (!plainMap.isEmpty()) {
+            replace(privateValues, plainMap);
+        }
         return jsonNode;
     }
+
+    private void replace(Map<String, PrivateValue> privateValues, Map<String, Object> plainMap) throws EncryptionException {
+        Map<String, Object> encodedMap = performOperation(plainMap);
+        for (String pointer : plainMap.keySet()) {
+            Object encodedValue = null == encodedMap ? null : encodedMap.get(pointer);
+            if (null == encodedValue) {
+                throw new EncryptionException("No value returned for " + pointer);
+            }
+            PrivateValue privateValue = privateValues.get(pointer);
+            privateValue.parent.set(privateValue.fieldName, JsonNodeFactory.instance.textNode(encodedValue.toString()));
+        }
+    }
+
+    private static String escape(String fieldName) {
+        return fieldName.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static class PrivateValue {
+        private final ObjectNode parent;
+        private final String fieldName;
+        private final Object value;
+
+        PrivateValue(ObjectNode parent, String fieldName, Object value) {
+            this.parent = parent;
+            this.fieldName = fieldName;
+            this.value = value;
+        }
+    }
 }
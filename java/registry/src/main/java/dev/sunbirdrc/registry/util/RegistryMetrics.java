@@ -0,0 +1,110 @@
+package dev.sunbirdrc.registry.util;
+
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Times the entity operations into the registry.operation timer, tagged by operation, entity
+ * type, shard label and outcome. The tag values are bounded, so that the number of series
+ * does not grow with the requests: entity types which are not known definitions are tagged as
+ * other, searches only by their operation, and shards only when perf.metrics.tagShards is set.
+ * The timers publish a percentile histogram when perf.metrics.percentileHistogram is set, so
+ * that the percentiles can be aggregated across instances from the Prometheus endpoint.
+ *
+ * Usage:
+ * <pre>
+ * Timer.Sample sample = registryMetrics.start();
+ * boolean success = false;
+ * try {
+ *     ...
+ *     success = true;
+ * } finally {
+ *     registryMetrics.stop(sample, RegistryMetrics.Operation.add, entityType, shard, success);
+ * }
+ * </pre>
+ */
+@Component
+public class RegistryMetrics {
+    public static final String TIMER_NAME = "registry.operation";
+    // used for the operations not bound to a shard or an entity type, like search, and when shards are not tagged
+    public static final String ALL_SHARDS = "all";
+    public static final String ALL_ENTITY_TYPES = "all";
+    public static final String UNKNOWN_ENTITY_TYPE = "unknown";
+    // entity types which are not known definitions
+    public static final String OTHER_ENTITY_TYPE = "other";
+
+    public enum Operation {
+        add, read, update, search, delete
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+
+    @Value("${perf.metrics.tagShards:false}")
+    private boolean tagShards;
+
+    @Value("${perf.metrics.percentileHistogram:false}")
+    private boolean percentileHistogram;
+
+    public RegistryMetrics() {
+    }
+
+    public RegistryMetrics(MeterRegistry meterRegistry, DefinitionsManager definitionsManager, boolean tagShards,
+                           boolean percentileHistogram) {
+        this.meterRegistry = meterRegistry;
+        this.definitionsManager = definitionsManager;
+        this.tagShards = tagShards;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, Operation operation, String entityType, Shard shard, boolean success) {
+        stop(sample, operation, entityType, shard != null ? shard.getShardLabel() : null, success);
+    }
+
+    public void stop(Timer.Sample sample, Operation operation, String entityType, String shardLabel, boolean success) {
+        sample.stop(timer(operation, entityType, shardLabel, success));
+    }
+
+    /**
+     * Times a search, which may span entity types and shards
+     */
+    public void stop(Timer.Sample sample, Operation operation, boolean success) {
+        sample.stop(timer(operation, ALL_ENTITY_TYPES, ALL_SHARDS, success));
+    }
+
+    Timer timer(Operation operation, String entityType, String shardLabel, boolean success) {
+        return Timer.builder(TIMER_NAME)
+                .description("Time taken by the entity operations")
+                .tag("operation", operation.name())
+                .tag("entityType", getEntityTypeTag(entityType))
+                .tag("shard", !tagShards || shardLabel == null || shardLabel.isEmpty() ? ALL_SHARDS : shardLabel)
+                .tag("outcome", success ? "success" : "failure")
+                .publishPercentileHistogram(percentileHistogram)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private String getEntityTypeTag(String entityType) {
+        if (entityType == null || entityType.isEmpty()) {
+            return UNKNOWN_ENTITY_TYPE;
+        }
+        if (ALL_ENTITY_TYPES.equals(entityType) || definitionsManager.getDefinition(entityType) != null) {
+            return entityType;
+        }
+        return OTHER_ENTITY_TYPE;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.sunbirdrc.registry.util;
+
+import com.google.common.hash.Hashing;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Authentications of the bearer tokens verified so far, by the SHA-256 hash of the token, so that
+ * the signature of a token is verified once instead of on every request. An authentication is
+ * dropped once its token expires, and the least recently used one once the cache is full.
+ */
+public class VerifiedTokenCache {
+    private final Map<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * @param maxSize - number of tokens kept
+     */
+    public VerifiedTokenCache(int maxSize) {
+        this.verifiedTokens = Collections.synchronizedMap(new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * @return the authentication of the token, null when it is not verified or has expired
+     */
+    public Authentication get(String token) {
+        String key = hash(token);
+        VerifiedToken verifiedToken = verifiedTokens.get(key);
+        if (verifiedToken == null) {
+            return null;
+        }
+        if (verifiedToken.expiresAt <= System.currentTimeMillis()) {
+            verifiedTokens.remove(key);
+            return null;
+        }
+        return verifiedToken.authentication;
+    }
+
+    /**
+     * @param token          - the verified token
+     * @param authentication - the principal and roles the token was verified into
+     * @param expiresAt      - the expiry of the token, in milliseconds since the epoch
+     */
+    public void put(String token, Authentication authentication, long expiresAt) {
+        if (expiresAt > System.currentTimeMillis()) {
+            verifiedTokens.put(hash(token), new VerifiedToken(authentication, expiresAt));
+        }
+    }
+
+    public int size() {
+        return verifiedTokens.size();
+    }
+
+    private static String hash(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+
+    private static class VerifiedToken {
+        private final Authentication authentication;
+        private final long expiresAt;
+
+        VerifiedToken(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package dev.sunbirdrc.registry.config;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.sunbirdrc.registry.util.VerifiedTokenCache;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.keycloak.adapters.springboot.KeycloakAutoConfiguration;
+import org.keycloak.jose.jws.JWSBuilder;
+import org.keycloak.representations.AccessToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import javax.servlet.Filter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sends bearer token requests through the security filter chain of the stateless SecurityConfig, the
+ * tokens signed with the realm key read from the configuration and verified by the keycloak adapter.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {SecurityConfig.class, KeycloakAutoConfiguration.class,
+        CachingKeycloakAuthenticationProcessingFilterTest.PrincipalController.class},
+        properties = {"authentication.enabled=true", "authentication.tokenCache.maxSize=" +
+                CachingKeycloakAuthenticationProcessingFilterTest.MAX_SIZE,
+                "keycloak.realm=" + CachingKeycloakAuthenticationProcessingFilterTest.REALM,
+                "keycloak.resource=registry", "keycloak.bearer-only=true"})
+public class CachingKeycloakAuthenticationProcessingFilterTest {
+    static final int MAX_SIZE = 1000;
+    static final String REALM = "sunbird-rc";
+    // twenty times the cache, the million tokens run of the cache alone is in VerifiedTokenCacheTest
+    private static final int REQUESTS = MAX_SIZE * 20;
+
+    private static final KeyPair keyPair = generateKeyPair();
+    // serves the openid configuration the keycloak adapter reads the realm urls from
+    private static final HttpServer authServer = startAuthServer();
+    private static final String issuer = "http://localhost:" + authServer.getAddress().getPort() + "/auth/realms/" + REALM;
+
+    @DynamicPropertySource
+    static void keycloakServer(DynamicPropertyRegistry registry) {
+        registry.add("keycloak.auth-server-url", () -> "http://localhost:" + authServer.getAddress().getPort() + "/auth");
+        registry.add("keycloak.realm-key",
+                () -> Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+    }
+
+    @AfterClass
+    public static void stopAuthServer() {
+        authServer.stop(0);
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    @Test
+    public void shouldAuthenticateWithTheCachedTokenWithoutASession() throws Exception {
+        String token = sign("user");
+
+        assertEquals("user", authenticate(token));
+        assertEquals("user", authenticate(token));
+        assertNotNull(verifiedTokenCache.get(token));
+    }
+
+    @Test
+    public void shouldRejectATokenSignedWithAnotherKey() throws Exception {
+        AccessToken accessToken = accessToken("user");
+        String token = new JWSBuilder().jsonContent(accessToken).rsa256(generateKeyPair().getPrivate());
+
+        MvcResult result = mockMvc.perform(get("/principal").header("Authorization", "Bearer " + token)).andReturn();
+
+        assertEquals(401, result.getResponse().getStatus());
+        assertNull(verifiedTokenCache.get(token));
+    }
+
+    @Test
+    public void shouldKeepTheHeapConstantOverManyDistinctTokens() throws Exception {
+        for (int i = 0; i < MAX_SIZE * 2; i++) {
+            authenticate(sign("user" + i));
+        }
+        long usedAfterFill = usedHeap();
+
+        for (int i = MAX_SIZE * 2; i < REQUESTS; i++) {
+            authenticate(sign("user" + i));
+        }
+        long usedAfterAll = usedHeap();
+
+        assertEquals(MAX_SIZE, verifiedTokenCache.size());
+        assertTrue("heap grew by " + (usedAfterAll - usedAfterFill) + " bytes",
+                usedAfterAll - usedAfterFill < 16 * 1024 * 1024);
+    }
+
+    /**
+     * @return the name of the principal the request is authenticated as, once checked that no session was created
+     */
+    private String authenticate(String token) throws Exception {
+        MvcResult result = mockMvc.perform(get("/principal").header("Authorization", "Bearer " + token)).andReturn();
+        assertEquals(200, result.getResponse().getStatus());
+        assertNull(result.getRequest().getSession(false));
+        return result.getResponse().getContentAsString();
+    }
+
+    private static String sign(String subject) {
+        return new JWSBuilder().jsonContent(accessToken(subject)).rsa256(keyPair.getPrivate());
+    }
+
+    private static AccessToken accessToken(String subject) {
+        AccessToken accessToken = new AccessToken();
+        accessToken.id(subject);
+        accessToken.type("Bearer");
+        accessToken.issuer(issuer);
+        accessToken.subject(subject);
+        accessToken.issuedNow();
+        accessToken.exp(System.currentTimeMillis() / 1000 + 3600);
+        accessToken.setRealmAccess(new AccessToken.Access().addRole("admin"));
+        return accessToken;
+    }
+
+    private static HttpServer startAuthServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/auth/realms/" + REALM + "/.well-known/openid-configuration", exchange -> {
+                String realmUrl = "http://localhost:" + server.getAddress().getPort() + "/auth/realms/" + REALM;
+                byte[] configuration = ("{\"issuer\": \"" + realmUrl + "\", " +
+                        "\"authorization_endpoint\": \"" + realmUrl + "/protocol/openid-connect/auth\", " +
+                        "\"token_endpoint\": \"" + realmUrl + "/protocol/openid-connect/token\", " +
+                        "\"end_session_endpoint\": \"" + realmUrl + "/protocol/openid-connect/logout\", " +
+                        "\"jwks_uri\": \"" + realmUrl + "/protocol/openid-connect/certs\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, configuration.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(configuration);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @RestController
+    static class PrincipalController {
+        @GetMapping("/principal")
+        public String principal(Principal principal) {
+            return principal.getName();
+        }
+    }
+}
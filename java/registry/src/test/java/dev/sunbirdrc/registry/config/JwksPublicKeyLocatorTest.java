@@ -0,0 +1,80 @@
+package dev.sunbirdrc.registry.config;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class JwksPublicKeyLocatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File jwksFile;
+    private RSAPublicKey firstKey;
+    private RSAPublicKey rotatedKey;
+
+    @Before
+    public void setUp() throws Exception {
+        jwksFile = folder.newFile("jwks.json");
+        firstKey = generateKey();
+        rotatedKey = generateKey();
+        writeKeySet("first", firstKey);
+    }
+
+    @Test
+    public void shouldReadTheRotatedKeysOfTheKeySet() throws Exception {
+        JwksPublicKeyLocator locator = new JwksPublicKeyLocator(jwksFile.toURI().toString(), 0);
+        assertEquals(firstKey, locator.getPublicKey("first", null));
+
+        writeKeySet("rotated", rotatedKey);
+
+        assertEquals(rotatedKey, locator.getPublicKey("rotated", null));
+        assertNull(locator.getPublicKey("first", null));
+    }
+
+    @Test
+    public void shouldNotReadTheKeySetMoreOftenThanTheMinimumInterval() throws Exception {
+        JwksPublicKeyLocator locator = new JwksPublicKeyLocator(jwksFile.toURI().toString(), 60000);
+
+        writeKeySet("rotated", rotatedKey);
+
+        assertNull(locator.getPublicKey("rotated", null));
+        assertEquals(firstKey, locator.getPublicKey("first", null));
+        locator.reset(null);
+        assertEquals(rotatedKey, locator.getPublicKey("rotated", null));
+    }
+
+    private static RSAPublicKey generateKey() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return (RSAPublicKey) generator.generateKeyPair().getPublic();
+    }
+
+    private void writeKeySet(String kid, RSAPublicKey key) throws IOException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String keySet = "{\"keys\": [{\"kid\": \"" + kid + "\", \"kty\": \"RSA\", \"alg\": \"RS256\", \"use\": \"sig\", " +
+                "\"n\": \"" + encoder.encodeToString(unsigned(key.getModulus().toByteArray())) + "\", " +
+                "\"e\": \"" + encoder.encodeToString(unsigned(key.getPublicExponent().toByteArray())) + "\"}]}";
+        Files.write(jwksFile.toPath(), keySet.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            return unsigned;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,359 @@
+package dev.sunbirdrc.registry.consumers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.middleware.MiddlewareHaltException;
+import dev.sunbirdrc.registry.model.dto.AddEntitiesResult;
+import dev.sunbirdrc.registry.model.dto.CreateEntityMessage;
+import dev.sunbirdrc.registry.model.dto.CreateEntityStatus;
+import dev.sunbirdrc.registry.model.dto.PostCreateEntityMessage;
+import dev.sunbirdrc.registry.service.RegistryService;
+import dev.sunbirdrc.registry.service.WebhookService;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.Definition;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.validators.IValidate;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.backoff.FixedBackOff;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static dev.sunbirdrc.registry.Constants.createEntityGroupId;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class CreateEntityBatchConsumerTest {
+    private static final String POST_CREATE_TOPIC = "post_create_entity";
+    private static final String DEAD_LETTER_TOPIC = "create_entity_dlt";
+
+    @Mock
+    private ShardManager shardManager;
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Mock
+    private RegistryService registryService;
+    @Mock
+    private WebhookService webhookService;
+    @Mock
+    private DefinitionsManager definitionsManager;
+    @Mock
+    private IValidate validationService;
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Shard shard1 = shard("shard1");
+    private final Shard shard2 = shard("shard2");
+    private CreateEntityBatchConsumer consumer;
+    private long offset;
+
+    @Before
+    public void setUp() {
+        consumer = new CreateEntityBatchConsumer(objectMapper, shardManager, kafkaTemplate, registryService, webhookService,
+                definitionsManager, validationService);
+        ReflectionTestUtils.setField(consumer, "postCreateEntityTopic", POST_CREATE_TOPIC);
+        ReflectionTestUtils.setField(consumer, "createEntityDeadLetterTopic", DEAD_LETTER_TOPIC);
+
+        when(shardManager.getShardProperty()).thenReturn("shardKey");
+        when(shardManager.getShard(any())).thenAnswer(invocation ->
+                "2".equals(String.valueOf(invocation.getArguments()[0])) ? shard2 : shard1);
+        when(definitionsManager.getDefinition("Teacher")).thenReturn(mock(Definition.class));
+        when(kafkaTemplate.send(anyString(), anyString(), anyString())).thenAnswer(invocation -> sent());
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> sent());
+    }
+
+    @Test
+    public void shouldAddTheEntitiesOfAShardTogether() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1", "osid3"));
+        when(registryService.addEntities(same(shard2), anyList())).thenReturn(persisted("osid2"));
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 2),
+                record("t3", "Teacher", 1)), acknowledgment);
+
+        verify(registryService).addEntities(same(shard1), argThat(messages -> messages.size() == 2));
+        verify(registryService).addEntities(same(shard2), argThat(messages -> messages.size() == 1));
+        verify(registryService, never()).addEntity(any(), any(), any(), anyBoolean());
+
+        List<PostCreateEntityMessage> postCreateMessages = postCreateMessages(3);
+        assertEquals(Arrays.asList("t1", "t2", "t3"), transactionIds(postCreateMessages));
+        assertEquals(Arrays.asList("osid1", "osid2", "osid3"), Arrays.asList(postCreateMessages.get(0).getOsid(),
+                postCreateMessages.get(1).getOsid(), postCreateMessages.get(2).getOsid()));
+        verify(webhookService).postEvents(argThat(events -> events.size() == 3));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldSendInvalidRecordsToTheDeadLetterTopic() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1"));
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1), record("t2", "Unknown", 1),
+                new ConsumerRecord<>("create_entity", 0, 2, "t3", "not json")), acknowledgment);
+
+        ArgumentCaptor<ProducerRecord<String, String>> deadLetters = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(deadLetters.capture());
+        assertEquals(DEAD_LETTER_TOPIC, deadLetters.getAllValues().get(0).topic());
+        assertEquals("t2", deadLetters.getAllValues().get(0).key());
+        assertEquals("t3", deadLetters.getAllValues().get(1).key());
+        assertEquals(1, deadLetters.getAllValues().get(0).headers().toArray().length);
+
+        List<PostCreateEntityMessage> postCreateMessages = postCreateMessages(3);
+        assertEquals(CreateEntityStatus.SUCCESSFUL, postCreateMessages.get(0).getStatus());
+        assertEquals(CreateEntityStatus.FAILED, postCreateMessages.get(1).getStatus());
+        assertEquals(CreateEntityStatus.FAILED, postCreateMessages.get(2).getStatus());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldAddOneByOneWhenTheBatchFails() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenThrow(new RuntimeException("batch failed"));
+        when(registryService.addEntity(same(shard1), any(), argThat(json -> json.at("/Teacher/name").asText().equals("t1")),
+                anyBoolean())).thenReturn("osid1");
+        when(registryService.addEntity(same(shard1), any(), argThat(json -> json.at("/Teacher/name").asText().equals("t2")),
+                anyBoolean())).thenThrow(new RuntimeException("invalid"));
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 1)), acknowledgment);
+
+        verify(registryService, times(2)).addEntity(same(shard1), any(), any(), anyBoolean());
+        ArgumentCaptor<ProducerRecord<String, String>> deadLetters = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(deadLetters.capture());
+        assertEquals("t2", deadLetters.getValue().key());
+
+        List<PostCreateEntityMessage> postCreateMessages = postCreateMessages(2);
+        assertEquals("osid1", postCreateMessages.get(0).getOsid());
+        assertEquals(CreateEntityStatus.FAILED, postCreateMessages.get(1).getStatus());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldAddOneByOneOnlyTheEntitiesNotPersisted() throws Exception {
+        AddEntitiesResult added = new AddEntitiesResult(3);
+        added.persisted(0, "osid1");
+        added.failed(1, new RuntimeException("signing failed"));
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(added);
+        when(registryService.addEntity(same(shard1), any(), any(), anyBoolean())).thenReturn("osid3");
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 1),
+                record("t3", "Teacher", 1)), acknowledgment);
+
+        verify(registryService).addEntity(same(shard1), any(), argThat(json -> json.at("/Teacher/name").asText().equals("t3")),
+                anyBoolean());
+        verify(registryService, times(1)).addEntity(any(), any(), any(), anyBoolean());
+        ArgumentCaptor<ProducerRecord<String, String>> deadLetters = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(deadLetters.capture());
+        assertEquals("t2", deadLetters.getValue().key());
+
+        List<PostCreateEntityMessage> postCreateMessages = postCreateMessages(3);
+        assertEquals("osid1", postCreateMessages.get(0).getOsid());
+        assertEquals(CreateEntityStatus.FAILED, postCreateMessages.get(1).getStatus());
+        assertEquals("osid3", postCreateMessages.get(2).getOsid());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldNotAddRecordsFailingSchemaValidation() throws Exception {
+        doThrow(new MiddlewareHaltException("name is invalid")).when(validationService)
+                .validate(eq("Teacher"), contains("t2"), anyBoolean());
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1"));
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 1)), acknowledgment);
+
+        verify(registryService).addEntities(same(shard1), argThat(messages -> messages.size() == 1));
+        ArgumentCaptor<ProducerRecord<String, String>> deadLetters = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(deadLetters.capture());
+        assertEquals("t2", deadLetters.getValue().key());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldAcknowledgeAfterPublishing() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1"));
+
+        consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1)), acknowledgment);
+
+        InOrder inOrder = inOrder(registryService, kafkaTemplate, acknowledgment);
+        inOrder.verify(registryService).addEntities(same(shard1), anyList());
+        inOrder.verify(kafkaTemplate).send(eq(POST_CREATE_TOPIC), eq("t1"), anyString());
+        inOrder.verify(kafkaTemplate).flush();
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldNotAcknowledgeWhenTheBatchCannotBeProcessed() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1"));
+        doThrow(new RuntimeException("broker down")).when(kafkaTemplate).flush();
+        try {
+            consumer.createEntitiesConsumer(Arrays.asList(record("t1", "Teacher", 1)), acknowledgment);
+        } finally {
+            verify(acknowledgment, never()).acknowledge();
+        }
+    }
+
+    @Test
+    public void shouldNotAddTheEntitiesAgainWhenTheBatchIsPolledAgain() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1", "osid2"));
+        when(kafkaTemplate.send(eq(POST_CREATE_TOPIC), eq("t2"), anyString())).thenReturn(notSent()).thenAnswer(invocation -> sent());
+        List<ConsumerRecord<String, String>> records = Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 1));
+
+        try {
+            consumer.createEntitiesConsumer(records, acknowledgment);
+            fail("the batch should fail at the record whose result was not sent");
+        } catch (BatchListenerFailedException e) {
+            assertEquals(1, e.getIndex());
+        }
+        verify(webhookService).postEvents(argThat(events -> events.size() == 1));
+        consumer.createEntitiesConsumer(records.subList(1, 2), acknowledgment);
+
+        verify(registryService, times(1)).addEntities(any(), anyList());
+        verify(registryService, never()).addEntity(any(), any(), any(), anyBoolean());
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(2)).send(eq(POST_CREATE_TOPIC), eq("t2"), messages.capture());
+        assertEquals("osid2", objectMapper.readValue(messages.getValue(), PostCreateEntityMessage.class).getOsid());
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    public void shouldCommitTheRecordsBeforeTheOneWhoseResultWasNotSent() throws Exception {
+        when(registryService.addEntities(same(shard1), anyList())).thenReturn(persisted("osid1", "osid2", "osid3"));
+        when(kafkaTemplate.send(eq(POST_CREATE_TOPIC), eq("t2"), anyString())).thenReturn(notSent()).thenAnswer(invocation -> sent());
+        TopicPartition partition = new TopicPartition("create_entity", 0);
+        MockConsumer<String, String> kafkaConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        kafkaConsumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+        List<ConsumerRecord<String, String>> records = Arrays.asList(record("t1", "Teacher", 1), record("t2", "Teacher", 1),
+                record("t3", "Teacher", 1));
+        kafkaConsumer.schedulePollTask(() -> kafkaConsumer.rebalance(Collections.singletonList(partition)));
+        // the records are offered on every poll, the consumer hands over those from its position on, as a log would
+        kafkaConsumer.schedulePollTask(new Runnable() {
+            @Override
+            public void run() {
+                records.forEach(kafkaConsumer::addRecord);
+                kafkaConsumer.schedulePollTask(this);
+            }
+        });
+
+        KafkaMessageListenerContainer<String, String> container = container(kafkaConsumer);
+        container.start();
+        try {
+            awaitCommitted(kafkaConsumer, partition, 3);
+        } finally {
+            container.stop();
+        }
+
+        verify(registryService, times(1)).addEntities(any(), anyList());
+        verify(registryService, never()).addEntity(any(), any(), any(), anyBoolean());
+        verify(kafkaTemplate, times(1)).send(eq(POST_CREATE_TOPIC), eq("t1"), anyString());
+        verify(kafkaTemplate, times(2)).send(eq(POST_CREATE_TOPIC), eq("t2"), anyString());
+        verify(kafkaTemplate, times(2)).send(eq(POST_CREATE_TOPIC), eq("t3"), anyString());
+    }
+
+    /**
+     * @return a container set up as by the batch listener factory, polling the consumer given
+     */
+    @SuppressWarnings("unchecked")
+    private KafkaMessageListenerContainer<String, String> container(MockConsumer<String, String> kafkaConsumer) {
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer(any(), any(), any(), any())).thenReturn(kafkaConsumer);
+        when(consumerFactory.createConsumer(any(), any(), any())).thenReturn(kafkaConsumer);
+        ContainerProperties containerProperties = new ContainerProperties("create_entity");
+        containerProperties.setGroupId(createEntityGroupId);
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setPollTimeout(10);
+        containerProperties.setMessageListener(
+                (BatchAcknowledgingMessageListener<String, String>) consumer::createEntitiesConsumer);
+        KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(consumerFactory,
+                containerProperties);
+        container.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 1L)));
+        return container;
+    }
+
+    private static void awaitCommitted(MockConsumer<String, String> kafkaConsumer, TopicPartition partition, long offset)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            OffsetAndMetadata committed = kafkaConsumer.committed(Collections.singleton(partition)).get(partition);
+            if (committed != null && committed.offset() == offset) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("offset " + offset + " was not committed");
+    }
+
+    private static AddEntitiesResult persisted(String... entityIds) {
+        AddEntitiesResult added = new AddEntitiesResult(entityIds.length);
+        for (int i = 0; i < entityIds.length; i++) {
+            added.persisted(i, entityIds[i]);
+        }
+        return added;
+    }
+
+    private List<PostCreateEntityMessage> postCreateMessages(int count) throws Exception {
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(count)).send(eq(POST_CREATE_TOPIC), anyString(), messages.capture());
+        List<PostCreateEntityMessage> postCreateMessages = new ArrayList<>();
+        for (String message : messages.getAllValues()) {
+            postCreateMessages.add(objectMapper.readValue(message, PostCreateEntityMessage.class));
+        }
+        return postCreateMessages;
+    }
+
+    private static List<String> transactionIds(List<PostCreateEntityMessage> postCreateMessages) {
+        List<String> transactionIds = new ArrayList<>();
+        for (PostCreateEntityMessage postCreateMessage : postCreateMessages) {
+            transactionIds.add(postCreateMessage.getTransactionId());
+        }
+        return transactionIds;
+    }
+
+    private ConsumerRecord<String, String> record(String key, String entityType, int shardKey) throws Exception {
+        CreateEntityMessage createEntityMessage = CreateEntityMessage.builder().userId("user")
+                .inputJson(objectMapper.readTree(String.format("{\"%s\": {\"name\": \"%s\", \"shardKey\": %d}}", entityType, key, shardKey)))
+                .build();
+        return new ConsumerRecord<>("create_entity", 0, offset++, key, objectMapper.writeValueAsString(createEntityMessage));
+    }
+
+    private static SettableListenableFuture<SendResult<String, String>> sent() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.set(null);
+        return future;
+    }
+
+    private static SettableListenableFuture<SendResult<String, String>> notSent() {
+        SettableListenableFuture<SendResult<String, String>> future = new SettableListenableFuture<>();
+        future.setException(new IllegalStateException("broker down"));
+        return future;
+    }
+
+    private static Shard shard(String shardId) {
+        return new Shard(shardId, null, null);
+    }
+}
@@ -0,0 +1,174 @@
+package dev.sunbirdrc.registry.controller;
+
+import dev.sunbirdrc.registry.helper.RegistryHelper;
+import dev.sunbirdrc.registry.model.dto.DocumentsResponse;
+import dev.sunbirdrc.registry.service.FileStorageService;
+import io.minio.MinioClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class FileStorageControllerTest {
+    private static final String BUCKET = "documents";
+    private static final String DOCUMENT_URI = "/api/v1/Student/1/educationDetails/documents/";
+    private static final String OBJECT_PATH = "Student/1/educationDetails/documents/";
+
+    private StubObjectStorageServer server;
+    private ThreadPoolTaskExecutor uploadExecutor;
+    private FileStorageController fileStorageController;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubObjectStorageServer();
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint(server.getUrl())
+                .region("us-east-1")
+                .credentials("accessKey", "secretKey")
+                .build();
+        uploadExecutor = new ThreadPoolTaskExecutor();
+        uploadExecutor.setCorePoolSize(2);
+        uploadExecutor.setMaxPoolSize(2);
+        uploadExecutor.initialize();
+        FileStorageService fileStorageService = new FileStorageService(minioClient, BUCKET, uploadExecutor);
+        fileStorageController = new FileStorageController(fileStorageService, mock(RegistryHelper.class));
+    }
+
+    @After
+    public void tearDown() {
+        uploadExecutor.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testUploadsTheFilesAndChecksTheBucketOnce() {
+        MultipartFile[] files = {
+                new MockMultipartFile("files", "marks.pdf", null, "marks".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "degree.pdf", null, "degree".getBytes(StandardCharsets.UTF_8))
+        };
+        DocumentsResponse response = save(files);
+        assertTrue(response.getErrors().isEmpty());
+        assertEquals(2, response.getDocumentLocations().size());
+        assertTrue(response.getDocumentLocations().get(0).endsWith("-marks.pdf"));
+        assertEquals("degree", new String(server.getObject(BUCKET, response.getDocumentLocations().get(1)), StandardCharsets.UTF_8));
+
+        save(new MultipartFile[]{new MockMultipartFile("files", "photo.png", null, new byte[]{1, 2, 3})});
+        assertEquals(1, server.getBucketChecks());
+    }
+
+    @Test
+    public void testRangeRequests() throws Exception {
+        server.putGeneratedObject(BUCKET, OBJECT_PATH + "marks.pdf", 1000);
+
+        ResponseEntity<StreamingResponseBody> response = get("marks.pdf", "bytes=100-199");
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 100-199/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(100, response.getHeaders().getContentLength());
+        assertGeneratedBytes(100, 100, read(response));
+
+        response = get("marks.pdf", "bytes=-10");
+        assertEquals("bytes 990-999/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertGeneratedBytes(990, 10, read(response));
+
+        response = get("marks.pdf", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1000, response.getHeaders().getContentLength());
+        assertGeneratedBytes(0, 1000, read(response));
+
+        response = get("marks.pdf", "bytes=1000-");
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void testMissingDocument() {
+        assertEquals(HttpStatus.NOT_FOUND, get("missing.pdf", null).getStatusCode());
+    }
+
+    @Test
+    public void testLargeDocumentIsStreamedInConstantMemory() throws Exception {
+        long size = 500L * 1024 * 1024;
+        server.putGeneratedObject(BUCKET, OBJECT_PATH + "scan.pdf", size);
+
+        ResponseEntity<StreamingResponseBody> response = get("scan.pdf", null);
+        assertEquals(size, response.getHeaders().getContentLength());
+        long baseline = usedHeap();
+        HeapCheckingOutputStream outputStream = new HeapCheckingOutputStream(size / 2);
+        response.getBody().writeTo(outputStream);
+
+        assertEquals(size, outputStream.count);
+        long growth = outputStream.usedHeapMidway - baseline;
+        assertTrue("heap grew by " + growth + " bytes while streaming", growth < 64L * 1024 * 1024);
+    }
+
+    private DocumentsResponse save(MultipartFile[] files) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/Student/1/educationDetails/documents");
+        return fileStorageController.save(files, "Student", "1", "educationDetails", request).getBody();
+    }
+
+    private ResponseEntity<StreamingResponseBody> get(String documentId, String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", DOCUMENT_URI + documentId);
+        return fileStorageController.get("Student", "1", "educationDetails", documentId, range, request);
+    }
+
+    private static byte[] read(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static void assertGeneratedBytes(long start, int length, byte[] bytes) {
+        assertEquals(length, bytes.length);
+        for (int i = 0; i < length; i++) {
+            assertEquals(StubObjectStorageServer.generatedByte(start + i), bytes[i]);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Discards what is written, measuring the heap in use once half of it is written
+     */
+    private static class HeapCheckingOutputStream extends OutputStream {
+        private final long checkAt;
+        private long count;
+        private long usedHeapMidway;
+
+        HeapCheckingOutputStream(long checkAt) {
+            this.checkAt = checkAt;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (count < checkAt && count + len >= checkAt) {
+                usedHeapMidway = usedHeap();
+            }
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package dev.sunbirdrc.registry.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stands in for an S3 compatible object storage on a local port, with path style requests of a
+ * client configured with its region. Uploaded objects are kept in memory; generated objects are
+ * written on the fly, so that large downloads do not need the memory of the stub either.
+ */
+class StubObjectStorageServer implements AutoCloseable {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+            .ofPattern("EEE',' dd MMM uuuu HH':'mm':'ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Long> generatedObjects = new ConcurrentHashMap<>();
+    private final AtomicInteger bucketChecks = new AtomicInteger();
+    private boolean stopped;
+
+    StubObjectStorageServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int getBucketChecks() {
+        return bucketChecks.get();
+    }
+
+    byte[] getObject(String bucket, String objectName) {
+        return objects.get(bucket + "/" + objectName);
+    }
+
+    /**
+     * Adds an object of the given size, whose byte at position i is generatedByte(i)
+     */
+    void putGeneratedObject(String bucket, String objectName, long size) {
+        buckets.add(bucket);
+        generatedObjects.put(bucket + "/" + objectName, size);
+    }
+
+    static byte generatedByte(long position) {
+        return (byte) (position % 251);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!stopped) {
+            stopped = true;
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            int separator = path.indexOf('/');
+            String bucket = separator < 0 ? path : path.substring(0, separator);
+            String method = exchange.getRequestMethod();
+            if (separator < 0 || separator == path.length() - 1) {
+                handleBucket(exchange, method, bucket);
+            } else if ("PUT".equals(method)) {
+                objects.put(path, StreamUtils.copyToByteArray(exchange.getRequestBody()));
+                exchange.getResponseHeaders().add("ETag", "\"stub\"");
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                handleObject(exchange, method, path);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucket) throws IOException {
+        if ("HEAD".equals(method)) {
+            bucketChecks.incrementAndGet();
+            exchange.sendResponseHeaders(buckets.contains(bucket) ? 200 : 404, -1);
+        } else if ("PUT".equals(method)) {
+            StreamUtils.drain(exchange.getRequestBody());
+            buckets.add(bucket);
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(501, -1);
+        }
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String path) throws IOException {
+        byte[] object = objects.get(path);
+        Long generatedSize = generatedObjects.get(path);
+        if (object == null && generatedSize == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        long size = object != null ? object.length : generatedSize;
+        exchange.getResponseHeaders().add("ETag", "\"stub\"");
+        exchange.getResponseHeaders().add("Last-Modified", HTTP_DATE.format(ZonedDateTime.now()));
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        if ("HEAD".equals(method)) {
+            exchange.getResponseHeaders().add("Content-Length", Long.toString(size));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range);
+            if (!matcher.matches()) {
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            start = Long.parseLong(matcher.group(1));
+            if (!matcher.group(2).isEmpty()) {
+                end = Math.min(end, Long.parseLong(matcher.group(2)));
+            }
+            exchange.getResponseHeaders().add("Content-Range", String.format("bytes %d-%d/%d", start, end, size));
+        }
+        exchange.sendResponseHeaders(range != null ? 206 : 200, end - start + 1);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            if (object != null) {
+                outputStream.write(object, (int) start, (int) (end - start + 1));
+                return;
+            }
+            byte[] buffer = new byte[65536];
+            for (long position = start; position <= end; ) {
+                int length = (int) Math.min(buffer.length, end - position + 1);
+                for (int i = 0; i < length; i++) {
+                    buffer[i] = generatedByte(position + i);
+                }
+                outputStream.write(buffer, 0, length);
+                position += length;
+            }
+        }
+    }
+}
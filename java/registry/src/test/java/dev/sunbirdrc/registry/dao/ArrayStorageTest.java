@@ -0,0 +1,131 @@
+package dev.sunbirdrc.registry.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.pojos.Filter;
+import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.pojos.SearchQuery;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.sink.ArrayStorage;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class ArrayStorageTest {
+    private static final String testUuidPropertyName = "tid";
+    private static final String TEACHER = "{\"Teacher\": {\"teacherName\": \"teacher1\", " +
+            "\"subjects\": [\"maths\", \"science\"], \"grades\": [4, 5], " +
+            "\"experience\": [{\"institute\": \"Mary school\", \"years\": 2}, {\"institute\": \"ABC school\", \"years\": 5}, " +
+            "{\"institute\": \"XYZ school\", \"years\": 1}], \"address\": {\"city\": \"Delhi\"}}}";
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    private DatabaseProvider databaseProvider;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        dbConnectionInfoMgr.setUuidPropertyName(testUuidPropertyName);
+        databaseProvider = dbProviderFactory.getInstance(null);
+        graph = databaseProvider.getOSGraph().getGraphStore();
+    }
+
+    @Test
+    public void shouldStoreArraysNatively() throws Exception {
+        databaseProvider.setArrayStorage(ArrayStorage.NATIVE);
+        String osid = write();
+
+        assertFalse(graph.traversal().V().hasLabel(Constants.ARRAY_NODE_KEYWORD).hasNext());
+        Vertex teacher = graph.traversal().V().has(testUuidPropertyName, osid).next();
+        assertArrayEquals(new String[]{"maths", "science"}, (String[]) teacher.value("subjects" + Constants.ARRAY_LIST_SUFFIX));
+        assertFalse(teacher.property("subjects").isPresent());
+        assertEquals(3L, (long) graph.traversal().V(teacher.id()).outE("experience" + Constants.ARRAY_ITEM).count().next());
+
+        JsonNode read = read(osid).get("Teacher");
+        assertEquals(new ObjectMapper().readTree("[\"maths\", \"science\"]"), read.get("subjects"));
+        assertEquals(new ObjectMapper().readTree("[4, 5]"), read.get("grades"));
+        assertEquals(3, read.get("experience").size());
+        assertEquals("Mary school", read.get("experience").get(0).get("institute").asText());
+        assertEquals("ABC school", read.get("experience").get(1).get("institute").asText());
+        assertEquals("XYZ school", read.get("experience").get(2).get("institute").asText());
+        assertEquals("Delhi", read.get("address").get("city").asText());
+    }
+
+    @Test
+    public void shouldReadMigratedArraysAsBefore() throws Exception {
+        String osid = write();
+        JsonNode beforeMigration = read(osid);
+
+        databaseProvider.setArrayStorage(ArrayStorage.NATIVE);
+        ArrayStorageMigrator migrator = new ArrayStorageMigrator(databaseProvider, testUuidPropertyName);
+        assertEquals(3, migrator.migrate(graph));
+
+        assertFalse(graph.traversal().V().hasLabel(Constants.ARRAY_NODE_KEYWORD).hasNext());
+        assertEquals(beforeMigration, read(osid));
+        assertEquals(0, migrator.migrate(graph));
+    }
+
+    @Test
+    public void shouldSearchNativeArrays() throws Exception {
+        databaseProvider.setArrayStorage(ArrayStorage.NATIVE);
+        write("{\"Teacher\": {\"teacherName\": \"teacher2\", \"subjects\": [\"geology\", \"music\"], " +
+                "\"experience\": [{\"institute\": \"Hill school\"}, {\"institute\": \"Lake school\"}]}}");
+        SearchDao searchDao = new SearchDaoImpl(new RegistryDaoImpl(databaseProvider, definitionsManager, testUuidPropertyName),
+                databaseProvider.getProvider(), ArrayStorage.NATIVE);
+
+        assertEquals(1, search(searchDao, new Filter("subjects", FilterOperators.eq, "music")));
+        assertEquals(1, search(searchDao, new Filter("subjects", FilterOperators.startsWith, "geo")));
+        assertEquals(0, search(searchDao, new Filter("subjects", FilterOperators.eq, "mus")));
+        Filter institute = new Filter("institute", FilterOperators.eq, "Lake school");
+        institute.setPath("experience");
+        assertEquals(1, search(searchDao, institute));
+    }
+
+    private int search(SearchDao searchDao, Filter filter) {
+        SearchQuery searchQuery = new SearchQuery(Collections.singletonList("Teacher"), 0, 100);
+        searchQuery.setFilters(new ArrayList<>(Collections.singletonList(filter)));
+        return searchDao.search(graph, searchQuery, false).get("Teacher").size();
+    }
+
+    private String write() throws Exception {
+        return write(TEACHER);
+    }
+
+    private String write(String teacher) throws Exception {
+        VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, testUuidPropertyName);
+        return vertexWriter.writeNodeEntity(new ObjectMapper().readTree(teacher));
+    }
+
+    private JsonNode read(String osid) throws Exception {
+        VertexReader vertexReader = new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getDefault(),
+                testUuidPropertyName, definitionsManager);
+        return vertexReader.read("Teacher", osid);
+    }
+}
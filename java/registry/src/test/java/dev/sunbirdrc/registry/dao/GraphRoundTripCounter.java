@@ -0,0 +1,91 @@
+package dev.sunbirdrc.registry.dao;
+
+import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
+import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.util.EmptyStep;
+import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counts the round trips made to a graph through the graph it hands out: every traversal run
+ * on it and every lookup of vertices or edges by id. A database such as Sqlg compiles each of
+ * them into its own query, so on the in-memory TinkerGraph of the tests the count stands for
+ * the queries a read would run. The reads of the edges of a vertex it is handed are not
+ * counted, the reads measured with it go through traversals.
+ */
+public class GraphRoundTripCounter {
+    private final Graph graph;
+    private final List<String> roundTrips = new CopyOnWriteArrayList<>();
+
+    public GraphRoundTripCounter(Graph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @return the graph whose traversals and lookups are counted
+     */
+    public Graph getGraph() {
+        TraversalStrategy<?> recordingStrategy = new RecordingStrategy(roundTrips);
+        return (Graph) Proxy.newProxyInstance(Graph.class.getClassLoader(), new Class<?>[]{Graph.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("traversal") && method.getParameterCount() == 0) {
+                        return graph.traversal().withStrategies(recordingStrategy);
+                    }
+                    if (method.getName().equals("vertices") || method.getName().equals("edges")) {
+                        roundTrips.add(method.getName() + "()");
+                    }
+                    try {
+                        return method.invoke(graph, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Forgets the round trips counted so far
+     */
+    public void reset() {
+        roundTrips.clear();
+    }
+
+    /**
+     * @return the number of round trips since the last reset
+     */
+    public int count() {
+        return roundTrips.size();
+    }
+
+    /**
+     * @return the round trips since the last reset, the traversals as compiled for the graph
+     */
+    public List<String> roundTrips() {
+        return new ArrayList<>(roundTrips);
+    }
+
+    /**
+     * Records the traversals as they are about to run, once all the other strategies have
+     * folded their steps together. The traversals nested in another one run with it.
+     */
+    private static class RecordingStrategy extends AbstractTraversalStrategy<TraversalStrategy.FinalizationStrategy>
+            implements TraversalStrategy.FinalizationStrategy {
+        private final List<String> roundTrips;
+
+        RecordingStrategy(List<String> roundTrips) {
+            this.roundTrips = roundTrips;
+        }
+
+        @Override
+        public void apply(Traversal.Admin<?, ?> traversal) {
+            if (traversal.getParent() instanceof EmptyStep) {
+                roundTrips.add(traversal.toString());
+            }
+        }
+    }
+}
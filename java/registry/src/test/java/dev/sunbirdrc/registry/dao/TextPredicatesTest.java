@@ -0,0 +1,44 @@
+package dev.sunbirdrc.registry.dao;
+
+import dev.sunbirdrc.pojos.FilterOperators;
+import dev.sunbirdrc.registry.middleware.util.Constants.GraphDatabaseProvider;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextPredicatesTest {
+    private static final GraphDatabaseProvider[] PROVIDERS = {GraphDatabaseProvider.SQLG,
+            GraphDatabaseProvider.CASSANDRA, GraphDatabaseProvider.TINKERGRAPH};
+
+    @Test
+    public void testTextOperatorsMatchAlikeOnEveryDatabase() {
+        for (GraphDatabaseProvider provider : PROVIDERS) {
+            assertTrue(provider.name(), test(provider, FilterOperators.contains, "marko", "ar"));
+            assertFalse(provider.name(), test(provider, FilterOperators.contains, "vedas", "ar"));
+            assertFalse(provider.name(), test(provider, FilterOperators.notContains, "marko", "ar"));
+            assertTrue(provider.name(), test(provider, FilterOperators.notContains, "vedas", "ar"));
+            assertTrue(provider.name(), test(provider, FilterOperators.startsWith, "marko", "ma"));
+            assertFalse(provider.name(), test(provider, FilterOperators.startsWith, "jas", "ma"));
+            assertFalse(provider.name(), test(provider, FilterOperators.notStartsWith, "marko", "ma"));
+            assertTrue(provider.name(), test(provider, FilterOperators.notStartsWith, "jas", "ma"));
+            assertTrue(provider.name(), test(provider, FilterOperators.endsWith, "marko", "ko"));
+            assertFalse(provider.name(), test(provider, FilterOperators.endsWith, "vedas", "ko"));
+            assertFalse(provider.name(), test(provider, FilterOperators.notEndsWith, "marko", "ko"));
+            assertTrue(provider.name(), test(provider, FilterOperators.notEndsWith, "vedas", "ko"));
+        }
+    }
+
+    @Test
+    public void testInMemoryPredicatesMatchNonStringValues() {
+        assertTrue(test(GraphDatabaseProvider.TINKERGRAPH, FilterOperators.contains, 1234L, "23"));
+        assertFalse(test(GraphDatabaseProvider.TINKERGRAPH, FilterOperators.notContains, 1234L, "23"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean test(GraphDatabaseProvider provider, FilterOperators operator, Object value, String text) {
+        P<Object> predicate = (P<Object>) TextPredicates.get(provider, operator, text);
+        return predicate.test(value);
+    }
+}
@@ -0,0 +1,177 @@
+package dev.sunbirdrc.registry.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.registry.exception.RecordNotFoundException;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class VertexReaderTest {
+    private static final String testUuidPropertyName = "tid";
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    private DatabaseProvider databaseProvider;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        dbConnectionInfoMgr.setUuidPropertyName(testUuidPropertyName);
+        databaseProvider = dbProviderFactory.getInstance(null);
+        graph = databaseProvider.getOSGraph().getGraphStore();
+    }
+
+    @Test
+    public void shouldReadAllEntitiesInRequestedOrder() throws Exception {
+        List<String> osids = writeTeachers(3);
+        Collections.reverse(osids);
+
+        VertexReader vertexReader = new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getDefault(),
+                testUuidPropertyName, definitionsManager);
+        Map<String, JsonNode> entities = vertexReader.readAll("Teacher", osids);
+
+        assertEquals(osids, new ArrayList<>(entities.keySet()));
+        for (String osid : osids) {
+            JsonNode teacher = entities.get(osid).get("Teacher");
+            assertEquals(osid, teacher.get(testUuidPropertyName).asText());
+            assertEquals(2, teacher.get("subjects").size());
+            assertEquals("Delhi", teacher.get("address").get("city").asText());
+        }
+    }
+
+    @Test
+    public void shouldSkipIdsThatAreMissing() throws Exception {
+        List<String> osids = writeTeachers(2);
+        osids.add(1, "unknown-osid");
+
+        VertexReader vertexReader = new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getDefault(),
+                testUuidPropertyName, definitionsManager);
+        Map<String, JsonNode> entities = vertexReader.readAll("Teacher", osids);
+
+        assertEquals(Arrays.asList(osids.get(0), osids.get(2)), new ArrayList<>(entities.keySet()));
+    }
+
+    @Test
+    public void shouldMakeAsManyRoundTripsIrrespectiveOfPageSize() throws Exception {
+        List<String> smallPage = writeTeachers(3);
+        List<String> largePage = writeTeachers(30);
+
+        int smallPageRoundTrips = countRoundTrips(smallPage);
+        int largePageRoundTrips = countRoundTrips(largePage);
+
+        assertEquals(smallPageRoundTrips, largePageRoundTrips);
+        assertTrue(largePageRoundTrips < largePage.size());
+    }
+
+    @Test
+    public void shouldReadOwnersOfTheRecord() throws Exception {
+        String osid = writeOwnedTeacher(2);
+
+        IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, testUuidPropertyName);
+        JsonNode ownership = registryDao.getOwnership(graph, "Teacher", osid);
+
+        assertEquals(osid, ownership.get(testUuidPropertyName).asText());
+        assertEquals("owner1", ownership.get(OSSystemFields.osOwner.toString()).get(0).asText());
+        assertFalse(ownership.has("subjects"));
+        assertFalse(ownership.has("address"));
+    }
+
+    @Test(expected = RecordNotFoundException.class)
+    public void shouldNotReadOwnersOfAnInactiveRecord() throws Exception {
+        String osid = writeOwnedTeacher(2);
+        graph.traversal().V().has(testUuidPropertyName, osid).next()
+                .property(Constants.STATUS_KEYWORD, Constants.STATUS_INACTIVE);
+
+        IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, testUuidPropertyName);
+        registryDao.getOwnership(graph, "Teacher", osid);
+    }
+
+    @Test
+    public void shouldLookupOwnersOnceIrrespectiveOfRecordSize() throws Exception {
+        int smallRecordRoundTrips = countOwnershipRoundTrips(writeOwnedTeacher(2));
+        int largeRecordRoundTrips = countOwnershipRoundTrips(writeOwnedTeacher(200));
+
+        assertEquals(1, smallRecordRoundTrips);
+        assertEquals(smallRecordRoundTrips, largeRecordRoundTrips);
+    }
+
+    private int countOwnershipRoundTrips(String osid) throws Exception {
+        GraphRoundTripCounter roundTripCounter = new GraphRoundTripCounter(graph);
+        IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, testUuidPropertyName);
+        JsonNode ownership = registryDao.getOwnership(roundTripCounter.getGraph(), "Teacher", osid);
+        assertEquals("owner1", ownership.get(OSSystemFields.osOwner.toString()).get(0).asText());
+        return roundTripCounter.count();
+    }
+
+    private String writeOwnedTeacher(int subjectCount) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode teacher = (ObjectNode) objectMapper.readTree("{\"serialNum\": 1, \"teacherName\": \"teacher\", " +
+                "\"address\": {\"city\": \"Delhi\"}}");
+        teacher.putArray(OSSystemFields.osOwner.toString()).add("owner1");
+        ArrayNode subjects = teacher.putArray("subjects");
+        for (int i = 0; i < subjectCount; i++) {
+            subjects.add("subject" + i);
+        }
+        VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, testUuidPropertyName);
+        return vertexWriter.writeNodeEntity(objectMapper.createObjectNode().set("Teacher", teacher));
+    }
+
+    private int countRoundTrips(List<String> osids) throws Exception {
+        GraphRoundTripCounter roundTripCounter = new GraphRoundTripCounter(graph);
+        IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, testUuidPropertyName);
+        Map<String, JsonNode> entities = registryDao.getEntities(roundTripCounter.getGraph(), "Teacher", osids,
+                ReadConfiguratorFactory.getOne(false));
+        assertEquals(osids.size(), entities.size());
+        for (JsonNode entity : entities.values()) {
+            assertEquals("Delhi", entity.get("Teacher").get("address").get("city").asText());
+        }
+        return roundTripCounter.count();
+    }
+
+    private List<String> writeTeachers(int count) throws Exception {
+        VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, testUuidPropertyName);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> osids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JsonNode teacher = objectMapper.readTree(String.format("{\"Teacher\": {\"serialNum\": %d, " +
+                    "\"teacherName\": \"teacher%d\", \"subjects\": [\"maths\", \"science\"], " +
+                    "\"address\": {\"city\": \"Delhi\"}}}", i, i));
+            osids.add(vertexWriter.writeNodeEntity(teacher));
+        }
+        return new ArrayList<>(osids);
+    }
+}
@@ -1,5 +1,6 @@
 package dev.sunbirdrc.registry.dao.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -7,6 +8,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.sunbirdrc.pojos.Filter;
 import dev.sunbirdrc.pojos.FilterOperators;
 import dev.sunbirdrc.pojos.SearchQuery;
+import dev.sunbirdrc.registry.dao.GraphRoundTripCounter;
 import dev.sunbirdrc.registry.dao.IRegistryDao;
 import dev.sunbirdrc.registry.dao.RegistryDaoImpl;
 import dev.sunbirdrc.registry.dao.SearchDao;
@@ -16,6 +18,7 @@ import dev.sunbirdrc.registry.exception.AuditFailedException;
 import dev.sunbirdrc.registry.exception.EncryptionException;
 import dev.sunbirdrc.registry.exception.RecordNotFoundException;
 import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.middleware.util.Constants.GraphDatabaseProvider;
 import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
 import dev.sunbirdrc.registry.sink.DBProviderFactory;
 import dev.sunbirdrc.registry.sink.DatabaseProvider;
@@ -69,7 +72,7 @@ public class SearchDaoImplTest {
 
         IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, "tid");
         searchDao = new SearchDaoImpl(registryDao);
-        populateGraph();
+        populateGraph(graph, databaseProvider);
         
         entities.add("Teacher");
 
@@ -142,6 +145,36 @@ public class SearchDaoImplTest {
         JsonNode result = searchDao.search(graph, searchQuery, expandInternal);
         assertTrue(result.get("Teacher").size() == 1);
     }
+    @Test
+    public void testContainsOperator() {
+        SearchQuery searchQuery = getSearchQuery(entities, "teacherName", "ed", FilterOperators.contains);
+        JsonNode result = searchDao.search(graph, searchQuery, expandInternal);
+        assertTrue(result.get("Teacher").size() == 1);
+    }
+
+    @Test
+    public void testNotContainsOperator() {
+        SearchQuery searchQuery = getSearchQuery(entities, "teacherName", "ed", FilterOperators.notContains);
+        JsonNode result = searchDao.search(graph, searchQuery, expandInternal);
+        assertTrue(result.get("Teacher").size() == 2);
+    }
+
+    @Test
+    public void testTextFilterIsAppliedBeforeReadingEntities() {
+        GraphRoundTripCounter roundTripCounter = new GraphRoundTripCounter(graph);
+        IRegistryDao registryDao = new RegistryDaoImpl(databaseProvider, definitionsManager, "tid");
+        SearchDao sqlgSearchDao = new SearchDaoImpl(registryDao, GraphDatabaseProvider.SQLG);
+        SearchQuery searchQuery = getSearchQuery(entities, "teacherName", "as", FilterOperators.notEndsWith);
+        JsonNode result = sqlgSearchDao.search(roundTripCounter.getGraph(), searchQuery, expandInternal);
+
+        assertEquals(1, result.get("Teacher").size());
+        // the filter is folded with the label into the step looking the vertices up, the way
+        // Sqlg folds it into the query on the Teacher table, and not applied to the vertices read
+        assertEquals(1, roundTripCounter.count());
+        assertTrue(roundTripCounter.roundTrips().get(0)
+                .startsWith("[TinkerGraphStep(vertex,[~label.eq(Teacher), teacherName.nendsWith(as)])"));
+    }
+
     @Test
     public void testMultiOperators() {
         SearchQuery searchQuery = getSearchQuery(entities, "teacherName", "a", FilterOperators.contains);
@@ -176,7 +209,7 @@ public class SearchDaoImplTest {
         return searchQuery;
     }
 
-    private void populateGraph() {
+    private void populateGraph(Graph graph, DatabaseProvider databaseProvider) {
         VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, "tid");
         Vertex v1 = vertexWriter.createVertex("Teacher");
         v1.property("serialNum", 1);
@@ -0,0 +1,146 @@
+package dev.sunbirdrc.registry.helper;
+
+import dev.sunbirdrc.registry.entities.AttestationPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AttestationPolicyCacheTest {
+    private static final String ENTITY = "Student";
+
+    private AttestationPolicyCache attestationPolicyCache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setUp() {
+        attestationPolicyCache = new AttestationPolicyCache();
+        ReflectionTestUtils.setField(attestationPolicyCache, "enabled", true);
+        ReflectionTestUtils.setField(attestationPolicyCache, "ttlSeconds", 300L);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldLoadOnlyOnceUntilInvalidated() throws Exception {
+        List<AttestationPolicy> first = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+        List<AttestationPolicy> second = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals(1, attestationPolicyCache.getHitCount());
+        assertEquals(1, attestationPolicyCache.getMissCount());
+
+        attestationPolicyCache.invalidate(ENTITY);
+        List<AttestationPolicy> reloaded = attestationPolicyCache.get(ENTITY, countingLoader("policy2"));
+
+        assertEquals(2, loads.get());
+        assertEquals("policy2", reloaded.get(0).getName());
+        assertEquals(1, attestationPolicyCache.getEvictionCount());
+    }
+
+    @Test
+    public void shouldKeepThePersistedPolicyWhileTheSearchIsBehind() throws Exception {
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+        AttestationPolicy created = policy("policy2");
+        created.setOsid("osid-policy2");
+
+        attestationPolicyCache.put(ENTITY, created, countingLoader("policy1"));
+        List<AttestationPolicy> cached = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cached.size());
+        assertSame(created, cached.get(1));
+
+        attestationPolicyCache.remove(ENTITY, "osid-policy1", countingLoader("policy1"));
+        cached = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.singletonList(created), cached);
+    }
+
+    @Test
+    public void shouldApplyThePersistedPolicyToAStaleLoad() throws Exception {
+        AttestationPolicy updated = policy("policy1-updated");
+        updated.setOsid("osid-policy1");
+
+        attestationPolicyCache.put(ENTITY, updated, countingLoader("policy1"));
+        List<AttestationPolicy> cached = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.singletonList(updated), cached);
+    }
+
+    @Test
+    public void shouldNotCacheALoadRacingWithAChange() throws Exception {
+        AttestationPolicy created = policy("policy2");
+        created.setOsid("osid-policy2");
+
+        List<AttestationPolicy> stale = attestationPolicyCache.get(ENTITY, () -> {
+            attestationPolicyCache.put(ENTITY, created, countingLoader("policy1"));
+            return countingLoader("policy1").call();
+        });
+        List<AttestationPolicy> cached = attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, stale.size());
+        assertEquals(2, cached.size());
+    }
+
+    @Test
+    public void shouldReloadExpiredEntries() throws Exception {
+        ReflectionTestUtils.setField(attestationPolicyCache, "ttlSeconds", 0L);
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+        Thread.sleep(1);
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, attestationPolicyCache.getEvictionCount());
+    }
+
+    @Test
+    public void shouldNotCacheFailedLoads() throws Exception {
+        try {
+            attestationPolicyCache.get(ENTITY, () -> {
+                throw new Exception("search failed");
+            });
+            fail("Expected the loader failure to be propagated");
+        } catch (Exception e) {
+            assertEquals("search failed", e.getMessage());
+        }
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(1, loads.get());
+        assertEquals(2, attestationPolicyCache.getMissCount());
+    }
+
+    @Test
+    public void shouldAlwaysLoadWhenDisabled() throws Exception {
+        ReflectionTestUtils.setField(attestationPolicyCache, "enabled", false);
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+        attestationPolicyCache.get(ENTITY, countingLoader("policy1"));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, attestationPolicyCache.getHitCount());
+    }
+
+    private Callable<List<AttestationPolicy>> countingLoader(String policyName) {
+        return () -> {
+            loads.incrementAndGet();
+            AttestationPolicy attestationPolicy = policy(policyName);
+            attestationPolicy.setOsid("osid-" + policyName);
+            return Collections.singletonList(attestationPolicy);
+        };
+    }
+
+    private AttestationPolicy policy(String policyName) {
+        AttestationPolicy attestationPolicy = new AttestationPolicy();
+        attestationPolicy.setName(policyName);
+        attestationPolicy.setEntity(ENTITY);
+        return attestationPolicy;
+    }
+}
@@ -5,7 +5,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.sunbirdrc.keycloak.KeycloakAdminUtil;
-import dev.sunbirdrc.pojos.SunbirdRCInstrumentation;
 import dev.sunbirdrc.registry.entities.AttestationPolicy;
 import dev.sunbirdrc.registry.middleware.service.ConditionResolverService;
 import dev.sunbirdrc.registry.middleware.util.Constants;
@@ -16,6 +15,7 @@ import dev.sunbirdrc.registry.sink.shard.ShardManager;
 import dev.sunbirdrc.registry.util.ClaimRequestClient;
 import dev.sunbirdrc.registry.util.Definition;
 import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.RegistryMetrics;
 import dev.sunbirdrc.registry.util.ViewTemplateManager;
 import dev.sunbirdrc.validators.IValidate;
 import dev.sunbirdrc.workflow.KieConfiguration;
@@ -37,6 +37,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -95,7 +96,7 @@ public class RegistryHelperTest {
     private IValidate validationService;
 
     @Mock
-    private SunbirdRCInstrumentation watch;
+    private RegistryMetrics registryMetrics;
 
     @Mock
     private ConditionResolverService conditionResolverService;
@@ -113,16 +114,19 @@ public class RegistryHelperTest {
     private static final String INSTITUTE = "Institute";
 
     @Before
-    public void initMocks() {
+    public void initMocks() throws Exception {
         objectMapper = new ObjectMapper();
         registryHelper.setObjectMapper(objectMapper);
         ReflectionTestUtils.setField(registryHelper, "auditSuffix", "Audit");
         ReflectionTestUtils.setField(registryHelper, "auditSuffixSeparator", "_");
         MockitoAnnotations.initMocks(this);
+        when(shardManager.onRecordShard(any(), any())).thenAnswer(invocation ->
+                ((ShardManager.ShardOperation<?>) invocation.getArgument(1)).apply(new Shard("shard1", "", null)));
         registryHelper.uuidPropertyName = "osid";
         RuleEngineService ruleEngineService = new RuleEngineService(kieContainer, keycloakAdminUtil);
         registryHelper.entityStateHelper = new EntityStateHelper(definitionsManager, ruleEngineService, conditionResolverService, claimRequestClient);
         registryHelper.setDefinitionsManager(definitionsManager);
+        registryHelper.setAttestationPolicyCache(new AttestationPolicyCache());
     }
 
     @Test
@@ -316,7 +320,7 @@ public class RegistryHelperTest {
         String testUserId = "be6d30e9-7c62-4a05-b4c8-ee28364da8e4";
         when(keycloakAdminUtil.createUser(any(), any(), any(), any())).thenReturn(testUserId);
         when(registryService.addEntity(any(), any(), any(), anyBoolean())).thenReturn(UUID.randomUUID().toString());
-        when(shardManager.getShard(any())).thenReturn(new Shard());
+        when(shardManager.getShard(any())).thenReturn(new Shard("shard1", "", null));
         ReflectionTestUtils.setField(registryHelper, "workflowEnabled", true);
         registryHelper.inviteEntity(inviteJson, "");
         Mockito.verify(registryService).addEntity(shardCapture.capture(), userIdCapture.capture(), inputJsonCapture.capture(), anyBoolean());
@@ -330,7 +334,7 @@ public class RegistryHelperTest {
         String testUserId = "be6d30e9-7c62-4a05-b4c8-ee28364da8e4";
         when(keycloakAdminUtil.createUser(any(), any(), any(), any())).thenReturn(testUserId);
         when(registryService.addEntity(any(), any(), any(), anyBoolean())).thenReturn(UUID.randomUUID().toString());
-        when(shardManager.getShard(any())).thenReturn(new Shard());
+        when(shardManager.getShard(any())).thenReturn(new Shard("shard1", "", null));
         registryHelper.inviteEntity(inviteJson, "");
         Mockito.verify(registryService).addEntity(shardCapture.capture(), userIdCapture.capture(), inputJsonCapture.capture(), anyBoolean());
         Mockito.verify(registryService, atLeastOnce()).callNotificationActors(operationCapture.capture(), toCapture.capture(), subjectCapture.capture(), messageCapture.capture());
@@ -360,7 +364,7 @@ public class RegistryHelperTest {
         String testUserId = "be6d30e9-7c62-4a05-b4c8-ee28364da8e4";
         when(keycloakAdminUtil.createUser(any(), any(), any(), any())).thenReturn(testUserId);
         when(registryService.addEntity(any(), any(), any(), anyBoolean())).thenReturn(UUID.randomUUID().toString());
-        when(shardManager.getShard(any())).thenReturn(new Shard());
+        when(shardManager.getShard(any())).thenReturn(new Shard("shard1", "", null));
         mockDefinitionManager();
         registryHelper.inviteEntity(inviteJson, "");
         Mockito.verify(registryService).addEntity(shardCapture.capture(), userIdCapture.capture(), inputJsonCapture.capture(), anyBoolean());
@@ -417,7 +421,7 @@ public class RegistryHelperTest {
         JsonNode inputNode = testInput.get("input");
         JsonNode expectedUpdatedNode = testInput.get("expected");
 
-        when(shardManager.getShard(any())).thenReturn(new Shard());
+        when(shardManager.getShard(any())).thenReturn(new Shard("shard1", "", null));
         when(readService.getEntity(any(), any(), any(), any(), any())).thenReturn(inputNode);
         AttestationPolicy attestationPolicy1 = new AttestationPolicy();
         attestationPolicy1.setName("attestationEducationDetails");
@@ -440,4 +444,28 @@ public class RegistryHelperTest {
         registryHelper.invalidateAttestation(entity, entityId, "userId",null );
         verify(registryService, times(1)).updateEntity(any(), any(), any(), eq(expectedUpdatedNode.toString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldExportEveryPageAsNdjson() throws Exception {
+        ReflectionTestUtils.setField(registryHelper, "exportPageSize", 2);
+        when(searchService.search(any())).thenReturn(
+                objectMapper.readTree("{\"Teacher\": [{\"osid\": \"1\"}, {\"osid\": \"2\"}], \"nextCursor\": \"page2\"}"),
+                objectMapper.readTree("{\"Teacher\": [{\"osid\": \"3\"}]}"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long exported = registryHelper.exportEntities("Teacher", outputStream);
+
+        assertEquals(3, exported);
+        assertEquals("{\"osid\":\"1\"}\n{\"osid\":\"2\"}\n{\"osid\":\"3\"}\n", outputStream.toString("UTF-8"));
+        verify(searchService, times(2)).search(any());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailTheExportWhenTheCursorDoesNotMoveOn() throws Exception {
+        ReflectionTestUtils.setField(registryHelper, "exportPageSize", 2);
+        when(searchService.search(any())).thenAnswer(invocation ->
+                objectMapper.readTree("{\"Teacher\": [], \"nextCursor\": \"page2\"}"));
+
+        registryHelper.exportEntities("Teacher", new ByteArrayOutputStream());
+    }
+}
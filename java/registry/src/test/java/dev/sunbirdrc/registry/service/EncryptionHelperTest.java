@@ -0,0 +1,127 @@
+package dev.sunbirdrc.registry.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import dev.sunbirdrc.pojos.SunbirdRCInstrumentation;
+import dev.sunbirdrc.registry.exception.EncryptionException;
+import dev.sunbirdrc.registry.service.impl.EncryptionServiceImpl;
+import dev.sunbirdrc.registry.service.impl.RetryRestTemplate;
+import dev.sunbirdrc.registry.util.Definition;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.PrivateField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static dev.sunbirdrc.registry.service.StubEncryptionServer.ENCRYPTED_PREFIX;
+import static org.junit.Assert.assertEquals;
+
+public class EncryptionHelperTest {
+    private static final String PERSON_SCHEMA = "{\"title\": \"Person\", \"definitions\": {\"Person\": {\"properties\": {" +
+            "\"name\": {\"type\": \"string\"}, \"email\": {\"type\": \"string\"}," +
+            "\"contact\": {\"$ref\": \"Contact.json/#/definitions/Contact\"}," +
+            "\"addresses\": {\"type\": \"array\", \"items\": {\"$ref\": \"Address.json/#/definitions/Address\"}}}}}," +
+            "\"_osConfig\": {\"privateFields\": [\"email\"]}}";
+    private static final String CONTACT_SCHEMA = "{\"title\": \"Contact\", \"definitions\": {\"Contact\": {\"properties\": {" +
+            "\"phone\": {\"type\": \"string\"}}}}, \"_osConfig\": {\"privateFields\": [\"phone\"]}}";
+    private static final String ADDRESS_SCHEMA = "{\"title\": \"Address\", \"definitions\": {\"Address\": {\"properties\": {" +
+            "\"street\": {\"type\": \"string\"}, \"city\": {\"type\": \"string\"}}}}, \"_osConfig\": {\"privateFields\": [\"street\"]}}";
+    private static final String PERSON = "{\"Person\": {\"name\": \"john\", \"email\": \"john@example.com\"," +
+            "\"contact\": {\"phone\": \"12345\"}," +
+            "\"addresses\": [{\"street\": \"first\", \"city\": \"pune\"}, {\"street\": \"second\"}, {\"street\": \"third\"}]}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StubEncryptionServer encryptionServer;
+    private EncryptionHelper encryptionHelper;
+    private DecryptionHelper decryptionHelper;
+
+    @Before
+    public void setUp() throws IOException {
+        encryptionServer = new StubEncryptionServer();
+
+        RetryRestTemplate retryRestTemplate = new RetryRestTemplate();
+        ReflectionTestUtils.setField(retryRestTemplate, "restTemplate", new RestTemplate());
+        EncryptionServiceImpl encryptionService = new EncryptionServiceImpl();
+        ReflectionTestUtils.setField(encryptionService, "retryRestTemplate", retryRestTemplate);
+        ReflectionTestUtils.setField(encryptionService, "gson", new Gson());
+        ReflectionTestUtils.setField(encryptionService, "watch", new SunbirdRCInstrumentation(false));
+        ReflectionTestUtils.setField(encryptionService, "encryptionBatchUri", encryptionServer.getUrl() + "/encrypt/obj");
+        ReflectionTestUtils.setField(encryptionService, "decryptionBatchUri", encryptionServer.getUrl() + "/decrypt/obj");
+
+        DefinitionsManager definitionsManager = new DefinitionsManager();
+        Map<String, Definition> definitionMap = new HashMap<>();
+        for (String schema : new String[]{PERSON_SCHEMA, CONTACT_SCHEMA, ADDRESS_SCHEMA}) {
+            Definition definition = new Definition(objectMapper.readTree(schema));
+            definitionMap.put(definition.getTitle(), definition);
+        }
+        ReflectionTestUtils.setField(definitionsManager, "definitionMap", definitionMap);
+
+        encryptionHelper = new EncryptionHelper();
+        decryptionHelper = new DecryptionHelper();
+        for (PrivateField helper : new PrivateField[]{encryptionHelper, decryptionHelper}) {
+            helper.encryptionService = encryptionService;
+            helper.definitionsManager = definitionsManager;
+            ReflectionTestUtils.setField(helper, "maxBatchSize", 100);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        encryptionServer.close();
+    }
+
+    @Test
+    public void shouldEncryptTheWholeDocumentInOneCall() throws Exception {
+        JsonNode person = encryptionHelper.getEncryptedJson(objectMapper.readTree(PERSON));
+
+        assertEquals(1, encryptionServer.getEncryptCalls());
+        assertEquals("john", person.at("/Person/name").asText());
+        assertEquals(ENCRYPTED_PREFIX + "john@example.com", person.at("/Person/email").asText());
+        assertEquals(ENCRYPTED_PREFIX + "12345", person.at("/Person/contact/phone").asText());
+        assertEquals(ENCRYPTED_PREFIX + "first", person.at("/Person/addresses/0/street").asText());
+        assertEquals("pune", person.at("/Person/addresses/0/city").asText());
+        assertEquals(ENCRYPTED_PREFIX + "second", person.at("/Person/addresses/1/street").asText());
+        assertEquals(ENCRYPTED_PREFIX + "third", person.at("/Person/addresses/2/street").asText());
+    }
+
+    @Test
+    public void shouldDecryptTheWholeDocumentInOneCall() throws Exception {
+        JsonNode person = encryptionHelper.getEncryptedJson(objectMapper.readTree(PERSON));
+
+        JsonNode decrypted = decryptionHelper.getDecryptedJson(person);
+
+        assertEquals(1, encryptionServer.getDecryptCalls());
+        assertEquals(objectMapper.readTree(PERSON), decrypted);
+    }
+
+    @Test
+    public void shouldSplitIntoCallsOfMaxBatchSize() throws Exception {
+        ReflectionTestUtils.setField(encryptionHelper, "maxBatchSize", 2);
+
+        JsonNode person = encryptionHelper.getEncryptedJson(objectMapper.readTree(PERSON));
+
+        assertEquals(3, encryptionServer.getEncryptCalls());
+        assertEquals(ENCRYPTED_PREFIX + "third", person.at("/Person/addresses/2/street").asText());
+    }
+
+    @Test
+    public void shouldNotCallTheServiceWithoutPrivateValues() throws Exception {
+        encryptionHelper.getEncryptedJson(objectMapper.readTree("{\"Person\": {\"name\": \"john\", \"addresses\": [{\"city\": \"pune\"}]}}"));
+
+        assertEquals(0, encryptionServer.getEncryptCalls());
+    }
+
+    @Test(expected = EncryptionException.class)
+    public void shouldFailWhenTheServiceIsDown() throws Exception {
+        encryptionServer.close();
+
+        encryptionHelper.getEncryptedJson(objectMapper.readTree(PERSON));
+    }
+}
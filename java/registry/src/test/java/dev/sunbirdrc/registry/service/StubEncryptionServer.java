@@ -0,0 +1,79 @@
+package dev.sunbirdrc.registry.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for the encryption service on a local port. The batch endpoints prefix every value
+ * with "enc:" on encryption and strip it on decryption, and count the calls they receive.
+ */
+class StubEncryptionServer implements AutoCloseable {
+    static final String ENCRYPTED_PREFIX = "enc:";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final AtomicInteger encryptCalls = new AtomicInteger();
+    private final AtomicInteger decryptCalls = new AtomicInteger();
+    private boolean stopped;
+
+    StubEncryptionServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/encrypt/obj", exchange -> {
+            encryptCalls.incrementAndGet();
+            respond(exchange, true);
+        });
+        server.createContext("/decrypt/obj", exchange -> {
+            decryptCalls.incrementAndGet();
+            respond(exchange, false);
+        });
+        server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int getEncryptCalls() {
+        return encryptCalls.get();
+    }
+
+    int getDecryptCalls() {
+        return decryptCalls.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!stopped) {
+            stopped = true;
+            server.stop(0);
+        }
+    }
+
+    private void respond(HttpExchange exchange, boolean encrypt) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        ObjectNode response = objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> values = request.get("value").fields();
+        while (values.hasNext()) {
+            Map.Entry<String, JsonNode> value = values.next();
+            String text = value.getValue().asText();
+            response.put(value.getKey(), encrypt ? ENCRYPTED_PREFIX + text : text.substring(ENCRYPTED_PREFIX.length()));
+        }
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.exception.SignatureException;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.middleware.util.OSSystemFields;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.service.SignatureService;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class AsyncSigningServiceTest {
+    private static final String testUuidPropertyName = "tid";
+    private static final long WAIT = 5000;
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private SignatureService signatureService;
+    private ShardManager shardManager;
+    private Shard shard;
+    private Graph graph;
+    private AsyncSigningService asyncSigningService;
+
+    @Before
+    public void setUp() {
+        dbConnectionInfoMgr.setUuidPropertyName(testUuidPropertyName);
+        DatabaseProvider databaseProvider = dbProviderFactory.getInstance(null);
+        graph = databaseProvider.getOSGraph().getGraphStore();
+        shard = new Shard("shard1", "", databaseProvider);
+        shardManager = mock(ShardManager.class);
+        when(shardManager.getShards()).thenReturn(Collections.singletonList(shard));
+        signatureService = mock(SignatureService.class);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        asyncSigningService.close();
+    }
+
+    @Test
+    public void shouldSignPendingEntitiesInBatches() throws Exception {
+        when(signatureService.signAll(anyList())).thenAnswer(this::sign);
+        asyncSigningService = start(5, 0);
+        List<String> osids = addTeachers(5);
+        for (String osid : osids) {
+            assertTrue(asyncSigningService.submit(shard, "Teacher", osid));
+        }
+        waitForSigned(5);
+
+        assertEquals(Collections.singletonList(5), batchSizes);
+        for (String osid : osids) {
+            Vertex vertex = graph.traversal().V().has(testUuidPropertyName, osid).next();
+            assertEquals(AsyncSigningService.Status.SIGNED.name(), vertex.value(OSSystemFields._osSignatureStatus.name()));
+            assertEquals("{\"signed\":\"" + osid + "\"}", vertex.value(OSSystemFields._osSignedData.name()));
+        }
+    }
+
+    @Test
+    public void shouldRetryTheBatchWhenTheSignerFails() throws Exception {
+        when(signatureService.signAll(anyList()))
+                .thenThrow(new SignatureException().new UnreachableException("down"))
+                .thenAnswer(this::sign);
+        asyncSigningService = start(5, 3);
+        String osid = addTeachers(1).get(0);
+        asyncSigningService.submit(shard, "Teacher", osid);
+        waitForSigned(1);
+
+        assertEquals(1, asyncSigningService.getRetriedCount());
+        assertEquals(AsyncSigningService.Status.SIGNED.name(), status(osid));
+    }
+
+    @Test
+    public void shouldMarkTheEntitiesFailedAfterTheRetries() throws Exception {
+        when(signatureService.signAll(anyList())).thenThrow(new SignatureException().new UnreachableException("down"));
+        asyncSigningService = start(5, 1);
+        String osid = addTeachers(1).get(0);
+        asyncSigningService.submit(shard, "Teacher", osid);
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (asyncSigningService.getFailedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(AsyncSigningService.Status.FAILED.name(), status(osid));
+        assertFalse(graph.traversal().V().has(testUuidPropertyName, osid).has(OSSystemFields._osSignedData.name()).hasNext());
+    }
+
+    @Test
+    public void shouldQueueThePendingEntitiesOnReconciliation() throws Exception {
+        when(signatureService.signAll(anyList())).thenAnswer(this::sign);
+        asyncSigningService = start(5, 0);
+        List<String> osids = addTeachers(3);
+        asyncSigningService.reconcile();
+        waitForSigned(3);
+
+        for (String osid : osids) {
+            assertEquals(AsyncSigningService.Status.SIGNED.name(), status(osid));
+        }
+    }
+
+    private AsyncSigningService start(int batchSize, int maxRetries) {
+        // no schema files are on the test classpath, Teacher is the signed entity type the reconciliation looks at
+        DefinitionsManager signedDefinitions = spy(definitionsManager);
+        doReturn(Collections.singleton("Teacher")).when(signedDefinitions).getAllKnownDefinitions();
+        doReturn(Collections.singletonMap("@context", "test")).when(signedDefinitions).getCredentialTemplate("Teacher");
+        AsyncSigningService service = new AsyncSigningService();
+        ReflectionTestUtils.setField(service, "signatureService", signatureService);
+        ReflectionTestUtils.setField(service, "definitionsManager", signedDefinitions);
+        ReflectionTestUtils.setField(service, "shardManager", shardManager);
+        ReflectionTestUtils.setField(service, "uuidPropertyName", testUuidPropertyName);
+        ReflectionTestUtils.setField(service, "signatureEnabled", true);
+        ReflectionTestUtils.setField(service, "asyncEnabled", true);
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "flushInterval", 1000L);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "maxRetries", maxRetries);
+        ReflectionTestUtils.setField(service, "retryBackoff", 10L);
+        ReflectionTestUtils.setField(service, "reconcileInterval", 600000L);
+        ReflectionTestUtils.setField(service, "searchProvider", "dev.sunbirdrc.registry.service.NativeSearchService");
+        service.start();
+        return service;
+    }
+
+    private List<String> addTeachers(int count) throws Exception {
+        VertexWriter vertexWriter = new VertexWriter(graph, shard.getDatabaseProvider(), testUuidPropertyName);
+        List<String> osids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            osids.add(vertexWriter.writeNodeEntity(objectMapper.readTree(String.format("{\"Teacher\": {\"serialNum\": %d, " +
+                    "\"teacherName\": \"teacher%d\", \"_osSignatureStatus\": \"PENDING\"}}", i, i))));
+        }
+        return osids;
+    }
+
+    private List<Object> sign(InvocationOnMock invocation) {
+        List<Object> requestBodies = invocation.getArgument(0);
+        batchSizes.add(requestBodies.size());
+        List<Object> signed = new ArrayList<>();
+        for (Object requestBody : requestBodies) {
+            Map<String, Object> data = objectMapper.convertValue(((Map<?, ?>) requestBody).get("data"), Map.class);
+            assertFalse(data.containsKey(OSSystemFields._osSignatureStatus.name()));
+            signed.add(objectMapper.createObjectNode().put("signed", data.get(testUuidPropertyName).toString()));
+        }
+        return signed;
+    }
+
+    private String status(String osid) {
+        return graph.traversal().V().has(testUuidPropertyName, osid).next().value(OSSystemFields._osSignatureStatus.name());
+    }
+
+    private void waitForSigned(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (asyncSigningService.getSignedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, asyncSigningService.getSignedCount());
+    }
+}
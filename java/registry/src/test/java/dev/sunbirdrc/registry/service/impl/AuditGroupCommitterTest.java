@@ -0,0 +1,221 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import dev.sunbirdrc.pojos.AuditRecord;
+import dev.sunbirdrc.registry.exception.AuditFailedException;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.util.AuditFileWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AuditGroupCommitterTest {
+    private static final long WAIT = 5000;
+
+    private final List<List<JsonNode>> writes = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> committed = Collections.synchronizedList(new ArrayList<>());
+    private final Shard shard1 = shard("shard1");
+    private final Shard shard2 = shard("shard2");
+    private AuditDBWriter auditDBWriter;
+    private AuditFileWriter auditFileWriter;
+    private AuditGroupCommitter auditGroupCommitter;
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Before
+    public void setUp() throws Exception {
+        auditDBWriter = mock(AuditDBWriter.class);
+        auditFileWriter = mock(AuditFileWriter.class);
+        when(auditDBWriter.auditToDB(any(Shard.class), anyList(), anyList())).thenAnswer(this::write);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        auditGroupCommitter.close();
+    }
+
+    @Test
+    public void shouldCommitFullBatchesAndFlushTheRestOnClose() throws Exception {
+        auditGroupCommitter = start(10, 60000, 100, AuditGroupCommitter.OverflowPolicy.block);
+        for (int i = 0; i < 25; i++) {
+            add(shard1, i);
+        }
+        waitForWrites(2);
+        auditGroupCommitter.close();
+
+        assertEquals(3, writes.size());
+        assertEquals(10, writes.get(0).size());
+        assertEquals(10, writes.get(1).size());
+        assertEquals(5, writes.get(2).size());
+        assertEquals(25, auditGroupCommitter.getWrittenCount());
+        assertEquals(25, committed.size());
+    }
+
+    @Test
+    public void shouldCommitPartialBatchAfterFlushInterval() throws Exception {
+        auditGroupCommitter = start(100, 100, 100, AuditGroupCommitter.OverflowPolicy.block);
+        for (int i = 0; i < 3; i++) {
+            add(shard1, i);
+        }
+        waitForWrites(1);
+
+        assertEquals(3, writes.get(0).size());
+    }
+
+    @Test
+    public void shouldUseOneTransactionPerShard() throws Exception {
+        auditGroupCommitter = start(4, 60000, 100, AuditGroupCommitter.OverflowPolicy.block);
+        add(shard1, 0);
+        add(shard2, 1);
+        add(shard1, 2);
+        add(shard2, 3);
+        waitForWrites(2);
+
+        verify(auditDBWriter).auditToDB(same(shard1), argThat(nodes -> nodes.size() == 2), anyList());
+        verify(auditDBWriter).auditToDB(same(shard2), argThat(nodes -> nodes.size() == 2), anyList());
+    }
+
+    @Test
+    public void shouldCountFailedCommits() throws Exception {
+        doThrow(new AuditFailedException("down")).when(auditDBWriter).auditToDB(same(shard2), anyList(), anyList());
+        auditGroupCommitter = start(2, 60000, 100, AuditGroupCommitter.OverflowPolicy.block);
+        add(shard1, 0);
+        add(shard2, 1);
+        auditGroupCommitter.close();
+
+        assertEquals(1, auditGroupCommitter.getWrittenCount());
+        assertEquals(1, auditGroupCommitter.getFailedCount());
+        assertEquals(Collections.singletonList("id0"), committed);
+    }
+
+    @Test
+    public void shouldDropWhenTheBufferIsFull() throws Exception {
+        auditGroupCommitter = fillBuffer(AuditGroupCommitter.OverflowPolicy.drop);
+
+        assertTrue(add(shard1, 3));
+        assertEquals(1, auditGroupCommitter.getDroppedCount());
+
+        gate.countDown();
+        auditGroupCommitter.close();
+        assertEquals(3, auditGroupCommitter.getWrittenCount());
+    }
+
+    @Test
+    public void shouldSpillToFileWhenTheBufferIsFull() throws Exception {
+        auditGroupCommitter = fillBuffer(AuditGroupCommitter.OverflowPolicy.spill);
+
+        AuditRecord auditRecord = new AuditRecord();
+        assertTrue(auditGroupCommitter.add(shard1, node(3), "Teacher_Audit", auditRecord, null));
+        verify(auditFileWriter).auditToFile(same(auditRecord));
+        assertEquals(1, auditGroupCommitter.getSpilledCount());
+
+        gate.countDown();
+        auditGroupCommitter.close();
+        assertEquals(3, auditGroupCommitter.getWrittenCount());
+    }
+
+    @Test
+    public void shouldBlockWhenTheBufferIsFull() throws Exception {
+        auditGroupCommitter = fillBuffer(AuditGroupCommitter.OverflowPolicy.block);
+
+        Thread producer = new Thread(() -> {
+            try {
+                add(shard1, 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(300);
+        assertTrue("add must wait while the buffer is full", producer.isAlive());
+
+        gate.countDown();
+        producer.join(WAIT);
+        assertFalse(producer.isAlive());
+        auditGroupCommitter.close();
+        assertEquals(4, auditGroupCommitter.getWrittenCount());
+    }
+
+    @Test
+    public void shouldNotTakeRecordsWhenDisabled() throws Exception {
+        auditGroupCommitter = new AuditGroupCommitter();
+        ReflectionTestUtils.setField(auditGroupCommitter, "enabled", false);
+        auditGroupCommitter.start();
+
+        assertFalse(auditGroupCommitter.isRunning());
+        assertFalse(add(shard1, 0));
+    }
+
+    /**
+     * Starts a committer with a buffer of 2 and fills it while the writer is held writing the first record
+     */
+    private AuditGroupCommitter fillBuffer(AuditGroupCommitter.OverflowPolicy overflowPolicy) throws Exception {
+        gate = new CountDownLatch(1);
+        AuditGroupCommitter committer = start(1, 60000, 2, overflowPolicy);
+        auditGroupCommitter = committer;
+        add(shard1, 0);
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (committer.getBufferSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        add(shard1, 1);
+        add(shard1, 2);
+        return committer;
+    }
+
+    private AuditGroupCommitter start(int batchSize, long flushInterval, int bufferCapacity,
+                                      AuditGroupCommitter.OverflowPolicy overflowPolicy) {
+        AuditGroupCommitter committer = new AuditGroupCommitter();
+        ReflectionTestUtils.setField(committer, "auditDBWriter", auditDBWriter);
+        ReflectionTestUtils.setField(committer, "auditFileWriter", auditFileWriter);
+        ReflectionTestUtils.setField(committer, "enabled", true);
+        ReflectionTestUtils.setField(committer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(committer, "flushInterval", flushInterval);
+        ReflectionTestUtils.setField(committer, "bufferCapacity", bufferCapacity);
+        ReflectionTestUtils.setField(committer, "overflowPolicy", overflowPolicy);
+        committer.start();
+        return committer;
+    }
+
+    private boolean add(Shard shard, int id) throws InterruptedException {
+        return auditGroupCommitter.add(shard, node(id), "Teacher_Audit", new AuditRecord(), committed::add);
+    }
+
+    private List<String> write(InvocationOnMock invocation) throws InterruptedException {
+        gate.await();
+        List<JsonNode> rootNodes = invocation.getArgument(1);
+        writes.add(rootNodes);
+        List<String> ids = new ArrayList<>();
+        for (JsonNode rootNode : rootNodes) {
+            ids.add("id" + rootNode.get("id").asInt());
+        }
+        return ids;
+    }
+
+    private void waitForWrites(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (writes.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(writes.size() >= count);
+    }
+
+    private static JsonNode node(int id) {
+        return JsonNodeFactory.instance.objectNode().put("id", id);
+    }
+
+    private static Shard shard(String shardId) {
+        return new Shard(shardId, null, null);
+    }
+}
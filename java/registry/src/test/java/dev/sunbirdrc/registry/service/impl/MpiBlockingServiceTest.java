@@ -0,0 +1,148 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.service.EncryptionService;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.OSGraph;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.Definition;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.MpiBlockingIndex;
+import dev.sunbirdrc.registry.util.OSSchemaConfiguration;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+public class MpiBlockingServiceTest {
+    private static final String UUID = "1-7cfd2bd1-8ba5-4e35-bf8f-1b3b8d8a1c1d";
+    private static final String OTHER_UUID = "1-0b6cdfa4-9d0a-4a57-8a3e-2f5c1e7d9b42";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Shard shard = new Shard("shard1", "1", null);
+    private EncryptionService encryptionService;
+    private MpiBlockingService mpiBlockingService;
+
+    @Before
+    public void setUp() {
+        encryptionService = mock(EncryptionService.class);
+        OSSchemaConfiguration osSchemaConfiguration = new OSSchemaConfiguration();
+        osSchemaConfiguration.setPrivateFields(Collections.singletonList("nationalId"));
+        Definition definition = mock(Definition.class);
+        when(definition.getOsSchemaConfiguration()).thenReturn(osSchemaConfiguration);
+        DefinitionsManager definitionsManager = mock(DefinitionsManager.class);
+        when(definitionsManager.getDefinition("Patient")).thenReturn(definition);
+
+        mpiBlockingService = new MpiBlockingService();
+        ReflectionTestUtils.setField(mpiBlockingService, "definitionsManager", definitionsManager);
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionService", encryptionService);
+        ReflectionTestUtils.setField(mpiBlockingService, "enabled", true);
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionEnabled", true);
+        ReflectionTestUtils.setField(mpiBlockingService, "entityTypes", new String[]{"Patient"});
+        ReflectionTestUtils.setField(mpiBlockingService, "nameFields", new String[]{"name"});
+        ReflectionTestUtils.setField(mpiBlockingService, "nationalIdField", "nationalId");
+        ReflectionTestUtils.setField(mpiBlockingService, "minScore", 0.85);
+        ReflectionTestUtils.setField(mpiBlockingService, "maxCandidates", 20);
+        ReflectionTestUtils.setField(mpiBlockingService, "uuidPropertyName", "osid");
+        ReflectionTestUtils.setField(mpiBlockingService, "decryptBatchSize", 100);
+        mpiBlockingService.init();
+    }
+
+    @Test
+    public void shouldIndexTheDecryptedPrivateFieldsUnderTheShardLabel() throws Exception {
+        when(encryptionService.decrypt(anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> decrypted = new HashMap<>();
+            ((Map<String, Object>) invocation.getArgument(0)).forEach((key, value) -> decrypted.put(key, "29001010112345"));
+            return decrypted;
+        });
+
+        mpiBlockingService.index(shard, "Patient", UUID.substring(2),
+                objectMapper.readTree("{\"name\": \"Mohamed Ahmed\", \"nationalId\": \"encrypted\"}"));
+
+        List<MpiBlockingIndex.Candidate> candidates = mpiBlockingService.findCandidates("Ahmed Ali", "29001010112345");
+        assertEquals(1, candidates.size());
+        assertEquals(UUID, candidates.get(0).getId());
+        verify(encryptionService).decrypt(Collections.singletonMap("0.nationalId", "encrypted"));
+    }
+
+    @Test
+    public void shouldRemoveByTheIdWithTheShardLabel() throws Exception {
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionEnabled", false);
+        mpiBlockingService.index(shard, "Patient", UUID.substring(2), objectMapper.readTree("{\"name\": \"Mohamed Ahmed\"}"));
+        assertEquals(1, mpiBlockingService.size());
+
+        mpiBlockingService.remove(shard, UUID.substring(2));
+
+        assertEquals(0, mpiBlockingService.size());
+        verify(encryptionService, never()).decrypt(anyMap());
+    }
+
+    @Test
+    public void shouldFindTheDuplicatesOfAnEntityButItself() throws Exception {
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionEnabled", false);
+        mpiBlockingService.index(shard, "Patient", UUID.substring(2), objectMapper.readTree("{\"name\": \"Mohamed Ahmed\"}"));
+        mpiBlockingService.index(shard, "Patient", OTHER_UUID.substring(2), objectMapper.readTree("{\"name\": \"Mohammed Ahmed\"}"));
+
+        List<MpiBlockingIndex.Candidate> candidates = mpiBlockingService.findDuplicates("Patient",
+                objectMapper.readTree("{\"osid\": \"" + UUID + "\", \"name\": \"Mohamed Ahmed\"}"));
+
+        assertEquals(1, candidates.size());
+        assertEquals(OTHER_UUID, candidates.get(0).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotFindTheDuplicatesOfAnEntityTypeNotIndexed() throws Exception {
+        mpiBlockingService.findDuplicates("Teacher", objectMapper.readTree("{\"name\": \"Mohamed Ahmed\"}"));
+    }
+
+    @Test
+    public void shouldServeTheCurrentIndexAndKeepLiveChangesWhileRebuilding() throws Exception {
+        Graph graph = TinkerGraph.open();
+        graph.addVertex(T.label, "Patient", "osid", OTHER_UUID.substring(2), "name", "Sara Hassan", "nationalId", "encrypted");
+        mockShard(graph);
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionEnabled", false);
+        mpiBlockingService.index(shard, "Patient", UUID.substring(2), objectMapper.readTree("{\"name\": \"Mohamed Ahmed\"}"));
+        ReflectionTestUtils.setField(mpiBlockingService, "encryptionEnabled", true);
+        when(encryptionService.decrypt(anyMap())).thenAnswer(invocation -> {
+            // the patient read by the rebuild is updated meanwhile, while the index in use still serves searches
+            assertEquals(1, mpiBlockingService.findCandidates("Mohamed Ahmed", null).size());
+            mpiBlockingService.index(shard, "Patient", OTHER_UUID.substring(2), objectMapper.readTree("{\"name\": \"Sarah Mahmoud\"}"));
+            return Collections.singletonMap("0.nationalId", "29001010112345");
+        });
+
+        mpiBlockingService.rebuild();
+
+        assertEquals(1, mpiBlockingService.size());
+        assertTrue(mpiBlockingService.findCandidates("Mohamed Ahmed", null).isEmpty());
+        assertTrue(mpiBlockingService.findCandidates("Sara Hassan", null).isEmpty());
+        assertEquals(OTHER_UUID, mpiBlockingService.findCandidates("Sarah Mahmoud", null).get(0).getId());
+    }
+
+    private void mockShard(Graph graph) {
+        DatabaseProvider databaseProvider = mock(DatabaseProvider.class);
+        when(databaseProvider.getOSGraph()).thenReturn(new OSGraph(graph, false));
+        ShardManager shardManager = mock(ShardManager.class);
+        when(shardManager.activateShard("shard1")).thenReturn(new Shard("shard1", "1", databaseProvider));
+        DBConnectionInfo connectionInfo = new DBConnectionInfo();
+        connectionInfo.setShardId("shard1");
+        DBConnectionInfoMgr dbConnectionInfoMgr = mock(DBConnectionInfoMgr.class);
+        when(dbConnectionInfoMgr.getConnectionInfo()).thenReturn(Collections.singletonList(connectionInfo));
+        ReflectionTestUtils.setField(mpiBlockingService, "shardManager", shardManager);
+        ReflectionTestUtils.setField(mpiBlockingService, "dbConnectionInfoMgr", dbConnectionInfoMgr);
+    }
+}
@@ -0,0 +1,258 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.pojos.APIMessage;
+import dev.sunbirdrc.pojos.SearchCursor;
+import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.service.IAuditService;
+import dev.sunbirdrc.registry.service.NativeSearchService;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import dev.sunbirdrc.registry.util.RecordIdentifier;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class NativeSearchServiceParallelTest {
+    private static final String testUuidPropertyName = "tid";
+    private static final int SHARD_COUNT = 3;
+    private static final int TEACHERS_PER_SHARD = 3;
+    private static final long SHARD_DELAY = 300;
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<DatabaseProvider> shardProviders = new ArrayList<>();
+    private NativeSearchService searchService;
+    private ThreadPoolTaskExecutor searchExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        dbConnectionInfoMgr.setUuidPropertyName(testUuidPropertyName);
+
+        List<DBConnectionInfo> connectionInfos = new ArrayList<>();
+        ShardManager shardManager = mock(ShardManager.class);
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            DatabaseProvider databaseProvider = Mockito.spy(dbProviderFactory.getInstance(null));
+            writeTeachers(databaseProvider, i);
+            shardProviders.add(databaseProvider);
+
+            DBConnectionInfo connectionInfo = new DBConnectionInfo();
+            connectionInfo.setShardId("shard" + i);
+            connectionInfo.setShardLabel(String.valueOf(i));
+            connectionInfos.add(connectionInfo);
+
+            Shard shard = new Shard(connectionInfo.getShardId(), connectionInfo.getShardLabel(), databaseProvider);
+            when(shardManager.activateShard(connectionInfo.getShardId())).thenReturn(shard);
+        }
+        DBConnectionInfoMgr shardedConnectionInfoMgr = mock(DBConnectionInfoMgr.class);
+        when(shardedConnectionInfoMgr.getConnectionInfo()).thenReturn(connectionInfos);
+
+        searchExecutor = new ThreadPoolTaskExecutor();
+        searchExecutor.setCorePoolSize(SHARD_COUNT);
+        searchExecutor.setMaxPoolSize(SHARD_COUNT);
+        searchExecutor.setQueueCapacity(10);
+        searchExecutor.initialize();
+
+        searchService = new NativeSearchService();
+        ReflectionTestUtils.setField(searchService, "dbConnectionInfoMgr", shardedConnectionInfoMgr);
+        ReflectionTestUtils.setField(searchService, "definitionsManager", definitionsManager);
+        ReflectionTestUtils.setField(searchService, "shardManager", shardManager);
+        ReflectionTestUtils.setField(searchService, "auditService", mock(IAuditService.class));
+        ReflectionTestUtils.setField(searchService, "apiMessage", mock(APIMessage.class));
+        ReflectionTestUtils.setField(searchService, "searchExecutor", searchExecutor);
+        ReflectionTestUtils.setField(searchService, "uuidPropertyName", testUuidPropertyName);
+        ReflectionTestUtils.setField(searchService, "offset", 0);
+        ReflectionTestUtils.setField(searchService, "limit", 100);
+        ReflectionTestUtils.setField(searchService, "expandInternal", true);
+        ReflectionTestUtils.setField(searchService, "shardTimeout", 10 * SHARD_DELAY);
+        ReflectionTestUtils.setField(searchService, "partialResultsPolicy", NativeSearchService.PartialResultsPolicy.bestEffort);
+        ReflectionTestUtils.setField(searchService, "parallelSearchEnabled", true);
+    }
+
+    @After
+    public void tearDown() {
+        searchExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldApplyOffsetAndLimitOnTheMergedResult() throws Exception {
+        ReflectionTestUtils.setField(searchService, "parallelSearchEnabled", false);
+        List<String> allTeachers = teacherIds(searchService.search(searchRequest(0, 100)));
+        assertEquals(SHARD_COUNT * TEACHERS_PER_SHARD, allTeachers.size());
+        allTeachers.sort(Comparator.comparing(RecordIdentifier::getUUID));
+
+        ReflectionTestUtils.setField(searchService, "parallelSearchEnabled", true);
+        List<String> page = teacherIds(searchService.search(searchRequest(2, 5)));
+
+        // records of all the shards, in the order of the uuid
+        assertEquals(allTeachers.subList(2, 7), page);
+    }
+
+    @Test
+    public void shouldTakeAsLongAsTheSlowestShard() throws Exception {
+        for (DatabaseProvider shardProvider : shardProviders) {
+            delay(shardProvider, SHARD_DELAY);
+        }
+
+        long start = System.currentTimeMillis();
+        JsonNode result = searchService.search(searchRequest(0, 100));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(SHARD_COUNT * TEACHERS_PER_SHARD, result.get("Teacher").size());
+        assertTrue("took " + elapsed + "ms", elapsed < 2 * SHARD_DELAY);
+    }
+
+    @Test
+    public void shouldListFailedShardsOnBestEffort() throws Exception {
+        doThrow(new RuntimeException("shard down")).when(shardProviders.get(1)).getOSGraph();
+
+        JsonNode result = searchService.search(searchRequest(0, 100));
+
+        assertEquals((SHARD_COUNT - 1) * TEACHERS_PER_SHARD, result.get("Teacher").size());
+        assertEquals(1, result.get(NativeSearchService.SHARDS_FAILED).size());
+        assertEquals("shard2", result.get(NativeSearchService.SHARDS_FAILED).get(0).get("shardId").asText());
+    }
+
+    @Test
+    public void shouldListTimedOutShardsOnBestEffort() throws Exception {
+        ReflectionTestUtils.setField(searchService, "shardTimeout", SHARD_DELAY);
+        delay(shardProviders.get(2), 5 * SHARD_DELAY);
+
+        JsonNode result = searchService.search(searchRequest(0, 100));
+
+        assertEquals((SHARD_COUNT - 1) * TEACHERS_PER_SHARD, result.get("Teacher").size());
+        assertEquals("shard3", result.get(NativeSearchService.SHARDS_FAILED).get(0).get("shardId").asText());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailOnFailFast() throws Exception {
+        ReflectionTestUtils.setField(searchService, "partialResultsPolicy", NativeSearchService.PartialResultsPolicy.failFast);
+        doThrow(new RuntimeException("shard down")).when(shardProviders.get(1)).getOSGraph();
+
+        searchService.search(searchRequest(0, 100));
+    }
+
+    @Test
+    public void shouldFailAKeysetPageWhenAShardFails() throws Exception {
+        doThrow(new RuntimeException("shard down")).when(shardProviders.get(1)).getOSGraph();
+        ObjectNode request = (ObjectNode) searchRequest(0, 2);
+        request.put(SearchCursor.CURSOR, "");
+
+        for (boolean parallel : new boolean[]{true, false}) {
+            ReflectionTestUtils.setField(searchService, "parallelSearchEnabled", parallel);
+            try {
+                searchService.search(request);
+                fail("a page without the records of shard2 was returned");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("shard2"));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotMarkAnyShardWhenAllSucceed() throws Exception {
+        JsonNode result = searchService.search(searchRequest(0, 100));
+
+        assertFalse(result.has(NativeSearchService.SHARDS_FAILED));
+    }
+
+    @Test
+    public void shouldPageThroughAllShardsWithACursor() throws Exception {
+        assertEquals(pageWithCursor(), pageWithCursor());
+        ReflectionTestUtils.setField(searchService, "parallelSearchEnabled", false);
+        assertEquals(pageWithCursor(), pageWithCursor());
+    }
+
+    private List<String> pageWithCursor() throws Exception {
+        List<String> uuids = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            ObjectNode request = (ObjectNode) searchRequest(0, 2);
+            request.put(SearchCursor.CURSOR, cursor);
+            JsonNode result = searchService.search(request);
+            assertTrue(result.get("Teacher").size() <= 2);
+            for (String id : teacherIds(result)) {
+                uuids.add(RecordIdentifier.getUUID(id));
+            }
+            cursor = result.has(SearchCursor.NEXT_CURSOR) ? result.get(SearchCursor.NEXT_CURSOR).asText() : null;
+            pages++;
+        }
+
+        assertEquals(5, pages);
+        assertEquals(SHARD_COUNT * TEACHERS_PER_SHARD, new HashSet<>(uuids).size());
+        List<String> sorted = new ArrayList<>(uuids);
+        Collections.sort(sorted);
+        assertEquals(sorted, uuids);
+        return uuids;
+    }
+
+    private void delay(DatabaseProvider databaseProvider, long millis) {
+        doAnswer(invocation -> {
+            Thread.sleep(millis);
+            return invocation.callRealMethod();
+        }).when(databaseProvider).getOSGraph();
+    }
+
+    private JsonNode searchRequest(int offset, int limit) throws IOException {
+        return objectMapper.readTree(String.format("{\"entityType\": [\"Teacher\"], \"filters\": {}, " +
+                "\"offset\": %d, \"limit\": %d}", offset, limit));
+    }
+
+    private List<String> teacherIds(JsonNode result) {
+        List<String> ids = new ArrayList<>();
+        for (JsonNode teacher : result.get("Teacher")) {
+            ids.add(teacher.get(testUuidPropertyName).asText());
+        }
+        return ids;
+    }
+
+    private void writeTeachers(DatabaseProvider databaseProvider, int shardNumber) throws Exception {
+        Graph graph = databaseProvider.getOSGraph().getGraphStore();
+        VertexWriter vertexWriter = new VertexWriter(graph, databaseProvider, testUuidPropertyName);
+        for (int i = 0; i < TEACHERS_PER_SHARD; i++) {
+            vertexWriter.writeNodeEntity(objectMapper.readTree(String.format("{\"Teacher\": {\"serialNum\": %d, " +
+                    "\"teacherName\": \"shard%dteacher%d\"}}", i, shardNumber, i)));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package dev.sunbirdrc.registry.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.model.dto.WebhookEvent;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import dev.sunbirdrc.registry.sink.shard.ShardManager;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class WebhookDispatcherTest {
+    private static final String SUBSCRIBER = "http://subscriber/callback";
+    private static final String OTHER_SUBSCRIBER = "http://other/callback";
+    private static final long WAIT = 5000;
+
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private Graph graph;
+    private RestTemplate restTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookOutbox webhookOutbox;
+    private WebhookDispatcher webhookDispatcher;
+
+    @Before
+    public void setUp() {
+        DatabaseProvider databaseProvider = dbProviderFactory.getInstance(null);
+        graph = databaseProvider.getOSGraph().getGraphStore();
+        ShardManager shardManager = mock(ShardManager.class);
+        when(shardManager.getDefaultShard()).thenReturn(new Shard("shard1", "", databaseProvider));
+        webhookOutbox = new WebhookOutbox();
+        ReflectionTestUtils.setField(webhookOutbox, "shardManager", shardManager);
+        ReflectionTestUtils.setField(webhookOutbox, "objectMapper", objectMapper);
+        restTemplate = mock(RestTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        webhookDispatcher.close();
+    }
+
+    @Test
+    public void shouldDeliverTheEventsAndEmptyTheOutbox() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class))).thenAnswer(this::post);
+        webhookDispatcher = start(false, 1, 5, 5);
+        addEvents(3, SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getDeliveredCount() == 3);
+
+        assertEquals(3, bodies.size());
+        assertEquals("event0", objectMapper.readTree(bodies.get(0)).get("event").asText());
+        assertEquals(0, webhookOutbox.depth());
+        assertEquals(3, meterRegistry.get(WebhookDispatcher.DELIVERY_TIMER_NAME).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void shouldPostTheEventsAsAnArrayWhenTheSubscriberTakesThem() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class))).thenAnswer(this::post);
+        webhookDispatcher = start(true, 1, 5, 5);
+        addEvents(3, SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getDeliveredCount() == 3);
+
+        assertEquals(1, bodies.size());
+        JsonNode events = objectMapper.readTree(bodies.get(0));
+        assertTrue(events.isArray());
+        assertEquals(3, events.size());
+    }
+
+    @Test
+    public void shouldRetryAFailedDeliveryAndGiveItUp() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("down"));
+        webhookDispatcher = start(false, 1, 2, 10);
+        addEvents(1, SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getFailedCount() == 1);
+
+        verify(restTemplate, times(3)).postForEntity(eq(SUBSCRIBER), any(), eq(String.class));
+        assertEquals(2, webhookDispatcher.getRetriedCount());
+        assertEquals(0, webhookOutbox.depth());
+        assertTrue(graph.traversal().V().hasLabel(WebhookOutbox.OUTBOX_LABEL).has("status", "FAILED").hasNext());
+    }
+
+    @Test
+    public void shouldStopCallingAFailingEndpoint() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("down"));
+        when(restTemplate.postForEntity(eq(OTHER_SUBSCRIBER), any(), eq(String.class))).thenAnswer(this::post);
+        webhookDispatcher = start(false, 1, 100, 2);
+        ReflectionTestUtils.setField(webhookDispatcher, "circuitBreakerThreshold", 2);
+        ReflectionTestUtils.setField(webhookDispatcher, "circuitBreakerOpenTime", 60000L);
+        addEvents(5, SUBSCRIBER, OTHER_SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getDeliveredCount() == 5);
+        Thread.sleep(200);
+
+        verify(restTemplate, atMost(2)).postForEntity(eq(SUBSCRIBER), any(), eq(String.class));
+        assertEquals(5, webhookOutbox.depth());
+    }
+
+    @Test
+    public void shouldLimitTheConcurrentRequestsOfAnEndpoint() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class))).thenAnswer(this::slowPost);
+        webhookDispatcher = start(false, 4, 5, 5);
+        addEvents(6, SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getDeliveredCount() == 6);
+
+        assertEquals(1, maxConcurrent.get());
+    }
+
+    @Test
+    public void shouldNotHandOutAClaimedEventUntilItsLeaseEnds() throws Exception {
+        webhookDispatcher = start(false, 1, 5, 5);
+        webhookDispatcher.close();
+        addEvents(2, SUBSCRIBER);
+        long now = System.currentTimeMillis();
+        List<WebhookOutbox.Entry> due = webhookOutbox.due(now, 10, Collections.emptySet());
+        assertEquals(2, due.size());
+
+        assertEquals(1, webhookOutbox.claim(due.subList(0, 1), now + 1000).size());
+        assertEquals(0, webhookOutbox.claim(due.subList(0, 1), now + 1000).size());
+        List<WebhookOutbox.Entry> stillDue = webhookOutbox.due(now, 10, Collections.emptySet());
+        assertEquals(1, stillDue.size());
+        assertEquals(due.get(1).getId(), stillDue.get(0).getId());
+        assertEquals(2, webhookOutbox.due(now + 1000, 10, Collections.emptySet()).size());
+        assertEquals(2, webhookOutbox.depth());
+    }
+
+    @Test
+    public void shouldDeliverToAnEndpointWhileAnotherOneIsBusy() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class))).thenAnswer(invocation -> {
+            busy.await();
+            return post(invocation);
+        });
+        when(restTemplate.postForEntity(eq(OTHER_SUBSCRIBER), any(), eq(String.class))).thenAnswer(this::post);
+        webhookDispatcher = start(false, 2, 5, 5);
+        ReflectionTestUtils.setField(webhookDispatcher, "fetchSize", 2);
+        addEvents(5, SUBSCRIBER);
+        Thread.sleep(5);
+        addEvents(2, OTHER_SUBSCRIBER);
+        try {
+            // the older events of the busy endpoint fill every read of fetchSize events
+            waitFor(() -> webhookDispatcher.getDeliveredCount() == 2);
+        } finally {
+            busy.countDown();
+        }
+        waitFor(() -> webhookDispatcher.getDeliveredCount() == 7);
+    }
+
+    @Test
+    public void shouldPruneTheEventsGivenUpAfterTheRetention() throws Exception {
+        when(restTemplate.postForEntity(eq(SUBSCRIBER), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("down"));
+        webhookDispatcher = start(false, 1, 0, 10);
+        addEvents(1, SUBSCRIBER);
+        waitFor(() -> webhookDispatcher.getFailedCount() == 1);
+
+        webhookOutbox.pruneFailed(System.currentTimeMillis() - 60000);
+        assertTrue(graph.traversal().V().hasLabel(WebhookOutbox.OUTBOX_LABEL).has("status", "FAILED").hasNext());
+        webhookOutbox.pruneFailed(System.currentTimeMillis() + 1);
+        assertFalse(graph.traversal().V().hasLabel(WebhookOutbox.OUTBOX_LABEL).hasNext());
+    }
+
+    private WebhookDispatcher start(boolean batchSupported, int workers, int maxRetries, long retryBackoff) {
+        WebhookDispatcher dispatcher = new WebhookDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "webhookOutbox", webhookOutbox);
+        ReflectionTestUtils.setField(dispatcher, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "webhookEnabled", true);
+        ReflectionTestUtils.setField(dispatcher, "outboxEnabled", true);
+        ReflectionTestUtils.setField(dispatcher, "workers", workers);
+        ReflectionTestUtils.setField(dispatcher, "maxConcurrency", 1);
+        ReflectionTestUtils.setField(dispatcher, "pollInterval", 20L);
+        ReflectionTestUtils.setField(dispatcher, "fetchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "batchSupported", batchSupported);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxRetries", maxRetries);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoff", retryBackoff);
+        ReflectionTestUtils.setField(dispatcher, "maxRetryBackoff", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "circuitBreakerThreshold", 100);
+        ReflectionTestUtils.setField(dispatcher, "circuitBreakerOpenTime", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "leaseTime", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "depthRefreshInterval", 0L);
+        ReflectionTestUtils.setField(dispatcher, "failedRetention", 60000L);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private void addEvents(int count, String... endpoints) throws Exception {
+        List<WebhookEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(WebhookEvent.builder().event("event" + i).data(Collections.singletonMap("osid", "id" + i)).build());
+        }
+        webhookOutbox.add(events, endpoints);
+        webhookDispatcher.wakeUp();
+    }
+
+    private ResponseEntity<String> post(InvocationOnMock invocation) {
+        HttpEntity<?> entity = invocation.getArgument(1);
+        bodies.add(entity.getBody().toString());
+        return ResponseEntity.ok("");
+    }
+
+    private ResponseEntity<String> slowPost(InvocationOnMock invocation) throws InterruptedException {
+        maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(50);
+            return post(invocation);
+        } finally {
+            concurrent.decrementAndGet();
+        }
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,95 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashRingTest {
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 20000;
+
+    @Test
+    public void shouldMoveOnlyTheKeysTakenByTheNewShard() {
+        HashRing threeShards = new HashRing(shards(1, 1, 1), VIRTUAL_NODES);
+        HashRing fourShards = new HashRing(shards(1, 1, 1, 1), VIRTUAL_NODES);
+        List<HashRing.KeyRange> movedRanges = threeShards.getMovedRanges(fourShards);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key" + i;
+            String before = threeShards.getShard(key).getShardId();
+            String after = fourShards.getShard(key).getShardId();
+            boolean inMovedRange = movedRanges.stream().anyMatch(range -> range.contains(HashRing.hash(key)));
+            assertEquals(key, !before.equals(after), inMovedRange);
+            if (!before.equals(after)) {
+                assertEquals("shard4", after);
+                moved++;
+            }
+        }
+        // the new shard takes a quarter of the keys, the others keep theirs
+        double movedShare = (double) moved / KEYS;
+        assertTrue("moved " + movedShare, movedShare > 0.25 * 0.8 && movedShare < 0.25 * 1.2);
+        for (HashRing.KeyRange range : movedRanges) {
+            assertEquals("shard4", range.getTo().getShardId());
+        }
+    }
+
+    @Test
+    public void shouldShareTheKeysByWeight() {
+        HashRing ring = new HashRing(shards(1, 2, 1), VIRTUAL_NODES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.getShard("key" + i).getShardId(), 1, Integer::sum);
+        }
+        double share = (double) counts.get("shard2") / KEYS;
+        assertTrue("shard2 has " + share, share > 0.5 * 0.85 && share < 0.5 * 1.15);
+    }
+
+    @Test
+    public void shouldDrainAShardOfWeightZero() {
+        HashRing before = new HashRing(shards(1, 1, 1), VIRTUAL_NODES);
+        HashRing after = new HashRing(shards(1, 1, 0), VIRTUAL_NODES);
+        for (int i = 0; i < KEYS; i++) {
+            String key = "key" + i;
+            String shardAfter = after.getShard(key).getShardId();
+            assertNotEquals("shard3", shardAfter);
+            if (!before.getShard(key).getShardId().equals("shard3")) {
+                assertEquals(before.getShard(key).getShardId(), shardAfter);
+            }
+        }
+    }
+
+    @Test
+    public void shouldPlaceJsonAndPlainValuesAlike() {
+        HashRing ring = new HashRing(shards(1, 1, 1), VIRTUAL_NODES);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(ring.getShard(i), ring.getShard(new IntNode(i)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNeedAShard() {
+        new HashRing(shards(0), VIRTUAL_NODES);
+    }
+
+    static List<DBConnectionInfo> shards(int... weights) {
+        List<DBConnectionInfo> shards = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            DBConnectionInfo shard = new DBConnectionInfo();
+            shard.setShardId("shard" + (i + 1));
+            shard.setShardLabel(String.valueOf(i + 1));
+            shard.setWeight(weights[i]);
+            shards.add(shard);
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,111 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import dev.sunbirdrc.registry.model.DBConnectionInfo;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardManagerTest {
+    private static final int SHARD_COUNT = 4;
+    private static final int THREADS = 16;
+    private static final int LOOKUPS_PER_THREAD = 20000;
+
+    private final List<DBConnectionInfo> connectionInfos = new ArrayList<>();
+    private final Map<String, DatabaseProvider> databaseProviders = new HashMap<>();
+    private ShardManager shardManager;
+
+    @Before
+    public void setUp() {
+        DBProviderFactory dbProviderFactory = mock(DBProviderFactory.class);
+        for (int i = 1; i <= SHARD_COUNT; i++) {
+            DBConnectionInfo connectionInfo = new DBConnectionInfo();
+            connectionInfo.setShardId("shard" + i);
+            connectionInfo.setShardLabel(String.valueOf(i));
+            connectionInfos.add(connectionInfo);
+            DatabaseProvider databaseProvider = mock(DatabaseProvider.class);
+            databaseProviders.put(connectionInfo.getShardId(), databaseProvider);
+            when(dbProviderFactory.getInstance(connectionInfo)).thenReturn(databaseProvider);
+        }
+        DBConnectionInfoMgr dbConnectionInfoMgr = mock(DBConnectionInfoMgr.class);
+        when(dbConnectionInfoMgr.getConnectionInfo()).thenReturn(connectionInfos);
+        IShardAdvisor shardAdvisor = attributeValue -> attributeValue == null ? connectionInfos.get(0)
+                : connectionInfos.get((Integer) attributeValue % SHARD_COUNT);
+
+        shardManager = new ShardManager();
+        ReflectionTestUtils.setField(shardManager, "dbConnectionInfoMgr", dbConnectionInfoMgr);
+        ReflectionTestUtils.setField(shardManager, "dbProviderFactory", dbProviderFactory);
+        ReflectionTestUtils.setField(shardManager, "shardAdvisor", shardAdvisor);
+        shardManager.init();
+    }
+
+    @Test
+    public void shouldReturnTheSameShardOnEveryLookup() {
+        Shard shard = shardManager.activateShard("shard2");
+        assertSame(shard, shardManager.activateShard("SHARD2"));
+        assertSame(shard, shardManager.getShardByLabel("2"));
+        assertSame(shard, shardManager.getShard(1));
+        assertSame(databaseProviders.get("shard2"), shard.getDatabaseProvider());
+        assertSame(shardManager.activateShard("shard1"), shardManager.getDefaultShard());
+        assertSame(shardManager.activateShard("shard1"), shardManager.activateShard(null));
+        assertSame(shardManager.activateShard("shard1"), shardManager.getShardByLabel(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAnUnknownShard() {
+        shardManager.activateShard("shard9");
+    }
+
+    @Test
+    public void shouldNotLeakShardsAcrossConcurrentRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> mismatches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            mismatches.add(executor.submit(() -> {
+                start.await();
+                int mismatch = 0;
+                for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                    int shardNumber = ThreadLocalRandom.current().nextInt(SHARD_COUNT) + 1;
+                    String shardId = "shard" + shardNumber;
+                    Shard byAdvisor = shardManager.getShard(shardNumber - 1);
+                    Shard byId = shardManager.activateShard(shardId);
+                    Shard byLabel = shardManager.getShardByLabel(String.valueOf(shardNumber));
+                    for (Shard shard : new Shard[]{byAdvisor, byId, byLabel}) {
+                        if (!shardId.equals(shard.getShardId())
+                                || !String.valueOf(shardNumber).equals(shard.getShardLabel())
+                                || databaseProviders.get(shardId) != shard.getDatabaseProvider()) {
+                            mismatch++;
+                        }
+                    }
+                }
+                return mismatch;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> mismatch : mismatches) {
+            total += mismatch.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(0, total);
+    }
+}
@@ -0,0 +1,160 @@
+package dev.sunbirdrc.registry.sink.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.sunbirdrc.registry.dao.VertexReader;
+import dev.sunbirdrc.registry.dao.VertexWriter;
+import dev.sunbirdrc.registry.middleware.util.Constants;
+import dev.sunbirdrc.registry.model.DBConnectionInfoMgr;
+import dev.sunbirdrc.registry.sink.DBProviderFactory;
+import dev.sunbirdrc.registry.sink.DatabaseProvider;
+import dev.sunbirdrc.registry.util.DefinitionsManager;
+import dev.sunbirdrc.registry.util.OSResourceLoader;
+import dev.sunbirdrc.registry.util.ParentLabelGenerator;
+import dev.sunbirdrc.registry.util.ReadConfiguratorFactory;
+import org.apache.tinkerpop.gremlin.structure.Graph;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DefinitionsManager.class, ObjectMapper.class, DBProviderFactory.class, DBConnectionInfoMgr.class, OSResourceLoader.class})
+@ActiveProfiles(Constants.TEST_ENVIRONMENT)
+public class ShardRebalancerTest {
+    private static final String testUuidPropertyName = "tid";
+    private static final String SHARD_PROPERTY = "serialNum";
+    private static final int TEACHERS = 20;
+    private static final String GROUP_EDGE = "teachers";
+
+    @Autowired
+    private DefinitionsManager definitionsManager;
+    @Autowired
+    private DBProviderFactory dbProviderFactory;
+    @Autowired
+    private DBConnectionInfoMgr dbConnectionInfoMgr;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, DatabaseProvider> shards = new HashMap<>();
+    private Graph shard1;
+    private Graph shard2;
+
+    @Before
+    public void setUp() {
+        dbConnectionInfoMgr.setUuidPropertyName(testUuidPropertyName);
+        shards.put("shard1", dbProviderFactory.getInstance(null));
+        shards.put("shard2", dbProviderFactory.getInstance(null));
+        shard1 = shards.get("shard1").getOSGraph().getGraphStore();
+        shard2 = shards.get("shard2").getOSGraph().getGraphStore();
+    }
+
+    @Test
+    public void shouldMoveOnlyTheRecordsOfTheNewShard() throws Exception {
+        Map<String, Integer> serialNums = new LinkedHashMap<>();
+        Map<String, JsonNode> teachers = new HashMap<>();
+        for (int i = 0; i < TEACHERS; i++) {
+            String osid = writeTeacher(i);
+            serialNums.put(osid, i);
+            teachers.put(osid, read(shards.get("shard1"), shard1, osid));
+        }
+
+        HashRing previous = new HashRing(HashRingTest.shards(1), 16);
+        HashRing current = new HashRing(HashRingTest.shards(1, 1), 16);
+        Set<String> notified = new HashSet<>();
+        ShardRebalancer rebalancer = new ShardRebalancer(testUuidPropertyName, SHARD_PROPERTY, Collections.singleton("Teacher"),
+                (entityType, uuid, to) -> {
+                    assertEquals("Teacher", entityType);
+                    assertEquals("shard2", to.getShardId());
+                    notified.add(uuid);
+                });
+        int moved = rebalancer.rebalance(previous, current, shards);
+
+        int expectedMoves = 0;
+        for (Map.Entry<String, Integer> teacher : serialNums.entrySet()) {
+            String osid = teacher.getKey();
+            boolean onShard2 = current.getShard(teacher.getValue()).getShardId().equals("shard2");
+            Graph graph = onShard2 ? shard2 : shard1;
+            DatabaseProvider databaseProvider = shards.get(onShard2 ? "shard2" : "shard1");
+            assertEquals(teachers.get(osid), read(databaseProvider, graph, osid));
+            assertEquals(onShard2, shard1.traversal().V().hasLabel(Constants.RELOCATED_KEYWORD)
+                    .has(Constants.RELOCATED_UUID, osid).has(Constants.RELOCATED_SHARD_LABEL, "2").hasNext());
+            assertEquals(onShard2, notified.contains(osid));
+            assertTrue(graph.traversal().V().hasLabel(ParentLabelGenerator.getLabel("Teacher"))
+                    .out(GROUP_EDGE).has(testUuidPropertyName, osid).hasNext());
+            if (onShard2) {
+                assertFalse(shard1.traversal().V().has(Constants.ROOT_KEYWORD, osid).hasNext());
+                assertFalse(shard1.traversal().V().has(testUuidPropertyName, osid).hasNext());
+                expectedMoves++;
+            }
+        }
+        assertTrue(expectedMoves > 0 && expectedMoves < TEACHERS);
+        assertEquals(expectedMoves, moved);
+
+        assertEquals(0, rebalancer.rebalance(previous, current, shards));
+    }
+
+    @Test
+    public void shouldRedoAMoveInterruptedAfterTheCopy() throws Exception {
+        HashRing previous = new HashRing(HashRingTest.shards(1), 16);
+        HashRing current = new HashRing(HashRingTest.shards(1, 1), 16);
+        int serialNum = 0;
+        while (!current.getShard(serialNum).getShardId().equals("shard2")) {
+            serialNum++;
+        }
+        String osid = writeTeacher(serialNum);
+        // the copy of an earlier run, made before the record was updated on its old shard
+        Vertex staleCopy = shard2.addVertex("Teacher");
+        staleCopy.property(testUuidPropertyName, osid);
+        staleCopy.property("teacherName", "stale");
+        JsonNode teacher = read(shards.get("shard1"), shard1, osid);
+
+        ShardRebalancer rebalancer = new ShardRebalancer(testUuidPropertyName, SHARD_PROPERTY, Collections.singleton("Teacher"));
+        assertEquals(1, rebalancer.rebalance(previous, current, shards));
+
+        assertEquals(teacher, read(shards.get("shard2"), shard2, osid));
+        assertEquals(1L, (long) shard2.traversal().V().hasLabel("Teacher").has(testUuidPropertyName, osid).count().next());
+    }
+
+    @Test
+    public void shouldRecordTheRebalancing() throws Exception {
+        HashRing previous = new HashRing(HashRingTest.shards(1), 16);
+        HashRing current = new HashRing(HashRingTest.shards(1, 1), 16);
+        ShardRebalancer rebalancer = new ShardRebalancer(testUuidPropertyName, SHARD_PROPERTY, Collections.singleton("Teacher"));
+        assertFalse(rebalancer.isRebalanced(shards.get("shard1"), previous, current));
+
+        rebalancer.markRebalanced(shards.get("shard1"), previous, current);
+
+        assertTrue(rebalancer.isRebalanced(shards.get("shard1"), previous, current));
+        assertFalse(rebalancer.isRebalanced(shards.get("shard1"), current, new HashRing(HashRingTest.shards(1, 1, 1), 16)));
+    }
+
+    private String writeTeacher(int serialNum) throws Exception {
+        VertexWriter vertexWriter = new VertexWriter(shard1, shards.get("shard1"), testUuidPropertyName);
+        Vertex group = vertexWriter.ensureParentVertex(ParentLabelGenerator.getLabel("Teacher"));
+        String osid = vertexWriter.writeNodeEntity(objectMapper.readTree(String.format("{\"Teacher\": {\"serialNum\": %d, " +
+                "\"teacherName\": \"teacher%d\", \"subjects\": [\"maths\"], \"address\": {\"city\": \"Delhi\"}}}", serialNum, serialNum)));
+        vertexWriter.addEdge(GROUP_EDGE, group, shard1.traversal().V().hasLabel("Teacher").has(testUuidPropertyName, osid).next());
+        return osid;
+    }
+
+    private JsonNode read(DatabaseProvider databaseProvider, Graph graph, String osid) throws Exception {
+        VertexReader vertexReader = new VertexReader(databaseProvider, graph, ReadConfiguratorFactory.getDefault(),
+                testUuidPropertyName, definitionsManager);
+        return vertexReader.read("Teacher", osid);
+    }
+}
@@ -8,7 +8,10 @@ import org.springframework.test.context.junit4.SpringRunner;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
@@ -149,4 +152,24 @@ public class ArrayHelperTest {
         String actual = ArrayHelper.unquoteString(qStr);
         assertTrue(actual == "a");
     }
+
+    @Test
+    public void testToNativeArray() {
+        assertArrayEquals(new String[]{"maths", "science"},
+                (String[]) ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[\"maths\",\"science\"]")));
+        assertArrayEquals(new long[]{1, 2, 3}, (long[]) ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[1,2,3]")));
+        assertArrayEquals(new double[]{1, 2.5}, (double[]) ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[1,2.5]")), 0);
+        assertEquals(0, ((String[]) ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[]"))).length);
+        assertNull(ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[1,\"a\"]")));
+        assertNull(ArrayHelper.toNativeArray(ArrayHelper.constructArrayNode("[{\"a\":1}]")));
+    }
+
+    @Test
+    public void testToArrayNodeMatchesTheStringStorage() {
+        String[] arrays = {"[\"maths\",\"science\"]", "[1,2,3]", "[1.5,2.5]", "[true,false]"};
+        for (String array : arrays) {
+            ArrayNode arrayNode = ArrayHelper.constructArrayNode(array);
+            assertEquals(arrayNode, ArrayHelper.toArrayNode(ArrayHelper.toNativeArray(arrayNode)));
+        }
+    }
 }
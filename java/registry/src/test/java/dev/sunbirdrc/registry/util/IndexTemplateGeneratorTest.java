@@ -0,0 +1,89 @@
+package dev.sunbirdrc.registry.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.sunbirdrc.elastic.IndexTemplate;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexTemplateGeneratorTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IndexTemplateGenerator indexTemplateGenerator;
+    private Map<String, Definition> definitionMap;
+
+    @Before
+    public void setup() throws IOException {
+        DefinitionsManager definitionsManager = new DefinitionsManager();
+        definitionMap = new HashMap<>();
+        definitionMap.put("Employee", new Definition(readResource("Employee.json")));
+        definitionMap.put("Common", new Definition(readResource("Common.json")));
+        ReflectionTestUtils.setField(definitionsManager, "definitionMap", definitionMap);
+
+        indexTemplateGenerator = new IndexTemplateGenerator();
+        ReflectionTestUtils.setField(indexTemplateGenerator, "definitionsManager", definitionsManager);
+        ReflectionTestUtils.setField(indexTemplateGenerator, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(indexTemplateGenerator, "uuidPropertyName", "osid");
+    }
+
+    private JsonNode readResource(String name) throws IOException {
+        return objectMapper.readTree(getClass().getClassLoader().getResourceAsStream("indexTemplate/" + name));
+    }
+
+    @Test
+    public void shouldGenerateTheTemplateOfTheSnapshot() throws IOException {
+        IndexTemplate template = indexTemplateGenerator.generate(definitionMap.get("Employee"));
+
+        JsonNode snapshot = readResource("Employee-template.json");
+        ObjectNode mapping = template.getMapping().deepCopy();
+        mapping.remove(IndexTemplate.META);
+        assertEquals(snapshot.get("settings"), template.getSettings());
+        assertEquals(snapshot.get("mapping"), mapping);
+        assertEquals(template.getMappingHash(), template.getMapping().at("/_meta/mappingHash").asText());
+        assertEquals(template.getSettingsHash(), template.getMapping().at("/_meta/settingsHash").asText());
+    }
+
+    @Test
+    public void shouldTellTheKindOfTheStringFields() {
+        IndexTemplate template = indexTemplateGenerator.generate(definitionMap.get("Employee"));
+
+        assertTrue(template.isKeywordField("osid"));
+        assertTrue(template.isKeywordField("grade"));
+        assertTrue(template.isKeywordField("identity.idType"));
+        assertTrue(template.isKeywordField("projects.osid"));
+        assertTrue(template.isTextField("name"));
+        assertTrue(template.isTextField("address.line1"));
+        assertTrue(template.isTextField("projects.title"));
+        assertFalse(template.isTextField("identity.idValue"));
+        assertFalse(template.isKeywordField("identity.idValue"));
+        assertFalse(template.isTextField("medical.bloodGroup"));
+        assertTrue(template.isSearchableKeywordField("grade"));
+        assertTrue(template.isSearchableKeywordField("email"));
+        assertTrue(template.isSearchableKeywordField("identity.idType"));
+        assertFalse(template.isSearchableKeywordField("osid"));
+        assertFalse(template.isSearchableKeywordField("identity.idValue"));
+    }
+
+    @Test
+    public void shouldChangeTheHashWithTheSchema() throws IOException {
+        IndexTemplate template = indexTemplateGenerator.generate(definitionMap.get("Employee"));
+        ObjectNode schema = (ObjectNode) readResource("Employee.json");
+        ((ObjectNode) schema.at("/definitions/Employee/properties/experienceYears")).put("type", "number");
+
+        IndexTemplate changed = indexTemplateGenerator.generate(new Definition(schema));
+
+        assertNotEquals(template.getMappingHash(), changed.getMappingHash());
+        assertEquals(template.getSettingsHash(), changed.getSettingsHash());
+        assertEquals(template.getMappingHash(), indexTemplateGenerator.generate(definitionMap.get("Employee")).getMappingHash());
+    }
+}
@@ -0,0 +1,105 @@
+package dev.sunbirdrc.registry.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MpiBlockingIndexTest {
+	private static final String CAIRO_1990 = "29001010112345";
+	private static final String GIZA_2005 = "30506152118725";
+
+	private MpiBlockingIndex index;
+
+	@Before
+	public void setUp() {
+		index = new MpiBlockingIndex(0.85, 20);
+		index.put("1", "محمد أحمد عبد الرحمن", CAIRO_1990);
+		index.put("2", "محمود أحمد علي", null);
+		index.put("3", "فاطمة الزهراء محمود", GIZA_2005);
+		index.put("4", "Mohamed Ahmed Abdel Rahman", null);
+		index.put("5", "Ahmed Mohamed Hassan", null);
+	}
+
+	@Test
+	public void testFindsArabicSpellingVariants() {
+		List<MpiBlockingIndex.Candidate> candidates = index.findCandidates("مُحَمَّد احمد عبدالرحمن", null);
+		assertEquals(1, candidates.size());
+		assertEquals("1", candidates.get(0).getId());
+		assertTrue(candidates.get(0).getScore() >= 0.85);
+		assertFalse(candidates.get(0).isNationalIdMatch());
+	}
+
+	@Test
+	public void testFindsTransliterationVariants() {
+		List<MpiBlockingIndex.Candidate> candidates = index.findCandidates("Mohammed Ahmad Abdelrahman", null);
+		assertEquals(1, candidates.size());
+		assertEquals("4", candidates.get(0).getId());
+	}
+
+	@Test
+	public void testBlocksOnlyRecordsSharingAKey() {
+		assertEquals(Collections.singleton("1"), index.getBlockedIds("محمد احمد عبدالرحمن", null));
+		assertEquals(Collections.singleton("4"), index.getBlockedIds("Muhammad Ahmed", null));
+		assertTrue(index.getBlockedIds("سارة حسن", null).isEmpty());
+	}
+
+	@Test
+	public void testBirthYearAndGovernorateBlockCatchesTyposInTheFatherName() {
+		// خ and ح have different codes, so the name block misses this one
+		String name = "محمد اخمد عبد الرحمن";
+		assertTrue(index.getBlockedIds(name, null).isEmpty());
+		// a different national id of the same birth year and governorate
+		assertEquals(Collections.singleton("1"), index.getBlockedIds(name, "29005050112349"));
+	}
+
+	@Test
+	public void testNationalIdMatchIsACandidateWhateverTheName() {
+		List<MpiBlockingIndex.Candidate> candidates = index.findCandidates("سارة حسن", "3050615-2118725");
+		assertEquals(1, candidates.size());
+		assertEquals("3", candidates.get(0).getId());
+		assertTrue(candidates.get(0).isNationalIdMatch());
+		assertTrue(candidates.get(0).getScore() < 0.85);
+	}
+
+	@Test
+	public void testUpdateMovesTheRecordToItsNewBlocks() {
+		index.put("1", "سارة حسن", null);
+		assertEquals(5, index.size());
+		assertFalse(index.getBlockedIds("محمد احمد عبدالرحمن", CAIRO_1990).contains("1"));
+		assertEquals(Collections.singleton("1"), index.getBlockedIds("ساره حسن", null));
+	}
+
+	@Test
+	public void testRemove() {
+		int blockCount = index.getBlockCount();
+		index.remove("3");
+		index.remove("unknown");
+		assertEquals(4, index.size());
+		assertTrue(index.findCandidates("فاطمه الزهراء محمود", GIZA_2005).isEmpty());
+		assertTrue(index.getBlockCount() < blockCount);
+	}
+
+	@Test
+	public void testCandidatesAreLimitedAndSortedByScore() {
+		MpiBlockingIndex limited = new MpiBlockingIndex(0.5, 2);
+		limited.put("a", "محمد أحمد", null);
+		limited.put("b", "محمد أحمد عبد الرحمن", null);
+		limited.put("c", "محمد أحمد علي حسن", null);
+		List<MpiBlockingIndex.Candidate> candidates = limited.findCandidates("محمد أحمد", null);
+		assertEquals(2, candidates.size());
+		assertEquals("a", candidates.get(0).getId());
+		assertTrue(candidates.get(0).getScore() >= candidates.get(1).getScore());
+	}
+
+	@Test
+	public void testEnglishCodeIgnoresVowelsAndDoubledLetters() {
+		assertEquals("mhmd", MpiBlockingIndex.englishCode("Mohamed"));
+		assertEquals("mhmd", MpiBlockingIndex.englishCode("Muhammad"));
+		assertEquals("ahmd", MpiBlockingIndex.englishCode("Ahmad"));
+		assertEquals(MpiBlockingIndex.englishCode("Fatma"), MpiBlockingIndex.englishCode("Fatima"));
+	}
+}
@@ -0,0 +1,71 @@
+package dev.sunbirdrc.registry.util;
+
+import dev.sunbirdrc.registry.sink.shard.Shard;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RegistryMetricsTest {
+	private SimpleMeterRegistry meterRegistry;
+	private RegistryMetrics registryMetrics;
+
+	@Before
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		DefinitionsManager definitionsManager = mock(DefinitionsManager.class);
+		when(definitionsManager.getDefinition("Teacher")).thenReturn(mock(Definition.class));
+		registryMetrics = new RegistryMetrics(meterRegistry, definitionsManager, true, false);
+	}
+
+	@Test
+	public void testTimerIsTaggedByOperationEntityTypeShardAndOutcome() {
+		Shard shard = new Shard("shard1", "1", null);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.add, "Teacher", shard, true);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.add, "Teacher", shard, true);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.add, "Teacher", shard, false);
+
+		Timer succeeded = meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "add", "entityType", "Teacher", "shard", "1", "outcome", "success").timer();
+		assertEquals(2, succeeded.count());
+		Timer failed = meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "add", "entityType", "Teacher", "shard", "1", "outcome", "failure").timer();
+		assertEquals(1, failed.count());
+	}
+
+	@Test
+	public void testMissingEntityTypeAndShardLabel() {
+		Shard shard = new Shard("shard1", "", null);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.delete, null, shard, true);
+
+		assertEquals(1, meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "delete", "entityType", RegistryMetrics.UNKNOWN_ENTITY_TYPE, "shard", RegistryMetrics.ALL_SHARDS)
+				.timer().count());
+	}
+
+	@Test
+	public void testTagValuesAreBounded() {
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.read, "Teacher1", "1", true);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.read, "<script>", "1", true);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.search, true);
+
+		assertEquals(2, meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "read", "entityType", RegistryMetrics.OTHER_ENTITY_TYPE).timer().count());
+		assertEquals(1, meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "search", "entityType", RegistryMetrics.ALL_ENTITY_TYPES, "shard", RegistryMetrics.ALL_SHARDS)
+				.timer().count());
+	}
+
+	@Test
+	public void testShardsAreNotTaggedByDefault() {
+		registryMetrics = new RegistryMetrics(meterRegistry, mock(DefinitionsManager.class), false, false);
+		registryMetrics.stop(registryMetrics.start(), RegistryMetrics.Operation.add, "Teacher", new Shard("shard1", "1", null), true);
+
+		assertEquals(1, meterRegistry.get(RegistryMetrics.TIMER_NAME)
+				.tags("operation", "add", "shard", RegistryMetrics.ALL_SHARDS).timer().count());
+	}
+}
@@ -0,0 +1,78 @@
+package dev.sunbirdrc.registry.util;
+
+import org.junit.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.Assert.*;
+
+public class VerifiedTokenCacheTest {
+    private static final int MAX_SIZE = 10000;
+    private static final int REQUESTS = 1_000_000;
+    private static final long HOUR = 3600_000L;
+
+    private final Authentication authentication = new TestingAuthenticationToken("user", null, "admin");
+
+    @Test
+    public void shouldReturnTheAuthenticationOfAVerifiedToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(MAX_SIZE);
+        cache.put("token", authentication, System.currentTimeMillis() + HOUR);
+
+        assertSame(authentication, cache.get("token"));
+        assertNull(cache.get("other token"));
+    }
+
+    @Test
+    public void shouldDropTheExpiredTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(MAX_SIZE);
+        cache.put("expired", authentication, System.currentTimeMillis() - 1);
+        cache.put("expiring", authentication, System.currentTimeMillis() + 50);
+
+        assertNull(cache.get("expired"));
+        assertEquals(1, cache.size());
+        await(100);
+        assertNull(cache.get("expiring"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldKeepTheHeapConstantOverAMillionDistinctTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(MAX_SIZE);
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        for (int i = 0; i < MAX_SIZE * 2; i++) {
+            cache.put("token" + i, authentication, expiresAt);
+        }
+        long usedAfterFill = usedHeap();
+
+        for (int i = MAX_SIZE * 2; i < REQUESTS; i++) {
+            String token = "token" + i;
+            if (cache.get(token) == null) {
+                cache.put(token, authentication, expiresAt);
+            }
+        }
+        long usedAfterAll = usedHeap();
+
+        assertEquals(MAX_SIZE, cache.size());
+        assertSame(authentication, cache.get("token" + (REQUESTS - 1)));
+        assertNull(cache.get("token0"));
+        assertTrue("heap grew by " + (usedAfterAll - usedAfterFill) + " bytes",
+                usedAfterAll - usedAfterFill < 16 * 1024 * 1024);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            await(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void await(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,23 +4,18 @@ package dev.sunbirdrc.actors;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.sunbirdrc.elastic.ESMessage;
 import dev.sunbirdrc.elastic.ElasticServiceImpl;
-import dev.sunbirdrc.elastic.IElasticService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.sunbird.akka.core.BaseActor;
 import org.sunbird.akka.core.MessageProtos;
 
 public class ElasticSearchActor extends BaseActor {
-    public IElasticService elasticSearch;
-    public ObjectMapper objectMapper;
+    // Shared by all the actors, the clients of ElasticServiceImpl are static anyway
+    private static final ElasticServiceImpl elasticSearch = new ElasticServiceImpl();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     public void onReceive(MessageProtos.Message request) throws Throwable {
         logger.debug("Received a message to ElasticSearch Actor {}", request.getPerformOperation());
-        MessageProtos.Message.Builder msgBuilder = MessageProtos.Message.newBuilder();
-        elasticSearch = new ElasticServiceImpl();
-        objectMapper = new ObjectMapper();
         ESMessage esMessage = objectMapper.readValue(request.getPayload().getStringValue(), ESMessage.class);
-        //ESMessage es =  objectMapper.writeValue(request.getPayload(), ESMessage.class);
         switch (request.getPerformOperation()) {
             case "ADD":
                 elasticSearch.addEntity(esMessage.getIndexName(), esMessage.getOsid(), esMessage.getInput());
@@ -5,10 +5,22 @@ import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
 import org.apache.commons.jexl2.MapContext;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class FunctionEvaluator implements IEvaluator<Object>{
 
     private static final JexlEngine jexl = new JexlEngine();
+    private static final int EXPRESSION_CACHE_SIZE = 512;
+    // created expressions by their text, the least recently used one is evicted once full
+    private static final Map<String, Expression> expressionCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Expression>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+                    return size() > EXPRESSION_CACHE_SIZE;
+                }
+            });
     private JexlContext jexlContext = new MapContext();
     private FieldFunction function;
     private Expression jexlExpression;
@@ -29,10 +41,22 @@ public class FunctionEvaluator implements IEvaluator<Object>{
     }
 
     private void prepare() {
-        jexlExpression = jexl.createExpression(function.getExpression());
+        jexlExpression = getExpression(function.getExpression());
         setContextArgs();
     }
 
+    /**
+     * Expressions hold no evaluation state, so one is shared by all the evaluations of its text
+     */
+    private static Expression getExpression(String text) {
+        Expression expression = expressionCache.get(text);
+        if (expression == null) {
+            expression = jexl.createExpression(text);
+            expressionCache.put(text, expression);
+        }
+        return expression;
+    }
+
     @Override
     public Object evaluate() {
         prepare();
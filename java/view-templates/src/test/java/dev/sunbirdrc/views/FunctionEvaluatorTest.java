@@ -0,0 +1,31 @@
+package dev.sunbirdrc.views;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class FunctionEvaluatorTest {
+
+    private Object evaluate(String expression, List<Object> args) {
+        FieldFunction function = new FieldFunction(expression);
+        function.setArgValues(args);
+        return new FunctionEvaluator(function).evaluate();
+    }
+
+    @Test
+    public void testSharedExpressionIsEvaluatedWithItsOwnArgs() {
+        String expression = "arg1 + \", \" + arg2";
+        assertEquals("Doe, John", evaluate(expression, Arrays.<Object>asList("Doe", "John")));
+        assertEquals("Roe, Jane", evaluate(expression, Arrays.<Object>asList("Roe", "Jane")));
+    }
+
+    @Test
+    public void testDifferentExpressions() {
+        assertEquals(5, ((Number) evaluate("arg1 + arg2", Arrays.<Object>asList(2, 3))).intValue());
+        assertEquals(6, ((Number) evaluate("arg1 * arg2", Arrays.<Object>asList(2, 3))).intValue());
+    }
+
+}
@@ -0,0 +1,4 @@
+#!/bin/sh
+
+# Return service metadata
+echo '{"name":"registry","version":"2.0.3","org":"sunbird","hubuser":"purplesunbird"}'